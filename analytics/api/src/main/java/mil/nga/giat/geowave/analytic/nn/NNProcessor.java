@@ -1,9 +1,12 @@
 package mil.nga.giat.geowave.analytic.nn;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -16,6 +19,9 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
 /**
  * 
  * This class is designed to support secondary partitioning.
@@ -37,6 +43,10 @@ import org.slf4j.LoggerFactory;
  * particular neighbor can be inferred and, therefore, can be removed from the
  * set of primaries to be inspected. This has no effect on secondaries.
  * 
+ * If a spatial extent function is provided, the items of each partition are
+ * indexed in an STR-tree and each primary is only compared to the items whose
+ * envelope intersects its search envelope for the maximum distance.
+ * 
  * The processor can be called multiple times, as the 'process' algorithm does
  * not alter its internal state. The notification callback can be used to alter
  * the internal state (e.g. calling 'add' or 'remove' methods). Caution should
@@ -67,6 +77,8 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 	protected final double maxDistance;
 	protected final PartitionData parentPartition;
 	private int upperBoundPerPartition = 75000;
+	private SpatialExtentFn<STORE_VALUE> spatialExtentFn = null;
+	final Map<PartitionData, PartitionIndex> spatialIndices = new HashMap<PartitionData, PartitionIndex>();
 
 	/**
 	 * Run State
@@ -113,6 +125,7 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 			LOGGER.warn("At upper bound on partition.  Increase the bounds or condense the data.");
 		}
 		idsSet.add(itemId);
+		spatialIndices.remove(singleton);
 
 		Set<PartitionData> partitionSet = idsToPartition.get(itemId);
 		if (partitionSet == null) {
@@ -241,6 +254,8 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 		index = new NeighborIndex<STORE_VALUE>(
 				listFactory);
+		// items may have been altered since a prior run
+		spatialIndices.clear();
 
 		double farthestDistance = 0;
 		ByteArrayId farthestNeighbor = null;
@@ -272,8 +287,14 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 					primary);
 
 			for (PartitionData pd : partition) {
-				for (ByteArrayId neighborId : partitionsToIds.get(pd)) {
+				final Set<ByteArrayId> partitionIds = partitionsToIds.get(pd);
+				for (ByteArrayId neighborId : getCandidates(
+						pd,
+						partitionIds,
+						primary)) {
 					if (neighborId.equals(primaryId)) continue;
+					// an index may hold items since removed from the partition
+					if (!partitionIds.contains(neighborId)) continue;
 					boolean isAPrimary = true;
 					STORE_VALUE neighbor = primaries.get(neighborId);
 					if (neighbor == null) {
@@ -327,6 +348,93 @@ public class NNProcessor<PARTITION_VALUE, STORE_VALUE>
 
 	}
 
+	/**
+	 * 
+	 * @return the items of the partition that may be within the maximum
+	 *         distance of the primary
+	 */
+	private Collection<ByteArrayId> getCandidates(
+			final PartitionData pd,
+			final Set<ByteArrayId> partitionIds,
+			final STORE_VALUE primary ) {
+		if (spatialExtentFn == null) {
+			return partitionIds;
+		}
+		final Envelope searchEnvelope = spatialExtentFn.getSearchEnvelope(
+				primary,
+				maxDistance);
+		if (searchEnvelope == null) {
+			return partitionIds;
+		}
+		PartitionIndex partitionIndex = spatialIndices.get(pd);
+		if (partitionIndex == null) {
+			partitionIndex = new PartitionIndex(
+					partitionIds);
+			spatialIndices.put(
+					pd,
+					partitionIndex);
+		}
+		return partitionIndex.query(searchEnvelope);
+	}
+
+	/**
+	 * An STR-tree of the items of a partition, built on first use. Items
+	 * without an envelope are candidates of every search.
+	 */
+	private class PartitionIndex
+	{
+		private final STRtree tree = new STRtree();
+		private final List<ByteArrayId> unlocatedIds = new ArrayList<ByteArrayId>();
+
+		public PartitionIndex(
+				final Set<ByteArrayId> partitionIds ) {
+			for (final ByteArrayId id : partitionIds) {
+				STORE_VALUE value = primaries.get(id);
+				if (value == null) {
+					value = others.get(id);
+				}
+				if (value == null) {
+					continue;
+				}
+				final Envelope envelope = spatialExtentFn.getEnvelope(value);
+				if (envelope == null) {
+					unlocatedIds.add(id);
+				}
+				else {
+					tree.insert(
+							envelope,
+							id);
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		public Collection<ByteArrayId> query(
+				final Envelope searchEnvelope ) {
+			final List<ByteArrayId> candidates = tree.query(searchEnvelope);
+			if (!unlocatedIds.isEmpty()) {
+				candidates.addAll(unlocatedIds);
+			}
+			return candidates;
+		}
+	}
+
+	public SpatialExtentFn<STORE_VALUE> getSpatialExtentFn() {
+		return spatialExtentFn;
+	}
+
+	/**
+	 * 
+	 * @param spatialExtentFn
+	 *            locates items to index the partitions, null to compare each
+	 *            primary with every item of its partitions
+	 */
+	public void setSpatialExtentFn(
+			final SpatialExtentFn<STORE_VALUE> spatialExtentFn ) {
+		this.spatialExtentFn = spatialExtentFn;
+		spatialIndices.clear();
+	}
+
 	public int getUpperBoundPerPartition() {
 		return upperBoundPerPartition;
 	}
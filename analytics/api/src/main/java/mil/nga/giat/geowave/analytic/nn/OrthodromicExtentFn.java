@@ -0,0 +1,65 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Locate items by a geometry in WGS84 longitude and latitude, for use with
+ * distance functions that measure the orthodromic distance in meters.
+ *
+ * The search envelope is a conservative conversion of the distance to degrees
+ * on the WGS84 ellipsoid. Searches that would cross the date line or approach a
+ * pole are not bounded.
+ *
+ * @param <ITEM>
+ */
+public abstract class OrthodromicExtentFn<ITEM> implements
+		SpatialExtentFn<ITEM>
+{
+	// the shortest degree of latitude, at the equator
+	private static final double MIN_METERS_PER_DEGREE_LATITUDE = 110574.0;
+	// a degree of longitude at the equator, which only shrinks with the cosine
+	// of the latitude on the ellipsoid
+	private static final double METERS_PER_DEGREE_LONGITUDE_AT_EQUATOR = 111319.0;
+	private static final double SAFETY_FACTOR = 1.01;
+	private static final double MAX_BOUNDED_LATITUDE = 89.0;
+
+	protected abstract Geometry getGeometry(
+			ITEM item );
+
+	@Override
+	public Envelope getEnvelope(
+			final ITEM item ) {
+		final Geometry geometry = getGeometry(item);
+		if ((geometry == null) || geometry.isEmpty()) {
+			return null;
+		}
+		return geometry.getEnvelopeInternal();
+	}
+
+	@Override
+	public Envelope getSearchEnvelope(
+			final ITEM item,
+			final double distance ) {
+		final Envelope envelope = getEnvelope(item);
+		if (envelope == null) {
+			return null;
+		}
+		final double latitudeDelta = (distance / MIN_METERS_PER_DEGREE_LATITUDE) * SAFETY_FACTOR;
+		final double maxLatitude = Math.max(
+				Math.abs(envelope.getMinY() - latitudeDelta),
+				Math.abs(envelope.getMaxY() + latitudeDelta));
+		if (maxLatitude >= MAX_BOUNDED_LATITUDE) {
+			return null;
+		}
+		final double longitudeDelta = (distance / (METERS_PER_DEGREE_LONGITUDE_AT_EQUATOR * Math.cos(Math.toRadians(maxLatitude)))) * SAFETY_FACTOR;
+		if (((envelope.getMinX() - longitudeDelta) < -180) || ((envelope.getMaxX() + longitudeDelta) > 180)) {
+			return null;
+		}
+		return new Envelope(
+				envelope.getMinX() - longitudeDelta,
+				envelope.getMaxX() + longitudeDelta,
+				envelope.getMinY() - latitudeDelta,
+				envelope.getMaxY() + latitudeDelta);
+	}
+}
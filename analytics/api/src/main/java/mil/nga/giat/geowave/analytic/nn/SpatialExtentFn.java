@@ -0,0 +1,35 @@
+package mil.nga.giat.geowave.analytic.nn;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Locate items in space so that the candidate neighbors of an item can be
+ * found with a spatial index, rather than comparing the item with every other
+ * item of its partitions.
+ *
+ * @param <ITEM>
+ */
+public interface SpatialExtentFn<ITEM>
+{
+	/**
+	 *
+	 * @param item
+	 * @return the envelope of the item, or null if it cannot be located (it is
+	 *         then a candidate neighbor of every item)
+	 */
+	public Envelope getEnvelope(
+			ITEM item );
+
+	/**
+	 *
+	 * @param item
+	 * @param distance
+	 *            a distance in the units of the distance profile function
+	 * @return an envelope that intersects the envelope of every item within the
+	 *         distance of the given item, or null if every item must be
+	 *         considered
+	 */
+	public Envelope getSearchEnvelope(
+			ITEM item,
+			double distance );
+}
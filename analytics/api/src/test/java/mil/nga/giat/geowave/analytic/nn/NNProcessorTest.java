@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,9 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vividsolutions.jts.geom.Envelope;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assert.assertNotNull;
@@ -173,6 +177,64 @@ public class NNProcessorTest
 				});
 	}
 
+	@Test
+	public void testSpatialIndexOp()
+			throws IOException,
+			InterruptedException {
+		final NNProcessor<Integer, Integer> processor = buildProcessor();
+		processor.setSpatialExtentFn(new SpatialExtentFn<Integer>() {
+
+			@Override
+			public Envelope getEnvelope(
+					Integer item ) {
+				return new Envelope(
+						item.doubleValue(),
+						item.doubleValue(),
+						0,
+						0);
+			}
+
+			@Override
+			public Envelope getSearchEnvelope(
+					Integer item,
+					double distance ) {
+				final Envelope envelope = getEnvelope(item);
+				envelope.expandBy(distance);
+				return envelope;
+			}
+		});
+		final Set<Integer> completed = new HashSet<Integer>();
+		runProcess(
+				processor,
+				new CompleteNotifier<Integer>() {
+
+					@Override
+					public void complete(
+							ByteArrayId id,
+							Integer value,
+							NeighborList<Integer> list )
+							throws IOException,
+							InterruptedException {
+						Iterator<Entry<ByteArrayId, Integer>> it = list.iterator();
+						List<Integer> expectedResultSet = new ArrayList<Integer>(
+								expectedResults.get(value));
+						assertNotNull(expectedResultSet);
+						while (it.hasNext()) {
+							Integer result = it.next().getValue();
+							assertTrue(
+									"" + value + " with " + result,
+									expectedResultSet.remove(result));
+						}
+						assertTrue(expectedResultSet.isEmpty());
+						completed.add(value);
+					}
+
+				});
+		assertEquals(
+				expectedResults.keySet(),
+				completed);
+	}
+
 	@Test
 	public void testRemoveOp()
 			throws IOException,
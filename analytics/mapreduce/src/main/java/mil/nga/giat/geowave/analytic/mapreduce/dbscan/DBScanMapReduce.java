@@ -30,6 +30,7 @@ import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
+import mil.nga.giat.geowave.analytic.nn.OrthodromicExtentFn;
 import mil.nga.giat.geowave.analytic.nn.TypeConverter;
 import mil.nga.giat.geowave.analytic.param.ClusteringParameters;
 import mil.nga.giat.geowave.analytic.param.GlobalParameters;
@@ -46,6 +47,8 @@ import org.opengis.feature.simple.SimpleFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vividsolutions.jts.geom.Geometry;
+
 /**
  * The approach differs from the approach commonly documented (e.g.
  * https://en.wikipedia.org/wiki/DBSCAN). This approach does not maintain a
@@ -392,6 +395,15 @@ public class DBScanMapReduce
 
 			distanceProfileFn = (DistanceProfileGenerateFn<?, ClusterItem>) new ClusterItemDistanceFn();
 
+			// the orthodromic distance in meters bounds the candidate neighbors
+			spatialExtentFn = new OrthodromicExtentFn<ClusterItem>() {
+				@Override
+				protected Geometry getGeometry(
+						final ClusterItem item ) {
+					return item.getGeometry();
+				}
+			};
+
 			super.distanceFn = new ClusterItemDistanceFn();
 
 		}
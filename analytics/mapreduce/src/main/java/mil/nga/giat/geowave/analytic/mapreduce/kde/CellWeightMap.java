@@ -0,0 +1,163 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kde;
+
+import java.util.Arrays;
+
+/**
+ * This is an open addressing hash map of primitive cell IDs to summed weights,
+ * used to combine the contributions of many points to the same cell within a
+ * mapper without allocating an object per contribution.
+ */
+public class CellWeightMap
+{
+	private final static int MIN_CAPACITY = 16;
+	private final static float LOAD_FACTOR = 0.75f;
+	// the key, value and slot flag of each slot
+	public final static int BYTES_PER_SLOT = 8 + 8 + 1;
+
+	private long[] keys;
+	private double[] values;
+	private boolean[] used;
+	private int size = 0;
+	private int resizeThreshold;
+
+	public CellWeightMap() {
+		this(
+				MIN_CAPACITY);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of cells expected to be held
+	 */
+	public CellWeightMap(
+			final int expectedSize ) {
+		allocate(getCapacity(expectedSize));
+	}
+
+	/**
+	 * Add a weight to the sum for a cell
+	 *
+	 * @param cellId
+	 *            the cell ID
+	 * @param weight
+	 *            the weight to add
+	 */
+	public void add(
+			final long cellId,
+			final double weight ) {
+		final int slot = getSlot(cellId);
+		if (used[slot]) {
+			values[slot] += weight;
+			return;
+		}
+		used[slot] = true;
+		keys[slot] = cellId;
+		values[slot] = weight;
+		if (++size > resizeThreshold) {
+			rehash(keys.length * 2);
+		}
+	}
+
+	/**
+	 * @return the summed weight of a cell, 0 if no weight has been added
+	 */
+	public double get(
+			final long cellId ) {
+		final int slot = getSlot(cellId);
+		return used[slot] ? values[slot] : 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Pass each cell and its summed weight to a counter and then clear this
+	 * map, retaining the allocated capacity for reuse
+	 *
+	 * @param counter
+	 *            the counter to receive the summed weights
+	 */
+	public void drainTo(
+			final CellCounter counter ) {
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				counter.increment(
+						keys[i],
+						values[i]);
+			}
+		}
+		clear();
+	}
+
+	public void clear() {
+		if (size > 0) {
+			Arrays.fill(
+					used,
+					false);
+			size = 0;
+		}
+	}
+
+	private int getSlot(
+			final long cellId ) {
+		final int mask = keys.length - 1;
+		int slot = mix(cellId) & mask;
+		// linear probing, there is always a free slot as the map is resized
+		// before it fills
+		while (used[slot] && (keys[slot] != cellId)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash(
+			final int capacity ) {
+		final long[] oldKeys = keys;
+		final double[] oldValues = values;
+		final boolean[] oldUsed = used;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				final int slot = getSlot(oldKeys[i]);
+				used[slot] = true;
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(
+			final int capacity ) {
+		keys = new long[capacity];
+		values = new double[capacity];
+		used = new boolean[capacity];
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int getCapacity(
+			final int expectedSize ) {
+		int capacity = MIN_CAPACITY;
+		while ((capacity * LOAD_FACTOR) < expectedSize) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int mix(
+			final long cellId ) {
+		// cell IDs of neighboring cells are sequential, spread them across
+		// the table (the finalizer of MurmurHash3)
+		long h = cellId;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+}
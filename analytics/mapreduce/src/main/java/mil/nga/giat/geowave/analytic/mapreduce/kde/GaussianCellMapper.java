@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.analytic.mapreduce.kde;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,10 +25,13 @@ public class GaussianCellMapper extends
 {
 	private final static Logger LOGGER = Logger.getLogger(AccumuloDataStore.class);
 	protected static final String CQL_FILTER_KEY = "CQL_FILTER";
+	// the default memory to sum cell weights in within each mapper
+	protected static final long DEFAULT_IN_MAPPER_COMBINER_BYTES = 64L * 1024L * 1024L;
 	protected int minLevel;
 	protected int maxLevel;
 	protected int tileSize;
 	protected Filter filter;
+	protected int maxCellsPerLevel;
 	protected Map<Integer, LevelStore> levelStoreMap;
 
 	@Override
@@ -57,6 +61,14 @@ public class GaussianCellMapper extends
 						e);
 			}
 		}
+		// the memory for summing cells is divided evenly across the levels, a
+		// map uses fewer than three slots per cell before it is spilled
+		final long inMapperCombinerBytes = context.getConfiguration().getLong(
+				KDEJobRunner.IN_MAPPER_COMBINER_BYTES_KEY,
+				DEFAULT_IN_MAPPER_COMBINER_BYTES);
+		maxCellsPerLevel = (int) Math.min(
+				Integer.MAX_VALUE / 4,
+				(inMapperCombinerBytes / ((maxLevel - minLevel) + 1)) / (CellWeightMap.BYTES_PER_SLOT * 3));
 		levelStoreMap = new HashMap<Integer, LevelStore>();
 
 		for (int level = maxLevel; level >= minLevel; level--) {
@@ -89,7 +101,8 @@ public class GaussianCellMapper extends
 								context,
 								level,
 								minLevel,
-								maxLevel)));
+								maxLevel,
+								maxCellsPerLevel)));
 	}
 
 	@Override
@@ -133,6 +146,30 @@ public class GaussianCellMapper extends
 				levelStore.numYPosts);
 	}
 
+	@Override
+	protected void cleanup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		flush(levelStoreMap.values());
+		super.cleanup(context);
+	}
+
+	/**
+	 * Write the cell weights summed within the mapper for each level
+	 *
+	 * @param levelStores
+	 *            the level stores to flush
+	 */
+	protected static void flush(
+			final Collection<LevelStore> levelStores ) {
+		for (final LevelStore levelStore : levelStores) {
+			if (levelStore.counter instanceof MapContextCellCounter) {
+				((MapContextCellCounter) levelStore.counter).flush();
+			}
+		}
+	}
+
 	public static class LevelStore
 	{
 		public final int numXPosts;
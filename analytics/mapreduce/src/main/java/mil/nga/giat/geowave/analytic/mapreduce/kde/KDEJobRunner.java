@@ -60,6 +60,9 @@ public class KDEJobRunner extends
 	public static final String MIN_LEVEL_KEY = "MIN_LEVEL";
 	public static final String COVERAGE_NAME_KEY = "COVERAGE_NAME";
 	public static final String TILE_SIZE_KEY = "TILE_SIZE";
+	// the memory in bytes for each mapper to sum cell weights in before
+	// writing them, 0 writes each weight as it is computed
+	public static final String IN_MAPPER_COMBINER_BYTES_KEY = "IN_MAPPER_COMBINER_BYTES";
 	protected String user;
 	protected String password;
 	protected String instance;
@@ -6,6 +6,14 @@ import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapreduce.Mapper.Context;
 
+/**
+ * This counter writes the weights of cells to the map context. If a maximum
+ * number of cells is given the weights are summed within the mapper and only
+ * written when that number of distinct cells is reached or when the counter is
+ * flushed, which must then be done in the mapper's cleanup. A weight that
+ * cannot be written to the context is thrown as an IllegalStateException to
+ * fail the task.
+ */
 public class MapContextCellCounter implements
 		CellCounter
 {
@@ -14,17 +22,54 @@ public class MapContextCellCounter implements
 	private final long maxLevel;
 	private final long numLevels;
 	private final long level;
+	private final int maxCells;
+	private final CellWeightMap cellWeights;
+	// the context serializes on write so the writables can be reused
+	private final LongWritable outputKey = new LongWritable();
+	private final DoubleWritable outputValue = new DoubleWritable();
+	private final CellCounter contextWriter = new CellCounter() {
+		@Override
+		public void increment(
+				final long cellId,
+				final double weight ) {
+			write(
+					cellId,
+					weight);
+		}
+	};
 
 	public MapContextCellCounter(
 			final Context context,
 			final long level,
 			final long minLevel,
 			final long maxLevel ) {
+		this(
+				context,
+				level,
+				minLevel,
+				maxLevel,
+				0);
+	}
+
+	/**
+	 * @param maxCells
+	 *            the number of distinct cells to sum within the mapper before
+	 *            writing them to the context, 0 or less to write every weight
+	 *            directly
+	 */
+	public MapContextCellCounter(
+			final Context context,
+			final long level,
+			final long minLevel,
+			final long maxLevel,
+			final int maxCells ) {
 		this.context = context;
 		this.level = level;
 		this.minLevel = minLevel;
 		this.maxLevel = maxLevel;
+		this.maxCells = maxCells;
 		numLevels = (maxLevel - minLevel) + 1;
+		cellWeights = (maxCells > 0) ? new CellWeightMap() : null;
 	}
 
 	@Override
@@ -32,19 +77,56 @@ public class MapContextCellCounter implements
 			final long cellId,
 			final double weight ) {
 		if (weight > 0) {
-			try {
-				context.write(
-						new LongWritable(
-								getCellId(cellId)),
-						new DoubleWritable(
-								weight));
+			if (cellWeights == null) {
+				write(
+						cellId,
+						weight);
 			}
-			catch (IOException | InterruptedException e) {
-				e.printStackTrace();
+			else {
+				cellWeights.add(
+						cellId,
+						weight);
+				if (cellWeights.size() >= maxCells) {
+					flush();
+				}
 			}
 		}
 	}
 
+	/**
+	 * Write any weights summed within the mapper to the context
+	 */
+	public void flush() {
+		if ((cellWeights != null) && !cellWeights.isEmpty()) {
+			cellWeights.drainTo(contextWriter);
+		}
+	}
+
+	private void write(
+			final long cellId,
+			final double weight ) {
+		try {
+			outputKey.set(getCellId(cellId));
+			outputValue.set(weight);
+			context.write(
+					outputKey,
+					outputValue);
+		}
+		catch (final IOException e) {
+			// a lost write would silently drop every weight combined into it,
+			// so fail the task instead
+			throw new IllegalStateException(
+					"Unable to write cell weight",
+					e);
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while writing cell weight",
+					e);
+		}
+	}
+
 	protected long getCellId(
 			final long cellId ) {
 		return (cellId * numLevels) + (level - minLevel);
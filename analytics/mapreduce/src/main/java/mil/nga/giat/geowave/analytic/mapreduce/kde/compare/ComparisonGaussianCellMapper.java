@@ -51,7 +51,17 @@ public class ComparisonGaussianCellMapper extends
 								context,
 								level,
 								minLevel,
-								maxLevel)));
+								maxLevel,
+								maxCellsPerLevel)));
+	}
+
+	@Override
+	protected void cleanup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		flush(winterLevelStoreMap.values());
+		super.cleanup(context);
 	}
 
 	@Override
@@ -20,6 +20,20 @@ public class NegativeCellIdCounter extends
 				maxLevel);
 	}
 
+	public NegativeCellIdCounter(
+			final Context context,
+			final long level,
+			final long minLevel,
+			final long maxLevel,
+			final int maxCells ) {
+		super(
+				context,
+				level,
+				minLevel,
+				maxLevel,
+				maxCells);
+	}
+
 	@Override
 	protected long getCellId(
 			final long cellId ) {
@@ -12,7 +12,10 @@ import java.util.Set;
 import mil.nga.giat.geowave.analytic.AdapterWithObjectWritable;
 import mil.nga.giat.geowave.analytic.ConfigurationWrapper;
 import mil.nga.giat.geowave.analytic.PropertyManagement;
+import mil.nga.giat.geowave.analytic.distance.CoordinateCircleDistanceFn;
 import mil.nga.giat.geowave.analytic.distance.DistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureCentroidDistanceFn;
+import mil.nga.giat.geowave.analytic.distance.FeatureDistanceFn;
 import mil.nga.giat.geowave.analytic.distance.FeatureGeometryDistanceFn;
 import mil.nga.giat.geowave.analytic.log.LoggingConfigurationWrapper;
 import mil.nga.giat.geowave.analytic.mapreduce.JobContextConfigurationWrapper;
@@ -23,6 +26,8 @@ import mil.nga.giat.geowave.analytic.nn.NNProcessor;
 import mil.nga.giat.geowave.analytic.nn.NNProcessor.CompleteNotifier;
 import mil.nga.giat.geowave.analytic.nn.NeighborList;
 import mil.nga.giat.geowave.analytic.nn.NeighborListFactory;
+import mil.nga.giat.geowave.analytic.nn.OrthodromicExtentFn;
+import mil.nga.giat.geowave.analytic.nn.SpatialExtentFn;
 import mil.nga.giat.geowave.analytic.nn.TypeConverter;
 import mil.nga.giat.geowave.analytic.param.ClusteringParameters;
 import mil.nga.giat.geowave.analytic.param.CommonParameters;
@@ -54,6 +59,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.primitives.SignedBytes;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
 
 /**
  * Find the nearest neighbors to a each item.
@@ -238,6 +245,12 @@ public class NNMapReduce
 
 		protected DistanceProfileGenerateFn<?, VALUEIN> distanceProfileFn = new LocalDistanceProfileGenerateFn();
 
+		/**
+		 * Locates items to index the partitions. If null, each primary is
+		 * compared with every item of its partitions.
+		 */
+		protected SpatialExtentFn<VALUEIN> spatialExtentFn = null;
+
 		@Override
 		protected void reduce(
 				final PartitionDataWritable key,
@@ -252,6 +265,7 @@ public class NNMapReduce
 					distanceProfileFn,
 					maxDistance,
 					key.partitionData);
+			processor.setSpatialExtentFn(spatialExtentFn);
 			final PARTITION_SUMMARY summary = createSummary();
 
 			for (final AdapterWithObjectWritable inputValue : values) {
@@ -385,6 +399,8 @@ public class NNMapReduce
 						e);
 			}
 
+			spatialExtentFn = (SpatialExtentFn<VALUEIN>) getSpatialExtentFn(distanceFn);
+
 			maxDistance = config.getDouble(
 					PartitionParameters.Partition.PARTITION_DISTANCE,
 					NNMapReduce.class,
@@ -475,6 +491,47 @@ public class NNMapReduce
 					maxNeighbors);
 		}
 
+		/**
+		 * 
+		 * @param distanceFn
+		 * @return a function to locate the features measured by the distance
+		 *         function, null if the distance function is not known to
+		 *         measure the orthodromic distance between their geometries
+		 */
+		protected static SpatialExtentFn<SimpleFeature> getSpatialExtentFn(
+				final DistanceFn<?> distanceFn ) {
+			final DistanceFn<Coordinate> coordinateDistanceFn;
+			if (distanceFn instanceof FeatureGeometryDistanceFn) {
+				coordinateDistanceFn = ((FeatureGeometryDistanceFn) distanceFn).getCoordinateDistanceFunction();
+			}
+			else if (distanceFn instanceof FeatureDistanceFn) {
+				coordinateDistanceFn = ((FeatureDistanceFn) distanceFn).getCoordinateDistanceFunction();
+			}
+			else if (distanceFn instanceof FeatureCentroidDistanceFn) {
+				// the centroid of a geometry is within its envelope
+				coordinateDistanceFn = ((FeatureCentroidDistanceFn) distanceFn).getCoordinateDistanceFunction();
+			}
+			else {
+				return null;
+			}
+			// extensions may measure in another CRS
+			if ((coordinateDistanceFn == null) || (coordinateDistanceFn.getClass() != CoordinateCircleDistanceFn.class)) {
+				return null;
+			}
+			return new OrthodromicExtentFn<SimpleFeature>() {
+				@Override
+				protected Geometry getGeometry(
+						final SimpleFeature feature ) {
+					for (final Object attr : feature.getAttributes()) {
+						if (attr instanceof Geometry) {
+							return (Geometry) attr;
+						}
+					}
+					return (Geometry) feature.getDefaultGeometry();
+				}
+			};
+		}
+
 		protected class LocalDistanceProfileGenerateFn implements
 				DistanceProfileGenerateFn<Object, VALUEIN>
 		{
@@ -0,0 +1,73 @@
+package mil.nga.giat.geowave.analytic.mapreduce.kde;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CellWeightMapTest
+{
+	@Test
+	public void testSumsMatchHashMap() {
+		final CellWeightMap cellWeights = new CellWeightMap();
+		final Map<Long, Double> expected = new HashMap<Long, Double>();
+		final Random random = new Random(
+				42);
+		for (int i = 0; i < 100000; i++) {
+			// include negative cell IDs as used by the comparison counters
+			final long cellId = random.nextInt(20000) - 10000;
+			final double weight = random.nextDouble();
+			cellWeights.add(
+					cellId,
+					weight);
+			final Double sum = expected.get(cellId);
+			expected.put(
+					cellId,
+					(sum == null) ? weight : sum + weight);
+		}
+		assertEquals(
+				expected.size(),
+				cellWeights.size());
+		for (final Map.Entry<Long, Double> entry : expected.entrySet()) {
+			assertEquals(
+					entry.getValue(),
+					cellWeights.get(entry.getKey()),
+					1e-9);
+		}
+
+		final Map<Long, Double> drained = new HashMap<Long, Double>();
+		cellWeights.drainTo(new CellCounter() {
+			@Override
+			public void increment(
+					final long cellId,
+					final double weight ) {
+				drained.put(
+						cellId,
+						weight);
+			}
+		});
+		assertEquals(
+				expected.keySet(),
+				drained.keySet());
+		assertTrue(cellWeights.isEmpty());
+
+		// the map is reusable once drained
+		cellWeights.add(
+				7,
+				1.5);
+		cellWeights.add(
+				7,
+				2.5);
+		assertEquals(
+				1,
+				cellWeights.size());
+		assertEquals(
+				4.0,
+				cellWeights.get(7),
+				0.0);
+	}
+}
@@ -16,7 +16,7 @@ __geowave() {
             COMPREPLY=( $(compgen -W '-c --clear -dim --dimensionality -f --formats -h --help -i --instance-id -l --list -n --namespace -p --password -u --user -v --visibility -z --zookeepers' -- $curr_arg ) )
             ;;
         -hdfsingest)
-            COMPREPLY=( $(compgen -W '-b --base -c --clear -dim --dimensionality -f --formats -h --help -hdfs -hdfsbase -i --instance-id -jobtracker -l --list -n --namespace -p --password -resourceman -u --user -v --visibility -x --extension -z --zookeepers' -- $curr_arg ) )
+            COMPREPLY=( $(compgen -W '-b --base -bulkdir -c --clear -dim --dimensionality -f --formats -h --help -hdfs -hdfsbase -i --instance-id -jobtracker -l --list -n --namespace -p --password -resourceman -u --user -v --visibility -x --extension -z --zookeepers' -- $curr_arg ) )
             ;;
         -hdfsstage)
             COMPREPLY=( $(compgen -W '-b --base -f --formats -h --help -hdfs -hdfsbase -l --list -x --extension' -- $curr_arg ) )
@@ -25,10 +25,10 @@ __geowave() {
             COMPREPLY=( $(compgen -W '-b --base -f --formats -h --help -kafkaprops -kafkatopic -l --list -x --extension' -- $curr_arg ) )
             ;;
         -localingest)
-            COMPREPLY=( $(compgen -W '-b --base -c --clear -dim --dimensionality -f --formats -h --help -i --instance-id -l --list -n --namespace -p --password -u --user -v --visibility -x --extension -z --zookeepers' -- $curr_arg ) )
+            COMPREPLY=( $(compgen -W '-b --base -c --clear -dim --dimensionality -f --formats -h --help -i --instance-id -l --list -n --namespace -p --password -queue --queueSize -t --threads -u --user -v --visibility -wt --writerThreads -x --extension -z --zookeepers' -- $curr_arg ) )
             ;;
         -poststage)
-            COMPREPLY=( $(compgen -W '-c --clear -dim --dimensionality -f --formats -h --help -hdfs -hdfsbase -i --instance-id -jobtracker -l --list -n --namespace -p --password -resourceman -u --user -v --visibility -z --zookeepers' -- $curr_arg ) )
+            COMPREPLY=( $(compgen -W '-bulkdir -c --clear -dim --dimensionality -f --formats -h --help -hdfs -hdfsbase -i --instance-id -jobtracker -l --list -n --namespace -p --password -resourceman -u --user -v --visibility -z --zookeepers' -- $curr_arg ) )
             ;;
         -stats)
             COMPREPLY=( $(compgen -W '-i --instance-id -u --user -p --password -n --namespace -v --visibility -z --zookeepers -type -auth' -- $curr_arg ) )
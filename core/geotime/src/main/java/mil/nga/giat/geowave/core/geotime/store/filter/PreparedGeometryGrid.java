@@ -0,0 +1,221 @@
+package mil.nga.giat.geowave.core.geotime.store.filter;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+
+/**
+ * A grid over the envelope of a polygonal query geometry in which each cell is
+ * classified as wholly within the interior of the geometry, wholly outside of
+ * it, or on its boundary. Data that falls only within interior cells (or only
+ * within exterior cells) can be accepted (or rejected) with a few array
+ * lookups, leaving the full JTS predicate for data near the boundary.
+ *
+ * The cells are classified by recursively subdividing the envelope so that
+ * only the cells along the boundary of the geometry are tested individually.
+ */
+public class PreparedGeometryGrid
+{
+	public static enum CellState {
+		INTERIOR,
+		EXTERIOR,
+		BOUNDARY
+	}
+
+	/**
+	 * geometries with fewer points than this are cheap enough to test directly
+	 */
+	private static final int MIN_POINTS = 32;
+	private static final int MIN_CELLS_PER_SIDE = 16;
+	private static final int MAX_CELLS_PER_SIDE = 256;
+	/**
+	 * data spanning more cells than this goes straight to the full predicate
+	 */
+	private static final int MAX_CELLS_PER_TEST = 16;
+	/**
+	 * cell coordinates are widened by this fraction of a cell so that rounding
+	 * cannot place data in a cell that does not contain it
+	 */
+	private static final double CELL_TOLERANCE = 1E-9;
+	private static final byte INTERIOR = 1;
+	private static final byte EXTERIOR = 2;
+	private static final byte BOUNDARY = 3;
+
+	private final Envelope envelope;
+	private final int cellsPerSide;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final byte[] cells;
+
+	private PreparedGeometryGrid(
+			final Envelope envelope,
+			final int cellsPerSide,
+			final PreparedGeometry preparedGeometry ) {
+		this.envelope = envelope;
+		this.cellsPerSide = cellsPerSide;
+		cellWidth = envelope.getWidth() / cellsPerSide;
+		cellHeight = envelope.getHeight() / cellsPerSide;
+		cells = new byte[cellsPerSide * cellsPerSide];
+		classify(
+				preparedGeometry,
+				preparedGeometry.getGeometry().getFactory(),
+				0,
+				0,
+				cellsPerSide,
+				cellsPerSide);
+	}
+
+	/**
+	 * Build a grid for the geometry if it is complex enough to benefit from one
+	 *
+	 * @param preparedGeometry
+	 *            the query geometry
+	 * @return the grid, or null if the geometry is not polygonal, is degenerate
+	 *         or is simple enough to test directly
+	 */
+	public static PreparedGeometryGrid create(
+			final PreparedGeometry preparedGeometry ) {
+		final Geometry geometry = preparedGeometry.getGeometry();
+		if ((geometry.getDimension() != 2) || (geometry.getNumPoints() < MIN_POINTS)) {
+			return null;
+		}
+		final Envelope envelope = geometry.getEnvelopeInternal();
+		if ((envelope.getWidth() <= 0) || (envelope.getHeight() <= 0)) {
+			return null;
+		}
+		// the boundary crosses roughly as many cells as there are segments, so
+		// scale the resolution with the complexity of the geometry
+		int cellsPerSide = MIN_CELLS_PER_SIDE;
+		final double targetCellsPerSide = Math.sqrt(geometry.getNumPoints()) * 4;
+		while ((cellsPerSide < targetCellsPerSide) && (cellsPerSide < MAX_CELLS_PER_SIDE)) {
+			cellsPerSide <<= 1;
+		}
+		return new PreparedGeometryGrid(
+				envelope,
+				cellsPerSide,
+				preparedGeometry);
+	}
+
+	/**
+	 * Classify the cells covered by an envelope
+	 *
+	 * @param dataEnvelope
+	 *            the envelope of the data
+	 * @return INTERIOR if all of the cells are within the interior of the
+	 *         geometry, EXTERIOR if all of the cells are outside of the
+	 *         geometry and BOUNDARY otherwise
+	 */
+	public CellState getState(
+			final Envelope dataEnvelope ) {
+		if (dataEnvelope.isNull()) {
+			return CellState.BOUNDARY;
+		}
+		if (!envelope.intersects(dataEnvelope)) {
+			return CellState.EXTERIOR;
+		}
+		if (!envelope.contains(dataEnvelope)) {
+			return CellState.BOUNDARY;
+		}
+		final int minX = toCell(
+				((dataEnvelope.getMinX() - envelope.getMinX()) / cellWidth) - CELL_TOLERANCE);
+		final int maxX = toCell(
+				((dataEnvelope.getMaxX() - envelope.getMinX()) / cellWidth) + CELL_TOLERANCE);
+		final int minY = toCell(
+				((dataEnvelope.getMinY() - envelope.getMinY()) / cellHeight) - CELL_TOLERANCE);
+		final int maxY = toCell(
+				((dataEnvelope.getMaxY() - envelope.getMinY()) / cellHeight) + CELL_TOLERANCE);
+		if ((((maxX - minX) + 1) * ((maxY - minY) + 1)) > MAX_CELLS_PER_TEST) {
+			return CellState.BOUNDARY;
+		}
+		final byte state = cells[(minY * cellsPerSide) + minX];
+		if (state == BOUNDARY) {
+			return CellState.BOUNDARY;
+		}
+		for (int y = minY; y <= maxY; y++) {
+			for (int x = minX; x <= maxX; x++) {
+				if (cells[(y * cellsPerSide) + x] != state) {
+					return CellState.BOUNDARY;
+				}
+			}
+		}
+		return state == INTERIOR ? CellState.INTERIOR : CellState.EXTERIOR;
+	}
+
+	private int toCell(
+			final double position ) {
+		return Math.max(
+				0,
+				Math.min(
+						cellsPerSide - 1,
+						(int) Math.floor(position)));
+	}
+
+	private void classify(
+			final PreparedGeometry preparedGeometry,
+			final GeometryFactory factory,
+			final int minX,
+			final int minY,
+			final int maxX,
+			final int maxY ) {
+		final Geometry cellGeometry = factory.toGeometry(new Envelope(
+				envelope.getMinX() + (minX * cellWidth),
+				envelope.getMinX() + (maxX * cellWidth),
+				envelope.getMinY() + (minY * cellHeight),
+				envelope.getMinY() + (maxY * cellHeight)));
+		final byte state;
+		if (!preparedGeometry.intersects(cellGeometry)) {
+			state = EXTERIOR;
+		}
+		else if (preparedGeometry.containsProperly(cellGeometry)) {
+			state = INTERIOR;
+		}
+		else if (((maxX - minX) == 1) && ((maxY - minY) == 1)) {
+			state = BOUNDARY;
+		}
+		else {
+			final int midX = (minX + maxX + 1) / 2;
+			final int midY = (minY + maxY + 1) / 2;
+			classify(
+					preparedGeometry,
+					factory,
+					minX,
+					minY,
+					midX,
+					midY);
+			if (maxX > midX) {
+				classify(
+						preparedGeometry,
+						factory,
+						midX,
+						minY,
+						maxX,
+						midY);
+			}
+			if (maxY > midY) {
+				classify(
+						preparedGeometry,
+						factory,
+						minX,
+						midY,
+						midX,
+						maxY);
+			}
+			if ((maxX > midX) && (maxY > midY)) {
+				classify(
+						preparedGeometry,
+						factory,
+						midX,
+						midY,
+						maxX,
+						maxY);
+			}
+			return;
+		}
+		for (int y = minY; y < maxY; y++) {
+			for (int x = minX; x < maxX; x++) {
+				cells[(y * cellsPerSide) + x] = state;
+			}
+		}
+	}
+}
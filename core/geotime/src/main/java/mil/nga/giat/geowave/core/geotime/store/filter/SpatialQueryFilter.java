@@ -20,13 +20,18 @@ import mil.nga.giat.geowave.core.store.filter.GenericTypeResolver;
 
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.prep.PreparedGeometry;
 import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 
 /**
  * This filter can perform fine-grained acceptance testing (intersection test
- * with a query geometry) with JTS geometry
+ * with a query geometry) with JTS geometry. The envelope of the data is first
+ * compared to the envelope of the query geometry and, for complex query
+ * polygons, to a grid of cells classified as interior, exterior or boundary, so
+ * that the full JTS predicate is only evaluated for data near the boundary of
+ * the query geometry.
  * 
  */
 public class SpatialQueryFilter extends
@@ -200,9 +205,36 @@ public class SpatialQueryFilter extends
 			return false;
 		}
 		if (preparedGeometryImage != null) {
+			final PreparedGeometry preparedGeometry = preparedGeometryImage.preparedGeometry;
+			if (dataGeometry.isEmpty()) {
+				return compareOp.compare(
+						dataGeometry,
+						preparedGeometry);
+			}
+			final Envelope dataEnvelope = dataGeometry.getEnvelopeInternal();
+			final Envelope queryEnvelope = preparedGeometry.getGeometry().getEnvelopeInternal();
+			if (!queryEnvelope.intersects(dataEnvelope)) {
+				return false;
+			}
+			if ((compareOp == CompareOperation.CONTAINS) && !queryEnvelope.contains(dataEnvelope)) {
+				return false;
+			}
+			final PreparedGeometryGrid grid = preparedGeometryImage.getGrid();
+			if (grid != null) {
+				switch (grid.getState(dataEnvelope)) {
+					case INTERIOR:
+						// the data is within the interior of the query
+						// geometry so it both intersects and is contained
+						return true;
+					case EXTERIOR:
+						return false;
+					default:
+						break;
+				}
+			}
 			return compareOp.compare(
 					dataGeometry,
-					preparedGeometryImage.preparedGeometry);
+					preparedGeometry);
 		}
 		return false;
 	}
@@ -287,6 +319,8 @@ public class SpatialQueryFilter extends
 
 		byte[] geometryBinary;
 		PreparedGeometry preparedGeometry = null;
+		private volatile PreparedGeometryGrid grid = null;
+		private volatile boolean gridInitialized = false;
 
 		public GeometryImage(
 				PreparedGeometry preparedGeometry ) {
@@ -309,6 +343,25 @@ public class SpatialQueryFilter extends
 			return preparedGeometry;
 		}
 
+		/**
+		 * The grid is built on first use and shared by every filter using this
+		 * image
+		 * 
+		 * @return the grid of interior and exterior cells, or null if the
+		 *         geometry is too simple to need one
+		 */
+		public PreparedGeometryGrid getGrid() {
+			if (!gridInitialized) {
+				synchronized (this) {
+					if (!gridInitialized) {
+						grid = PreparedGeometryGrid.create(preparedGeometry);
+						gridInitialized = true;
+					}
+				}
+			}
+			return grid;
+		}
+
 		@Override
 		public int hashCode() {
 			final int prime = 31;
@@ -1,7 +1,13 @@
 package mil.nga.giat.geowave.core.geotime.index.sfc.hilbert;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
 import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
@@ -385,4 +391,77 @@ public class PrimitiveHilbertSFCTest
 						sfcDimensions));
 
 	}
+
+	@Test
+	public void testConcurrentGetIdMatchesSingleThreaded()
+			throws Exception {
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[SPATIAL_DIMENSIONS.length];
+		final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+		for (int d = 0; d < SPATIAL_DIMENSIONS.length; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					SPATIAL_DIMENSIONS[d],
+					31);
+			bitsPerDimension.add(31);
+		}
+		final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						bitsPerDimension));
+		final PrimitiveHilbertSFCOperations testOperations = new PrimitiveHilbertSFCOperations();
+		testOperations.init(sfcDimensions);
+
+		final int pointCount = 2000;
+		final double[][] points = new double[pointCount][];
+		final byte[][] expectedIds = new byte[pointCount][];
+		final Random random = new Random(
+				42);
+		for (int i = 0; i < pointCount; i++) {
+			points[i] = new double[] {
+				(random.nextDouble() * 360) - 180,
+				(random.nextDouble() * 180) - 90
+			};
+			expectedIds[i] = testOperations.convertToHilbert(
+					points[i],
+					compactHilbertCurve,
+					sfcDimensions);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int t = 0; t < 8; t++) {
+			results.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call()
+						throws Exception {
+					for (int i = 0; i < pointCount; i++) {
+						final byte[] id = testOperations.convertToHilbert(
+								points[i],
+								compactHilbertCurve,
+								sfcDimensions);
+						if (!Arrays.equals(
+								expectedIds[i],
+								id)) {
+							return false;
+						}
+						final long[] coordinates = testOperations.indicesFromHilbert(
+								id,
+								compactHilbertCurve,
+								sfcDimensions);
+						if (!Arrays.equals(
+								coordinates,
+								testOperations.indicesFromHilbert(
+										expectedIds[i],
+										compactHilbertCurve,
+										sfcDimensions))) {
+							return false;
+						}
+					}
+					return true;
+				}
+			}));
+		}
+		executor.shutdown();
+		for (final Future<Boolean> result : results) {
+			Assert.assertTrue(result.get());
+		}
+	}
 }
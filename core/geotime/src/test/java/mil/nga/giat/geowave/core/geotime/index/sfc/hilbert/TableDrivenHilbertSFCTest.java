@@ -0,0 +1,195 @@
+package mil.nga.giat.geowave.core.geotime.index.sfc.hilbert;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.index.sfc.hilbert.TableDrivenHilbertSFCOperations;
+import mil.nga.giat.geowave.core.index.sfc.hilbert.UnboundedHilbertSFCOperations;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
+
+public class TableDrivenHilbertSFCTest
+{
+	private static final NumericDimensionDefinition[] SPATIAL_TEMPORAL_DIMENSIONS = new NumericDimensionDefinition[] {
+		new LongitudeDefinition(),
+		new LatitudeDefinition(),
+		new BasicDimensionDefinition(
+				0,
+				1000)
+	};
+
+	@Test
+	public void testSpatial62BitsTotal() {
+		testAgainstUnboundedOperations(new int[] {
+			31,
+			31
+		});
+	}
+
+	@Test
+	public void testSpatialUnequalPrecision() {
+		testAgainstUnboundedOperations(new int[] {
+			20,
+			13
+		});
+	}
+
+	@Test
+	public void testSpatialTemporal60BitsTotal() {
+		testAgainstUnboundedOperations(new int[] {
+			20,
+			20,
+			20
+		});
+	}
+
+	@Test
+	public void testSpatialTemporalUnequalPrecision() {
+		testAgainstUnboundedOperations(new int[] {
+			18,
+			18,
+			9
+		});
+	}
+
+	private static void testAgainstUnboundedOperations(
+			final int[] bits ) {
+		final SFCDimensionDefinition[] sfcDimensions = new SFCDimensionDefinition[bits.length];
+		final List<Integer> bitsPerDimension = new ArrayList<Integer>();
+		int totalPrecision = 0;
+		for (int d = 0; d < bits.length; d++) {
+			sfcDimensions[d] = new SFCDimensionDefinition(
+					SPATIAL_TEMPORAL_DIMENSIONS[d],
+					bits[d]);
+			bitsPerDimension.add(bits[d]);
+			totalPrecision += bits[d];
+		}
+		Assert.assertTrue(TableDrivenHilbertSFCOperations.isSupported(sfcDimensions));
+		final CompactHilbertCurve compactHilbertCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						bitsPerDimension));
+		final TableDrivenHilbertSFCOperations testOperations = new TableDrivenHilbertSFCOperations();
+		// assume the unbounded SFC is the true results
+		final UnboundedHilbertSFCOperations expectedResultOperations = new UnboundedHilbertSFCOperations();
+		testOperations.init(sfcDimensions);
+		expectedResultOperations.init(sfcDimensions);
+		Assert.assertTrue(testOperations.isConsistentWith(compactHilbertCurve));
+
+		final Random random = new Random(
+				7);
+		for (int i = 0; i < 1000; i++) {
+			final double[] values = randomValues(
+					random,
+					sfcDimensions);
+			final byte[] expectedId = expectedResultOperations.convertToHilbert(
+					values,
+					compactHilbertCurve,
+					sfcDimensions);
+			final byte[] id = testOperations.convertToHilbert(
+					values,
+					compactHilbertCurve,
+					sfcDimensions);
+			Assert.assertArrayEquals(
+					expectedId,
+					id);
+			Assert.assertArrayEquals(
+					expectedResultOperations.indicesFromHilbert(
+							expectedId,
+							compactHilbertCurve,
+							sfcDimensions),
+					testOperations.indicesFromHilbert(
+							id,
+							compactHilbertCurve,
+							sfcDimensions));
+		}
+
+		// every point within a query must be within a decomposed range
+		for (int q = 0; q < 20; q++) {
+			final NumericData[] query = new NumericData[sfcDimensions.length];
+			for (int d = 0; d < sfcDimensions.length; d++) {
+				final double a = randomValue(
+						random,
+						sfcDimensions[d]);
+				final double b = randomValue(
+						random,
+						sfcDimensions[d]);
+				query[d] = new NumericRange(
+						Math.min(
+								a,
+								b),
+						Math.max(
+								a,
+								b));
+			}
+			final int maxRanges = (q % 2) == 0 ? Integer.MAX_VALUE : 10;
+			final RangeDecomposition decomposition = testOperations.decomposeRange(
+					query,
+					compactHilbertCurve,
+					sfcDimensions,
+					totalPrecision,
+					maxRanges,
+					true);
+			Assert.assertTrue(decomposition.getRanges().length <= maxRanges);
+			for (int i = 0; i < 100; i++) {
+				final double[] values = new double[sfcDimensions.length];
+				for (int d = 0; d < sfcDimensions.length; d++) {
+					values[d] = query[d].getMin() + (random.nextDouble() * (query[d].getMax() - query[d].getMin()));
+				}
+				final long id = toLong(testOperations.convertToHilbert(
+						values,
+						compactHilbertCurve,
+						sfcDimensions));
+				boolean covered = false;
+				for (final ByteArrayRange range : decomposition.getRanges()) {
+					if ((id >= toLong(range.getStart().getBytes())) && (id <= toLong(range.getEnd().getBytes()))) {
+						covered = true;
+						break;
+					}
+				}
+				Assert.assertTrue(covered);
+			}
+		}
+	}
+
+	private static double[] randomValues(
+			final Random random,
+			final SFCDimensionDefinition[] sfcDimensions ) {
+		final double[] values = new double[sfcDimensions.length];
+		for (int d = 0; d < sfcDimensions.length; d++) {
+			values[d] = randomValue(
+					random,
+					sfcDimensions[d]);
+		}
+		return values;
+	}
+
+	private static double randomValue(
+			final Random random,
+			final SFCDimensionDefinition sfcDimension ) {
+		return sfcDimension.getDimensionDefinition().denormalize(
+				random.nextDouble());
+	}
+
+	private static long toLong(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.allocate(8);
+		buf.position(8 - bytes.length);
+		buf.put(bytes);
+		return buf.getLong(0);
+	}
+}
@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.core.geotime.index.sfc.hilbert.tiered;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.text.ParseException;
@@ -22,6 +23,7 @@ import mil.nga.giat.geowave.core.geotime.index.dimension.TemporalBinningStrategy
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowRangeCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
 import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
@@ -30,9 +32,13 @@ import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
 import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexStrategy;
 
 import org.junit.Test;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.UnsignedBytes;
+
 public class TieredSFCIndexStrategyTest
 {
 
@@ -365,6 +371,131 @@ public class TieredSFCIndexStrategyTest
 				5));
 	}
 
+	@Test
+	public void testQueryRangeCache() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10.5,
+							20.25),
+					new NumericRange(
+							5.125,
+							30)
+				});
+		// the cache is disabled unless it is enabled
+		final List<ByteArrayRange> uncachedRanges = strategy.getQueryRanges(query);
+		assertNull(strategy.getQueryRangeCacheStats());
+
+		strategy.setQueryRangeCacheMaxRanges(TieredSFCIndexStrategy.DEFAULT_QUERY_RANGE_CACHE_MAX_RANGES);
+		assertEquals(
+				uncachedRanges,
+				strategy.getQueryRanges(query));
+		assertEquals(
+				uncachedRanges,
+				strategy.getQueryRanges(query));
+		// within the same cells of the highest precision tier
+		final List<ByteArrayRange> nearlySameRanges = strategy.getQueryRanges(new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10.5 + 1e-9,
+							20.25 - 1e-9),
+					new NumericRange(
+							5.125 + 1e-9,
+							30 - 1e-9)
+				}));
+		assertEquals(
+				uncachedRanges,
+				nearlySameRanges);
+		final CacheStats stats = strategy.getQueryRangeCacheStats();
+		assertEquals(
+				1,
+				stats.missCount());
+		assertEquals(
+				2,
+				stats.hitCount());
+
+		// a different max range decomposition is a different entry
+		strategy.getQueryRanges(
+				query,
+				10);
+		assertEquals(
+				2,
+				strategy.getQueryRangeCacheStats().missCount());
+	}
+
+	@Test
+	public void testGlobalRangeDecomposition() {
+		final TieredSFCIndexStrategy strategy = (TieredSFCIndexStrategy) new SpatialFactory().createIndexStrategy(DataType.VECTOR);
+		strategy.setQueryRangeCacheMaxRanges(0);
+		final MultiDimensionalNumericData query = new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							-10.5,
+							20.25),
+					new NumericRange(
+							5.125,
+							30)
+				});
+		final List<ByteArrayRange> fullRanges = strategy.getQueryRanges(query);
+		// the even split across tiers can exceed a budget smaller than the
+		// number of tiers, the global decomposition should not
+		for (final int maxRanges : new int[] {
+			1,
+			10,
+			100,
+			1000
+		}) {
+			final List<ByteArrayRange> globalRanges = strategy.getQueryRanges(
+					query,
+					maxRanges,
+					null);
+			assertTrue(globalRanges.size() <= maxRanges);
+			assertCovers(
+					globalRanges,
+					fullRanges);
+		}
+
+		final int[] estimates = new int[1];
+		final List<ByteArrayRange> estimatedRanges = strategy.getQueryRanges(
+				query,
+				10,
+				new RowRangeCardinalityEstimator() {
+					@Override
+					public double cardinality(
+							final byte[] start,
+							final byte[] end ) {
+						estimates[0]++;
+						// every row is stored in the first tier
+						return start[0] == 0 ? 1000 : 0;
+					}
+				});
+		assertTrue(estimates[0] > 0);
+		assertTrue(estimatedRanges.size() <= 10);
+		assertCovers(
+				estimatedRanges,
+				fullRanges);
+	}
+
+	private static void assertCovers(
+			final List<ByteArrayRange> ranges,
+			final List<ByteArrayRange> expectedRanges ) {
+		for (final ByteArrayRange expectedRange : expectedRanges) {
+			boolean covered = false;
+			for (final ByteArrayRange range : ranges) {
+				if ((UnsignedBytes.lexicographicalComparator().compare(
+						range.getStart().getBytes(),
+						expectedRange.getStart().getBytes()) <= 0) && (UnsignedBytes.lexicographicalComparator().compare(
+						range.getEnd().getBytes(),
+						expectedRange.getEnd().getBytes()) >= 0)) {
+					covered = true;
+					break;
+				}
+			}
+			assertTrue(covered);
+		}
+	}
+
 	private boolean compare(
 			final byte[] one,
 			final byte[] two,
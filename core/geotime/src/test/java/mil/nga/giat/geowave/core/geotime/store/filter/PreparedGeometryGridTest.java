@@ -0,0 +1,134 @@
+package mil.nga.giat.geowave.core.geotime.store.filter;
+
+import java.util.Random;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.geotime.store.filter.PreparedGeometryGrid.CellState;
+import mil.nga.giat.geowave.core.geotime.store.filter.SpatialQueryFilter.CompareOperation;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Polygon;
+
+public class PreparedGeometryGridTest
+{
+	private static final Polygon STAR = createStar(
+			200);
+
+	@Test
+	public void testGridAgreesWithJTS() {
+		final PreparedGeometryGrid grid = PreparedGeometryGrid.create(SpatialQueryFilter.FACTORY.create(STAR));
+		Assert.assertNotNull(grid);
+		final Random random = new Random(
+				42);
+		int interior = 0;
+		int exterior = 0;
+		for (int i = 0; i < 10000; i++) {
+			final Geometry data = randomData(random);
+			final CellState state = grid.getState(data.getEnvelopeInternal());
+			if (state == CellState.INTERIOR) {
+				Assert.assertTrue(STAR.contains(data));
+				interior++;
+			}
+			else if (state == CellState.EXTERIOR) {
+				Assert.assertFalse(STAR.intersects(data));
+				exterior++;
+			}
+		}
+		// most of the data should be resolved without the full predicate
+		Assert.assertTrue(interior > 1000);
+		Assert.assertTrue(exterior > 1000);
+	}
+
+	@Test
+	public void testSimpleGeometryHasNoGrid() {
+		Assert.assertNull(PreparedGeometryGrid.create(SpatialQueryFilter.FACTORY.create(GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+				0,
+				1,
+				0,
+				1)))));
+	}
+
+	@Test
+	public void testFilterAgreesWithJTS() {
+		for (final CompareOperation op : CompareOperation.values()) {
+			final SpatialQuery query = new SpatialQuery(
+					STAR,
+					op);
+			final Random random = new Random(
+					7);
+			for (final QueryFilter filter : query.createFilters(IndexType.SPATIAL_VECTOR.getDefaultIndexModel())) {
+				for (int i = 0; i < 2000; i++) {
+					final Geometry data = randomData(random);
+					final boolean expected = (op == CompareOperation.CONTAINS) ? STAR.contains(data) : STAR.intersects(data);
+					Assert.assertEquals(
+							expected,
+							filter.accept(createData(data)));
+				}
+			}
+		}
+	}
+
+	private static Geometry randomData(
+			final Random random ) {
+		final double x = (random.nextDouble() * 24) - 12;
+		final double y = (random.nextDouble() * 24) - 12;
+		if (random.nextBoolean()) {
+			return GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+					x,
+					y));
+		}
+		final double size = random.nextDouble() * 0.5;
+		return GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+				x,
+				x + size,
+				y,
+				y + size));
+	}
+
+	private static IndexedPersistenceEncoding createData(
+			final Geometry geometry ) {
+		final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
+		commonData.addOrUpdateValue(new PersistentValue<CommonIndexValue>(
+				GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID,
+				new GeometryWrapper(
+						geometry)));
+		return new IndexedPersistenceEncoding(
+				new ByteArrayId(
+						"1"),
+				new ByteArrayId(
+						"1"),
+				new ByteArrayId(
+						"1"),
+				0,
+				commonData);
+	}
+
+	private static Polygon createStar(
+			final int points ) {
+		final Coordinate[] coordinates = new Coordinate[points + 1];
+		for (int i = 0; i < points; i++) {
+			final double angle = (2 * Math.PI * i) / points;
+			final double radius = (i % 2) == 0 ? 10 : 6;
+			coordinates[i] = new Coordinate(
+					radius * Math.cos(angle),
+					radius * Math.sin(angle));
+		}
+		coordinates[points] = coordinates[0];
+		return GeometryUtils.GEOMETRY_FACTORY.createPolygon(coordinates);
+	}
+}
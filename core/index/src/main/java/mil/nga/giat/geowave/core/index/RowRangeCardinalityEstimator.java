@@ -0,0 +1,22 @@
+package mil.nga.giat.geowave.core.index;
+
+/**
+ * Estimates how many rows are stored between two row IDs, typically from a
+ * histogram of the row IDs of an index. This is used to prioritize where a
+ * limited number of query ranges is spent so that the ranges scan as few
+ * unwanted rows as possible.
+ */
+public interface RowRangeCardinalityEstimator
+{
+	/**
+	 *
+	 * @param start
+	 *            the start row ID, inclusive
+	 * @param end
+	 *            the end row ID, inclusive
+	 * @return the estimated number of rows between start and end
+	 */
+	public double cardinality(
+			byte[] start,
+			byte[] end );
+}
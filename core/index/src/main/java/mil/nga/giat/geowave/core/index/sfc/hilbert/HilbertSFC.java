@@ -5,6 +5,8 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
@@ -13,6 +15,8 @@ import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
 import mil.nga.giat.geowave.core.index.sfc.SpaceFillingCurve;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 
+import org.apache.log4j.Logger;
+
 import com.google.uzaygezen.core.CompactHilbertCurve;
 import com.google.uzaygezen.core.MultiDimensionalSpec;
 
@@ -23,6 +27,14 @@ import com.google.uzaygezen.core.MultiDimensionalSpec;
 public class HilbertSFC implements
 		SpaceFillingCurve
 {
+	private final static Logger LOGGER = Logger.getLogger(HilbertSFC.class);
+	/**
+	 * whether the table-driven operations match the compact hilbert curve,
+	 * which only depends on the bits of precision per dimension, so the check
+	 * runs once per precision rather than for every curve that is created or
+	 * deserialized
+	 */
+	private final static ConcurrentMap<List<Integer>, Boolean> TABLE_DRIVEN_CONSISTENCY = new ConcurrentHashMap<List<Integer>, Boolean>();
 	protected CompactHilbertCurve compactHilbertCurve;
 	protected SFCDimensionDefinition[] dimensionDefinitions;
 	protected int totalPrecision;
@@ -69,6 +81,26 @@ public class HilbertSFC implements
 			final int totalPrecision,
 			final List<Integer> bitsPerDimension,
 			final SFCDimensionDefinition[] dimensionDefs ) {
+		if (TableDrivenHilbertSFCOperations.isSupported(dimensionDefs)) {
+			final TableDrivenHilbertSFCOperations tableDrivenOps = new TableDrivenHilbertSFCOperations();
+			tableDrivenOps.init(dimensionDefs);
+			Boolean consistent = TABLE_DRIVEN_CONSISTENCY.get(bitsPerDimension);
+			if (consistent == null) {
+				consistent = tableDrivenOps.isConsistentWith(compactHilbertCurve);
+				TABLE_DRIVEN_CONSISTENCY.putIfAbsent(
+						new ArrayList<Integer>(
+								bitsPerDimension),
+						consistent);
+				if (!consistent) {
+					LOGGER.warn("Table-driven hilbert operations are inconsistent with the compact hilbert curve for " + dimensionDefs.length + " dimensions and " + totalPrecision + " bits of precision, using primitive operations");
+				}
+			}
+			if (consistent) {
+				getIdOperations = tableDrivenOps;
+				decomposeQueryOperations = tableDrivenOps;
+				return;
+			}
+		}
 		boolean primitiveForGetId = true;
 		final boolean primitiveForQueryDecomposition = totalPrecision <= 62L;
 		for (final Integer bits : bitsPerDimension) {
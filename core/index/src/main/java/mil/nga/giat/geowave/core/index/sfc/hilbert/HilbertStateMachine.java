@@ -0,0 +1,204 @@
+package mil.nga.giat.geowave.core.index.sfc.hilbert;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.uzaygezen.core.BitVector;
+import com.google.uzaygezen.core.BitVectorFactories;
+import com.google.uzaygezen.core.CompactHilbertCurve;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
+
+/**
+ * A state-transition representation of the Hilbert curve for a small number of
+ * dimensions. Each state is an orientation of a sub-hypercube; for every child
+ * of a sub-hypercube the tables give the child's rank along the curve and the
+ * state of the child.
+ *
+ * The tables are derived by probing the uzaygezen CompactHilbertCurve with the
+ * same number of levels, so that the table-driven curve produces exactly the
+ * same row IDs as the curve it replaces. States are identified by the order in
+ * which the curve visits their children, which is unique per orientation.
+ */
+class HilbertStateMachine
+{
+	private static final Map<Integer, HilbertStateMachine> STATE_MACHINE_CACHE = new ConcurrentHashMap<Integer, HilbertStateMachine>();
+
+	/**
+	 * rank along the curve of each child, indexed by state and then by child
+	 * (bit d of the child is the bit of dimension d)
+	 */
+	private final int[][] childRank;
+	/**
+	 * the state of each child, indexed by state and then by child; it is null
+	 * for states only reachable at the lowest level
+	 */
+	private final int[][] childState;
+
+	private HilbertStateMachine(
+			final int[][] childRank,
+			final int[][] childState ) {
+		this.childRank = childRank;
+		this.childState = childState;
+	}
+
+	/**
+	 * Get the state machine for a Hilbert curve with the given number of
+	 * dimensions and levels (the maximum bits of precision of any dimension)
+	 *
+	 * @param dimensions
+	 *            the number of dimensions
+	 * @param levels
+	 *            the maximum bits of precision of any one dimension
+	 * @return the state machine, with the root state being state 0
+	 */
+	public static HilbertStateMachine getStateMachine(
+			final int dimensions,
+			final int levels ) {
+		final Integer key = (levels * 64) + dimensions;
+		HilbertStateMachine stateMachine = STATE_MACHINE_CACHE.get(key);
+		if (stateMachine == null) {
+			stateMachine = probeStateMachine(
+					dimensions,
+					levels);
+			STATE_MACHINE_CACHE.put(
+					key,
+					stateMachine);
+		}
+		return stateMachine;
+	}
+
+	public int getStateCount() {
+		return childRank.length;
+	}
+
+	public int[] getChildRanks(
+			final int state ) {
+		return childRank[state];
+	}
+
+	public int[] getChildStates(
+			final int state ) {
+		return childState[state];
+	}
+
+	private static HilbertStateMachine probeStateMachine(
+			final int dimensions,
+			final int levels ) {
+		final CompactHilbertCurve referenceCurve = new CompactHilbertCurve(
+				new MultiDimensionalSpec(
+						Collections.nCopies(
+								dimensions,
+								levels)));
+		final BitVector[] point = new BitVector[dimensions];
+		for (int d = 0; d < dimensions; d++) {
+			point[d] = BitVectorFactories.OPTIMAL.apply(levels);
+		}
+		final BitVector hilbertIndex = BitVectorFactories.OPTIMAL.apply(dimensions * levels);
+
+		final List<int[]> ranks = new ArrayList<int[]>();
+		final List<int[]> prefixes = new ArrayList<int[]>();
+		final List<int[]> childStates = new ArrayList<int[]>();
+		ranks.add(probeChildRanks(
+				referenceCurve,
+				point,
+				hilbertIndex,
+				new int[] {}));
+		prefixes.add(new int[] {});
+		childStates.add(null);
+		// breadth first search through the orientations, the number of
+		// states is bounded by 2^dimensions * dimensions
+		for (int state = 0; state < ranks.size(); state++) {
+			final int[] prefix = prefixes.get(state);
+			if (prefix.length >= (levels - 1)) {
+				// the children of this state are at the lowest level
+				continue;
+			}
+			final int[] transitions = new int[1 << dimensions];
+			for (int child = 0; child < transitions.length; child++) {
+				final int[] childPrefix = Arrays.copyOf(
+						prefix,
+						prefix.length + 1);
+				childPrefix[prefix.length] = child;
+				final int[] childRanks = probeChildRanks(
+						referenceCurve,
+						point,
+						hilbertIndex,
+						childPrefix);
+				int childState = -1;
+				for (int s = 0; s < ranks.size(); s++) {
+					if (Arrays.equals(
+							ranks.get(s),
+							childRanks)) {
+						childState = s;
+						break;
+					}
+				}
+				if (childState < 0) {
+					childState = ranks.size();
+					ranks.add(childRanks);
+					prefixes.add(childPrefix);
+					childStates.add(null);
+				}
+				transitions[child] = childState;
+			}
+			childStates.set(
+					state,
+					transitions);
+		}
+		return new HilbertStateMachine(
+				ranks.toArray(new int[ranks.size()][]),
+				childStates.toArray(new int[childStates.size()][]));
+	}
+
+	/**
+	 * Determine the order the reference curve visits each child of the
+	 * sub-hypercube given by the prefix of child positions
+	 */
+	private static int[] probeChildRanks(
+			final CompactHilbertCurve referenceCurve,
+			final BitVector[] point,
+			final BitVector hilbertIndex,
+			final int[] prefix ) {
+		final int dimensions = point.length;
+		final int levels = referenceCurve.getSpec().getBitsPerDimension().get(
+				0);
+		final int level = levels - 1 - prefix.length;
+		final int[] childRanks = new int[1 << dimensions];
+		final boolean[] ranksSeen = new boolean[childRanks.length];
+		for (int child = 0; child < childRanks.length; child++) {
+			for (int d = 0; d < dimensions; d++) {
+				long coordinate = 0;
+				for (int p = 0; p < prefix.length; p++) {
+					if (((prefix[p] >>> d) & 1) == 1) {
+						coordinate |= 1L << (levels - 1 - p);
+					}
+				}
+				if (((child >>> d) & 1) == 1) {
+					coordinate |= 1L << level;
+				}
+				point[d].copyFrom(coordinate);
+			}
+			hilbertIndex.clear();
+			referenceCurve.index(
+					point,
+					0,
+					hilbertIndex);
+			final int rank = new BigInteger(
+					1,
+					hilbertIndex.toBigEndianByteArray()).shiftRight(
+					dimensions * level).intValue() & (childRanks.length - 1);
+			if (ranksSeen[rank]) {
+				throw new IllegalStateException(
+						"Hilbert curve visits child rank " + rank + " more than once");
+			}
+			ranksSeen[rank] = true;
+			childRanks[child] = rank;
+		}
+		return childRanks;
+	}
+}
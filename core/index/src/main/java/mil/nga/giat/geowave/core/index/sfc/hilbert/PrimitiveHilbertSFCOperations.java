@@ -22,6 +22,7 @@ import com.google.uzaygezen.core.BitVectorFactories;
 import com.google.uzaygezen.core.CompactHilbertCurve;
 import com.google.uzaygezen.core.FilteredIndexRange;
 import com.google.uzaygezen.core.LongContent;
+import com.google.uzaygezen.core.MultiDimensionalSpec;
 import com.google.uzaygezen.core.PlainFilterCombiner;
 import com.google.uzaygezen.core.QueryBuilder;
 import com.google.uzaygezen.core.RegionInspector;
@@ -52,22 +53,38 @@ public class PrimitiveHilbertSFCOperations implements
 	protected long minHilbertValue;
 	protected long maxHilbertValue;
 
+	/**
+	 * uzaygezen's CompactHilbertCurve keeps intermediate state in instance
+	 * fields, so rather than synchronizing every operation on one shared curve
+	 * each thread gets its own curve and pre-allocated bit vectors
+	 */
+	private ThreadLocal<HilbertScratchSpace> scratchSpace;
+
 	@Override
 	public void init(
 			final SFCDimensionDefinition[] dimensionDefs ) {
 		binsPerDimension = new long[dimensionDefs.length];
+		final int[] bitsPerDimension = new int[dimensionDefs.length];
 		int totalPrecision = 0;
 		for (int d = 0; d < dimensionDefs.length; d++) {
 			final SFCDimensionDefinition dimension = dimensionDefs[d];
 			binsPerDimension[d] = (long) Math.pow(
 					2,
 					dimension.getBitsOfPrecision());
+			bitsPerDimension[d] = dimension.getBitsOfPrecision();
 			totalPrecision += dimension.getBitsOfPrecision();
 		}
 		minHilbertValue = 0;
 		maxHilbertValue = (long) (Math.pow(
 				2,
 				totalPrecision) - 1);
+		scratchSpace = new ThreadLocal<HilbertScratchSpace>() {
+			@Override
+			protected HilbertScratchSpace initialValue() {
+				return new HilbertScratchSpace(
+						bitsPerDimension);
+			}
+		};
 	}
 
 	@Override
@@ -76,62 +93,52 @@ public class PrimitiveHilbertSFCOperations implements
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
 
-		final List<Long> dimensionValues = new ArrayList<Long>();
-
 		// Compare the number of dimensions to the number of values sent in
 		if (dimensionDefinitions.length != values.length) {
 			throw new ArrayIndexOutOfBoundsException(
 					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
 		}
+		final HilbertScratchSpace scratch = scratchSpace.get();
 
 		// Loop through each value, then normalize the value based on the
 		// dimension definition
 		for (int i = 0; i < dimensionDefinitions.length; i++) {
-			dimensionValues.add(normalizeDimension(
+			scratch.normalizedValues[i] = normalizeDimension(
 					dimensionDefinitions[i],
 					values[i],
 					binsPerDimension[i],
-					false));
+					false);
 		}
 
 		// Convert the normalized values to a BitVector
 		final BitVector hilbertBitVector = convertToHilbert(
-				dimensionValues,
-				compactHilbertCurve,
-				dimensionDefinitions);
+				scratch);
 
 		return hilbertBitVector.toBigEndianByteArray();
 	}
 
 	/***
-	 * Converts the incoming values (one per dimension) into a BitVector using
-	 * the Compact Hilbert instance. BitVector is a wrapper to allow values
-	 * longer than 64 bits.
+	 * Converts the normalized values (one per dimension) held in the scratch
+	 * space into a BitVector using the thread's own Compact Hilbert instance.
+	 * BitVector is a wrapper to allow values longer than 64 bits.
 	 * 
-	 * @param values
-	 *            n-dimensional point to transoform to a point on the hilbert
-	 *            SFC
-	 * @return point on hilbert SFC
+	 * @param scratch
+	 *            the calling thread's scratch space, with the n-dimensional
+	 *            point to transform already normalized into it
+	 * @return point on hilbert SFC, only valid until the next call on this
+	 *         thread
 	 */
-	private BitVector convertToHilbert(
-			final List<Long> values,
-			final CompactHilbertCurve compactHilbertCurve,
-			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		final BitVector[] bitVectors = new BitVector[values.size()];
-
-		final BitVector hilbertBitVector = BitVectorFactories.OPTIMAL.apply(compactHilbertCurve.getSpec().sumBitsPerDimension());
-
-		for (int i = 0; i < values.size(); i++) {
-			bitVectors[i] = BitVectorFactories.OPTIMAL.apply(dimensionDefinitions[i].getBitsOfPrecision());
-			bitVectors[i].copyFrom(values.get(i));
-		}
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.index(
-					bitVectors,
-					0,
-					hilbertBitVector);
+	private static BitVector convertToHilbert(
+			final HilbertScratchSpace scratch ) {
+		for (int i = 0; i < scratch.dimensionBitVectors.length; i++) {
+			scratch.dimensionBitVectors[i].copyFrom(scratch.normalizedValues[i]);
 		}
-		return hilbertBitVector;
+		scratch.hilbertBitVector.clear();
+		scratch.compactHilbertCurve.index(
+				scratch.dimensionBitVectors,
+				0,
+				scratch.hilbertBitVector);
+		return scratch.hilbertBitVector;
 	}
 
 	@Override
@@ -139,12 +146,14 @@ public class PrimitiveHilbertSFCOperations implements
 			final byte[] hilbertValue,
 			final CompactHilbertCurve compactHilbertCurve,
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
-		// because it returns an array of longs right now, just use a static
-		// method that the unbounded operations can use as well
-		return internalIndicesFromHilbert(
+		final BitVector[] perDimensionBitVectors = indexInverse(
 				hilbertValue,
-				compactHilbertCurve,
-				dimensionDefinitions);
+				scratchSpace.get());
+		final long[] retVal = new long[dimensionDefinitions.length];
+		for (int i = 0; i < retVal.length; i++) {
+			retVal[i] = perDimensionBitVectors[i].toExactLong();
+		}
+		return retVal;
 	}
 
 	protected static long[] internalIndicesFromHilbert(
@@ -169,8 +178,7 @@ public class PrimitiveHilbertSFCOperations implements
 			final SFCDimensionDefinition[] dimensionDefinitions ) {
 		final BitVector[] perDimensionBitVectors = indexInverse(
 				hilbertValue,
-				compactHilbertCurve,
-				dimensionDefinitions);
+				scratchSpace.get());
 		final NumericRange[] retVal = new NumericRange[dimensionDefinitions.length];
 		for (int i = 0; i < retVal.length; i++) {
 			retVal[i] = denormalizeDimension(
@@ -182,6 +190,30 @@ public class PrimitiveHilbertSFCOperations implements
 				retVal);
 	}
 
+	/***
+	 * Inverts the hilbert value using the thread's own Compact Hilbert instance
+	 * and pre-allocated bit vectors, so no monitor is taken
+	 * 
+	 * @param hilbertValue
+	 *            the big endian hilbert value
+	 * @param scratch
+	 *            the calling thread's scratch space
+	 * @return the per dimension bit vectors, only valid until the next call on
+	 *         this thread
+	 */
+	private static BitVector[] indexInverse(
+			final byte[] hilbertValue,
+			final HilbertScratchSpace scratch ) {
+		scratch.hilbertBitVector.copyFromBigEndian(hilbertValue);
+		for (final BitVector dimensionBitVector : scratch.dimensionBitVectors) {
+			dimensionBitVector.clear();
+		}
+		scratch.compactHilbertCurve.indexInverse(
+				scratch.hilbertBitVector,
+				scratch.dimensionBitVectors);
+		return scratch.dimensionBitVectors;
+	}
+
 	protected static BitVector[] indexInverse(
 			final byte[] hilbertValue,
 			final CompactHilbertCurve compactHilbertCurve,
@@ -223,7 +255,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *             thrown when the value passed doesn't fit with in the
 	 *             dimension definition provided
 	 */
-	private long normalizeDimension(
+	protected long normalizeDimension(
 			final SFCDimensionDefinition boundedDimensionDefinition,
 			final double value,
 			final long bins,
@@ -270,7 +302,7 @@ public class PrimitiveHilbertSFCOperations implements
 	 *             thrown when the value passed doesn't fit with in the hilbert
 	 *             SFC for the dimension definition provided
 	 */
-	private NumericRange denormalizeDimension(
+	protected NumericRange denormalizeDimension(
 			final SFCDimensionDefinition boundedDimensionDefinition,
 			final long value,
 			final long bins )
@@ -359,11 +391,12 @@ public class PrimitiveHilbertSFCOperations implements
 				removeVacuum,
 				LongRangeHome.INSTANCE,
 				zero);
-		synchronized (compactHilbertCurve) {
-			compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
-					compactHilbertCurve,
-					queryBuilder));
-		}
+		// the curve keeps internal state while it is being visited, so use
+		// this thread's own instance rather than locking the shared one
+		final CompactHilbertCurve threadCompactHilbertCurve = scratchSpace.get().compactHilbertCurve;
+		threadCompactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+				threadCompactHilbertCurve,
+				queryBuilder));
 		final List<FilteredIndexRange<LongRange, LongRange>> hilbertRanges = queryBuilder.get().getFilteredIndexRanges();
 
 		final ByteArrayRange[] sfcRanges = new ByteArrayRange[hilbertRanges.size()];
@@ -507,4 +540,33 @@ public class PrimitiveHilbertSFCOperations implements
 		}
 		return retVal;
 	}
+
+	/**
+	 * Per-thread state for the primitive operations: a private compact hilbert
+	 * curve along with reusable bit vectors and a primitive array for the
+	 * normalized values
+	 */
+	private static class HilbertScratchSpace
+	{
+		private final CompactHilbertCurve compactHilbertCurve;
+		private final BitVector hilbertBitVector;
+		private final BitVector[] dimensionBitVectors;
+		private final long[] normalizedValues;
+
+		private HilbertScratchSpace(
+				final int[] bitsPerDimension ) {
+			final List<Integer> bitsPerDimensionList = new ArrayList<Integer>(
+					bitsPerDimension.length);
+			dimensionBitVectors = new BitVector[bitsPerDimension.length];
+			for (int d = 0; d < bitsPerDimension.length; d++) {
+				bitsPerDimensionList.add(bitsPerDimension[d]);
+				dimensionBitVectors[d] = BitVectorFactories.OPTIMAL.apply(bitsPerDimension[d]);
+			}
+			compactHilbertCurve = new CompactHilbertCurve(
+					new MultiDimensionalSpec(
+							bitsPerDimensionList));
+			hilbertBitVector = BitVectorFactories.OPTIMAL.apply(compactHilbertCurve.getSpec().sumBitsPerDimension());
+			normalizedValues = new long[bitsPerDimension.length];
+		}
+	}
 }
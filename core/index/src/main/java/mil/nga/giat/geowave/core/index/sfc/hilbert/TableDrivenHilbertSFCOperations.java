@@ -0,0 +1,523 @@
+package mil.nga.giat.geowave.core.index.sfc.hilbert;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.index.sfc.RangeDecomposition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+
+import com.google.uzaygezen.core.BitVector;
+import com.google.uzaygezen.core.BitVectorFactories;
+import com.google.uzaygezen.core.CompactHilbertCurve;
+
+/**
+ * This supports Compact Hilbert SFC operations for low dimensional curves (2D
+ * and 3D) with a total precision that fits within a primitive long, using
+ * state-transition lookup tables rather than uzaygezen's general purpose
+ * implementation. The encoding, decoding, and query decomposition walk the
+ * curve one level at a time with a table lookup per level, and the resulting
+ * IDs are identical to those produced by the CompactHilbertCurve.
+ *
+ * Compact Hilbert values for dimensions of unequal precision are the rank of
+ * the point along the full Hilbert curve, so at each level only the children
+ * within the bounds of the shorter dimensions are ranked.
+ */
+public class TableDrivenHilbertSFCOperations extends
+		PrimitiveHilbertSFCOperations
+{
+	public static final int MAX_DIMENSIONS = 3;
+	public static final int MAX_TOTAL_PRECISION = 62;
+	private static final int CONSISTENCY_SAMPLE_SIZE = 64;
+
+	private int dimensions;
+	private int levels;
+	private int totalPrecision;
+	private int[] bitsPerDimension;
+	private HilbertStateMachine stateMachine;
+	/**
+	 * per level (indexed by bit position), the number of bits the level
+	 * contributes to the compact Hilbert value and the offset of those bits
+	 */
+	private int[] levelWidth;
+	private int[] levelShift;
+	private int[] levelActiveDimensions;
+	/**
+	 * compact rank of each child and the child at each compact rank, indexed by
+	 * the active dimensions mask, then the state, then the child or rank
+	 */
+	private int[][][] compactChildRank;
+	private int[][][] compactRankChild;
+
+	/**
+	 * Whether a curve with the given dimension definitions can use table-driven
+	 * operations
+	 *
+	 * @param dimensionDefs
+	 *            the dimension definitions of the curve
+	 * @return true if the table-driven operations support this curve
+	 */
+	public static boolean isSupported(
+			final SFCDimensionDefinition[] dimensionDefs ) {
+		if ((dimensionDefs.length < 2) || (dimensionDefs.length > MAX_DIMENSIONS)) {
+			return false;
+		}
+		int totalPrecision = 0;
+		for (final SFCDimensionDefinition dimension : dimensionDefs) {
+			totalPrecision += dimension.getBitsOfPrecision();
+		}
+		return (totalPrecision > 0) && (totalPrecision <= MAX_TOTAL_PRECISION);
+	}
+
+	@Override
+	public void init(
+			final SFCDimensionDefinition[] dimensionDefs ) {
+		super.init(dimensionDefs);
+		dimensions = dimensionDefs.length;
+		bitsPerDimension = new int[dimensions];
+		levels = 0;
+		totalPrecision = 0;
+		for (int d = 0; d < dimensions; d++) {
+			bitsPerDimension[d] = dimensionDefs[d].getBitsOfPrecision();
+			levels = Math.max(
+					levels,
+					bitsPerDimension[d]);
+			totalPrecision += bitsPerDimension[d];
+		}
+		stateMachine = HilbertStateMachine.getStateMachine(
+				dimensions,
+				levels);
+		levelWidth = new int[levels];
+		levelShift = new int[levels];
+		levelActiveDimensions = new int[levels];
+		int shift = 0;
+		for (int level = 0; level < levels; level++) {
+			int activeDimensions = 0;
+			for (int d = 0; d < dimensions; d++) {
+				if (bitsPerDimension[d] > level) {
+					activeDimensions |= 1 << d;
+				}
+			}
+			levelActiveDimensions[level] = activeDimensions;
+			levelWidth[level] = Integer.bitCount(activeDimensions);
+			levelShift[level] = shift;
+			shift += levelWidth[level];
+		}
+		compactChildRank = new int[1 << dimensions][][];
+		compactRankChild = new int[1 << dimensions][][];
+		for (final int activeDimensions : levelActiveDimensions) {
+			if (compactChildRank[activeDimensions] == null) {
+				initCompactTables(activeDimensions);
+			}
+		}
+	}
+
+	private void initCompactTables(
+			final int activeDimensions ) {
+		final int stateCount = stateMachine.getStateCount();
+		final int childCount = 1 << dimensions;
+		compactChildRank[activeDimensions] = new int[stateCount][childCount];
+		compactRankChild[activeDimensions] = new int[stateCount][1 << Integer.bitCount(activeDimensions)];
+		for (int state = 0; state < stateCount; state++) {
+			final int[] childRanks = stateMachine.getChildRanks(state);
+			// order the children within bounds by their rank along the full
+			// curve, the compact rank is the position in that order
+			final int[] childByRank = new int[childCount];
+			for (int child = 0; child < childCount; child++) {
+				childByRank[childRanks[child]] = child;
+			}
+			int compactRank = 0;
+			for (final int child : childByRank) {
+				if ((child & ~activeDimensions) == 0) {
+					compactChildRank[activeDimensions][state][child] = compactRank;
+					compactRankChild[activeDimensions][state][compactRank] = child;
+					compactRank++;
+				}
+				else {
+					compactChildRank[activeDimensions][state][child] = -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compare the table-driven encoding with the given compact Hilbert curve
+	 * for a deterministic sample of points, as a guard that row IDs are
+	 * identical to what the curve would produce
+	 *
+	 * @param compactHilbertCurve
+	 *            the compact Hilbert curve with the same dimension definitions
+	 * @return true if every sampled point encodes to the same value
+	 */
+	public boolean isConsistentWith(
+			final CompactHilbertCurve compactHilbertCurve ) {
+		final BitVector[] point = new BitVector[dimensions];
+		for (int d = 0; d < dimensions; d++) {
+			point[d] = BitVectorFactories.OPTIMAL.apply(bitsPerDimension[d]);
+		}
+		final BitVector hilbertIndex = BitVectorFactories.OPTIMAL.apply(totalPrecision);
+		final Random random = new Random(
+				totalPrecision);
+		final long[] coordinates = new long[dimensions];
+		for (int i = 0; i < CONSISTENCY_SAMPLE_SIZE; i++) {
+			for (int d = 0; d < dimensions; d++) {
+				if (i < (1 << dimensions)) {
+					// the corners of the space
+					coordinates[d] = ((i >>> d) & 1) == 0 ? 0 : binsPerDimension[d] - 1;
+				}
+				else {
+					coordinates[d] = (long) (random.nextDouble() * binsPerDimension[d]);
+				}
+				point[d].copyFrom(coordinates[d]);
+			}
+			hilbertIndex.clear();
+			compactHilbertCurve.index(
+					point,
+					0,
+					hilbertIndex);
+			if (hilbertIndex.toExactLong() != encode(coordinates)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public byte[] convertToHilbert(
+			final double[] values,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		// Compare the number of dimensions to the number of values sent in
+		if (dimensionDefinitions.length != values.length) {
+			throw new ArrayIndexOutOfBoundsException(
+					"Number of dimensions supplied (" + values.length + ") is different than initialized (" + dimensionDefinitions.length + ").");
+		}
+		final long[] coordinates = new long[dimensions];
+		for (int d = 0; d < dimensions; d++) {
+			coordinates[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					values[d],
+					binsPerDimension[d],
+					false);
+		}
+		return toBytes(encode(coordinates));
+	}
+
+	@Override
+	public long[] indicesFromHilbert(
+			final byte[] hilbertValue,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		return decode(fromBytes(hilbertValue));
+	}
+
+	@Override
+	public MultiDimensionalNumericData convertFromHilbert(
+			final byte[] hilbertValue,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions ) {
+		final long[] coordinates = decode(fromBytes(hilbertValue));
+		final NumericRange[] retVal = new NumericRange[dimensionDefinitions.length];
+		for (int d = 0; d < retVal.length; d++) {
+			retVal[d] = denormalizeDimension(
+					dimensionDefinitions[d],
+					coordinates[d],
+					binsPerDimension[d]);
+		}
+		return new BasicNumericDataset(
+				retVal);
+	}
+
+	/**
+	 * Map integer coordinates (one per dimension, each within the bits of
+	 * precision of the dimension) to the compact Hilbert value
+	 *
+	 * @param coordinates
+	 *            the integer coordinate per dimension
+	 * @return the compact Hilbert value
+	 */
+	protected long encode(
+			final long[] coordinates ) {
+		long hilbertValue = 0;
+		int state = 0;
+		for (int level = levels - 1; level >= 0; level--) {
+			int child = 0;
+			for (int d = 0; d < dimensions; d++) {
+				child |= (int) ((coordinates[d] >>> level) & 1L) << d;
+			}
+			hilbertValue = (hilbertValue << levelWidth[level]) | compactChildRank[levelActiveDimensions[level]][state][child];
+			if (level > 0) {
+				state = stateMachine.getChildStates(state)[child];
+			}
+		}
+		return hilbertValue;
+	}
+
+	/**
+	 * Map a compact Hilbert value to integer coordinates, one per dimension
+	 *
+	 * @param hilbertValue
+	 *            the compact Hilbert value
+	 * @return the integer coordinate per dimension
+	 */
+	protected long[] decode(
+			final long hilbertValue ) {
+		final long[] coordinates = new long[dimensions];
+		int state = 0;
+		for (int level = levels - 1; level >= 0; level--) {
+			final int compactRank = (int) ((hilbertValue >>> levelShift[level]) & ((1L << levelWidth[level]) - 1));
+			final int child = compactRankChild[levelActiveDimensions[level]][state][compactRank];
+			for (int d = 0; d < dimensions; d++) {
+				coordinates[d] |= (long) ((child >>> d) & 1) << level;
+			}
+			if (level > 0) {
+				state = stateMachine.getChildStates(state)[child];
+			}
+		}
+		return coordinates;
+	}
+
+	@Override
+	public RangeDecomposition decomposeRange(
+			final NumericData[] rangePerDimension,
+			final CompactHilbertCurve compactHilbertCurve,
+			final SFCDimensionDefinition[] dimensionDefinitions,
+			final int totalPrecision,
+			final int maxFilteredIndexedRanges,
+			final boolean removeVacuum ) {
+		final int expectedByteCount = (int) Math.ceil(totalPrecision / 8.0);
+		if (expectedByteCount <= 0) {
+			// special case for no precision
+			return new RangeDecomposition(
+					new ByteArrayRange[] {
+						new ByteArrayRange(
+								new ByteArrayId(
+										new byte[] {}),
+								new ByteArrayId(
+										new byte[] {}))
+					});
+		}
+		final long[] queryMins = new long[dimensions];
+		final long[] queryMaxes = new long[dimensions];
+		long maxRange = 1;
+		for (int d = 0; d < dimensions; d++) {
+			queryMins[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMin(),
+					binsPerDimension[d],
+					true);
+			queryMaxes[d] = normalizeDimension(
+					dimensionDefinitions[d],
+					rangePerDimension[d].getMax(),
+					binsPerDimension[d],
+					false);
+			if (queryMins[d] > queryMaxes[d]) {
+				// if they're both equal, which is possible because we treat max
+				// as exclusive, set bin max to bin min (ie. treat it as
+				// inclusive in this case)
+				queryMaxes[d] = queryMins[d];
+			}
+			maxRange = Math.max(
+					maxRange,
+					(queryMaxes[d] - queryMins[d]) + 1);
+		}
+		// consistent with the uzaygezen decomposition, cells smaller than the
+		// query volume over the unit cell size are not decomposed any further
+		final double maxRangeDecomposed = Math.pow(
+				maxRange,
+				dimensions);
+		final long minQuadSize = maxRangeDecomposed <= UNIT_CELL_SIZE ? 1L : (long) (maxRangeDecomposed / UNIT_CELL_SIZE);
+
+		final RangeCollector ranges = new RangeCollector();
+		decomposeCell(
+				levels - 1,
+				0,
+				new long[dimensions],
+				0L,
+				queryMins,
+				queryMaxes,
+				minQuadSize,
+				ranges);
+		if ((maxFilteredIndexedRanges > 0) && (ranges.size > maxFilteredIndexedRanges)) {
+			ranges.mergeSmallestGaps(maxFilteredIndexedRanges);
+		}
+
+		final ByteArrayRange[] sfcRanges = new ByteArrayRange[ranges.size];
+		for (int i = 0; i < ranges.size; i++) {
+			sfcRanges[i] = new ByteArrayRange(
+					new ByteArrayId(
+							toBytes(
+									ranges.starts[i],
+									expectedByteCount)),
+					new ByteArrayId(
+							toBytes(
+									ranges.ends[i],
+									expectedByteCount)));
+		}
+		return new RangeDecomposition(
+				sfcRanges);
+	}
+
+	/**
+	 * Recursively visit the children of a cell in curve order, emitting the
+	 * compact Hilbert range of any cell that is contained in the query (or is
+	 * too small to decompose further) so that ranges are emitted in order
+	 */
+	private void decomposeCell(
+			final int level,
+			final int state,
+			final long[] cellMins,
+			final long cellHilbertStart,
+			final long[] queryMins,
+			final long[] queryMaxes,
+			final long minQuadSize,
+			final RangeCollector ranges ) {
+		boolean contained = true;
+		long cellSize = 1;
+		for (int d = 0; d < dimensions; d++) {
+			final long cellWidth = 1L << Math.min(
+					level + 1,
+					bitsPerDimension[d]);
+			final long cellMax = (cellMins[d] + cellWidth) - 1;
+			if ((cellMax < queryMins[d]) || (cellMins[d] > queryMaxes[d])) {
+				return;
+			}
+			if ((cellMins[d] < queryMins[d]) || (cellMax > queryMaxes[d])) {
+				contained = false;
+			}
+			cellSize *= cellWidth;
+		}
+		if (contained || (level < 0) || (cellSize <= minQuadSize)) {
+			ranges.add(
+					cellHilbertStart,
+					(cellHilbertStart + cellSize) - 1);
+			return;
+		}
+		final int activeDimensions = levelActiveDimensions[level];
+		final int[] rankChild = compactRankChild[activeDimensions][state];
+		final int[] childStates = level > 0 ? stateMachine.getChildStates(state) : null;
+		final long childSize = cellSize >>> levelWidth[level];
+		for (int compactRank = 0; compactRank < rankChild.length; compactRank++) {
+			final int child = rankChild[compactRank];
+			final long[] childMins = new long[dimensions];
+			for (int d = 0; d < dimensions; d++) {
+				childMins[d] = cellMins[d] | ((long) ((child >>> d) & 1) << level);
+			}
+			decomposeCell(
+					level - 1,
+					childStates == null ? 0 : childStates[child],
+					childMins,
+					cellHilbertStart + (compactRank * childSize),
+					queryMins,
+					queryMaxes,
+					minQuadSize,
+					ranges);
+		}
+	}
+
+	private byte[] toBytes(
+			final long hilbertValue ) {
+		return toBytes(
+				hilbertValue,
+				(int) Math.ceil(totalPrecision / 8.0));
+	}
+
+	private static byte[] toBytes(
+			final long value,
+			final int byteCount ) {
+		final byte[] bytes = new byte[byteCount];
+		for (int i = byteCount - 1, shift = 0; i >= 0; i--, shift += 8) {
+			bytes[i] = (byte) (value >>> shift);
+		}
+		return bytes;
+	}
+
+	private static long fromBytes(
+			final byte[] bytes ) {
+		long value = 0;
+		for (final byte b : bytes) {
+			value = (value << 8) | (b & 0xFFL);
+		}
+		return value;
+	}
+
+	/**
+	 * Accumulates ordered, inclusive ranges of compact Hilbert values in
+	 * primitive arrays, merging contiguous ranges as they are added
+	 */
+	private static class RangeCollector
+	{
+		private long[] starts = new long[64];
+		private long[] ends = new long[64];
+		private int size = 0;
+
+		private void add(
+				final long start,
+				final long end ) {
+			if ((size > 0) && (ends[size - 1] == (start - 1))) {
+				ends[size - 1] = end;
+				return;
+			}
+			if (size == starts.length) {
+				starts = Arrays.copyOf(
+						starts,
+						size * 2);
+				ends = Arrays.copyOf(
+						ends,
+						size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+
+		/**
+		 * combine ranges across the smallest gaps until there are no more than
+		 * the given number of ranges
+		 */
+		private void mergeSmallestGaps(
+				final int maxRanges ) {
+			final long[] gaps = new long[size - 1];
+			for (int i = 0; i < gaps.length; i++) {
+				gaps[i] = starts[i + 1] - ends[i];
+			}
+			final long[] sortedGaps = Arrays.copyOf(
+					gaps,
+					gaps.length);
+			Arrays.sort(sortedGaps);
+			int gapsToMerge = size - maxRanges;
+			final long largestMergedGap = sortedGaps[gapsToMerge - 1];
+			// gaps equal to the largest merged gap are only merged while
+			// needed
+			int equalGapsToMerge = 0;
+			for (int i = 0; i < gapsToMerge; i++) {
+				if (sortedGaps[i] == largestMergedGap) {
+					equalGapsToMerge++;
+				}
+			}
+			int newSize = 0;
+			for (int i = 0; i < size; i++) {
+				if ((i > 0) && (gapsToMerge > 0)) {
+					final long gap = gaps[i - 1];
+					if ((gap < largestMergedGap) || ((gap == largestMergedGap) && (equalGapsToMerge > 0))) {
+						if (gap == largestMergedGap) {
+							equalGapsToMerge--;
+						}
+						gapsToMerge--;
+						ends[newSize - 1] = ends[i];
+						continue;
+					}
+				}
+				starts[newSize] = starts[i];
+				ends[newSize] = ends[i];
+				newSize++;
+			}
+			size = newSize;
+		}
+	}
+}
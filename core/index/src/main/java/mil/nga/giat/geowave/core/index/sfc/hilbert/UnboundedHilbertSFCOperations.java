@@ -123,10 +123,13 @@ public class UnboundedHilbertSFCOperations implements
 			bitVectors[i].copyFrom(values.get(i));
 		}
 
-		compactHilbertCurve.index(
-				bitVectors,
-				0,
-				hilbertBitVector);
+		// the curve is stateful and shared by all threads using the SFC
+		synchronized (compactHilbertCurve) {
+			compactHilbertCurve.index(
+					bitVectors,
+					0,
+					hilbertBitVector);
+		}
 
 		return hilbertBitVector;
 
@@ -340,9 +343,11 @@ public class UnboundedHilbertSFCOperations implements
 				BigIntegerRangeHome.INSTANCE,
 				zero);
 
-		compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
-				compactHilbertCurve,
-				queryBuilder));
+		synchronized (compactHilbertCurve) {
+			compactHilbertCurve.accept(new ZoomingSpaceVisitorAdapter(
+					compactHilbertCurve,
+					queryBuilder));
+		}
 
 		// com.google.uzaygezen.core.Query<LongRange, LongRange> hilbertQuery =
 		// queryBuilder.get();
@@ -4,6 +4,8 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +16,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.RowRangeCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
 import mil.nga.giat.geowave.core.index.dimension.bin.BinRange;
@@ -27,8 +30,13 @@ import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
 
 import org.apache.log4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableBiMap.Builder;
+import com.google.common.primitives.UnsignedBytes;
 
 /**
  * This class uses multiple SpaceFillingCurve objects, one per tier, to
@@ -41,11 +49,22 @@ public class TieredSFCIndexStrategy implements
 	private final static Logger LOGGER = Logger.getLogger(TieredSFCIndexStrategy.class);
 	private final static int MAX_ESTIMATED_DUPLICATE_IDS_PER_DIMENSION = 2;
 	protected static final int DEFAULT_MAX_RANGES = -1;
+	/**
+	 * when refining globally, each tier and bin is decomposed into up to this
+	 * multiple of its even share of the range budget before gaps are closed
+	 */
+	private final static int GLOBAL_DECOMPOSITION_OVERSAMPLING = 8;
+	/**
+	 * a reasonable total number of ranges for the query range cache of a
+	 * strategy that is queried repeatedly, the cache is disabled by default
+	 */
+	public static final long DEFAULT_QUERY_RANGE_CACHE_MAX_RANGES = 250000;
 	private SpaceFillingCurve[] orderedSfcs;
 	private ImmutableBiMap<Integer, Byte> orderedSfcIndexToTierId;
 	private NumericDimensionDefinition[] baseDefinitions;
 	private long maxEstimatedDuplicateIds;
 	private BigInteger maxEstimatedDuplicateIdsBigInteger;
+	private volatile Cache<QueryRangeCacheKey, List<ByteArrayRange>> queryRangeCache = null;
 
 	protected TieredSFCIndexStrategy() {}
 
@@ -74,8 +93,37 @@ public class TieredSFCIndexStrategy implements
 	public List<ByteArrayRange> getQueryRanges(
 			final MultiDimensionalNumericData indexedRange,
 			final int maxRangeDecomposition ) {
-		// TODO don't just pass max ranges along to the SFC, take tiering and
-		// binning into account to limit the number of ranges correctly
+		final Cache<QueryRangeCacheKey, List<ByteArrayRange>> cache = queryRangeCache;
+		if ((cache == null) || (orderedSfcs.length == 0)) {
+			return decomposeQueryRanges(
+					indexedRange,
+					maxRangeDecomposition);
+		}
+		final QueryRangeCacheKey key = new QueryRangeCacheKey(
+				indexedRange,
+				maxRangeDecomposition);
+		List<ByteArrayRange> queryRanges = cache.getIfPresent(key);
+		if (queryRanges == null) {
+			// decompose the query snapped to the cells of the highest
+			// precision tier, so the ranges are valid for any query with the
+			// same key
+			queryRanges = decomposeQueryRanges(
+					key.getSnappedQuery(),
+					maxRangeDecomposition);
+			cache.put(
+					key,
+					queryRanges);
+		}
+		return new ArrayList<ByteArrayRange>(
+				queryRanges);
+	}
+
+	private List<ByteArrayRange> decomposeQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition ) {
+		// this splits max ranges evenly across tiers and bins, use the
+		// decomposition with a cardinality estimator to spend the budget where
+		// it reduces the over-scan the most
 
 		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>();
 		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
@@ -97,6 +145,176 @@ public class TieredSFCIndexStrategy implements
 		return queryRanges;
 	}
 
+	/**
+	 * Returns at most maxRangeDecomposition query ranges, refining globally
+	 * across all tiers and bins under the single range budget rather than
+	 * splitting the budget evenly among them. Every tier and bin is decomposed
+	 * finely first, then the gaps between neighboring ranges that are estimated
+	 * to hold the fewest rows are closed until the budget is met. Without an
+	 * estimator, a gap is estimated by the fraction of its tier's key space
+	 * that it covers, and ranges of different tiers or bins are only joined if
+	 * the budget is smaller than the number of tiers and bins. These ranges are
+	 * not cached because the estimates change as data is ingested.
+	 * 
+	 * @param indexedRange
+	 *            defines the numeric range for the query
+	 * @param maxRangeDecomposition
+	 *            the maximum number of ranges
+	 * @param cardinalityEstimator
+	 *            estimates the number of rows within a range of row IDs, such
+	 *            as the row range histogram of the index, can be null
+	 * @return a List of query ranges ordered by row ID
+	 */
+	public List<ByteArrayRange> getQueryRanges(
+			final MultiDimensionalNumericData indexedRange,
+			final int maxRangeDecomposition,
+			final RowRangeCardinalityEstimator cardinalityEstimator ) {
+		if ((maxRangeDecomposition < 1) || (orderedSfcs.length == 0)) {
+			return getQueryRanges(
+					indexedRange,
+					maxRangeDecomposition);
+		}
+		final BinnedNumericDataset[] binnedQueries = BinnedNumericDataset.applyBins(
+				indexedRange,
+				baseDefinitions);
+		final int binCount = Math.max(
+				binnedQueries.length,
+				1);
+		final int maxRangesPerBin = (int) Math.min(
+				maxRangeDecomposition,
+				Math.ceil(((double) maxRangeDecomposition * GLOBAL_DECOMPOSITION_OVERSAMPLING) / (orderedSfcs.length * binCount)));
+		final List<ByteArrayRange> candidates = new ArrayList<ByteArrayRange>();
+		for (int sfcIndex = orderedSfcs.length - 1; sfcIndex >= 0; sfcIndex--) {
+			candidates.addAll(getQueryRanges(
+					binnedQueries,
+					orderedSfcs[sfcIndex],
+					maxRangesPerBin * binCount,
+					orderedSfcIndexToTierId.get(sfcIndex)));
+		}
+		final Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator();
+		Collections.sort(
+				candidates,
+				new Comparator<ByteArrayRange>() {
+					@Override
+					public int compare(
+							final ByteArrayRange range1,
+							final ByteArrayRange range2 ) {
+						return comparator.compare(
+								range1.getStart().getBytes(),
+								range2.getStart().getBytes());
+					}
+				});
+		final int mergeCount = candidates.size() - maxRangeDecomposition;
+		if (mergeCount <= 0) {
+			return candidates;
+		}
+		// one for the tier
+		int prefixLength = 1;
+		for (final NumericDimensionDefinition dimension : baseDefinitions) {
+			prefixLength += dimension.getFixedBinIdSize();
+		}
+		// estimate the rows that would be scanned by closing each gap, using
+		// the fraction of key space of the gap to break ties of the estimator
+		final int gapCount = candidates.size() - 1;
+		final double[] gapRows = new double[gapCount];
+		final double[] gapKeySpace = new double[gapCount];
+		final Integer[] gapOrder = new Integer[gapCount];
+		for (int i = 0; i < gapCount; i++) {
+			final byte[] gapStart = candidates.get(
+					i).getEnd().getBytes();
+			final byte[] gapEnd = candidates.get(
+					i + 1).getStart().getBytes();
+			if (isSamePrefix(
+					gapStart,
+					gapEnd,
+					prefixLength)) {
+				gapKeySpace[i] = toKeySpaceFraction(
+						gapEnd,
+						prefixLength) - toKeySpaceFraction(
+						gapStart,
+						prefixLength);
+			}
+			else {
+				gapKeySpace[i] = Double.POSITIVE_INFINITY;
+			}
+			if (cardinalityEstimator != null) {
+				final double rows = cardinalityEstimator.cardinality(
+						gapStart,
+						gapEnd);
+				gapRows[i] = Double.isNaN(rows) ? 0 : rows;
+			}
+			gapOrder[i] = i;
+		}
+		Arrays.sort(
+				gapOrder,
+				new Comparator<Integer>() {
+					@Override
+					public int compare(
+							final Integer gap1,
+							final Integer gap2 ) {
+						final int rowsCompare = Double.compare(
+								gapRows[gap1],
+								gapRows[gap2]);
+						if (rowsCompare != 0) {
+							return rowsCompare;
+						}
+						return Double.compare(
+								gapKeySpace[gap1],
+								gapKeySpace[gap2]);
+					}
+				});
+		final boolean[] closeGap = new boolean[gapCount];
+		for (int i = 0; i < mergeCount; i++) {
+			closeGap[gapOrder[i]] = true;
+		}
+		final List<ByteArrayRange> queryRanges = new ArrayList<ByteArrayRange>(
+				maxRangeDecomposition);
+		ByteArrayId start = candidates.get(
+				0).getStart();
+		for (int i = 0; i < gapCount; i++) {
+			if (!closeGap[i]) {
+				queryRanges.add(new ByteArrayRange(
+						start,
+						candidates.get(
+								i).getEnd()));
+				start = candidates.get(
+						i + 1).getStart();
+			}
+		}
+		queryRanges.add(new ByteArrayRange(
+				start,
+				candidates.get(
+						gapCount).getEnd()));
+		return queryRanges;
+	}
+
+	private static boolean isSamePrefix(
+			final byte[] rowId1,
+			final byte[] rowId2,
+			final int prefixLength ) {
+		if ((rowId1.length < prefixLength) || (rowId2.length < prefixLength)) {
+			return false;
+		}
+		for (int i = 0; i < prefixLength; i++) {
+			if (rowId1[i] != rowId2[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static double toKeySpaceFraction(
+			final byte[] rowId,
+			final int offset ) {
+		double fraction = 0;
+		double scale = 1.0 / 256;
+		for (int i = offset; i < rowId.length; i++) {
+			fraction += (rowId[i] & 0xFF) * scale;
+			scale /= 256;
+		}
+		return fraction;
+	}
+
 	protected static List<ByteArrayRange> getQueryRanges(
 			final BinnedNumericDataset[] binnedQueries,
 			final SpaceFillingCurve sfc,
@@ -274,7 +492,7 @@ public class TieredSFCIndexStrategy implements
 		return baseDefinitions;
 	}
 
-	synchronized private List<ByteArrayId> getRowIds(
+	private List<ByteArrayId> getRowIds(
 			final BinnedNumericDataset index,
 			final BigInteger maxEstimatedDuplicateIds ) {
 		// most times this should be a single row ID, but if the lowest
@@ -521,6 +739,128 @@ public class TieredSFCIndexStrategy implements
 		}
 	}
 
+	/**
+	 * Set the size of the cache of decomposed query ranges, as the total number
+	 * of ranges held across all cached queries. The least recently used
+	 * queries are evicted first. The cache is disabled unless it is enabled
+	 * here, and this is not persisted with the strategy.
+	 * 
+	 * @param maxRanges
+	 *            the maximum number of cached ranges, 0 disables the cache
+	 */
+	public void setQueryRangeCacheMaxRanges(
+			final long maxRanges ) {
+		queryRangeCache = createQueryRangeCache(maxRanges);
+	}
+
+	/**
+	 * 
+	 * @return the hit, miss, and eviction counts of the query range cache, or
+	 *         null if the cache is disabled
+	 */
+	public CacheStats getQueryRangeCacheStats() {
+		final Cache<QueryRangeCacheKey, List<ByteArrayRange>> cache = queryRangeCache;
+		if (cache == null) {
+			return null;
+		}
+		return cache.stats();
+	}
+
+	private static Cache<QueryRangeCacheKey, List<ByteArrayRange>> createQueryRangeCache(
+			final long maxRanges ) {
+		if (maxRanges <= 0) {
+			return null;
+		}
+		return CacheBuilder.newBuilder().maximumWeight(
+				maxRanges).weigher(
+				new Weigher<QueryRangeCacheKey, List<ByteArrayRange>>() {
+					@Override
+					public int weigh(
+							final QueryRangeCacheKey key,
+							final List<ByteArrayRange> ranges ) {
+						return Math.max(
+								ranges.size(),
+								1);
+					}
+				}).recordStats().build();
+	}
+
+	/**
+	 * A query normalized to the cells of the highest precision tier for each
+	 * bounded dimension, so that queries covering the same cells share the same
+	 * decomposition. Dimensions that are binned are keyed on their exact
+	 * values. The cache belongs to a single strategy so the tiers are implicit.
+	 */
+	private class QueryRangeCacheKey
+	{
+		private final long[] values;
+		private final int maxRanges;
+		private final NumericData[] snappedQuery;
+
+		private QueryRangeCacheKey(
+				final MultiDimensionalNumericData query,
+				final int maxRanges ) {
+			this.maxRanges = maxRanges;
+			final NumericData[] dataPerDimension = query.getDataPerDimension();
+			final double[] cellRangePerDimension = getHighestPrecisionIdRangePerDimension();
+			values = new long[dataPerDimension.length * 2];
+			snappedQuery = new NumericData[dataPerDimension.length];
+			for (int d = 0; d < dataPerDimension.length; d++) {
+				final NumericDimensionDefinition dimension = baseDefinitions[d];
+				if (dimension.getFixedBinIdSize() > 0) {
+					values[2 * d] = Double.doubleToLongBits(dataPerDimension[d].getMin());
+					values[(2 * d) + 1] = Double.doubleToLongBits(dataPerDimension[d].getMax());
+					snappedQuery[d] = dataPerDimension[d];
+				}
+				else {
+					// snap outward to the cell boundaries, the decomposition
+					// works at the granularity of cells anyways
+					final double cells = Math.round(dimension.getRange() / cellRangePerDimension[d]);
+					final long minCell = (long) Math.floor(dimension.normalize(dataPerDimension[d].getMin()) * cells);
+					final long maxCell = (long) Math.ceil(dimension.normalize(dataPerDimension[d].getMax()) * cells);
+					values[2 * d] = minCell;
+					values[(2 * d) + 1] = maxCell;
+					snappedQuery[d] = new NumericRange(
+							dimension.denormalize(Math.max(
+									minCell / cells,
+									0)),
+							dimension.denormalize(Math.min(
+									maxCell / cells,
+									1)));
+				}
+			}
+		}
+
+		private MultiDimensionalNumericData getSnappedQuery() {
+			return new BasicNumericDataset(
+					snappedQuery);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + maxRanges;
+			result = (prime * result) + Arrays.hashCode(values);
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if ((obj == null) || (getClass() != obj.getClass())) {
+				return false;
+			}
+			final QueryRangeCacheKey other = (QueryRangeCacheKey) obj;
+			return (maxRanges == other.maxRanges) && Arrays.equals(
+					values,
+					other.values);
+		}
+	}
+
 	public void setMaxEstimatedDuplicateIds(
 			int maxEstimatedDuplicateIds ) {
 		this.maxEstimatedDuplicateIds = maxEstimatedDuplicateIds;
@@ -0,0 +1,123 @@
+package mil.nga.giat.geowave.core.index.sfc.hilbert;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.index.dimension.BasicDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.SpaceFillingCurve;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark measuring Hilbert SFC encode and decode throughput (ids/sec)
+ * with a single curve instance shared by all benchmark threads, as it is
+ * shared by ingest threads and row decoding within a GeoWave index. Run the
+ * main method to measure scaling from 1 thread to the number of available
+ * processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HilbertSFCEncodingBenchmark
+{
+	private static final int SAMPLE_SIZE = 4096;
+	private SpaceFillingCurve sfc;
+
+	@Setup
+	public void setup() {
+		sfc = SFCFactory.createSpaceFillingCurve(
+				new SFCDimensionDefinition[] {
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-180,
+									180),
+							31),
+					new SFCDimensionDefinition(
+							new BasicDimensionDefinition(
+									-90,
+									90),
+							31)
+				},
+				SFCType.HILBERT);
+	}
+
+	@State(Scope.Thread)
+	public static class ThreadSamples
+	{
+		private final double[][] points = new double[SAMPLE_SIZE][];
+		private final byte[][] ids = new byte[SAMPLE_SIZE][];
+		private int index = 0;
+
+		@Setup
+		public void setup(
+				final HilbertSFCEncodingBenchmark benchmark ) {
+			final Random random = new Random(
+					Thread.currentThread().getId());
+			for (int i = 0; i < SAMPLE_SIZE; i++) {
+				points[i] = new double[] {
+					(random.nextDouble() * 360) - 180,
+					(random.nextDouble() * 180) - 90
+				};
+				ids[i] = benchmark.sfc.getId(points[i]);
+			}
+		}
+
+		private int next() {
+			index = (index + 1) % SAMPLE_SIZE;
+			return index;
+		}
+	}
+
+	@Benchmark
+	public byte[] getId(
+			final ThreadSamples samples ) {
+		return sfc.getId(samples.points[samples.next()]);
+	}
+
+	@Benchmark
+	public long[] getCoordinates(
+			final ThreadSamples samples ) {
+		return sfc.getCoordinates(samples.ids[samples.next()]);
+	}
+
+	public static void main(
+			final String[] args )
+			throws RunnerException {
+		final int maxThreads = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			runWithThreads(threads);
+		}
+		if (Integer.bitCount(maxThreads) != 1) {
+			runWithThreads(maxThreads);
+		}
+	}
+
+	private static void runWithThreads(
+			final int threads )
+			throws RunnerException {
+		final Options options = new OptionsBuilder().include(
+				HilbertSFCEncodingBenchmark.class.getSimpleName()).threads(
+				threads).build();
+		new Runner(
+				options).run();
+	}
+}
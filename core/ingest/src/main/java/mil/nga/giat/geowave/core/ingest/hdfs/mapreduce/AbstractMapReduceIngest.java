@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
 
+import java.io.IOException;
+
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.Persistable;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
@@ -75,36 +77,11 @@ abstract public class AbstractMapReduceIngest<T extends Persistable & DataAdapte
 			final String[] args )
 			throws Exception {
 		final Configuration conf = getConf();
-		conf.set(
-				INGEST_PLUGIN_KEY,
-				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(ingestPlugin)));
-		if (ingestOptions.getVisibility() != null) {
-			conf.set(
-					GLOBAL_VISIBILITY_KEY,
-					ingestOptions.getVisibility());
-		}
-		final Index primaryIndex = ingestOptions.getIndex(parentPlugin.getSupportedIndices());
-		if (primaryIndex != null) {
-			conf.set(
-					PRIMARY_INDEX_ID_KEY,
-					StringUtils.stringFromBinary(primaryIndex.getId().getBytes()));
-		}
-		final Job job = new Job(
+		final Index primaryIndex = setupIngestConfiguration(conf);
+		final Job job = createJob(
 				conf,
 				getJobName());
 
-		job.setJarByClass(AbstractMapReduceIngest.class);
-
-		job.setInputFormatClass(AvroKeyInputFormat.class);
-		AvroJob.setInputKeySchema(
-				job,
-				parentPlugin.getAvroSchema());
-		FileInputFormat.setInputPaths(
-				job,
-				inputFile);
-
-		setupMapper(job);
-		setupReducer(job);
 		// set geowave output format
 		job.setOutputFormatClass(GeoWaveOutputFormat.class);
 
@@ -124,8 +101,6 @@ abstract public class AbstractMapReduceIngest<T extends Persistable & DataAdapte
 					dataAdapter);
 		}
 
-		job.setSpeculativeExecution(false);
-
 		// add primary index
 		GeoWaveOutputFormat.addIndex(
 				job.getConfiguration(),
@@ -143,6 +118,61 @@ abstract public class AbstractMapReduceIngest<T extends Persistable & DataAdapte
 		return job.waitForCompletion(true) ? 0 : -1;
 	}
 
+	/**
+	 * Set the ingest plugin, the global visibility and the primary index ID
+	 * within the configuration for the mapper and reducer to use.
+	 * 
+	 * @param conf
+	 *            the configuration of the job
+	 * @return the primary index
+	 */
+	protected Index setupIngestConfiguration(
+			final Configuration conf ) {
+		conf.set(
+				INGEST_PLUGIN_KEY,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(ingestPlugin)));
+		if (ingestOptions.getVisibility() != null) {
+			conf.set(
+					GLOBAL_VISIBILITY_KEY,
+					ingestOptions.getVisibility());
+		}
+		final Index primaryIndex = ingestOptions.getIndex(parentPlugin.getSupportedIndices());
+		if (primaryIndex != null) {
+			conf.set(
+					PRIMARY_INDEX_ID_KEY,
+					StringUtils.stringFromBinary(primaryIndex.getId().getBytes()));
+		}
+		return primaryIndex;
+	}
+
+	/**
+	 * Create a job that reads the intermediate data from the input file with
+	 * the mapper and reducer of this ingest, leaving the output to be set up.
+	 */
+	protected Job createJob(
+			final Configuration conf,
+			final String jobName )
+			throws IOException {
+		final Job job = new Job(
+				conf,
+				jobName);
+
+		job.setJarByClass(AbstractMapReduceIngest.class);
+
+		job.setInputFormatClass(AvroKeyInputFormat.class);
+		AvroJob.setInputKeySchema(
+				job,
+				parentPlugin.getAvroSchema());
+		FileInputFormat.setInputPaths(
+				job,
+				inputFile);
+
+		setupMapper(job);
+		setupReducer(job);
+		job.setSpeculativeExecution(false);
+		return job;
+	}
+
 	abstract protected void setupMapper(
 			Job job );
 
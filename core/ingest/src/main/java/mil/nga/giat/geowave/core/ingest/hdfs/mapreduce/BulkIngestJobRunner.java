@@ -0,0 +1,361 @@
+package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.ingest.IngestCommandLineOptions;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.IndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloCommandLineOptions;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+import org.apache.accumulo.core.client.mapreduce.AccumuloFileOutputFormat;
+import org.apache.accumulo.core.client.mapreduce.lib.partition.KeyRangePartitioner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.log4j.Logger;
+
+/**
+ * This will run the mapper only ingest process as an offline bulk load, which
+ * bypasses the tablet servers for the initial load of large data sets. The
+ * mapper converts each entry to the key/value pairs of an index and the pairs
+ * are partitioned by the current split points of the index table, so that
+ * each reducer writes a sorted RFile that falls within a single tablet. The
+ * RFiles are then imported into the table and the statistics computed by the
+ * mappers are merged into the statistics store. A table that has not been
+ * split is written by a single reducer, so it should be pre-split before a
+ * large initial load.
+ *
+ * If the index has an alternate index table, its rows are written to separate
+ * RFiles by the same reducers and imported once the index table has been
+ * loaded. As all of the RFiles are only committed by successful task
+ * attempts, failed attempts leave nothing behind in either table.
+ *
+ * The RFiles of each index are written by a separate job, so the intermediate
+ * data is read once for each index that the plugin ingests into.
+ */
+public class BulkIngestJobRunner extends
+		AbstractMapReduceIngest<IngestWithMapper<?, ?>>
+{
+	private final static Logger LOGGER = Logger.getLogger(BulkIngestJobRunner.class);
+	public static final String BULK_INDEX_KEY = "BULK_INDEX";
+	public static final String BULK_ALT_INDEX_KEY = "BULK_ALT_INDEX";
+	protected static final String STATISTICS_FILE_PREFIX = "statistics-";
+	private static final String SPLITS_FILE = "splits.txt";
+	private static final String FILES_DIRECTORY = "files";
+	private static final String FAILURES_DIRECTORY = "failures";
+	private static final String ALT_INDEX_FILES_DIRECTORY = "altIndexFiles";
+	private static final String ALT_INDEX_FAILURES_DIRECTORY = "altIndexFailures";
+	private static final String STATISTICS_DIRECTORY = "statistics";
+	private final Path bulkIngestDirectory;
+
+	public BulkIngestJobRunner(
+			final AccumuloCommandLineOptions accumuloOptions,
+			final IngestCommandLineOptions ingestOptions,
+			final Path bulkIngestDirectory,
+			final Path inputFile,
+			final String typeName,
+			final IngestFromHdfsPlugin<?, ?> plugin,
+			final IngestWithMapper<?, ?> mapperIngest ) {
+		super(
+				accumuloOptions,
+				ingestOptions,
+				inputFile,
+				typeName,
+				plugin,
+				mapperIngest);
+		this.bulkIngestDirectory = bulkIngestDirectory;
+	}
+
+	@Override
+	protected String getIngestDescription() {
+		return "bulk load";
+	}
+
+	@Override
+	protected void setupMapper(
+			final Job job ) {
+		job.setMapperClass(BulkIngestMapper.class);
+		// set mapper output info
+		job.setMapOutputKeyClass(BulkIngestKey.class);
+		job.setMapOutputValueClass(Value.class);
+	}
+
+	@Override
+	protected void setupReducer(
+			final Job job ) {
+		// the keys of each partition are sorted by the shuffle, so the
+		// reducer only needs to write them to the RFile of their table
+		job.setPartitionerClass(BulkIngestPartitioner.class);
+		job.setReducerClass(BulkIngestReducer.class);
+		job.setOutputKeyClass(Key.class);
+		job.setOutputValueClass(Value.class);
+		job.setOutputFormatClass(AccumuloFileOutputFormat.class);
+		MultipleOutputs.addNamedOutput(
+				job,
+				BulkIngestReducer.ALT_INDEX_OUTPUT,
+				AccumuloFileOutputFormat.class,
+				Key.class,
+				Value.class);
+	}
+
+	@Override
+	public int run(
+			final String[] args )
+			throws Exception {
+		final Configuration conf = getConf();
+		final Index primaryIndex = setupIngestConfiguration(conf);
+		final List<Index> indices = new ArrayList<Index>();
+		if (primaryIndex != null) {
+			indices.add(primaryIndex);
+		}
+		final Index[] requiredIndices = parentPlugin.getRequiredIndices();
+		if (requiredIndices != null) {
+			for (final Index requiredIndex : requiredIndices) {
+				if ((primaryIndex == null) || !primaryIndex.getId().equals(
+						requiredIndex.getId())) {
+					indices.add(requiredIndex);
+				}
+			}
+		}
+		final BasicAccumuloOperations accumuloOperations = new BasicAccumuloOperations(
+				accumuloOptions.getZookeepers(),
+				accumuloOptions.getInstanceId(),
+				accumuloOptions.getUser(),
+				accumuloOptions.getPassword(),
+				accumuloOptions.getNamespace());
+
+		// persist the adapters and indices and set up the tables as the GeoWave
+		// output format would
+		final WritableDataAdapter<?>[] dataAdapters = ingestPlugin.getDataAdapters(ingestOptions.getVisibility());
+		final AdapterStore adapterStore = new AccumuloAdapterStore(
+				accumuloOperations);
+		for (final WritableDataAdapter<?> dataAdapter : dataAdapters) {
+			if (!adapterStore.adapterExists(dataAdapter.getAdapterId())) {
+				adapterStore.addAdapter(dataAdapter);
+			}
+		}
+		final IndexStore indexStore = new AccumuloIndexStore(
+				accumuloOperations);
+		final AccumuloDataStore dataStore = new AccumuloDataStore(
+				accumuloOperations);
+		for (final Index index : indices) {
+			if (!indexStore.indexExists(index.getId())) {
+				indexStore.addIndex(index);
+			}
+			accumuloOperations.createTable(StringUtils.stringFromBinary(index.getId().getBytes()));
+			final IndexWriter indexWriter = dataStore.createIndexWriter(index);
+			for (final WritableDataAdapter<?> dataAdapter : dataAdapters) {
+				indexWriter.setupAdapter(dataAdapter);
+			}
+			indexWriter.close();
+		}
+
+		for (final Index index : indices) {
+			if (!runBulkIngest(
+					conf,
+					accumuloOperations,
+					index)) {
+				return -1;
+			}
+		}
+		return 0;
+	}
+
+	private boolean runBulkIngest(
+			final Configuration conf,
+			final BasicAccumuloOperations accumuloOperations,
+			final Index index )
+			throws Exception {
+		final String tableName = StringUtils.stringFromBinary(index.getId().getBytes());
+		final String qualifiedTableName = AccumuloUtils.getQualifiedTableName(
+				accumuloOptions.getNamespace(),
+				tableName);
+		final Path workDirectory = new Path(
+				new Path(
+						bulkIngestDirectory,
+						typeName),
+				tableName);
+		final Path splitsFile = new Path(
+				workDirectory,
+				SPLITS_FILE);
+		final Path filesDirectory = new Path(
+				workDirectory,
+				FILES_DIRECTORY);
+		final Path failuresDirectory = new Path(
+				workDirectory,
+				FAILURES_DIRECTORY);
+		final Path statisticsDirectory = new Path(
+				workDirectory,
+				STATISTICS_DIRECTORY);
+		final Path altIndexFilesDirectory = new Path(
+				workDirectory,
+				ALT_INDEX_FILES_DIRECTORY);
+		final Path altIndexFailuresDirectory = new Path(
+				workDirectory,
+				ALT_INDEX_FAILURES_DIRECTORY);
+		final FileSystem fs = workDirectory.getFileSystem(conf);
+		if (fs.exists(workDirectory)) {
+			LOGGER.info("Deleting bulk ingest directory '" + workDirectory + "' of a previous run");
+			fs.delete(
+					workDirectory,
+					true);
+		}
+
+		final Collection<Text> splits = accumuloOperations.getConnector().tableOperations().listSplits(
+				qualifiedTableName);
+		writeSplits(
+				fs,
+				splitsFile,
+				splits);
+
+		final Job job = createJob(
+				conf,
+				getJobName() + " into " + qualifiedTableName);
+		job.getConfiguration().set(
+				BULK_INDEX_KEY,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index)));
+		final String altIndexTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
+		final boolean altIndex = accumuloOperations.tableExists(altIndexTableName);
+		job.getConfiguration().setBoolean(
+				BULK_ALT_INDEX_KEY,
+				altIndex);
+		// one reducer for each tablet
+		job.setNumReduceTasks(splits.size() + 1);
+		KeyRangePartitioner.setSplitFile(
+				job,
+				splitsFile.toString());
+		FileOutputFormat.setOutputPath(
+				job,
+				filesDirectory);
+		if (!job.waitForCompletion(true)) {
+			return false;
+		}
+
+		// move the statistics of the mappers and the RFiles of the alternate
+		// index out of the directory to import
+		fs.mkdirs(statisticsDirectory);
+		fs.mkdirs(altIndexFilesDirectory);
+		for (final FileStatus file : fs.listStatus(filesDirectory)) {
+			final String fileName = file.getPath().getName();
+			if (fileName.startsWith(STATISTICS_FILE_PREFIX)) {
+				fs.rename(
+						file.getPath(),
+						new Path(
+								statisticsDirectory,
+								fileName));
+			}
+			else if (fileName.startsWith(BulkIngestReducer.ALT_INDEX_OUTPUT)) {
+				fs.rename(
+						file.getPath(),
+						new Path(
+								altIndexFilesDirectory,
+								fileName));
+			}
+		}
+		fs.mkdirs(failuresDirectory);
+		accumuloOperations.getConnector().tableOperations().importDirectory(
+				qualifiedTableName,
+				filesDirectory.toString(),
+				failuresDirectory.toString(),
+				false);
+		final FileStatus[] failures = fs.listStatus(failuresDirectory);
+		if (failures.length > 0) {
+			LOGGER.error(failures.length + " RFiles could not be imported into table '" + qualifiedTableName + "'; they remain in '" + failuresDirectory + "' and the statistics in '" + statisticsDirectory + "' have not been merged");
+			return false;
+		}
+		mergeStatistics(
+				fs,
+				statisticsDirectory,
+				new AccumuloDataStatisticsStore(
+						accumuloOperations));
+		if (altIndex) {
+			// the alternate index only refers to rows of the index table, so
+			// it is imported once they are loaded
+			final String qualifiedAltIndexTableName = AccumuloUtils.getQualifiedTableName(
+					accumuloOptions.getNamespace(),
+					altIndexTableName);
+			fs.mkdirs(altIndexFailuresDirectory);
+			accumuloOperations.getConnector().tableOperations().importDirectory(
+					qualifiedAltIndexTableName,
+					altIndexFilesDirectory.toString(),
+					altIndexFailuresDirectory.toString(),
+					false);
+			final FileStatus[] altIndexFailures = fs.listStatus(altIndexFailuresDirectory);
+			if (altIndexFailures.length > 0) {
+				LOGGER.error(altIndexFailures.length + " RFiles could not be imported into table '" + qualifiedAltIndexTableName + "'; they remain in '" + altIndexFailuresDirectory + "' and can be imported once the problem is resolved");
+				return false;
+			}
+		}
+		fs.delete(
+				workDirectory,
+				true);
+		return true;
+	}
+
+	/**
+	 * Write the split points in the format read by the range partitioner, one
+	 * Base64 encoded row per line
+	 */
+	private static void writeSplits(
+			final FileSystem fs,
+			final Path splitsFile,
+			final Collection<Text> splits )
+			throws IOException {
+		try (PrintStream out = new PrintStream(
+				fs.create(splitsFile),
+				false,
+				StringUtils.UTF8_CHAR_SET.name())) {
+			for (final Text split : splits) {
+				out.println(new String(
+						Base64.encodeBase64(split.copyBytes()),
+						StringUtils.UTF8_CHAR_SET));
+			}
+		}
+	}
+
+	private static void mergeStatistics(
+			final FileSystem fs,
+			final Path statisticsDirectory,
+			final DataStatisticsStore statisticsStore )
+			throws IOException {
+		for (final FileStatus file : fs.listStatus(statisticsDirectory)) {
+			try (DataInputStream in = fs.open(file.getPath())) {
+				final int numStatistics = in.readInt();
+				for (int i = 0; i < numStatistics; i++) {
+					final byte[] statisticsBytes = new byte[in.readInt()];
+					in.readFully(statisticsBytes);
+					statisticsStore.incorporateStatistics(PersistenceUtils.fromBinary(
+							statisticsBytes,
+							DataStatistics.class));
+				}
+			}
+		}
+	}
+}
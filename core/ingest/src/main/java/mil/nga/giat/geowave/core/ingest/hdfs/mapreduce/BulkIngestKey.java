@@ -0,0 +1,106 @@
+package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * The key emitted by the mapper of a bulk load, which is a key of either the
+ * index table or its alternate index table. The keys are sorted as Accumulo
+ * keys, so the keys of each table that a reducer receives are in order.
+ */
+public class BulkIngestKey implements
+		WritableComparable<BulkIngestKey>
+{
+	private boolean altIndex;
+	private Key key;
+
+	public BulkIngestKey() {
+		key = new Key();
+	}
+
+	public BulkIngestKey(
+			final boolean altIndex,
+			final Key key ) {
+		this.altIndex = altIndex;
+		this.key = key;
+	}
+
+	/**
+	 * @return true if this is a key of the alternate index table
+	 */
+	public boolean isAltIndex() {
+		return altIndex;
+	}
+
+	public Key getKey() {
+		return key;
+	}
+
+	@Override
+	public void write(
+			final DataOutput out )
+			throws IOException {
+		out.writeBoolean(altIndex);
+		key.write(out);
+	}
+
+	@Override
+	public void readFields(
+			final DataInput in )
+			throws IOException {
+		altIndex = in.readBoolean();
+		key.readFields(in);
+	}
+
+	@Override
+	public int compareTo(
+			final BulkIngestKey other ) {
+		final int cmp = key.compareTo(other.key);
+		if (cmp != 0) {
+			return cmp;
+		}
+		return Boolean.compare(
+				altIndex,
+				other.altIndex);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + (altIndex ? 1231 : 1237);
+		result = (prime * result) + ((key == null) ? 0 : key.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(
+			final Object obj ) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (getClass() != obj.getClass()) {
+			return false;
+		}
+		final BulkIngestKey other = (BulkIngestKey) obj;
+		if (altIndex != other.altIndex) {
+			return false;
+		}
+		if (key == null) {
+			if (other.key != null) {
+				return false;
+			}
+		}
+		else if (!key.equals(other.key)) {
+			return false;
+		}
+		return true;
+	}
+}
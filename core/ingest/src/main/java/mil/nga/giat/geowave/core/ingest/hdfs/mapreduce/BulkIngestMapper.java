@@ -0,0 +1,255 @@
+package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.ingest.GeoWaveData;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.IndexDependentDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.MemoryAdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
+import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
+import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
+import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.DataAdapterStatsWrapper;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloKeyValuePair;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloKeyValuePairGenerator;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+/**
+ * This class is the map-reduce mapper for a bulk load of a single index. Each
+ * entry ingested with the mapper is converted to the key/value pairs of the
+ * index and, if the index has an alternate index table, of the alternate
+ * index, which are sorted by the shuffle and written to RFiles by the
+ * reducers. The statistics of the entries are accumulated by each mapper and
+ * written alongside the RFiles when the mapper completes.
+ */
+public class BulkIngestMapper extends
+		Mapper<AvroKey, NullWritable, BulkIngestKey, Value>
+{
+	private static final Value ALT_INDEX_VALUE = new Value(
+			new byte[] {});
+
+	private IngestWithMapper ingestWithMapper;
+	private String globalVisibility;
+	private ByteArrayId primaryIndexId;
+	private Index index;
+	private AdapterStore adapterStore;
+	private boolean writeAltIndex;
+	private final Map<ByteArrayId, AccumuloKeyValuePairGenerator<?>> generators = new HashMap<ByteArrayId, AccumuloKeyValuePairGenerator<?>>();
+	private final Map<ByteArrayId, StatsCompositionTool<?>> statsTools = new HashMap<ByteArrayId, StatsCompositionTool<?>>();
+
+	@SuppressWarnings({
+		"rawtypes",
+		"unchecked"
+	})
+	@Override
+	protected void map(
+			final AvroKey key,
+			final NullWritable value,
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		try (CloseableIterator<GeoWaveData> data = ingestWithMapper.toGeoWaveData(
+				key.datum(),
+				primaryIndexId,
+				globalVisibility)) {
+			while (data.hasNext()) {
+				final GeoWaveData d = data.next();
+				// the entries of any other index are loaded by the job of that
+				// index
+				if (!index.getId().equals(
+						d.getIndexId())) {
+					continue;
+				}
+				final WritableDataAdapter adapter = d.getAdapter(adapterStore);
+				if (adapter == null) {
+					continue;
+				}
+				if (adapter instanceof IndexDependentDataAdapter) {
+					final Iterator<?> indexedEntries = ((IndexDependentDataAdapter) adapter).convertToIndex(
+							index,
+							d.getValue());
+					while (indexedEntries.hasNext()) {
+						write(
+								adapter,
+								indexedEntries.next(),
+								context);
+					}
+				}
+				else {
+					write(
+							adapter,
+							d.getValue(),
+							context);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> void write(
+			final WritableDataAdapter<T> adapter,
+			final T entry,
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		AccumuloKeyValuePairGenerator<T> generator = (AccumuloKeyValuePairGenerator<T>) generators.get(adapter.getAdapterId());
+		StatsCompositionTool<T> statsTool = (StatsCompositionTool<T>) statsTools.get(adapter.getAdapterId());
+		if (generator == null) {
+			final VisibilityWriter<T> visibilityWriter = new UniformVisibilityWriter<T>(
+					new UnconstrainedVisibilityHandler<T, Object>());
+			generator = new AccumuloKeyValuePairGenerator<T>(
+					adapter,
+					index,
+					visibilityWriter);
+			statsTool = new StatsCompositionTool<T>(
+					new DataAdapterStatsWrapper<T>(
+							index,
+							adapter));
+			generators.put(
+					adapter.getAdapterId(),
+					generator);
+			statsTools.put(
+					adapter.getAdapterId(),
+					statsTool);
+		}
+		final DataStoreEntryInfo ingestInfo = generator.getIngestInfo(entry);
+		for (final AccumuloKeyValuePair keyValuePair : generator.constructKeyValuePairs(
+				adapter.getAdapterId().getBytes(),
+				ingestInfo)) {
+			context.write(
+					new BulkIngestKey(
+							false,
+							keyValuePair.getKey()),
+					keyValuePair.getValue());
+		}
+		if (writeAltIndex) {
+			writeAltIndex(
+					adapter,
+					ingestInfo,
+					entry,
+					context);
+		}
+		statsTool.entryIngested(
+				ingestInfo,
+				entry);
+	}
+
+	/**
+	 * Write the rows of the alternate index for an entry, as
+	 * AccumuloUtils.writeAltIndex would write them through the tablet servers
+	 */
+	private <T> void writeAltIndex(
+			final WritableDataAdapter<T> adapter,
+			final DataStoreEntryInfo ingestInfo,
+			final T entry,
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		final byte[] dataId = adapter.getDataId(
+				entry).getBytes();
+		if ((dataId == null) || (dataId.length == 0)) {
+			return;
+		}
+		final byte[] adapterId = adapter.getAdapterId().getBytes();
+		final long timestamp = System.currentTimeMillis();
+		for (final ByteArrayId rowId : ingestInfo.getRowIds()) {
+			context.write(
+					new BulkIngestKey(
+							true,
+							new Key(
+									dataId,
+									adapterId,
+									rowId.getBytes(),
+									new byte[] {},
+									timestamp)),
+					ALT_INDEX_VALUE);
+		}
+	}
+
+	@Override
+	protected void setup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		super.setup(context);
+		try {
+			final String ingestWithMapperStr = context.getConfiguration().get(
+					AbstractMapReduceIngest.INGEST_PLUGIN_KEY);
+			final byte[] ingestWithMapperBytes = ByteArrayUtils.byteArrayFromString(ingestWithMapperStr);
+			ingestWithMapper = PersistenceUtils.fromBinary(
+					ingestWithMapperBytes,
+					IngestWithMapper.class);
+			globalVisibility = context.getConfiguration().get(
+					AbstractMapReduceIngest.GLOBAL_VISIBILITY_KEY);
+			final String primaryIndexIdStr = context.getConfiguration().get(
+					AbstractMapReduceIngest.PRIMARY_INDEX_ID_KEY);
+			if (primaryIndexIdStr != null) {
+				primaryIndexId = new ByteArrayId(
+						primaryIndexIdStr);
+			}
+			final String indexStr = context.getConfiguration().get(
+					BulkIngestJobRunner.BULK_INDEX_KEY);
+			index = PersistenceUtils.fromBinary(
+					ByteArrayUtils.byteArrayFromString(indexStr),
+					Index.class);
+			adapterStore = new MemoryAdapterStore(
+					ingestWithMapper.getDataAdapters(globalVisibility));
+			writeAltIndex = context.getConfiguration().getBoolean(
+					BulkIngestJobRunner.BULK_ALT_INDEX_KEY,
+					false);
+		}
+		catch (final Exception e) {
+			throw new IllegalArgumentException(
+					e);
+		}
+	}
+
+	@Override
+	protected void cleanup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		final List<DataStatistics<?>> statistics = new ArrayList<DataStatistics<?>>();
+		for (final StatsCompositionTool<?> statsTool : statsTools.values()) {
+			statistics.addAll(statsTool.drainStatistics());
+		}
+		// the statistics are committed with the output of this task, so that
+		// only the statistics of successful attempts are merged
+		final Path statisticsFile = new Path(
+				FileOutputFormat.getWorkOutputPath(context),
+				BulkIngestJobRunner.STATISTICS_FILE_PREFIX + context.getTaskAttemptID().getTaskID().getId());
+		final FileSystem fs = statisticsFile.getFileSystem(context.getConfiguration());
+		try (DataOutputStream out = fs.create(statisticsFile)) {
+			out.writeInt(statistics.size());
+			for (final DataStatistics<?> s : statistics) {
+				final byte[] statisticsBytes = PersistenceUtils.toBinary(s);
+				out.writeInt(statisticsBytes.length);
+				out.write(statisticsBytes);
+			}
+		}
+		super.cleanup(context);
+	}
+}
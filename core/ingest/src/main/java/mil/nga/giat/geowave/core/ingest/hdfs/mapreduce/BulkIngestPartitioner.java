@@ -0,0 +1,45 @@
+package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
+
+import org.apache.accumulo.core.client.mapreduce.lib.partition.KeyRangePartitioner;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * This partitions the keys of the index table of a bulk load by the split
+ * points of the table, so that each reducer writes an RFile that falls within
+ * a single tablet. The keys of the alternate index table are spread evenly
+ * over the reducers.
+ */
+public class BulkIngestPartitioner extends
+		Partitioner<BulkIngestKey, Value> implements
+		Configurable
+{
+	private final KeyRangePartitioner keyRangePartitioner = new KeyRangePartitioner();
+
+	@Override
+	public int getPartition(
+			final BulkIngestKey key,
+			final Value value,
+			final int numPartitions ) {
+		if (key.isAltIndex()) {
+			return (key.getKey().getRow().hashCode() & Integer.MAX_VALUE) % numPartitions;
+		}
+		return keyRangePartitioner.getPartition(
+				key.getKey(),
+				value,
+				numPartitions);
+	}
+
+	@Override
+	public Configuration getConf() {
+		return keyRangePartitioner.getConf();
+	}
+
+	@Override
+	public void setConf(
+			final Configuration conf ) {
+		keyRangePartitioner.setConf(conf);
+	}
+}
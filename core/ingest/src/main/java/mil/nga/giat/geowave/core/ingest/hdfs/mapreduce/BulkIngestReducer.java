@@ -0,0 +1,62 @@
+package mil.nga.giat.geowave.core.ingest.hdfs.mapreduce;
+
+import java.io.IOException;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/**
+ * This class is the map-reduce reducer for a bulk load. The keys are sorted by
+ * the shuffle, so the reducer writes the keys of the index table to the RFile
+ * of the job output and the keys of the alternate index table to a separate
+ * RFile, which is imported into the alternate index table.
+ */
+public class BulkIngestReducer extends
+		Reducer<BulkIngestKey, Value, Key, Value>
+{
+	public static final String ALT_INDEX_OUTPUT = "altindex";
+	private MultipleOutputs<Key, Value> outputs;
+
+	@Override
+	protected void setup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		super.setup(context);
+		outputs = new MultipleOutputs<Key, Value>(
+				context);
+	}
+
+	@Override
+	protected void reduce(
+			final BulkIngestKey key,
+			final Iterable<Value> values,
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		for (final Value value : values) {
+			if (key.isAltIndex()) {
+				outputs.write(
+						ALT_INDEX_OUTPUT,
+						key.getKey(),
+						value);
+			}
+			else {
+				context.write(
+						key.getKey(),
+						value);
+			}
+		}
+	}
+
+	@Override
+	protected void cleanup(
+			final Context context )
+			throws IOException,
+			InterruptedException {
+		outputs.close();
+		super.cleanup(context);
+	}
+}
@@ -130,6 +130,9 @@ public class IngestFromHdfsDriver extends
 
 				AbstractMapReduceIngest jobRunner = null;
 				if (ingestWithReducer != null) {
+					if (mapReduceOptions.getBulkIngestDirectory() != null) {
+						LOGGER.warn("Plugin provider '" + pluginProvider.getIngestFormatName() + "' ingests with a reducer which cannot be bulk loaded, it will be written through the tablet servers");
+					}
 					jobRunner = new IngestWithReducerJobRunner(
 							accumuloOptions,
 							ingestOptions,
@@ -138,6 +141,18 @@ public class IngestFromHdfsDriver extends
 							ingestFromHdfsPlugin,
 							ingestWithReducer);
 
+				}
+				else if ((ingestWithMapper != null) && (mapReduceOptions.getBulkIngestDirectory() != null)) {
+					jobRunner = new BulkIngestJobRunner(
+							accumuloOptions,
+							ingestOptions,
+							new Path(
+									mapReduceOptions.getBulkIngestDirectory()),
+							inputFile,
+							pluginProvider.getIngestFormatName(),
+							ingestFromHdfsPlugin,
+							ingestWithMapper);
+
 				}
 				else if (ingestWithMapper != null) {
 					jobRunner = new IngestWithMapperJobRunner(
@@ -13,16 +13,27 @@ import org.apache.log4j.Logger;
  * This class encapsulates all of the options and parsed values specific to
  * setting up the GeoWave ingestion framework to run on hadoop map-reduce.
  * Currently the only required parameter is the host name and port for the
- * hadoop job tracker.
+ * hadoop job tracker, and a work directory can optionally be given to ingest
+ * with a bulk load.
  */
 public class MapReduceCommandLineOptions
 {
 	private final static Logger LOGGER = Logger.getLogger(MapReduceCommandLineOptions.class);
 	private final String jobTrackerHostPort;
+	private final String bulkIngestDirectory;
 
 	public MapReduceCommandLineOptions(
 			final String jobTrackerHostPort ) {
+		this(
+				jobTrackerHostPort,
+				null);
+	}
+
+	public MapReduceCommandLineOptions(
+			final String jobTrackerHostPort,
+			final String bulkIngestDirectory ) {
 		this.jobTrackerHostPort = jobTrackerHostPort;
+		this.bulkIngestDirectory = bulkIngestDirectory;
 	}
 
 	public static void applyOptions(
@@ -37,12 +48,24 @@ public class MapReduceCommandLineOptions
 				true,
 				"Yarn resource manager hostname and port in the format hostname:port"));
 		allOptions.addOptionGroup(jobTrackerOrResourceManager);
+		allOptions.addOption(
+				"bulkdir",
+				true,
+				"fully qualified path to a work directory in hdfs, which the accumulo user must be able to write to; if set, ingest with a mapper writes sorted RFiles to it that are bulk imported rather than writing through the tablet servers");
 	}
 
 	public String getJobTrackerOrResourceManagerHostPort() {
 		return jobTrackerHostPort;
 	}
 
+	/**
+	 * @return the work directory of a bulk load, or null to write through the
+	 *         tablet servers
+	 */
+	public String getBulkIngestDirectory() {
+		return bulkIngestDirectory;
+	}
+
 	public static MapReduceCommandLineOptions parseOptions(
 			final CommandLine commandLine )
 			throws ParseException {
@@ -60,6 +83,7 @@ public class MapReduceCommandLineOptions
 					"Required option is missing");
 		}
 		return new MapReduceCommandLineOptions(
-				jobTrackerHostPort);
+				jobTrackerHostPort,
+				commandLine.getOptionValue("bulkdir"));
 	}
 }
@@ -3,11 +3,14 @@ package mil.nga.giat.geowave.core.ingest.kafka;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import kafka.consumer.Consumer;
 import kafka.consumer.ConsumerConfig;
@@ -15,6 +18,7 @@ import kafka.consumer.ConsumerIterator;
 import kafka.consumer.ConsumerTimeoutException;
 import kafka.consumer.KafkaStream;
 import kafka.javaapi.consumer.ConsumerConnector;
+import kafka.message.MessageAndMetadata;
 import mil.nga.giat.geowave.core.ingest.AbstractIngestCommandLineDriver;
 import mil.nga.giat.geowave.core.ingest.IngestCommandLineOptions;
 import mil.nga.giat.geowave.core.ingest.IngestFormatPluginProviderSpi;
@@ -22,6 +26,7 @@ import mil.nga.giat.geowave.core.ingest.IngestPluginBase;
 import mil.nga.giat.geowave.core.ingest.IngestUtils;
 import mil.nga.giat.geowave.core.ingest.avro.AvroFormatPlugin;
 import mil.nga.giat.geowave.core.ingest.avro.GenericAvroSerializer;
+import mil.nga.giat.geowave.core.ingest.kafka.KafkaIngestRunData.StreamMetrics;
 import mil.nga.giat.geowave.core.ingest.local.IngestRunData;
 import mil.nga.giat.geowave.core.store.DataStore;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
@@ -76,7 +81,7 @@ public class IngestFromKafkaDriver extends
 		final DataStore dataStore = new AccumuloDataStore(
 				operations);
 
-		final List<String> queue = new ArrayList<String>();
+		final List<String> queue = Collections.synchronizedList(new ArrayList<String>());
 		addPluginsToQueue(
 				pluginProviders,
 				queue);
@@ -143,14 +148,12 @@ public class IngestFromKafkaDriver extends
 					final IngestPluginBase<?, ?> ingestWithAvroPlugin = avroFormatPlugin.getIngestWithAvroPlugin();
 					final WritableDataAdapter<?>[] dataAdapters = ingestWithAvroPlugin.getDataAdapters(ingestOptions.getVisibility());
 					adapters.addAll(Arrays.asList(dataAdapters));
-					final IngestRunData runData = new IngestRunData(
-							adapters,
-							dataStore);
 
 					launchTopicConsumer(
 							pluginProvider.getIngestFormatName(),
 							avroFormatPlugin,
-							runData,
+							adapters,
+							dataStore,
 							queue);
 				}
 				catch (final UnsupportedOperationException e) {
@@ -168,18 +171,23 @@ public class IngestFromKafkaDriver extends
 		}
 	}
 
-	private ConsumerConnector buildKafkaConsumer() {
-
-		final ConsumerConnector consumer = Consumer.createJavaConsumerConnector(new ConsumerConfig(
-				kafkaOptions.getProperties()));
+	private ConsumerConfig buildKafkaConsumerConfig() {
+		final Properties properties = new Properties();
+		properties.putAll(kafkaOptions.getProperties());
+		// the offsets are committed once the messages they cover are flushed
+		properties.put(
+				"auto.commit.enable",
+				"false");
 
-		return consumer;
+		return new ConsumerConfig(
+				properties);
 	}
 
 	private void launchTopicConsumer(
 			final String formatPluginName,
 			final AvroFormatPlugin<?, ?> avroFormatPlugin,
-			final IngestRunData ingestRunData,
+			final List<WritableDataAdapter<?>> adapters,
+			final DataStore dataStore,
 			final List<String> queue )
 			throws Exception {
 		final ExecutorService executorService = Executors.newFixedThreadPool(queue.size());
@@ -191,7 +199,8 @@ public class IngestFromKafkaDriver extends
 					consumeFromTopic(
 							formatPluginName,
 							avroFormatPlugin,
-							ingestRunData,
+							adapters,
+							dataStore,
 							queue);
 				}
 				catch (final Exception e) {
@@ -206,31 +215,58 @@ public class IngestFromKafkaDriver extends
 	public <T> void consumeFromTopic(
 			final String formatPluginName,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
-			final IngestRunData ingestRunData,
+			final List<WritableDataAdapter<?>> adapters,
+			final DataStore dataStore,
 			final List<String> queue )
 			throws Exception {
 
-		final ConsumerConnector consumer = buildKafkaConsumer();
+		final ConsumerConfig consumerConfig = buildKafkaConsumerConfig();
+		final ConsumerConnector consumer = Consumer.createJavaConsumerConnector(consumerConfig);
 		if (consumer == null) {
 			throw new Exception(
 					"Kafka consumer connector is null, unable to create message streams");
 		}
 		try {
-			LOGGER.debug("Kafka consumer setup for format [" + formatPluginName + "] against topic [" + formatPluginName + "]");
+			final int streamsPerTopic = kafkaOptions.getStreamsPerTopic();
+			LOGGER.debug("Kafka consumer setup for format [" + formatPluginName + "] against topic [" + formatPluginName + "] with " + streamsPerTopic + " streams");
 			final Map<String, Integer> topicCount = new HashMap<>();
 			topicCount.put(
 					formatPluginName,
-					1);
+					streamsPerTopic);
 
 			final Map<String, List<KafkaStream<byte[], byte[]>>> consumerStreams = consumer.createMessageStreams(topicCount);
 			final List<KafkaStream<byte[], byte[]>> streams = consumerStreams.get(formatPluginName);
 
 			queue.remove(formatPluginName);
-			consumeMessages(
+			try (final KafkaIngestRunData ingestRunData = new KafkaIngestRunData(
+					adapters,
+					dataStore,
 					formatPluginName,
-					avroFormatPlugin,
-					ingestRunData,
-					streams.get(0));
+					consumer,
+					consumerConfig.clientId(),
+					kafkaOptions.getBatchSize(),
+					kafkaOptions.getFlushIntervalMillis())) {
+				// each stream decodes and writes its messages on its own thread
+				final ExecutorService streamExecutor = Executors.newFixedThreadPool(streams.size());
+				for (final KafkaStream<byte[], byte[]> stream : streams) {
+					final StreamMetrics metrics = ingestRunData.addStream();
+					streamExecutor.execute(new Runnable() {
+						@Override
+						public void run() {
+							consumeMessages(
+									formatPluginName,
+									avroFormatPlugin,
+									ingestRunData,
+									metrics,
+									stream);
+						}
+					});
+				}
+				streamExecutor.shutdown();
+				streamExecutor.awaitTermination(
+						Long.MAX_VALUE,
+						TimeUnit.MILLISECONDS);
+			}
 		}
 		finally {
 			consumer.shutdown();
@@ -240,67 +276,66 @@ public class IngestFromKafkaDriver extends
 	protected <T> void consumeMessages(
 			final String formatPluginName,
 			final AvroFormatPlugin<T, ?> avroFormatPlugin,
-			final IngestRunData ingestRunData,
+			final KafkaIngestRunData ingestRunData,
+			final StreamMetrics metrics,
 			final KafkaStream<byte[], byte[]> stream ) {
-		int currentBatchId = 0;
-		final int batchSize = kafkaOptions.getBatchSize();
-		try {
-			final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
-			while (messageIterator.hasNext()) {
-				final byte[] msg = messageIterator.next().message();
-				LOGGER.info("[" + formatPluginName + "] message received");
-				final T dataRecord = GenericAvroSerializer.deserialize(
-						msg,
-						avroFormatPlugin.getAvroSchema());
-
-				if (dataRecord != null) {
+		final ConsumerIterator<byte[], byte[]> messageIterator = stream.iterator();
+		while (true) {
+			try {
+				while (messageIterator.hasNext()) {
+					// the offset is not committed between taking the message
+					// and writing it
+					ingestRunData.beginMessage();
 					try {
-						processMessage(
-								dataRecord,
-								ingestRunData,
-								avroFormatPlugin);
-						if (++currentBatchId > batchSize) {
-							ingestRunData.flush();
-							currentBatchId = 0;
+						final MessageAndMetadata<byte[], byte[]> message = messageIterator.next();
+						metrics.messageConsumed(message.partition());
+						final T dataRecord = GenericAvroSerializer.deserialize(
+								message.message(),
+								avroFormatPlugin.getAvroSchema());
+
+						if (dataRecord != null) {
+							processMessage(
+									dataRecord,
+									ingestRunData,
+									avroFormatPlugin);
 						}
 					}
 					catch (final Exception e) {
+						metrics.messageFailed();
 						LOGGER.error(
 								"Error processing message: " + e.getMessage(),
 								e);
 					}
+					finally {
+						ingestRunData.endMessage();
+					}
 				}
+				return;
 			}
-		}
-		catch (final ConsumerTimeoutException te) {
-			if (kafkaOptions.isFlushAndReconnect()) {
-				LOGGER.info(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
-						te);
-				if (currentBatchId > 0) {
-					ingestRunData.flush();
+			catch (final ConsumerTimeoutException te) {
+				if (kafkaOptions.isFlushAndReconnect()) {
+					LOGGER.info(
+							"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
+							te);
+					ingestRunData.flushAndCommit();
+				}
+				else {
+					LOGGER.warn(
+							"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
+							te);
+					return;
 				}
-				consumeMessages(
-						formatPluginName,
-						avroFormatPlugin,
-						ingestRunData,
-						stream);
 			}
-			else {
+			catch (final Exception e) {
 				LOGGER.warn(
-						"Consumer timed out from Kafka topic [" + formatPluginName + "... ",
-						te);
+						"Consuming from Kafka topic [" + formatPluginName + "] was interrupted... ",
+						e);
+				return;
 			}
 		}
-		catch (final Exception e) {
-			LOGGER.warn(
-					"Consuming from Kafka topic [" + formatPluginName + "] was interrupted... ",
-					e);
-		}
-
 	}
 
-	synchronized protected <T> void processMessage(
+	protected <T> void processMessage(
 			final T dataRecord,
 			final IngestRunData ingestRunData,
 			final AvroFormatPlugin<T, ?> plugin )
@@ -39,19 +39,41 @@ public class KafkaConsumerCommandLineOptions
 				false)
 	};
 	private static final int DEFAULT_BATCH_SIZE = 10000;
+	private static final int DEFAULT_STREAMS_PER_TOPIC = 1;
+	private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10000;
 	private final static String RECONNECT_ON_TIMEOUT_KEY = "reconnectOnTimeout";
 	private final static String BATCH_SIZE_KEY = "batchSize";
+	private final static String STREAMS_PER_TOPIC_KEY = "streamsPerTopic";
+	private final static String FLUSH_INTERVAL_KEY = "flushIntervalMs";
 	private final Properties kafkaProperties;
 	private final boolean flushAndReconnect;
 	private final int batchSize;
+	private final int streamsPerTopic;
+	private final long flushIntervalMillis;
 
 	public KafkaConsumerCommandLineOptions(
 			final Properties kafkaProperties,
 			final boolean flushAndReconnect,
 			final int batchSize ) {
+		this(
+				kafkaProperties,
+				flushAndReconnect,
+				batchSize,
+				DEFAULT_STREAMS_PER_TOPIC,
+				DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	public KafkaConsumerCommandLineOptions(
+			final Properties kafkaProperties,
+			final boolean flushAndReconnect,
+			final int batchSize,
+			final int streamsPerTopic,
+			final long flushIntervalMillis ) {
 		this.kafkaProperties = kafkaProperties;
 		this.flushAndReconnect = flushAndReconnect;
 		this.batchSize = batchSize;
+		this.streamsPerTopic = streamsPerTopic;
+		this.flushIntervalMillis = flushIntervalMillis;
 	}
 
 	public Properties getProperties() {
@@ -66,6 +88,14 @@ public class KafkaConsumerCommandLineOptions
 		return batchSize;
 	}
 
+	public int getStreamsPerTopic() {
+		return streamsPerTopic;
+	}
+
+	public long getFlushIntervalMillis() {
+		return flushIntervalMillis;
+	}
+
 	public static void applyOptions(
 			final Options allOptions ) {
 		KafkaCommandLineOptions.applyOptions(allOptions);
@@ -87,6 +117,20 @@ public class KafkaConsumerCommandLineOptions
 				"The data will automatically flush after this number of entries (default is '" + DEFAULT_BATCH_SIZE + "')");
 		batchSizeOption.setRequired(false);
 		allOptions.addOption(batchSizeOption);
+
+		final Option streamsPerTopicOption = new Option(
+				STREAMS_PER_TOPIC_KEY,
+				true,
+				"The number of streams consuming each topic, each decoding and writing messages on its own thread; the partitions of the topic are divided among the streams so there is no benefit to more streams than partitions (default is '" + DEFAULT_STREAMS_PER_TOPIC + "')");
+		streamsPerTopicOption.setRequired(false);
+		allOptions.addOption(streamsPerTopicOption);
+
+		final Option flushIntervalOption = new Option(
+				FLUSH_INTERVAL_KEY,
+				true,
+				"The data will automatically flush after this number of milliseconds if it has not reached the batch size, or never if it is 0 (default is '" + DEFAULT_FLUSH_INTERVAL_MILLIS + "')");
+		flushIntervalOption.setRequired(false);
+		allOptions.addOption(flushIntervalOption);
 	}
 
 	public static KafkaConsumerCommandLineOptions parseOptions(
@@ -108,9 +152,39 @@ public class KafkaConsumerCommandLineOptions
 						e);
 			}
 		}
+		int streamsPerTopic = DEFAULT_STREAMS_PER_TOPIC;
+		if (commandLine.hasOption(STREAMS_PER_TOPIC_KEY)) {
+			try {
+				final String value = commandLine.getOptionValue(STREAMS_PER_TOPIC_KEY);
+				streamsPerTopic = Math.max(
+						Integer.parseInt(value),
+						1);
+			}
+			catch (final Exception e) {
+				LOGGER.error(
+						"Error parsing '" + STREAMS_PER_TOPIC_KEY + "' as an integer",
+						e);
+			}
+		}
+		long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+		if (commandLine.hasOption(FLUSH_INTERVAL_KEY)) {
+			try {
+				final String value = commandLine.getOptionValue(FLUSH_INTERVAL_KEY);
+				flushIntervalMillis = Math.max(
+						Long.parseLong(value),
+						0);
+			}
+			catch (final Exception e) {
+				LOGGER.error(
+						"Error parsing '" + FLUSH_INTERVAL_KEY + "' as a long",
+						e);
+			}
+		}
 		return new KafkaConsumerCommandLineOptions(
 				baseOptions.getProperties(),
 				flushAndReconnect,
-				batchSize);
+				batchSize,
+				streamsPerTopic,
+				flushIntervalMillis);
 	}
 }
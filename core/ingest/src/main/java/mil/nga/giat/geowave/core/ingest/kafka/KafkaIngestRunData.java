@@ -0,0 +1,328 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import kafka.javaapi.consumer.ConsumerConnector;
+import mil.nga.giat.geowave.core.ingest.local.IngestRunData;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This run data is shared by the streams consuming a Kafka topic. The messages
+ * of every stream are written through the same index writers, which are
+ * flushed when the number of messages written since the last flush reaches the
+ * batch size or when the flush interval elapses. The offsets of the consumer
+ * are committed only after a flush, and never while a stream has taken a
+ * message that is not yet written, so that a committed offset never covers a
+ * message that could be lost. The throughput and lag of each stream is logged
+ * periodically and when the run data is closed.
+ */
+public class KafkaIngestRunData extends
+		IngestRunData
+{
+	private final static Logger LOGGER = Logger.getLogger(KafkaIngestRunData.class);
+	private final static long REPORT_INTERVAL_SECONDS = 30;
+	// the lag gauges of the fetchers of every consumer in this process, which
+	// are registered by the kafka.server package
+	private final static String CONSUMER_LAG_METRICS = "kafka.server:type=FetcherLagMetrics,name=ConsumerLag,*";
+
+	private final String topic;
+	private final ConsumerConnector consumer;
+	private final String consumerClientId;
+	private final int batchSize;
+	private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+	private final AtomicLong unflushedMessages = new AtomicLong();
+	private final List<StreamMetrics> streamMetrics = new CopyOnWriteArrayList<StreamMetrics>();
+	private final ScheduledExecutorService scheduledExecutor;
+
+	public KafkaIngestRunData(
+			final List<WritableDataAdapter<?>> adapters,
+			final DataStore dataStore,
+			final String topic,
+			final ConsumerConnector consumer,
+			final String consumerClientId,
+			final int batchSize,
+			final long flushIntervalMillis ) {
+		super(
+				adapters,
+				dataStore);
+		this.topic = topic;
+		this.consumer = consumer;
+		this.consumerClientId = consumerClientId;
+		this.batchSize = batchSize;
+		scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+		scheduledExecutor.scheduleAtFixedRate(
+				new Runnable() {
+					@Override
+					public void run() {
+						logMetrics("Kafka ingest progress");
+					}
+				},
+				REPORT_INTERVAL_SECONDS,
+				REPORT_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+		if (flushIntervalMillis > 0) {
+			scheduledExecutor.scheduleWithFixedDelay(
+					new Runnable() {
+						@Override
+						public void run() {
+							flushAndCommitQuietly();
+						}
+					},
+					flushIntervalMillis,
+					flushIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the metrics of a new stream consuming the topic
+	 */
+	public synchronized StreamMetrics addStream() {
+		final StreamMetrics metrics = new StreamMetrics(
+				topic,
+				consumerClientId,
+				streamMetrics.size());
+		streamMetrics.add(metrics);
+		return metrics;
+	}
+
+	public List<StreamMetrics> getStreamMetrics() {
+		return Collections.unmodifiableList(streamMetrics);
+	}
+
+	/**
+	 * Must be called by a stream before it takes a message from its iterator,
+	 * which advances the offset that is committed, and followed by endMessage
+	 * once the message is written
+	 */
+	public void beginMessage() {
+		flushLock.readLock().lock();
+	}
+
+	/**
+	 * Must be called by a stream once the message it took is written, flushing
+	 * if the batch size has been reached
+	 */
+	public void endMessage() {
+		flushLock.readLock().unlock();
+		if (unflushedMessages.incrementAndGet() >= batchSize) {
+			flushAndCommitQuietly();
+		}
+	}
+
+	private void flushAndCommitQuietly() {
+		try {
+			flushAndCommit();
+		}
+		catch (final Exception e) {
+			// the offsets are not committed, so the flush is retried
+			LOGGER.error(
+					"Unable to flush and commit Kafka topic [" + topic + "]",
+					e);
+		}
+	}
+
+	/**
+	 * Flush the index writers and commit the offsets of the messages that have
+	 * been taken, waiting for the messages the streams are writing
+	 */
+	public void flushAndCommit() {
+		flushLock.writeLock().lock();
+		try {
+			if (unflushedMessages.get() == 0) {
+				return;
+			}
+			flush();
+			consumer.commitOffsets();
+			unflushedMessages.set(0);
+		}
+		finally {
+			flushLock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		scheduledExecutor.shutdownNow();
+		try {
+			flushAndCommit();
+		}
+		finally {
+			super.close();
+			logMetrics("Kafka ingest complete");
+		}
+	}
+
+	/**
+	 * @param clientId
+	 *            the client ID of the consumer
+	 * @param topic
+	 *            the topic
+	 * @return the number of messages of each partition of the topic that are
+	 *         yet to be fetched by the consumer, as reported by the lag gauges
+	 *         of its fetchers in this process
+	 */
+	public static Map<Integer, Long> getConsumerLag(
+			final String clientId,
+			final String topic ) {
+		final Map<Integer, Long> lag = new HashMap<Integer, Long>();
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			for (final ObjectName name : server.queryNames(
+					new ObjectName(
+							CONSUMER_LAG_METRICS),
+					null)) {
+				final String partition = getKeyProperty(
+						name,
+						"partition");
+				if (clientId.equals(getKeyProperty(
+						name,
+						"clientId")) && topic.equals(getKeyProperty(
+						name,
+						"topic")) && (partition != null)) {
+					final Object value = server.getAttribute(
+							name,
+							"Value");
+					if (value instanceof Number) {
+						lag.put(
+								Integer.valueOf(partition),
+								((Number) value).longValue());
+					}
+				}
+			}
+		}
+		catch (final JMException | NumberFormatException e) {
+			LOGGER.debug(
+					"Unable to read the consumer lag of topic [" + topic + "]",
+					e);
+		}
+		return lag;
+	}
+
+	private static String getKeyProperty(
+			final ObjectName name,
+			final String key ) {
+		final String value = name.getKeyProperty(key);
+		if ((value != null) && value.startsWith("\"")) {
+			return ObjectName.unquote(value);
+		}
+		return value;
+	}
+
+	private void logMetrics(
+			final String message ) {
+		for (final StreamMetrics metrics : streamMetrics) {
+			LOGGER.info(String.format(
+					"%s for topic [%s] stream %d: %d messages (%.1f messages/s), %d messages failed, lag of %d messages over %d partitions",
+					message,
+					topic,
+					metrics.getStreamId(),
+					metrics.getMessagesConsumed(),
+					metrics.getMessagesPerSecond(),
+					metrics.getMessagesFailed(),
+					metrics.getLag(),
+					metrics.getPartitions().size()));
+		}
+	}
+
+	/**
+	 * The throughput and lag of a single stream consuming a topic
+	 */
+	public static class StreamMetrics
+	{
+		private final String topic;
+		private final String consumerClientId;
+		private final int streamId;
+		private final long startTime = System.currentTimeMillis();
+		private final AtomicLong messagesConsumed = new AtomicLong();
+		private final AtomicLong messagesFailed = new AtomicLong();
+		private final Set<Integer> partitions = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+		private StreamMetrics(
+				final String topic,
+				final String consumerClientId,
+				final int streamId ) {
+			this.topic = topic;
+			this.consumerClientId = consumerClientId;
+			this.streamId = streamId;
+		}
+
+		public void messageConsumed(
+				final int partition ) {
+			messagesConsumed.incrementAndGet();
+			partitions.add(partition);
+		}
+
+		public void messageFailed() {
+			messagesFailed.incrementAndGet();
+		}
+
+		public int getStreamId() {
+			return streamId;
+		}
+
+		public long getMessagesConsumed() {
+			return messagesConsumed.get();
+		}
+
+		public long getMessagesFailed() {
+			return messagesFailed.get();
+		}
+
+		public double getMessagesPerSecond() {
+			final double seconds = Math.max(
+					(System.currentTimeMillis() - startTime) / 1000.0,
+					0.001);
+			return messagesConsumed.get() / seconds;
+		}
+
+		/**
+		 * @return the partitions the stream has consumed messages from
+		 */
+		public Set<Integer> getPartitions() {
+			return Collections.unmodifiableSet(partitions);
+		}
+
+		/**
+		 * @return the number of messages in the partitions of the stream that
+		 *         are yet to be fetched from the brokers, as reported by the
+		 *         lag gauges of the consumer, or -1 if it is unknown
+		 */
+		public long getLag() {
+			long lag = -1;
+			for (final Entry<Integer, Long> partitionLag : getConsumerLag(
+					consumerClientId,
+					topic).entrySet()) {
+				if (partitions.contains(partitionLag.getKey())) {
+					lag = Math.max(
+							lag,
+							0) + partitionLag.getValue();
+				}
+			}
+			return lag;
+		}
+	}
+}
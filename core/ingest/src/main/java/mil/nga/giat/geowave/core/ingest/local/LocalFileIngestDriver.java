@@ -34,6 +34,7 @@ public class LocalFileIngestDriver extends
 	private final static Logger LOGGER = Logger.getLogger(LocalFileIngestDriver.class);
 	protected AccumuloCommandLineOptions accumulo;
 	protected IngestCommandLineOptions ingestOptions;
+	protected LocalIngestPipelineOptions pipelineOptions;
 
 	public LocalFileIngestDriver(
 			final String operation ) {
@@ -47,6 +48,7 @@ public class LocalFileIngestDriver extends
 			throws ParseException {
 		accumulo = AccumuloCommandLineOptions.parseOptions(commandLine);
 		ingestOptions = IngestCommandLineOptions.parseOptions(commandLine);
+		pipelineOptions = LocalIngestPipelineOptions.parseOptions(commandLine);
 		super.parseOptionsInternal(commandLine);
 	}
 
@@ -55,6 +57,7 @@ public class LocalFileIngestDriver extends
 			final Options allOptions ) {
 		AccumuloCommandLineOptions.applyOptions(allOptions);
 		IngestCommandLineOptions.applyOptions(allOptions);
+		LocalIngestPipelineOptions.applyOptions(allOptions);
 		super.applyOptionsInternal(allOptions);
 	}
 
@@ -109,9 +112,11 @@ public class LocalFileIngestDriver extends
 		}
 		final DataStore dataStore = new AccumuloDataStore(
 				operations);
-		try (IngestRunData runData = new IngestRunData(
+		try (IngestRunData runData = new LocalIngestPipeline(
 				adapters,
-				dataStore)) {
+				dataStore,
+				ingestOptions,
+				pipelineOptions)) {
 			processInput(
 					localFileIngestPlugins,
 					runData);
@@ -130,11 +135,19 @@ public class LocalFileIngestDriver extends
 			final LocalFileIngestPlugin<?> plugin,
 			final IngestRunData ingestRunData )
 			throws IOException {
-		IngestUtils.ingest(
-				file,
-				ingestOptions,
-				plugin,
-				plugin,
-				ingestRunData);
+		if (ingestRunData instanceof LocalIngestPipeline) {
+			// the pipeline parses and writes the file on its own threads
+			((LocalIngestPipeline) ingestRunData).submit(
+					file,
+					plugin);
+		}
+		else {
+			IngestUtils.ingest(
+					file,
+					ingestOptions,
+					plugin,
+					plugin,
+					ingestRunData);
+		}
 	}
 }
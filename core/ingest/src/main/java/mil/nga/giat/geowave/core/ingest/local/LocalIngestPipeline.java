@@ -0,0 +1,525 @@
+package mil.nga.giat.geowave.core.ingest.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.ingest.IngestCommandLineOptions;
+import mil.nga.giat.geowave.core.ingest.IngestUtils;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This run data ingests local files through a staged pipeline. The file walker
+ * submits each supported file, a pool of parse threads converts the files to
+ * GeoWave data, and a small number of writer threads take the parsed entries
+ * in batches and write them to the index writers. Both hand-offs are bounded queues so
+ * that a slow stage blocks the stage before it rather than buffering without
+ * limit. A file that cannot be parsed or an entry that cannot be written is
+ * counted and logged, but if a parse or writer thread dies the pipeline is
+ * aborted and the failure is thrown when files are submitted or when the
+ * pipeline is closed. Progress and throughput of each stage is logged
+ * periodically and when the pipeline is closed.
+ */
+public class LocalIngestPipeline extends
+		IngestRunData
+{
+	private final static Logger LOGGER = Logger.getLogger(LocalIngestPipeline.class);
+	private final static long REPORT_INTERVAL_SECONDS = 30;
+	private final static long QUEUE_POLL_MILLIS = 100;
+	private final static int WRITE_BATCH_SIZE = 100;
+	private final static FileTask END_OF_FILES = new FileTask(
+			null,
+			null);
+	private final static EntryTask END_OF_ENTRIES = new EntryTask(
+			null,
+			null,
+			null);
+
+	private final IngestCommandLineOptions ingestOptions;
+	private final int parseThreads;
+	private final int writerThreads;
+	private final BlockingQueue<FileTask> fileQueue;
+	private final BlockingQueue<EntryTask> entryQueue;
+	private final ExecutorService parseExecutor;
+	private final ExecutorService writerExecutor;
+	private final ScheduledExecutorService reportExecutor;
+	private final Map<ByteArrayId, IndexWriter> queueingWriters = new HashMap<ByteArrayId, IndexWriter>();
+	private final long startTime;
+	private final AtomicBoolean finished = new AtomicBoolean(
+			false);
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	private final AtomicLong filesSubmitted = new AtomicLong();
+	private final AtomicLong filesParsed = new AtomicLong();
+	private final AtomicLong filesFailed = new AtomicLong();
+	private final AtomicLong entriesParsed = new AtomicLong();
+	private final AtomicLong entriesWritten = new AtomicLong();
+	private final AtomicLong entriesFailed = new AtomicLong();
+
+	public LocalIngestPipeline(
+			final List<WritableDataAdapter<?>> adapters,
+			final DataStore dataStore,
+			final IngestCommandLineOptions ingestOptions,
+			final LocalIngestPipelineOptions pipelineOptions ) {
+		super(
+				adapters,
+				dataStore);
+		this.ingestOptions = ingestOptions;
+		parseThreads = pipelineOptions.getParseThreads();
+		writerThreads = pipelineOptions.getWriterThreads();
+		// keep a couple of files ready for each parse thread
+		fileQueue = new ArrayBlockingQueue<FileTask>(
+				parseThreads * 2);
+		entryQueue = new ArrayBlockingQueue<EntryTask>(
+				pipelineOptions.getQueueSize());
+		parseExecutor = Executors.newFixedThreadPool(parseThreads);
+		writerExecutor = Executors.newFixedThreadPool(writerThreads);
+		for (int i = 0; i < parseThreads; i++) {
+			parseExecutor.execute(new ParseWorker());
+		}
+		for (int i = 0; i < writerThreads; i++) {
+			writerExecutor.execute(new WriteWorker());
+		}
+		startTime = System.currentTimeMillis();
+		reportExecutor = Executors.newSingleThreadScheduledExecutor();
+		reportExecutor.scheduleAtFixedRate(
+				new Runnable() {
+					@Override
+					public void run() {
+						logProgress("Ingest progress");
+					}
+				},
+				REPORT_INTERVAL_SECONDS,
+				REPORT_INTERVAL_SECONDS,
+				TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Queue a file to be parsed, blocking while all parse threads are busy and
+	 * the file queue is full
+	 *
+	 * @param file
+	 *            the file to ingest
+	 * @param plugin
+	 *            the plugin that supports the file
+	 * @throws IOException
+	 *             if the pipeline has been aborted or if interrupted while
+	 *             waiting to queue the file
+	 */
+	public void submit(
+			final File file,
+			final LocalFileIngestPlugin<?> plugin )
+			throws IOException {
+		try {
+			if (!putUnlessAborted(
+					fileQueue,
+					new FileTask(
+							file,
+							plugin))) {
+				throw new IOException(
+						"Unable to queue file '" + file.getAbsolutePath() + "', the ingest was aborted",
+						failure.get());
+			}
+			filesSubmitted.incrementAndGet();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(
+					"Interrupted while queueing file '" + file.getAbsolutePath() + "'",
+					e);
+		}
+	}
+
+	/**
+	 * The threads taking from a queue may have died with it full, so wait for
+	 * room only while the pipeline has not been aborted
+	 *
+	 * @return false if the pipeline was aborted before the task was queued
+	 */
+	private <T> boolean putUnlessAborted(
+			final BlockingQueue<T> queue,
+			final T task )
+			throws InterruptedException {
+		while (failure.get() == null) {
+			if (queue.offer(
+					task,
+					QUEUE_POLL_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stop every stage after a parse or writer thread has died, the first
+	 * failure is thrown once the pipeline is closed
+	 */
+	private void abort(
+			final Throwable t ) {
+		if (failure.compareAndSet(
+				null,
+				t)) {
+			LOGGER.error(
+					"Aborting ingest",
+					t);
+			fileQueue.clear();
+			entryQueue.clear();
+			parseExecutor.shutdownNow();
+			writerExecutor.shutdownNow();
+		}
+	}
+
+	public long getFilesParsed() {
+		return filesParsed.get();
+	}
+
+	public long getFilesFailed() {
+		return filesFailed.get();
+	}
+
+	public long getEntriesWritten() {
+		return entriesWritten.get();
+	}
+
+	public long getEntriesFailed() {
+		return entriesFailed.get();
+	}
+
+	/**
+	 * The index writers given to the parse threads queue the entries for the
+	 * writer threads
+	 */
+	@Override
+	public synchronized IndexWriter getIndexWriter(
+			final Index index ) {
+		IndexWriter indexWriter = queueingWriters.get(index.getId());
+		if (indexWriter == null) {
+			indexWriter = new QueueingIndexWriter(
+					super.getIndexWriter(index));
+			queueingWriters.put(
+					index.getId(),
+					indexWriter);
+		}
+		return indexWriter;
+	}
+
+	/**
+	 * Wait for all submitted files to be parsed and written, then close the
+	 * index writers
+	 *
+	 * @throws IOException
+	 *             if the pipeline was aborted
+	 */
+	@Override
+	public void close()
+			throws IOException {
+		try {
+			finish();
+		}
+		finally {
+			super.close();
+		}
+	}
+
+	private void finish()
+			throws IOException {
+		// not synchronized on this, the parse threads may still need the index
+		// writers
+		if (!finished.compareAndSet(
+				false,
+				true)) {
+			return;
+		}
+		try {
+			for (int i = 0; i < parseThreads; i++) {
+				if (!putUnlessAborted(
+						fileQueue,
+						END_OF_FILES)) {
+					break;
+				}
+			}
+			parseExecutor.shutdown();
+			parseExecutor.awaitTermination(
+					Long.MAX_VALUE,
+					TimeUnit.MILLISECONDS);
+			// the parse threads have queued all of their entries, so the end
+			// markers are taken by the writer threads after every entry
+			for (int i = 0; i < writerThreads; i++) {
+				if (!putUnlessAborted(
+						entryQueue,
+						END_OF_ENTRIES)) {
+					break;
+				}
+			}
+			writerExecutor.shutdown();
+			writerExecutor.awaitTermination(
+					Long.MAX_VALUE,
+					TimeUnit.MILLISECONDS);
+		}
+		catch (final InterruptedException e) {
+			parseExecutor.shutdownNow();
+			writerExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException(
+					"Interrupted while waiting for ingest to complete",
+					e);
+		}
+		finally {
+			reportExecutor.shutdownNow();
+			logProgress(failure.get() == null ? "Ingest complete" : "Ingest aborted");
+		}
+		if (failure.get() != null) {
+			throw new IOException(
+					"Ingest was aborted",
+					failure.get());
+		}
+	}
+
+	private void logProgress(
+			final String message ) {
+		final double seconds = Math.max(
+				(System.currentTimeMillis() - startTime) / 1000.0,
+				0.001);
+		final long parsedFiles = filesParsed.get();
+		final long parsedEntries = entriesParsed.get();
+		final long writtenEntries = entriesWritten.get();
+		LOGGER.info(String.format(
+				"%s after %.1f s; walk: %d files submitted, %d waiting; parse: %d files parsed (%.1f files/s), %d files failed, %d entries parsed (%.1f entries/s), %d entries waiting; write: %d entries written (%.1f entries/s), %d entries failed",
+				message,
+				seconds,
+				filesSubmitted.get(),
+				fileQueue.size(),
+				parsedFiles,
+				parsedFiles / seconds,
+				filesFailed.get(),
+				parsedEntries,
+				parsedEntries / seconds,
+				entryQueue.size(),
+				writtenEntries,
+				writtenEntries / seconds,
+				entriesFailed.get()));
+	}
+
+	private class ParseWorker implements
+			Runnable
+	{
+		@Override
+		public void run() {
+			try {
+				parseFiles();
+			}
+			catch (final Throwable t) {
+				abort(t);
+			}
+		}
+
+		private void parseFiles() {
+			while (true) {
+				final FileTask task;
+				try {
+					task = fileQueue.take();
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (task == END_OF_FILES) {
+					return;
+				}
+				try {
+					IngestUtils.ingest(
+							task.file,
+							ingestOptions,
+							task.plugin,
+							task.plugin,
+							LocalIngestPipeline.this);
+					filesParsed.incrementAndGet();
+				}
+				catch (final Exception e) {
+					filesFailed.incrementAndGet();
+					LOGGER.error(
+							"Unable to ingest file '" + task.file.getAbsolutePath() + "'",
+							e);
+				}
+			}
+		}
+	}
+
+	private class WriteWorker implements
+			Runnable
+	{
+		@Override
+		public void run() {
+			try {
+				writeEntries();
+			}
+			catch (final Throwable t) {
+				abort(t);
+			}
+		}
+
+		@SuppressWarnings({
+			"rawtypes",
+			"unchecked"
+		})
+		private void writeEntries() {
+			final List<EntryTask> batch = new ArrayList<EntryTask>(
+					WRITE_BATCH_SIZE);
+			while (true) {
+				try {
+					batch.add(entryQueue.take());
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				// take whatever else is waiting without contending for the
+				// queue on every entry
+				entryQueue.drainTo(
+						batch,
+						WRITE_BATCH_SIZE - 1);
+				int endMarkers = 0;
+				for (final EntryTask task : batch) {
+					if (task == END_OF_ENTRIES) {
+						endMarkers++;
+						continue;
+					}
+					try {
+						task.indexWriter.write(
+								(WritableDataAdapter) task.adapter,
+								task.entry);
+						entriesWritten.incrementAndGet();
+					}
+					catch (final Exception e) {
+						entriesFailed.incrementAndGet();
+						LOGGER.error(
+								"Unable to write entry " + task.entry,
+								e);
+					}
+				}
+				batch.clear();
+				if (endMarkers > 0) {
+					// the end markers are queued after every entry, and each
+					// writer thread must take exactly one of them, so return
+					// any others that were drained
+					for (int i = 1; i < endMarkers; i++) {
+						try {
+							entryQueue.put(END_OF_ENTRIES);
+						}
+						catch (final InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands the entries written by the parse threads to the writer threads
+	 */
+	private class QueueingIndexWriter implements
+			IndexWriter
+	{
+		private final IndexWriter indexWriter;
+
+		private QueueingIndexWriter(
+				final IndexWriter indexWriter ) {
+			this.indexWriter = indexWriter;
+		}
+
+		@Override
+		public <T> List<ByteArrayId> write(
+				final WritableDataAdapter<T> writableAdapter,
+				final T entry ) {
+			try {
+				if (!putUnlessAborted(
+						entryQueue,
+						new EntryTask(
+								indexWriter,
+								writableAdapter,
+								entry))) {
+					throw new IllegalStateException(
+							"Unable to queue entry, the ingest was aborted",
+							failure.get());
+				}
+				entriesParsed.incrementAndGet();
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(
+						"Interrupted while queueing entry",
+						e);
+			}
+			// the row IDs are not known until the entry is written
+			return new ArrayList<ByteArrayId>();
+		}
+
+		@Override
+		public <T> void setupAdapter(
+				final WritableDataAdapter<T> writableAdapter ) {
+			indexWriter.setupAdapter(writableAdapter);
+		}
+
+		@Override
+		public Index getIndex() {
+			return indexWriter.getIndex();
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+
+	private static class FileTask
+	{
+		private final File file;
+		private final LocalFileIngestPlugin<?> plugin;
+
+		private FileTask(
+				final File file,
+				final LocalFileIngestPlugin<?> plugin ) {
+			this.file = file;
+			this.plugin = plugin;
+		}
+	}
+
+	private static class EntryTask
+	{
+		private final IndexWriter indexWriter;
+		private final WritableDataAdapter<?> adapter;
+		private final Object entry;
+
+		private EntryTask(
+				final IndexWriter indexWriter,
+				final WritableDataAdapter<?> adapter,
+				final Object entry ) {
+			this.indexWriter = indexWriter;
+			this.adapter = adapter;
+			this.entry = entry;
+		}
+	}
+}
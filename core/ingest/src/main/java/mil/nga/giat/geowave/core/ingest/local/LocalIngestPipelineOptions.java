@@ -0,0 +1,109 @@
+package mil.nga.giat.geowave.core.ingest.local;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * This class encapsulates the options for the staged pipeline used to ingest
+ * local files. The number of threads parsing files and the number of threads
+ * writing entries can be set, as well as the number of parsed entries that can
+ * be waiting to be written before parsing is blocked.
+ */
+public class LocalIngestPipelineOptions
+{
+	public static final int DEFAULT_WRITER_THREADS = 2;
+	public static final int DEFAULT_QUEUE_SIZE = 10000;
+	private final int parseThreads;
+	private final int writerThreads;
+	private final int queueSize;
+
+	public LocalIngestPipelineOptions() {
+		this(
+				Runtime.getRuntime().availableProcessors(),
+				DEFAULT_WRITER_THREADS,
+				DEFAULT_QUEUE_SIZE);
+	}
+
+	public LocalIngestPipelineOptions(
+			final int parseThreads,
+			final int writerThreads,
+			final int queueSize ) {
+		this.parseThreads = parseThreads;
+		this.writerThreads = writerThreads;
+		this.queueSize = queueSize;
+	}
+
+	public int getParseThreads() {
+		return parseThreads;
+	}
+
+	public int getWriterThreads() {
+		return writerThreads;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public static LocalIngestPipelineOptions parseOptions(
+			final CommandLine commandLine )
+			throws ParseException {
+		final LocalIngestPipelineOptions defaults = new LocalIngestPipelineOptions();
+		return new LocalIngestPipelineOptions(
+				parsePositiveInt(
+						commandLine,
+						"t",
+						defaults.getParseThreads()),
+				parsePositiveInt(
+						commandLine,
+						"wt",
+						defaults.getWriterThreads()),
+				parsePositiveInt(
+						commandLine,
+						"queue",
+						defaults.getQueueSize()));
+	}
+
+	private static int parsePositiveInt(
+			final CommandLine commandLine,
+			final String option,
+			final int defaultValue )
+			throws ParseException {
+		if (!commandLine.hasOption(option)) {
+			return defaultValue;
+		}
+		final String value = commandLine.getOptionValue(option);
+		try {
+			final int intValue = Integer.parseInt(value);
+			if (intValue > 0) {
+				return intValue;
+			}
+		}
+		catch (final NumberFormatException e) {
+			// fall through to the parse exception
+		}
+		throw new ParseException(
+				"Option '" + option + "' must be a positive integer, but was '" + value + "'");
+	}
+
+	public static void applyOptions(
+			final Options allOptions ) {
+		allOptions.addOption(new Option(
+				"t",
+				"threads",
+				true,
+				"The number of threads parsing input files (optional; default is the number of available processors)"));
+		allOptions.addOption(new Option(
+				"wt",
+				"writerThreads",
+				true,
+				"The number of threads writing parsed entries (optional; default is " + DEFAULT_WRITER_THREADS + ")"));
+		allOptions.addOption(new Option(
+				"queue",
+				"queueSize",
+				true,
+				"The maximum number of parsed entries waiting to be written before parsing blocks (optional; default is " + DEFAULT_QUEUE_SIZE + ")"));
+	}
+}
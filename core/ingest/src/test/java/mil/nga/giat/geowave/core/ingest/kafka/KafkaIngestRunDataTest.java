@@ -0,0 +1,285 @@
+package mil.nga.giat.geowave.core.ingest.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import kafka.javaapi.consumer.ConsumerConnector;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.NullIndex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KafkaIngestRunDataTest
+{
+	private static final Index INDEX = new NullIndex(
+			"test");
+	private final TestIndexWriter indexWriter = new TestIndexWriter();
+	// the messages taken from the streams, which must all be written and
+	// flushed whenever the offsets are committed
+	private final AtomicLong messagesTaken = new AtomicLong();
+	private final AtomicInteger commitCount = new AtomicInteger();
+	private final AtomicInteger badCommitCount = new AtomicInteger();
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test(timeout = 60000)
+	public void testCommitAfterFlush()
+			throws IOException {
+		try (KafkaIngestRunData runData = createRunData(
+				10,
+				0)) {
+			for (int i = 0; i < 25; i++) {
+				consumeMessage(runData);
+			}
+			// committed at 10 and 20 messages
+			assertEquals(
+					2,
+					commitCount.get());
+			assertEquals(
+					20,
+					indexWriter.flushed.get());
+		}
+		// the remainder is committed on close
+		assertEquals(
+				3,
+				commitCount.get());
+		assertEquals(
+				25,
+				indexWriter.flushed.get());
+		assertEquals(
+				0,
+				badCommitCount.get());
+	}
+
+	@Test(timeout = 60000)
+	public void testNoCommitWhileMessageTaken()
+			throws Exception {
+		final CountDownLatch taken = new CountDownLatch(
+				1);
+		final CountDownLatch release = new CountDownLatch(
+				1);
+		try (final KafkaIngestRunData runData = createRunData(
+				100,
+				0)) {
+			consumeMessage(runData);
+			// a stream takes a message and is slow to write it
+			final Future<?> stream = executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					runData.beginMessage();
+					try {
+						messagesTaken.incrementAndGet();
+						taken.countDown();
+						release.await();
+						indexWriter.write(
+								null,
+								1);
+					}
+					catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					finally {
+						runData.endMessage();
+					}
+				}
+			});
+			taken.await();
+			final Future<?> commit = executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					runData.flushAndCommit();
+				}
+			});
+			Thread.sleep(500);
+			assertEquals(
+					0,
+					commitCount.get());
+			release.countDown();
+			stream.get();
+			commit.get();
+			assertEquals(
+					1,
+					commitCount.get());
+			assertEquals(
+					2,
+					indexWriter.flushed.get());
+		}
+		assertEquals(
+				0,
+				badCommitCount.get());
+	}
+
+	@Test(timeout = 60000)
+	public void testConcurrentStreams()
+			throws Exception {
+		final int numStreams = 4;
+		final int messagesPerStream = 2000;
+		try (final KafkaIngestRunData runData = createRunData(
+				7,
+				1)) {
+			final List<Future<?>> streams = new ArrayList<Future<?>>();
+			for (int s = 0; s < numStreams; s++) {
+				streams.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < messagesPerStream; i++) {
+							consumeMessage(runData);
+						}
+					}
+				}));
+			}
+			for (final Future<?> stream : streams) {
+				stream.get();
+			}
+		}
+		assertTrue(commitCount.get() > 0);
+		assertEquals(
+				0,
+				badCommitCount.get());
+		assertEquals(
+				numStreams * messagesPerStream,
+				indexWriter.flushed.get());
+	}
+
+	private void consumeMessage(
+			final KafkaIngestRunData runData ) {
+		runData.beginMessage();
+		try {
+			messagesTaken.incrementAndGet();
+			runData.getIndexWriter(
+					INDEX).write(
+					null,
+					1);
+		}
+		finally {
+			runData.endMessage();
+		}
+	}
+
+	private KafkaIngestRunData createRunData(
+			final int batchSize,
+			final long flushIntervalMillis ) {
+		return new KafkaIngestRunData(
+				new ArrayList<WritableDataAdapter<?>>(),
+				createDataStore(indexWriter),
+				"test",
+				createConsumer(),
+				"test",
+				batchSize,
+				flushIntervalMillis);
+	}
+
+	/**
+	 * @return a consumer that checks that every message taken has been written
+	 *         and flushed when the offsets are committed
+	 */
+	private ConsumerConnector createConsumer() {
+		return (ConsumerConnector) Proxy.newProxyInstance(
+				ConsumerConnector.class.getClassLoader(),
+				new Class<?>[] {
+					ConsumerConnector.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("commitOffsets".equals(method.getName())) {
+							if ((messagesTaken.get() != indexWriter.written.get()) || (indexWriter.written.get() != indexWriter.flushed.get())) {
+								badCommitCount.incrementAndGet();
+							}
+							commitCount.incrementAndGet();
+							return null;
+						}
+						throw new UnsupportedOperationException(
+								method.getName());
+					}
+				});
+	}
+
+	private static DataStore createDataStore(
+			final IndexWriter indexWriter ) {
+		return (DataStore) Proxy.newProxyInstance(
+				DataStore.class.getClassLoader(),
+				new Class<?>[] {
+					DataStore.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("createIndexWriter".equals(method.getName())) {
+							return indexWriter;
+						}
+						throw new UnsupportedOperationException(
+								method.getName());
+					}
+				});
+	}
+
+	/**
+	 * Counts the entries written and the entries written as of the last flush
+	 */
+	private static class TestIndexWriter implements
+			IndexWriter
+	{
+		private final AtomicLong written = new AtomicLong();
+		private final AtomicLong flushed = new AtomicLong();
+
+		@Override
+		public <T> List<ByteArrayId> write(
+				final WritableDataAdapter<T> writableAdapter,
+				final T entry ) {
+			written.incrementAndGet();
+			return new ArrayList<ByteArrayId>();
+		}
+
+		@Override
+		public <T> void setupAdapter(
+				final WritableDataAdapter<T> writableAdapter ) {}
+
+		@Override
+		public Index getIndex() {
+			return INDEX;
+		}
+
+		@Override
+		public void flush() {
+			flushed.set(written.get());
+		}
+
+		@Override
+		public void close() {}
+	}
+}
@@ -0,0 +1,420 @@
+package mil.nga.giat.geowave.core.ingest.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.ingest.GeoWaveData;
+import mil.nga.giat.geowave.core.ingest.IngestCommandLineOptions;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStore;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.index.NullIndex;
+
+import org.junit.Test;
+
+public class LocalIngestPipelineTest
+{
+	private static final Index INDEX = new NullIndex(
+			"test");
+	private static final ByteArrayId ADAPTER_ID = new ByteArrayId(
+			"test");
+	private final IngestCommandLineOptions ingestOptions = new IngestCommandLineOptions(
+			null,
+			false,
+			null);
+
+	@Test(timeout = 60000)
+	public void testAllEntriesWrittenBeforeClose()
+			throws IOException {
+		final int numFiles = 200;
+		final int entriesPerFile = 50;
+		final TestIndexWriter indexWriter = new TestIndexWriter(
+				-1);
+		// a small entry queue and several writer threads so that the end
+		// markers are queued while the writers are still busy
+		final LocalIngestPipeline pipeline = new LocalIngestPipeline(
+				new ArrayList<WritableDataAdapter<?>>(),
+				createDataStore(indexWriter),
+				ingestOptions,
+				new LocalIngestPipelineOptions(
+						4,
+						3,
+						10));
+		final TestPlugin plugin = new TestPlugin(
+				entriesPerFile,
+				-1,
+				false);
+		for (int i = 0; i < numFiles; i++) {
+			pipeline.submit(
+					new File(
+							Integer.toString(i)),
+					plugin);
+		}
+		pipeline.close();
+		assertEquals(
+				numFiles * entriesPerFile,
+				indexWriter.written.get());
+		assertEquals(
+				numFiles * entriesPerFile,
+				pipeline.getEntriesWritten());
+		assertEquals(
+				numFiles,
+				pipeline.getFilesParsed());
+		assertEquals(
+				0,
+				indexWriter.writtenAfterClose.get());
+		assertEquals(
+				1,
+				indexWriter.closeCount.get());
+	}
+
+	@Test(timeout = 60000)
+	public void testFailureCounts()
+			throws IOException {
+		final int numFiles = 100;
+		final int entriesPerFile = 20;
+		// every tenth file fails to parse and the first entry of every file
+		// fails to write
+		final TestIndexWriter indexWriter = new TestIndexWriter(
+				0);
+		final LocalIngestPipeline pipeline = new LocalIngestPipeline(
+				new ArrayList<WritableDataAdapter<?>>(),
+				createDataStore(indexWriter),
+				ingestOptions,
+				new LocalIngestPipelineOptions(
+						2,
+						2,
+						100));
+		final TestPlugin plugin = new TestPlugin(
+				entriesPerFile,
+				10,
+				false);
+		for (int i = 0; i < numFiles; i++) {
+			pipeline.submit(
+					new File(
+							Integer.toString(i)),
+					plugin);
+		}
+		pipeline.close();
+		assertEquals(
+				10,
+				pipeline.getFilesFailed());
+		assertEquals(
+				90,
+				pipeline.getFilesParsed());
+		assertEquals(
+				90,
+				pipeline.getEntriesFailed());
+		assertEquals(
+				90 * (entriesPerFile - 1),
+				pipeline.getEntriesWritten());
+	}
+
+	@Test(timeout = 60000)
+	public void testParseThreadFailure() {
+		final TestIndexWriter indexWriter = new TestIndexWriter(
+				-1);
+		final LocalIngestPipeline pipeline = new LocalIngestPipeline(
+				new ArrayList<WritableDataAdapter<?>>(),
+				createDataStore(indexWriter),
+				ingestOptions,
+				new LocalIngestPipelineOptions(
+						2,
+						2,
+						10));
+		// the parse thread dies on the tenth file, so the file queue would
+		// fill and block the walker if the pipeline were not aborted
+		final TestPlugin plugin = new TestPlugin(
+				10,
+				10,
+				true);
+		IOException failure = null;
+		try {
+			for (int i = 1; i < 10000; i++) {
+				pipeline.submit(
+						new File(
+								Integer.toString(i)),
+						plugin);
+			}
+		}
+		catch (final IOException e) {
+			failure = e;
+		}
+		try {
+			pipeline.close();
+		}
+		catch (final IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+		}
+		assertNotNull(failure);
+		assertTrue(failure.getCause() instanceof ParseError);
+		assertEquals(
+				1,
+				indexWriter.closeCount.get());
+	}
+
+	@Test(timeout = 60000)
+	public void testWriterThreadFailure() {
+		// every writer thread dies on its first entry while the parse threads
+		// are still filling the entry queue
+		final TestIndexWriter indexWriter = new TestIndexWriter(
+				0,
+				true);
+		final LocalIngestPipeline pipeline = new LocalIngestPipeline(
+				new ArrayList<WritableDataAdapter<?>>(),
+				createDataStore(indexWriter),
+				ingestOptions,
+				new LocalIngestPipelineOptions(
+						2,
+						2,
+						5));
+		final TestPlugin plugin = new TestPlugin(
+				100,
+				-1,
+				false);
+		IOException failure = null;
+		try {
+			for (int i = 1; i < 10000; i++) {
+				pipeline.submit(
+						new File(
+								Integer.toString(i)),
+						plugin);
+			}
+		}
+		catch (final IOException e) {
+			failure = e;
+		}
+		try {
+			pipeline.close();
+		}
+		catch (final IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+		}
+		assertNotNull(failure);
+		assertTrue(failure.getCause() instanceof WriteError);
+		assertEquals(
+				1,
+				indexWriter.closeCount.get());
+	}
+
+	private static DataStore createDataStore(
+			final IndexWriter indexWriter ) {
+		return (DataStore) Proxy.newProxyInstance(
+				DataStore.class.getClassLoader(),
+				new Class<?>[] {
+					DataStore.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("createIndexWriter".equals(method.getName())) {
+							return indexWriter;
+						}
+						throw new UnsupportedOperationException(
+								method.getName());
+					}
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static WritableDataAdapter<Integer> createAdapter() {
+		return (WritableDataAdapter<Integer>) Proxy.newProxyInstance(
+				WritableDataAdapter.class.getClassLoader(),
+				new Class<?>[] {
+					WritableDataAdapter.class
+				},
+				new InvocationHandler() {
+					@Override
+					public Object invoke(
+							final Object proxy,
+							final Method method,
+							final Object[] args ) {
+						if ("getAdapterId".equals(method.getName())) {
+							return ADAPTER_ID;
+						}
+						throw new UnsupportedOperationException(
+								method.getName());
+					}
+				});
+	}
+
+	private static class ParseError extends
+			Error
+	{
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class WriteError extends
+			Error
+	{
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Creates the entries 0 to entriesPerFile - 1 for each file, which is
+	 * named by its number, and fails on every failEvery'th file
+	 */
+	private static class TestPlugin implements
+			LocalFileIngestPlugin<Integer>
+	{
+		private final WritableDataAdapter<Integer> adapter = createAdapter();
+		private final int entriesPerFile;
+		private final int failEvery;
+		private final boolean fatal;
+
+		private TestPlugin(
+				final int entriesPerFile,
+				final int failEvery,
+				final boolean fatal ) {
+			this.entriesPerFile = entriesPerFile;
+			this.failEvery = failEvery;
+			this.fatal = fatal;
+		}
+
+		@Override
+		public CloseableIterator<GeoWaveData<Integer>> toGeoWaveData(
+				final File input,
+				final ByteArrayId primaryIndexId,
+				final String globalVisibility ) {
+			final int fileNumber = Integer.parseInt(input.getName());
+			if ((failEvery > 0) && ((fileNumber % failEvery) == 0)) {
+				if (fatal) {
+					throw new ParseError();
+				}
+				throw new IllegalArgumentException(
+						"Unable to parse " + fileNumber);
+			}
+			final List<GeoWaveData<Integer>> data = new ArrayList<GeoWaveData<Integer>>();
+			for (int i = 0; i < entriesPerFile; i++) {
+				data.add(new GeoWaveData<Integer>(
+						adapter,
+						primaryIndexId,
+						i));
+			}
+			return new CloseableIterator.Wrapper<GeoWaveData<Integer>>(
+					data.iterator());
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public WritableDataAdapter<Integer>[] getDataAdapters(
+				final String globalVisibility ) {
+			return new WritableDataAdapter[] {
+				adapter
+			};
+		}
+
+		@Override
+		public Index[] getSupportedIndices() {
+			return new Index[] {
+				INDEX
+			};
+		}
+
+		@Override
+		public Index[] getRequiredIndices() {
+			return new Index[] {};
+		}
+
+		@Override
+		public String[] getFileExtensionFilters() {
+			return new String[] {};
+		}
+
+		@Override
+		public void init(
+				final File baseDirectory ) {}
+
+		@Override
+		public boolean supportsFile(
+				final File file ) {
+			return true;
+		}
+	}
+
+	/**
+	 * Counts the entries written, failing to write the given entry
+	 */
+	private static class TestIndexWriter implements
+			IndexWriter
+	{
+		private final int failingEntry;
+		private final boolean fatal;
+		private final AtomicLong written = new AtomicLong();
+		private final AtomicLong writtenAfterClose = new AtomicLong();
+		private final AtomicInteger closeCount = new AtomicInteger();
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private TestIndexWriter(
+				final int failingEntry ) {
+			this(
+					failingEntry,
+					false);
+		}
+
+		private TestIndexWriter(
+				final int failingEntry,
+				final boolean fatal ) {
+			this.failingEntry = failingEntry;
+			this.fatal = fatal;
+		}
+
+		@Override
+		public <T> List<ByteArrayId> write(
+				final WritableDataAdapter<T> writableAdapter,
+				final T entry ) {
+			if (closed.get()) {
+				writtenAfterClose.incrementAndGet();
+			}
+			if (((Integer) entry) == failingEntry) {
+				if (fatal) {
+					throw new WriteError();
+				}
+				throw new IllegalStateException(
+						"Unable to write " + entry);
+			}
+			written.incrementAndGet();
+			return new ArrayList<ByteArrayId>();
+		}
+
+		@Override
+		public <T> void setupAdapter(
+				final WritableDataAdapter<T> writableAdapter ) {}
+
+		@Override
+		public Index getIndex() {
+			return INDEX;
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {
+			closed.set(true);
+			closeCount.incrementAndGet();
+		}
+	}
+}
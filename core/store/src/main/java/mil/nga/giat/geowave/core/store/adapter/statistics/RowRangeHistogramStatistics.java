@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.Mergeable;
+import mil.nga.giat.geowave.core.index.RowRangeCardinalityEstimator;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.ByteUtils;
 import mil.nga.giat.geowave.core.store.adapter.statistics.histogram.FixedBinNumericHistogram;
@@ -19,7 +20,8 @@ import org.apache.commons.lang3.ArrayUtils;
  * 
  */
 public class RowRangeHistogramStatistics<T> extends
-		AbstractDataStatistics<T>
+		AbstractDataStatistics<T> implements
+		RowRangeCardinalityEstimator
 {
 	public static final ByteArrayId STATS_ID = new ByteArrayId(
 			"RANGE_HISTOGRAM_");
@@ -93,6 +95,7 @@ public class RowRangeHistogramStatistics<T> extends
 		return false;
 	}
 
+	@Override
 	public double cardinality(
 			byte[] start,
 			byte[] end ) {
@@ -123,6 +123,28 @@ public class StatsCompositionTool<T> implements
 		}
 	}
 
+	/**
+	 * Remove the statistics accumulated since the last flush, for a caller
+	 * that persists them itself rather than through a statistics store
+	 *
+	 * @return the accumulated statistics
+	 */
+	public List<DataStatistics<T>> drainStatistics() {
+		final List<DataStatistics<T>> drained = new ArrayList<DataStatistics<T>>();
+		if (statisticsBuilders == null) {
+			return drained;
+		}
+
+		synchronized (MUTEX) {
+			for (final DataStatisticsBuilder<T> builder : statisticsBuilders) {
+				final Collection<DataStatistics<T>> statistics = builder.getStatistics();
+				drained.addAll(statistics);
+				statistics.clear();
+			}
+		}
+		return drained;
+	}
+
 	/**
 	 * Reset statistics, losing and updates since last flush
 	 */
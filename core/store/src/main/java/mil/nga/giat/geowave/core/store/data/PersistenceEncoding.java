@@ -88,7 +88,7 @@ public class PersistenceEncoding
 			final DimensionField[] dimensions ) {
 		final NumericData[] dataPerDimension = new NumericData[dimensions.length];
 		for (int d = 0; d < dimensions.length; d++) {
-			dataPerDimension[d] = dimensions[d].getNumericData(commonData.getValue(dimensions[d].getFieldId()));
+			dataPerDimension[d] = dimensions[d].getNumericData(getCommonData().getValue(dimensions[d].getFieldId()));
 		}
 		return new BasicNumericDataset(
 				dataPerDimension);
@@ -163,7 +163,7 @@ public class PersistenceEncoding
 
 		boolean ok = true;
 		for (final Entry<ByteArrayId, DimensionRangePair> entry : fieldsRangeData.entrySet()) {
-			ok = ok && commonData.getValue(
+			ok = ok && getCommonData().getValue(
 					entry.getKey()).overlaps(
 					entry.getValue().dimensions,
 					entry.getValue().dataPerDimension);
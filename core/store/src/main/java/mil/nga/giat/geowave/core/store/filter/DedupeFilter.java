@@ -1,26 +1,39 @@
 package mil.nga.giat.geowave.core.store.filter;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
-import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
 
+import org.apache.log4j.Logger;
+
 /**
  * This filter will perform de-duplication using the combination of data adapter
  * ID and data ID to determine uniqueness. It can be performed client-side
- * and/or distributed.
+ * and/or distributed. The visited IDs are kept as 128-bit hashes in a primitive
+ * set bounded in memory; if that set is saturated, rows that have not been
+ * remembered are accepted so that results are never dropped, although
+ * duplicates may then be returned.
  * 
  */
 public class DedupeFilter implements
 		DistributableQueryFilter
 {
-	private final Map<ByteArrayId, Set<ByteArrayId>> adapterIdToVisitedDataIdMap;
+	private final static Logger LOGGER = Logger.getLogger(DedupeFilter.class);
+	public static final long DEFAULT_MAX_MEMORY_BYTES = 256L * 1024 * 1024;
+	private final Hash128Set visitedIds;
 
 	public DedupeFilter() {
-		adapterIdToVisitedDataIdMap = new HashMap<ByteArrayId, Set<ByteArrayId>>();
+		this(
+				DEFAULT_MAX_MEMORY_BYTES);
+	}
+
+	/**
+	 *
+	 * @param maxMemoryBytes
+	 *            the maximum number of bytes used to remember visited IDs
+	 */
+	public DedupeFilter(
+			final long maxMemoryBytes ) {
+		visitedIds = new Hash128Set(
+				maxMemoryBytes);
 	}
 
 	@Override
@@ -38,20 +51,38 @@ public class DedupeFilter implements
 			// and this is only intended to support a single index
 			return true;
 		}
-		final ByteArrayId adapterId = persistenceEncoding.getAdapterId();
-		final ByteArrayId dataId = persistenceEncoding.getDataId();
-		Set<ByteArrayId> visitedDataIds = adapterIdToVisitedDataIdMap.get(adapterId);
-		if (visitedDataIds == null) {
-			visitedDataIds = new HashSet<ByteArrayId>();
-			adapterIdToVisitedDataIdMap.put(
-					adapterId,
-					visitedDataIds);
+		// the filter may be shared by scans of several indices that run
+		// concurrently
+		synchronized (visitedIds) {
+			final boolean wasSaturated = visitedIds.isSaturated();
+			final boolean notVisited = visitedIds.add(
+					persistenceEncoding.getAdapterId().getBytes(),
+					persistenceEncoding.getDataId().getBytes());
+			if (!wasSaturated && visitedIds.isSaturated()) {
+				LOGGER.warn("De-duplication has reached its limit of " + visitedIds.getMaxMemoryUsage() + " bytes after " + visitedIds.size() + " IDs, duplicates may be returned");
+			}
+			return notVisited;
 		}
-		else if (visitedDataIds.contains(dataId)) {
-			return false;
+	}
+
+	/**
+	 *
+	 * @return the number of distinct IDs that have been remembered
+	 */
+	public int getVisitedCount() {
+		synchronized (visitedIds) {
+			return visitedIds.size();
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of bytes used to remember visited IDs
+	 */
+	public long getMemoryUsage() {
+		synchronized (visitedIds) {
+			return visitedIds.getMemoryUsage();
 		}
-		visitedDataIds.add(dataId);
-		return true;
 	}
 
 	protected boolean supportsMultipleIndices() {
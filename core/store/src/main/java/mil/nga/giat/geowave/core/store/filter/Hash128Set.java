@@ -0,0 +1,207 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+/**
+ * A compact set of 128-bit hashes of byte array pairs, such as the adapter ID
+ * and data ID of a row. The hashes are kept in a primitive open-addressing
+ * table rather than as objects so that very large sets of IDs do not retain an
+ * object per ID, and adding to the set does not allocate unless the table
+ * grows. The table will not grow beyond a maximum number of bytes; once it
+ * reaches that limit the set is saturated and further IDs are not remembered.
+ *
+ * Two distinct IDs are only treated as the same if both 64-bit halves of their
+ * hashes collide, which is negligible for any number of IDs that fits in
+ * memory.
+ */
+public class Hash128Set
+{
+	private static final int MIN_CAPACITY = 1024;
+	private static final double MAX_LOAD_FACTOR = 0.75;
+	private static final long SEED1 = 0x9E3779B97F4A7C15L;
+	private static final long SEED2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private final long maxMemoryBytes;
+	/**
+	 * the two halves of each hash are stored next to each other; a slot with
+	 * both halves set to 0 is empty
+	 */
+	private long[] table;
+	private int capacity;
+	private int size;
+	private int resizeThreshold;
+	private boolean saturated = false;
+
+	/**
+	 *
+	 * @param maxMemoryBytes
+	 *            the maximum number of bytes the hash table may use
+	 */
+	public Hash128Set(
+			final long maxMemoryBytes ) {
+		this.maxMemoryBytes = maxMemoryBytes;
+		allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * Add the pair of IDs to the set
+	 *
+	 * @param id1
+	 *            the first ID, such as the adapter ID
+	 * @param id2
+	 *            the second ID, such as the data ID
+	 * @return true if the pair was not already in the set, which includes the
+	 *         case where the set is saturated and the pair cannot be added
+	 */
+	public boolean add(
+			final byte[] id1,
+			final byte[] id2 ) {
+		long hash1 = hash(
+				hash(
+						SEED1,
+						id1) ^ id1.length,
+				id2);
+		final long hash2 = hash(
+				hash(
+						SEED2,
+						id1) ^ id1.length,
+				id2);
+		if ((hash1 == 0) && (hash2 == 0)) {
+			// reserved to mark an empty slot
+			hash1 = 1;
+		}
+		final int mask = capacity - 1;
+		int slot = (int) (hash1 ^ (hash1 >>> 32)) & mask;
+		while (true) {
+			final int i = slot << 1;
+			final long existing1 = table[i];
+			final long existing2 = table[i + 1];
+			if ((existing1 == 0) && (existing2 == 0)) {
+				break;
+			}
+			if ((existing1 == hash1) && (existing2 == hash2)) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if (size >= resizeThreshold) {
+			if (!grow()) {
+				saturated = true;
+				return true;
+			}
+			return add(
+					id1,
+					id2);
+		}
+		table[slot << 1] = hash1;
+		table[(slot << 1) + 1] = hash2;
+		size++;
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 *
+	 * @return true if an ID could not be added because the set reached its
+	 *         maximum memory
+	 */
+	public boolean isSaturated() {
+		return saturated;
+	}
+
+	/**
+	 *
+	 * @return the number of bytes used by the hash table
+	 */
+	public long getMemoryUsage() {
+		return table.length * 8L;
+	}
+
+	public long getMaxMemoryUsage() {
+		return maxMemoryBytes;
+	}
+
+	public void clear() {
+		allocate(MIN_CAPACITY);
+		saturated = false;
+	}
+
+	private void allocate(
+			final int newCapacity ) {
+		capacity = newCapacity;
+		table = new long[newCapacity * 2];
+		size = 0;
+		resizeThreshold = (int) (newCapacity * MAX_LOAD_FACTOR);
+	}
+
+	private boolean grow() {
+		final int newCapacity = capacity << 1;
+		if ((newCapacity <= 0) || ((newCapacity * 16L) > maxMemoryBytes)) {
+			return false;
+		}
+		final long[] oldTable = table;
+		allocate(newCapacity);
+		final int mask = capacity - 1;
+		for (int i = 0; i < oldTable.length; i += 2) {
+			final long hash1 = oldTable[i];
+			final long hash2 = oldTable[i + 1];
+			if ((hash1 == 0) && (hash2 == 0)) {
+				continue;
+			}
+			int slot = (int) (hash1 ^ (hash1 >>> 32)) & mask;
+			while ((table[slot << 1] != 0) || (table[(slot << 1) + 1] != 0)) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot << 1] = hash1;
+			table[(slot << 1) + 1] = hash2;
+			size++;
+		}
+		return true;
+	}
+
+	/**
+	 * A 64-bit hash of the bytes, mixing 8 bytes at a time in the manner of
+	 * MurmurHash3
+	 */
+	private static long hash(
+			final long seed,
+			final byte[] bytes ) {
+		long h = seed;
+		final int length = bytes.length;
+		int i = 0;
+		for (; (i + 8) <= length; i += 8) {
+			long k = (bytes[i] & 0xffL) | ((bytes[i + 1] & 0xffL) << 8) | ((bytes[i + 2] & 0xffL) << 16) | ((bytes[i + 3] & 0xffL) << 24) | ((bytes[i + 4] & 0xffL) << 32) | ((bytes[i + 5] & 0xffL) << 40) | ((bytes[i + 6] & 0xffL) << 48) | ((bytes[i + 7] & 0xffL) << 56);
+			k *= C1;
+			k = Long.rotateLeft(
+					k,
+					31);
+			k *= C2;
+			h ^= k;
+			h = (Long.rotateLeft(
+					h,
+					27) * 5) + 0x52dce729;
+		}
+		if (i < length) {
+			long k = 0;
+			for (int shift = 0; i < length; i++, shift += 8) {
+				k |= (bytes[i] & 0xffL) << shift;
+			}
+			k *= C1;
+			k = Long.rotateLeft(
+					k,
+					31);
+			k *= C2;
+			h ^= k;
+		}
+		h ^= length;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,101 @@
+package mil.nga.giat.geowave.core.store.filter;
+
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Hash128SetTest
+{
+
+	@Test
+	public void testAddAndGrow() {
+		final Hash128Set set = new Hash128Set(
+				DedupeFilter.DEFAULT_MAX_MEMORY_BYTES);
+		final byte[] adapter1 = StringUtils.stringToBinary("adapter1");
+		final byte[] adapter2 = StringUtils.stringToBinary("adapter2");
+		for (int i = 0; i < 100000; i++) {
+			final byte[] dataId = StringUtils.stringToBinary("data" + i);
+			Assert.assertTrue(set.add(
+					adapter1,
+					dataId));
+			Assert.assertTrue(set.add(
+					adapter2,
+					dataId));
+		}
+		Assert.assertEquals(
+				200000,
+				set.size());
+		for (int i = 0; i < 100000; i++) {
+			final byte[] dataId = StringUtils.stringToBinary("data" + i);
+			Assert.assertFalse(set.add(
+					adapter1,
+					dataId));
+			Assert.assertFalse(set.add(
+					adapter2,
+					dataId));
+		}
+		Assert.assertEquals(
+				200000,
+				set.size());
+		Assert.assertFalse(set.isSaturated());
+	}
+
+	@Test
+	public void testSplitBetweenIds() {
+		// the boundary between the adapter ID and data ID is significant
+		final Hash128Set set = new Hash128Set(
+				DedupeFilter.DEFAULT_MAX_MEMORY_BYTES);
+		Assert.assertTrue(set.add(
+				new byte[] {
+					1,
+					2
+				},
+				new byte[] {
+					3
+				}));
+		Assert.assertTrue(set.add(
+				new byte[] {
+					1
+				},
+				new byte[] {
+					2,
+					3
+				}));
+		Assert.assertTrue(set.add(
+				new byte[] {},
+				new byte[] {}));
+		Assert.assertFalse(set.add(
+				new byte[] {},
+				new byte[] {}));
+	}
+
+	@Test
+	public void testSaturation() {
+		final long maxMemory = 64 * 1024;
+		final Hash128Set set = new Hash128Set(
+				maxMemory);
+		int added = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (set.add(
+					new byte[] {
+						0
+					},
+					StringUtils.stringToBinary("data" + i))) {
+				added++;
+			}
+		}
+		// every ID is accepted, but only some are remembered
+		Assert.assertEquals(
+				10000,
+				added);
+		Assert.assertTrue(set.isSaturated());
+		Assert.assertTrue(set.getMemoryUsage() <= maxMemory);
+		Assert.assertTrue(set.size() < 10000);
+		Assert.assertFalse(set.add(
+				new byte[] {
+					0
+				},
+				StringUtils.stringToBinary("data0")));
+	}
+}
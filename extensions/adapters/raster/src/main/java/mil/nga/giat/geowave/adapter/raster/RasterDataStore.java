@@ -1,14 +1,25 @@
 package mil.nga.giat.geowave.adapter.raster;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.TreeMap;
 
+import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter;
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
+import mil.nga.giat.geowave.core.store.IndexWriter;
+import mil.nga.giat.geowave.core.store.IngestCallback;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.core.store.index.CustomIdIndex;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
@@ -17,6 +28,15 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOptions;
 
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * This data store queries raster data at a target resolution. The tiles it
+ * writes are invalidated in the tile caches of the readers of the same
+ * namespace within this process.
+ */
 public class RasterDataStore extends
 		AccumuloDataStore
 {
@@ -61,49 +81,85 @@ public class RasterDataStore extends
 				accumuloOperations);
 	}
 
+	@Override
+	public <T> IndexWriter createIndexWriter(
+			final Index index ) {
+		return new TileInvalidatingIndexWriter(
+				super.createIndexWriter(index));
+	}
+
+	@Override
+	public <T> List<ByteArrayId> ingest(
+			final WritableDataAdapter<T> writableAdapter,
+			final Index index,
+			final T entry,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		final List<ByteArrayId> rowIds = super.ingest(
+				writableAdapter,
+				index,
+				entry,
+				customFieldVisibilityWriter);
+		invalidateCachedTiles(
+				writableAdapter,
+				entry);
+		return rowIds;
+	}
+
+	@Override
+	public <T> void ingest(
+			final WritableDataAdapter<T> dataWriter,
+			final Index index,
+			final Iterator<T> entryIterator,
+			final IngestCallback<T> ingestCallback,
+			final VisibilityWriter<T> customFieldVisibilityWriter ) {
+		super.ingest(
+				dataWriter,
+				index,
+				entryIterator,
+				new IngestCallback<T>() {
+					@Override
+					public void entryIngested(
+							final DataStoreEntryInfo entryInfo,
+							final T entry ) {
+						if (ingestCallback != null) {
+							ingestCallback.entryIngested(
+									entryInfo,
+									entry);
+						}
+						invalidateCachedTiles(
+								dataWriter,
+								entry);
+					}
+				},
+				customFieldVisibilityWriter);
+	}
+
+	private void invalidateCachedTiles(
+			final DataAdapter<?> adapter,
+			final Object entry ) {
+		if ((adapter instanceof RasterDataAdapter) && (entry instanceof GridCoverage)) {
+			final org.opengis.geometry.Envelope envelope = ((GridCoverage) entry).getEnvelope();
+			RasterTileCache.invalidateAll(
+					accumuloOperations.getTableNameSpace(),
+					((RasterDataAdapter) adapter).getCoverageName(),
+					new Envelope(
+							envelope.getMinimum(0),
+							envelope.getMaximum(0),
+							envelope.getMinimum(1),
+							envelope.getMaximum(1)));
+		}
+	}
+
 	public <T> CloseableIterator<T> query(
 			final DataAdapter<T> adapter,
 			final Index index,
 			final Query query,
 			final double[] targetResolutionPerDimension ) {
 		// determine the correct tier to query for the given resolution
-		final NumericIndexStrategy strategy = index.getIndexStrategy();
-		if (strategy instanceof HierarchicalNumericIndexStrategy) {
-			final TreeMap<Double, SubStrategy> sortedStrategies = new TreeMap<Double, SubStrategy>();
-			SubStrategy targetIndexStrategy = null;
-			for (final SubStrategy subStrategy : ((HierarchicalNumericIndexStrategy) strategy).getSubStrategies()) {
-				final double[] idRangePerDimension = subStrategy.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
-				double rangeSum = 0;
-				for (final double range : idRangePerDimension) {
-					rangeSum += range;
-				}
-				// sort by the sum of the range in each dimension
-				sortedStrategies.put(
-						rangeSum,
-						subStrategy);
-			}
-			for (final SubStrategy subStrategy : sortedStrategies.descendingMap().values()) {
-				final double[] highestPrecisionIdRangePerDimension = subStrategy.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
-				// if the id range is less than or equal to the target
-				// resolution in each dimension, use this substrategy
-				boolean withinTargetResolution = true;
-				for (int d = 0; d < highestPrecisionIdRangePerDimension.length; d++) {
-					if (highestPrecisionIdRangePerDimension[d] > targetResolutionPerDimension[d]) {
-						withinTargetResolution = false;
-						break;
-					}
-				}
-				if (withinTargetResolution) {
-					targetIndexStrategy = subStrategy;
-					break;
-				}
-			}
-			if (targetIndexStrategy == null) {
-				// if there is not a substrategy that is within the target
-				// resolution, use the first substrategy (the lowest range per
-				// dimension, which is the highest precision)
-				targetIndexStrategy = sortedStrategies.firstEntry().getValue();
-			}
+		final SubStrategy targetIndexStrategy = getSubStrategy(
+				index,
+				targetResolutionPerDimension);
+		if (targetIndexStrategy != null) {
 			return super.query(
 					adapter,
 					new CustomIdIndex(
@@ -123,4 +179,106 @@ public class RasterDataStore extends
 					query);
 		}
 	}
+
+	/**
+	 * @param index
+	 *            the index
+	 * @param targetResolutionPerDimension
+	 *            the resolution to query for
+	 * @return the tier of a hierarchical index that best fits the target
+	 *         resolution, or null if the index is not hierarchical
+	 */
+	public SubStrategy getSubStrategy(
+			final Index index,
+			final double[] targetResolutionPerDimension ) {
+		final NumericIndexStrategy strategy = index.getIndexStrategy();
+		if (!(strategy instanceof HierarchicalNumericIndexStrategy)) {
+			return null;
+		}
+		final TreeMap<Double, SubStrategy> sortedStrategies = new TreeMap<Double, SubStrategy>();
+		SubStrategy targetIndexStrategy = null;
+		for (final SubStrategy subStrategy : ((HierarchicalNumericIndexStrategy) strategy).getSubStrategies()) {
+			final double[] idRangePerDimension = subStrategy.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
+			double rangeSum = 0;
+			for (final double range : idRangePerDimension) {
+				rangeSum += range;
+			}
+			// sort by the sum of the range in each dimension
+			sortedStrategies.put(
+					rangeSum,
+					subStrategy);
+		}
+		for (final SubStrategy subStrategy : sortedStrategies.descendingMap().values()) {
+			final double[] highestPrecisionIdRangePerDimension = subStrategy.getIndexStrategy().getHighestPrecisionIdRangePerDimension();
+			// if the id range is less than or equal to the target
+			// resolution in each dimension, use this substrategy
+			boolean withinTargetResolution = true;
+			for (int d = 0; d < highestPrecisionIdRangePerDimension.length; d++) {
+				if (highestPrecisionIdRangePerDimension[d] > targetResolutionPerDimension[d]) {
+					withinTargetResolution = false;
+					break;
+				}
+			}
+			if (withinTargetResolution) {
+				targetIndexStrategy = subStrategy;
+				break;
+			}
+		}
+		if (targetIndexStrategy == null) {
+			// if there is not a substrategy that is within the target
+			// resolution, use the first substrategy (the lowest range per
+			// dimension, which is the highest precision)
+			targetIndexStrategy = sortedStrategies.firstEntry().getValue();
+		}
+		return targetIndexStrategy;
+	}
+
+	/**
+	 * Invalidates the cached tiles of each raster entry once it is written
+	 */
+	private class TileInvalidatingIndexWriter implements
+			IndexWriter
+	{
+		private final IndexWriter indexWriter;
+
+		private TileInvalidatingIndexWriter(
+				final IndexWriter indexWriter ) {
+			this.indexWriter = indexWriter;
+		}
+
+		@Override
+		public <T> List<ByteArrayId> write(
+				final WritableDataAdapter<T> writableAdapter,
+				final T entry ) {
+			final List<ByteArrayId> rowIds = indexWriter.write(
+					writableAdapter,
+					entry);
+			invalidateCachedTiles(
+					writableAdapter,
+					entry);
+			return rowIds;
+		}
+
+		@Override
+		public <T> void setupAdapter(
+				final WritableDataAdapter<T> writableAdapter ) {
+			indexWriter.setupAdapter(writableAdapter);
+		}
+
+		@Override
+		public Index getIndex() {
+			return indexWriter.getIndex();
+		}
+
+		@Override
+		public void flush() {
+			indexWriter.flush();
+		}
+
+		@Override
+		public void close()
+				throws IOException {
+			indexWriter.close();
+		}
+	}
 }
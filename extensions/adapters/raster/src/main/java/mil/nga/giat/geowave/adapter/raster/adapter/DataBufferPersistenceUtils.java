@@ -0,0 +1,432 @@
+package mil.nga.giat.geowave.adapter.raster.adapter;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.media.jai.remote.SerializableState;
+
+/**
+ * This class encodes raster data buffers in a compact binary form. A tile is
+ * written as a small header (format version, flags, data type, number of
+ * banks and bank size) followed by the raw primitive values of each bank,
+ * optionally deflated. This replaces Java object serialization of the JAI
+ * serializable state, which is considerably larger and slower for numeric
+ * arrays. Buffers that were persisted using object serialization can still be
+ * read.
+ */
+public class DataBufferPersistenceUtils
+{
+	/**
+	 * The first byte of every buffer in the binary format. Java object
+	 * serialization always begins with 0xACED so the two formats can be told
+	 * apart by this byte.
+	 */
+	private static final byte FORMAT_MARKER = (byte) 0x47;
+	private static final byte FORMAT_VERSION = 1;
+	private static final byte FLAG_DEFLATED = 0x1;
+	private static final int HEADER_LENGTH = 12;
+	private static final byte OBJECT_STREAM_MAGIC_1 = (byte) 0xAC;
+	private static final byte OBJECT_STREAM_MAGIC_2 = (byte) 0xED;
+	/**
+	 * a deflated payload is only kept if it is at most this fraction of the
+	 * raw payload, otherwise the cost of inflating it on every read is not
+	 * worthwhile
+	 */
+	private static final double MAX_DEFLATED_RATIO = 0.9;
+
+	/**
+	 * Encode a data buffer, deflating the values if it makes them meaningfully
+	 * smaller
+	 *
+	 * @param dataBuffer
+	 *            the data buffer
+	 * @return the binary encoding
+	 */
+	public static byte[] toBinary(
+			final DataBuffer dataBuffer ) {
+		return toBinary(
+				dataBuffer,
+				true);
+	}
+
+	/**
+	 * Encode a data buffer
+	 *
+	 * @param dataBuffer
+	 *            the data buffer
+	 * @param compress
+	 *            whether to try deflating the values
+	 * @return the binary encoding
+	 */
+	public static byte[] toBinary(
+			final DataBuffer dataBuffer,
+			final boolean compress ) {
+		final int dataType = dataBuffer.getDataType();
+		final int numBanks = dataBuffer.getNumBanks();
+		final int size = dataBuffer.getSize();
+		final int payloadLength = numBanks * size * (DataBuffer.getDataTypeSize(dataType) / 8);
+		final ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH + payloadLength);
+		buf.put(FORMAT_MARKER);
+		buf.put(FORMAT_VERSION);
+		buf.put((byte) 0);
+		buf.put((byte) dataType);
+		buf.putInt(numBanks);
+		buf.putInt(size);
+		for (int b = 0; b < numBanks; b++) {
+			writeBank(
+					dataBuffer,
+					b,
+					buf);
+		}
+		final byte[] raw = buf.array();
+		if (compress && (payloadLength > 0)) {
+			final byte[] deflated = deflate(
+					raw,
+					payloadLength);
+			if (deflated != null) {
+				return deflated;
+			}
+		}
+		return raw;
+	}
+
+	/**
+	 * Decode a data buffer written by {@link #toBinary(DataBuffer)} or, for
+	 * data persisted by previous versions, by Java object serialization
+	 *
+	 * @param binary
+	 *            the binary encoding
+	 * @return the data buffer
+	 * @throws IOException
+	 *             if the binary is not a valid encoding of a data buffer
+	 * @throws ClassNotFoundException
+	 *             if the binary is an object stream for an unknown class
+	 */
+	public static DataBuffer fromBinary(
+			final byte[] binary )
+			throws IOException,
+			ClassNotFoundException {
+		if ((binary.length >= 2) && (binary[0] == OBJECT_STREAM_MAGIC_1) && (binary[1] == OBJECT_STREAM_MAGIC_2)) {
+			return fromObjectStream(binary);
+		}
+		if ((binary.length < HEADER_LENGTH) || (binary[0] != FORMAT_MARKER)) {
+			throw new IOException(
+					"Unrecognized data buffer encoding");
+		}
+		final ByteBuffer buf = ByteBuffer.wrap(binary);
+		buf.get();
+		final byte version = buf.get();
+		if (version > FORMAT_VERSION) {
+			throw new IOException(
+					"Unsupported data buffer encoding version " + version);
+		}
+		final byte flags = buf.get();
+		final int dataType = buf.get();
+		final int numBanks = buf.getInt();
+		final int size = buf.getInt();
+		if ((dataType < DataBuffer.TYPE_BYTE) || (dataType > DataBuffer.TYPE_DOUBLE)) {
+			throw new IOException(
+					"Unsupported data buffer type " + dataType);
+		}
+		final ByteBuffer payload;
+		if ((flags & FLAG_DEFLATED) != 0) {
+			payload = inflate(
+					buf,
+					numBanks * size * (DataBuffer.getDataTypeSize(dataType) / 8));
+		}
+		else {
+			payload = buf;
+		}
+		switch (dataType) {
+			case DataBuffer.TYPE_BYTE: {
+				final byte[][] banks = new byte[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.get(banks[b]);
+				}
+				return new DataBufferByte(
+						banks,
+						size);
+			}
+			case DataBuffer.TYPE_USHORT: {
+				final short[][] banks = new short[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.asShortBuffer().get(
+							banks[b]);
+					skip(
+							payload,
+							size * 2);
+				}
+				return new DataBufferUShort(
+						banks,
+						size);
+			}
+			case DataBuffer.TYPE_SHORT: {
+				final short[][] banks = new short[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.asShortBuffer().get(
+							banks[b]);
+					skip(
+							payload,
+							size * 2);
+				}
+				return new DataBufferShort(
+						banks,
+						size);
+			}
+			case DataBuffer.TYPE_INT: {
+				final int[][] banks = new int[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.asIntBuffer().get(
+							banks[b]);
+					skip(
+							payload,
+							size * 4);
+				}
+				return new DataBufferInt(
+						banks,
+						size);
+			}
+			case DataBuffer.TYPE_FLOAT: {
+				final float[][] banks = new float[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.asFloatBuffer().get(
+							banks[b]);
+					skip(
+							payload,
+							size * 4);
+				}
+				return new DataBufferFloat(
+						banks,
+						size);
+			}
+			case DataBuffer.TYPE_DOUBLE: {
+				final double[][] banks = new double[numBanks][size];
+				for (int b = 0; b < numBanks; b++) {
+					payload.asDoubleBuffer().get(
+							banks[b]);
+					skip(
+							payload,
+							size * 8);
+				}
+				return new DataBufferDouble(
+						banks,
+						size);
+			}
+			default:
+				throw new IOException(
+						"Unsupported data buffer type " + dataType);
+		}
+	}
+
+	private static void writeBank(
+			final DataBuffer dataBuffer,
+			final int bank,
+			final ByteBuffer buf ) {
+		final int size = dataBuffer.getSize();
+		final int offset = dataBuffer.getOffsets()[bank];
+		// the common buffer implementations expose their arrays directly, any
+		// others are read element by element
+		if (dataBuffer instanceof DataBufferByte) {
+			buf.put(
+					((DataBufferByte) dataBuffer).getData(bank),
+					offset,
+					size);
+		}
+		else if (dataBuffer instanceof DataBufferUShort) {
+			buf.asShortBuffer().put(
+					((DataBufferUShort) dataBuffer).getData(bank),
+					offset,
+					size);
+			skip(
+					buf,
+					size * 2);
+		}
+		else if (dataBuffer instanceof DataBufferShort) {
+			buf.asShortBuffer().put(
+					((DataBufferShort) dataBuffer).getData(bank),
+					offset,
+					size);
+			skip(
+					buf,
+					size * 2);
+		}
+		else if (dataBuffer instanceof DataBufferInt) {
+			buf.asIntBuffer().put(
+					((DataBufferInt) dataBuffer).getData(bank),
+					offset,
+					size);
+			skip(
+					buf,
+					size * 4);
+		}
+		else if (dataBuffer instanceof DataBufferFloat) {
+			buf.asFloatBuffer().put(
+					((DataBufferFloat) dataBuffer).getData(bank),
+					offset,
+					size);
+			skip(
+					buf,
+					size * 4);
+		}
+		else if (dataBuffer instanceof DataBufferDouble) {
+			buf.asDoubleBuffer().put(
+					((DataBufferDouble) dataBuffer).getData(bank),
+					offset,
+					size);
+			skip(
+					buf,
+					size * 8);
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				switch (dataBuffer.getDataType()) {
+					case DataBuffer.TYPE_BYTE:
+						buf.put((byte) dataBuffer.getElem(
+								bank,
+								i));
+						break;
+					case DataBuffer.TYPE_USHORT:
+					case DataBuffer.TYPE_SHORT:
+						buf.putShort((short) dataBuffer.getElem(
+								bank,
+								i));
+						break;
+					case DataBuffer.TYPE_INT:
+						buf.putInt(dataBuffer.getElem(
+								bank,
+								i));
+						break;
+					case DataBuffer.TYPE_FLOAT:
+						buf.putFloat(dataBuffer.getElemFloat(
+								bank,
+								i));
+						break;
+					case DataBuffer.TYPE_DOUBLE:
+						buf.putDouble(dataBuffer.getElemDouble(
+								bank,
+								i));
+						break;
+					default:
+						throw new IllegalArgumentException(
+								"Unsupported data buffer type " + dataBuffer.getDataType());
+				}
+			}
+		}
+	}
+
+	private static void skip(
+			final ByteBuffer buf,
+			final int length ) {
+		buf.position(buf.position() + length);
+	}
+
+	private static byte[] deflate(
+			final byte[] raw,
+			final int payloadLength ) {
+		final int maxDeflatedLength = (int) (payloadLength * MAX_DEFLATED_RATIO);
+		// one byte more than the limit so that exceeding it can be detected
+		final byte[] deflated = new byte[HEADER_LENGTH + maxDeflatedLength + 1];
+		final Deflater deflater = new Deflater(
+				Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(
+					raw,
+					HEADER_LENGTH,
+					payloadLength);
+			deflater.finish();
+			int length = HEADER_LENGTH;
+			while (!deflater.finished() && (length < deflated.length)) {
+				length += deflater.deflate(
+						deflated,
+						length,
+						deflated.length - length);
+			}
+			if (!deflater.finished() || ((length - HEADER_LENGTH) > maxDeflatedLength)) {
+				return null;
+			}
+			System.arraycopy(
+					raw,
+					0,
+					deflated,
+					0,
+					HEADER_LENGTH);
+			deflated[2] = FLAG_DEFLATED;
+			final byte[] result = new byte[length];
+			System.arraycopy(
+					deflated,
+					0,
+					result,
+					0,
+					length);
+			return result;
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static ByteBuffer inflate(
+			final ByteBuffer buf,
+			final int payloadLength )
+			throws IOException {
+		final byte[] payload = new byte[payloadLength];
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(
+					buf.array(),
+					buf.position(),
+					buf.remaining());
+			int length = 0;
+			while ((length < payloadLength) && !inflater.finished()) {
+				final int inflated = inflater.inflate(
+						payload,
+						length,
+						payloadLength - length);
+				if ((inflated == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length != payloadLength) {
+				throw new IOException(
+						"Data buffer is truncated");
+			}
+		}
+		catch (final DataFormatException e) {
+			throw new IOException(
+					"Unable to inflate data buffer",
+					e);
+		}
+		finally {
+			inflater.end();
+		}
+		return ByteBuffer.wrap(payload);
+	}
+
+	private static DataBuffer fromObjectStream(
+			final byte[] binary )
+			throws IOException,
+			ClassNotFoundException {
+		final ByteArrayInputStream bais = new ByteArrayInputStream(
+				binary);
+		final ObjectInputStream ois = new ObjectInputStream(
+				bais);
+		final Object o = ois.readObject();
+		if ((o instanceof SerializableState) && (((SerializableState) o).getObject() instanceof DataBuffer)) {
+			return (DataBuffer) ((SerializableState) o).getObject();
+		}
+		return null;
+	}
+}
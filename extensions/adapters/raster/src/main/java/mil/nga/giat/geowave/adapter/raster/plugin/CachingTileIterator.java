@@ -0,0 +1,212 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache.TileKey;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericValue;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * This iterator returns the tiles of a request that were found in the tile
+ * cache followed by the tiles that had to be read, adding each of the read
+ * tiles to the cache. Once the read is complete the requested tiles that do
+ * not exist are cached as empty.
+ */
+public class CachingTileIterator implements
+		CloseableIterator<GridCoverage>
+{
+	private final Iterator<GridCoverage> cachedTiles;
+	private final ParallelTileIterator readTiles;
+	private final RasterTileCache cache;
+	private final String coverageName;
+	private final ByteArrayId tierId;
+	private final NumericIndexStrategy tierStrategy;
+	private final Map<ByteArrayId, Envelope> missingTiles;
+	private GridCoverage nextTile = null;
+
+	/**
+	 * @param cachedTiles
+	 *            the tiles found in the cache
+	 * @param readTiles
+	 *            the tiles read for the missing tile IDs
+	 * @param cache
+	 *            the cache to add the read tiles to
+	 * @param coverageName
+	 *            the coverage
+	 * @param tierId
+	 *            the ID of the tier that was read
+	 * @param tierStrategy
+	 *            the index strategy of the tier that was read
+	 * @param missingTiles
+	 *            the envelope of each tile ID that was not in the cache
+	 */
+	public CachingTileIterator(
+			final List<GridCoverage> cachedTiles,
+			final ParallelTileIterator readTiles,
+			final RasterTileCache cache,
+			final String coverageName,
+			final ByteArrayId tierId,
+			final NumericIndexStrategy tierStrategy,
+			final Map<ByteArrayId, Envelope> missingTiles ) {
+		this.cachedTiles = cachedTiles.iterator();
+		this.readTiles = readTiles;
+		this.cache = cache;
+		this.coverageName = coverageName;
+		this.tierId = tierId;
+		this.tierStrategy = tierStrategy;
+		this.missingTiles = new HashMap<ByteArrayId, Envelope>(
+				missingTiles);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextTile != null) {
+			return true;
+		}
+		if (cachedTiles.hasNext()) {
+			nextTile = cachedTiles.next();
+			return true;
+		}
+		while (readTiles.hasNext()) {
+			final GridCoverage tile = readTiles.next();
+			final org.opengis.geometry.Envelope tileEnvelope = tile.getEnvelope();
+			final ByteArrayId tileId = getTileId(
+					tierStrategy,
+					tileEnvelope.getMedian(0),
+					tileEnvelope.getMedian(1));
+			final Envelope envelope = missingTiles.remove(tileId);
+			// tiles bordering the read envelope and tiles that were already
+			// returned from the cache are skipped
+			if (envelope != null) {
+				cache.put(
+						new TileKey(
+								coverageName,
+								tierId,
+								tileId),
+						envelope,
+						tile);
+				nextTile = tile;
+				return true;
+			}
+		}
+		if (!missingTiles.isEmpty() && !readTiles.isFailed()) {
+			for (final Entry<ByteArrayId, Envelope> missingTile : missingTiles.entrySet()) {
+				cache.put(
+						new TileKey(
+								coverageName,
+								tierId,
+								missingTile.getKey()),
+						missingTile.getValue(),
+						null);
+			}
+		}
+		missingTiles.clear();
+		return false;
+	}
+
+	@Override
+	public GridCoverage next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final GridCoverage tile = nextTile;
+		nextTile = null;
+		return tile;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Tiles cannot be removed from a raster query");
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		readTiles.close();
+	}
+
+	/**
+	 * @param tierStrategy
+	 *            the index strategy of a single tier
+	 * @param x
+	 *            the longitude of a point
+	 * @param y
+	 *            the latitude of a point
+	 * @return the ID of the tile containing the point
+	 */
+	public static ByteArrayId getTileId(
+			final NumericIndexStrategy tierStrategy,
+			final double x,
+			final double y ) {
+		final NumericDimensionDefinition[] orderedDimensions = tierStrategy.getOrderedDimensionDefinitions();
+		final NumericData[] point = new NumericData[orderedDimensions.length];
+		for (int d = 0; d < orderedDimensions.length; d++) {
+			if (orderedDimensions[d] instanceof LongitudeDefinition) {
+				point[d] = new NumericValue(
+						x);
+			}
+			else if (orderedDimensions[d] instanceof LatitudeDefinition) {
+				point[d] = new NumericValue(
+						y);
+			}
+			else {
+				point[d] = orderedDimensions[d].getFullRange();
+			}
+		}
+		final List<ByteArrayId> ids = tierStrategy.getInsertionIds(new BasicNumericDataset(
+				point));
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	/**
+	 * @param tierStrategy
+	 *            the index strategy of a single tier
+	 * @param tileId
+	 *            the ID of a tile
+	 * @return the envelope of the tile
+	 */
+	public static Envelope getTileEnvelope(
+			final NumericIndexStrategy tierStrategy,
+			final ByteArrayId tileId ) {
+		final MultiDimensionalNumericData range = tierStrategy.getRangeForId(tileId);
+		final NumericDimensionDefinition[] orderedDimensions = tierStrategy.getOrderedDimensionDefinitions();
+		double minX = 0;
+		double maxX = 0;
+		double minY = 0;
+		double maxY = 0;
+		for (int d = 0; d < orderedDimensions.length; d++) {
+			if (orderedDimensions[d] instanceof LongitudeDefinition) {
+				minX = range.getMinValuesPerDimension()[d];
+				maxX = range.getMaxValuesPerDimension()[d];
+			}
+			else if (orderedDimensions[d] instanceof LatitudeDefinition) {
+				minY = range.getMinValuesPerDimension()[d];
+				maxY = range.getMaxValuesPerDimension()[d];
+			}
+		}
+		return new Envelope(
+				minX,
+				maxX,
+				minY,
+				maxY);
+	}
+}
@@ -19,6 +19,8 @@ public class GeoWaveRasterConfig
 
 	static private final Map<String, GeoWaveRasterConfig> CONFIG_CACHE = new Hashtable<String, GeoWaveRasterConfig>();
 
+	private static final int DEFAULT_TILE_CACHE_EXPIRY_SECONDS = 300;
+
 	protected static enum ConfigParameter {
 		ZOOKEEPER_URLS(
 				"zookeeperUrls"),
@@ -35,7 +37,14 @@ public class GeoWaveRasterConfig
 		INTERPOLATION(
 				"interpolationOverride"),
 		EQUALIZE_HISTOGRAM(
-				"equalizeHistogramOverride");
+				"equalizeHistogramOverride"),
+		// the following two are optional parameters that enable and size a
+		// cache of decoded tiles, shared by the readers of a namespace; only
+		// writes made within the same process invalidate cached tiles
+		TILE_CACHE_SIZE(
+				"tileCacheSizeMB"),
+		TILE_CACHE_EXPIRY(
+				"tileCacheExpirySeconds");
 		private String configName;
 
 		private ConfigParameter(
@@ -64,6 +73,10 @@ public class GeoWaveRasterConfig
 
 	private Integer interpolationOverride = null;
 
+	private Integer tileCacheSizeMB = null;
+
+	private Integer tileCacheExpirySeconds = null;
+
 	protected GeoWaveRasterConfig() {}
 
 	public static GeoWaveRasterConfig createConfig(
@@ -90,6 +103,28 @@ public class GeoWaveRasterConfig
 			final String geowaveNamespace,
 			final Boolean equalizeHistogramOverride,
 			final Integer interpolationOverride ) {
+		return createConfig(
+				zookeeperUrl,
+				accumuloInstanceId,
+				accumuloUsername,
+				accumuloPassword,
+				geowaveNamespace,
+				equalizeHistogramOverride,
+				interpolationOverride,
+				null,
+				null);
+	}
+
+	public static GeoWaveRasterConfig createConfig(
+			final String zookeeperUrl,
+			final String accumuloInstanceId,
+			final String accumuloUsername,
+			final String accumuloPassword,
+			final String geowaveNamespace,
+			final Boolean equalizeHistogramOverride,
+			final Integer interpolationOverride,
+			final Integer tileCacheSizeMB,
+			final Integer tileCacheExpirySeconds ) {
 		final GeoWaveRasterConfig result = new GeoWaveRasterConfig();
 		result.zookeeperUrls = zookeeperUrl;
 		result.accumuloInstanceId = accumuloInstanceId;
@@ -98,6 +133,8 @@ public class GeoWaveRasterConfig
 		result.geowaveNamespace = geowaveNamespace;
 		result.equalizeHistogramOverride = equalizeHistogramOverride;
 		result.interpolationOverride = interpolationOverride;
+		result.tileCacheSizeMB = tileCacheSizeMB;
+		result.tileCacheExpirySeconds = tileCacheExpirySeconds;
 		return result;
 	}
 
@@ -158,6 +195,12 @@ public class GeoWaveRasterConfig
 		result.interpolationOverride = readValueInteger(
 				dom,
 				ConfigParameter.INTERPOLATION.getConfigName());
+		result.tileCacheSizeMB = readValueInteger(
+				dom,
+				ConfigParameter.TILE_CACHE_SIZE.getConfigName());
+		result.tileCacheExpirySeconds = readValueInteger(
+				dom,
+				ConfigParameter.TILE_CACHE_EXPIRY.getConfigName());
 		CONFIG_CACHE.put(
 				xmlURL.toString(),
 				result);
@@ -214,6 +257,35 @@ public class GeoWaveRasterConfig
 		return equalizeHistogramOverride;
 	}
 
+	public boolean isTileCacheEnabled() {
+		return (tileCacheSizeMB != null) && (tileCacheSizeMB > 0);
+	}
+
+	public long getTileCacheMaxBytes() {
+		if (!isTileCacheEnabled()) {
+			throw new IllegalStateException(
+					"Tile Cache is not enabled for this config");
+		}
+		return tileCacheSizeMB * 1024L * 1024L;
+	}
+
+	/**
+	 * Tiles written through a RasterDataStore in the same process invalidate
+	 * the cached tiles they intersect, but tiles written by any other process,
+	 * such as a map-reduce ingest or another server, are only seen once the
+	 * cached tiles expire.
+	 *
+	 * @return the number of seconds a cached tile is used for before it is
+	 *         read again, so that tiles written by other processes are seen; 0
+	 *         or less means never
+	 */
+	public int getTileCacheExpirySeconds() {
+		if (tileCacheExpirySeconds == null) {
+			return DEFAULT_TILE_CACHE_EXPIRY_SECONDS;
+		}
+		return tileCacheExpirySeconds;
+	}
+
 	static private String readValueString(
 			final Document dom,
 			final String elemName ) {
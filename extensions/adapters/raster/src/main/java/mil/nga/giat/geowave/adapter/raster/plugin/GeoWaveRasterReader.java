@@ -8,13 +8,18 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-import javax.imageio.ImageReadParam;
 import javax.media.jai.Histogram;
 import javax.media.jai.ImageLayout;
 import javax.media.jai.Interpolation;
@@ -23,12 +28,15 @@ import mil.nga.giat.geowave.adapter.raster.RasterDataStore;
 import mil.nga.giat.geowave.adapter.raster.RasterUtils;
 import mil.nga.giat.geowave.adapter.raster.Resolution;
 import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter;
-import mil.nga.giat.geowave.adapter.raster.query.IndexOnlySpatialQuery;
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache.CachedTile;
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache.TileKey;
 import mil.nga.giat.geowave.adapter.raster.stats.HistogramStatistics;
 import mil.nga.giat.geowave.adapter.raster.stats.OverviewStatistics;
 import mil.nga.giat.geowave.core.geotime.IndexType;
 import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
@@ -70,9 +78,9 @@ import org.opengis.referencing.cs.CoordinateSystemAxis;
 import org.opengis.referencing.datum.PixelInCell;
 import org.opengis.referencing.operation.CoordinateOperationFactory;
 import org.opengis.referencing.operation.MathTransform;
-import org.opengis.referencing.operation.TransformException;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 
 /**
@@ -95,6 +103,14 @@ public class GeoWaveRasterReader extends
 
 	private Index rasterIndex;
 
+	private final static int QUERY_THREADS = Runtime.getRuntime().availableProcessors();
+
+	private final static int TILE_BUFFER_SIZE = 64;
+
+	private final static int MAX_CACHED_TILES_PER_REQUEST = 4096;
+
+	private static ExecutorService queryExecutor;
+
 	protected final static CoordinateOperationFactory OPERATION_FACTORY = new BufferedCoordinateOperationFactory(
 			new Hints(
 					Hints.LENIENT_DATUM_SHIFT,
@@ -552,45 +568,15 @@ public class GeoWaveRasterReader extends
 			return null;
 		}
 
-		final ImageReadParam readP = new ImageReadParam();
-		final Integer imageChoice;
-
 		final RasterDataAdapter adapter = (RasterDataAdapter) geowaveAdapterStore.getAdapter(new ByteArrayId(
 				coverageName));
+		// the resolution levels are resolved for each request rather than
+		// stored on the reader so that concurrent requests do not contend
+		final double[][] resolutionLevels = getResolutionLevels(coverageName);
+		final int imageChoice;
 		if (pixelDimension != null) {
-			try {
-				synchronized (this) {
-					if (!setupResolutions(coverageName)) {
-						LOGGER.warn("Cannot find the overview statistics for the requested coverage name");
-						return coverageFactory.create(
-								coverageName,
-								RasterUtils.getEmptyImage(
-										(int) pixelDimension.getWidth(),
-										(int) pixelDimension.getHeight(),
-										backgroundColor,
-										outputTransparentColor,
-										adapter.getColorModel()),
-								state.getRequestedEnvelope());
-					}
-					imageChoice = setReadParams(
-							state.getCoverageName(),
-							OverviewPolicy.getDefaultPolicy(),
-							readP,
-							state.getRequestEnvelopeTransformed(),
-							pixelDimension);
-
-				}
-				readP.setSourceSubsampling(
-						1,
-						1,
-						0,
-						0);
-			}
-			catch (final TransformException e) {
-				LOGGER.error(
-						e.getLocalizedMessage(),
-						e);
-
+			if (resolutionLevels.length == 0) {
+				LOGGER.warn("Cannot find the overview statistics for the requested coverage name");
 				return coverageFactory.create(
 						coverageName,
 						RasterUtils.getEmptyImage(
@@ -601,12 +587,20 @@ public class GeoWaveRasterReader extends
 								adapter.getColorModel()),
 						state.getRequestedEnvelope());
 			}
+			imageChoice = chooseResolutionLevel(
+					resolutionLevels,
+					OverviewPolicy.getDefaultPolicy(),
+					new double[] {
+						state.getRequestEnvelopeTransformed().getSpan(
+								0) / pixelDimension.getWidth(),
+						state.getRequestEnvelopeTransformed().getSpan(
+								1) / pixelDimension.getHeight()
+					});
 		}
 		else {
-			imageChoice = Integer.valueOf(0);
+			imageChoice = 0;
 		}
 
-		final double[][] resolutionLevels = getResolutionLevels(coverageName);
 		Histogram histogram = null;
 		boolean equalizeHistogram;
 		if (config.isEqualizeHistogramOverrideSet()) {
@@ -618,16 +612,17 @@ public class GeoWaveRasterReader extends
 		if (equalizeHistogram) {
 			histogram = getHistogram(
 					coverageName,
-					resolutionLevels[imageChoice.intValue()][0],
-					resolutionLevels[imageChoice.intValue()][1]);
+					resolutionLevels[imageChoice][0],
+					resolutionLevels[imageChoice][1]);
 		}
 
 		try (final CloseableIterator<GridCoverage> gridCoverageIt = queryForTiles(
 				pixelDimension,
 				state.getRequestEnvelopeTransformed(),
-				resolutionLevels[imageChoice.intValue()][0],
-				resolutionLevels[imageChoice.intValue()][1],
-				adapter)) {
+				resolutionLevels[imageChoice][0],
+				resolutionLevels[imageChoice][1],
+				adapter,
+				originalEnvelope)) {
 
 			Interpolation interpolation;
 			if (config.isInterpolationOverrideSet()) {
@@ -642,8 +637,8 @@ public class GeoWaveRasterReader extends
 					outputTransparentColor,
 					pixelDimension,
 					state.getRequestEnvelopeTransformed(),
-					resolutionLevels[imageChoice.intValue()][0],
-					resolutionLevels[imageChoice.intValue()][1],
+					resolutionLevels[imageChoice][0],
+					resolutionLevels[imageChoice][1],
 					adapter.getNoDataValuesPerBand(),
 					state.isXAxisSwitch(),
 					coverageFactory,
@@ -659,34 +654,43 @@ public class GeoWaveRasterReader extends
 		}
 	}
 
-	private boolean setupResolutions(
-			final String coverageName )
+	/**
+	 * Choose the resolution level to read for a requested resolution. The
+	 * choice is made by the overview selection of the inherited reader, using
+	 * a reader of just the levels of a single coverage so that no state is
+	 * shared between requests.
+	 *
+	 * @param resolutionLevels
+	 *            the resolution levels of the coverage, from highest to lowest
+	 *            resolution
+	 * @param policy
+	 *            the overview policy
+	 * @param requestedResolution
+	 *            the requested resolution per dimension
+	 * @return the index of the chosen resolution level
+	 * @throws IOException
+	 */
+	protected static int chooseResolutionLevel(
+			final double[][] resolutionLevels,
+			final OverviewPolicy policy,
+			final double[] requestedResolution )
 			throws IOException {
-
-		// this is a bit of a hack to avoid copy and pasting large
-		// portions of the inherited class, which does not handle
-		// multiple coverage names
-		final double[][] resLevels = getResolutionLevels(coverageName);
-		if (resLevels.length == 0) {
-			return false;
-		}
-		numOverviews = resLevels.length - 1;
-		highestRes = resLevels[0];
-		if (numOverviews > 0) {
-			overViewResolutions = new double[numOverviews][];
-
-			System.arraycopy(
-					resLevels,
-					1,
-					overViewResolutions,
-					0,
-					numOverviews);
+		if (resolutionLevels.length <= 1) {
+			return 0;
 		}
-		else {
-			overViewResolutions = new double[][] {};
+		final double[] resolution = new ResolutionLevelReader(
+				resolutionLevels).getReadingResolutions(
+				ResolutionLevelReader.COVERAGE_NAME,
+				policy,
+				requestedResolution);
+		for (int i = 0; i < resolutionLevels.length; i++) {
+			if (Arrays.equals(
+					resolutionLevels[i],
+					resolution)) {
+				return i;
+			}
 		}
-		this.coverageName = coverageName;
-		return true;
+		return 0;
 	}
 
 	private CloseableIterator<GridCoverage> queryForTiles(
@@ -694,21 +698,252 @@ public class GeoWaveRasterReader extends
 			final GeneralEnvelope requestEnvelope,
 			final double levelResX,
 			final double levelResY,
-			final RasterDataAdapter adapter )
+			final RasterDataAdapter adapter,
+			final GeneralEnvelope originalEnvelope )
 			throws IOException {
-		return geowaveDataStore.query(
+		final double[] targetResolution = new double[] {
+			levelResX * adapter.getTileSize(),
+			levelResY * adapter.getTileSize()
+		};
+		final Envelope envelope = new Envelope(
+				requestEnvelope.getMinimum(0),
+				requestEnvelope.getMaximum(0),
+				requestEnvelope.getMinimum(1),
+				requestEnvelope.getMaximum(1));
+		final RasterTileCache cache = RasterTileCache.getCache(config);
+		if (cache != null) {
+			final SubStrategy tier = geowaveDataStore.getSubStrategy(
+					rasterIndex,
+					targetResolution);
+			if (tier != null) {
+				final CloseableIterator<GridCoverage> cachedTiles = queryForCachedTiles(
+						cache,
+						tier,
+						envelope.intersection(new Envelope(
+								originalEnvelope.getMinimum(0),
+								originalEnvelope.getMaximum(0),
+								originalEnvelope.getMinimum(1),
+								originalEnvelope.getMaximum(1))),
+						targetResolution,
+						adapter);
+				if (cachedTiles != null) {
+					return cachedTiles;
+				}
+			}
+		}
+		return queryForTiles(
+				envelope,
+				targetResolution,
+				adapter);
+	}
+
+	private CloseableIterator<GridCoverage> queryForCachedTiles(
+			final RasterTileCache cache,
+			final SubStrategy tier,
+			final Envelope envelope,
+			final double[] targetResolution,
+			final RasterDataAdapter adapter ) {
+		if (envelope.isNull()) {
+			return new CloseableIterator.Empty<GridCoverage>();
+		}
+		final NumericIndexStrategy tierStrategy = tier.getIndexStrategy();
+		final ByteArrayId tierId = new ByteArrayId(
+				tier.getPrefix());
+		// the tiles of a tier form a regular grid, so align to the tile
+		// containing the minimum corner of the request
+		final Envelope firstTile = CachingTileIterator.getTileEnvelope(
+				tierStrategy,
+				CachingTileIterator.getTileId(
+						tierStrategy,
+						envelope.getMinX(),
+						envelope.getMinY()));
+		final double tileWidth = firstTile.getWidth();
+		final double tileHeight = firstTile.getHeight();
+		if ((tileWidth <= 0) || (tileHeight <= 0)) {
+			return null;
+		}
+		final long tilesX = Math.max(
+				1,
+				(long) Math.ceil((envelope.getMaxX() - firstTile.getMinX()) / tileWidth));
+		final long tilesY = Math.max(
+				1,
+				(long) Math.ceil((envelope.getMaxY() - firstTile.getMinY()) / tileHeight));
+		if ((tilesX * tilesY) > MAX_CACHED_TILES_PER_REQUEST) {
+			// too many tiles to look up individually, read them directly
+			return null;
+		}
+		final List<GridCoverage> cachedTiles = new ArrayList<GridCoverage>();
+		final Map<ByteArrayId, Envelope> missingTiles = new HashMap<ByteArrayId, Envelope>();
+		final Envelope missingEnvelope = new Envelope();
+		for (long x = 0; x < tilesX; x++) {
+			for (long y = 0; y < tilesY; y++) {
+				final double minX = firstTile.getMinX() + (x * tileWidth);
+				final double minY = firstTile.getMinY() + (y * tileHeight);
+				final ByteArrayId tileId = CachingTileIterator.getTileId(
+						tierStrategy,
+						minX + (tileWidth / 2),
+						minY + (tileHeight / 2));
+				if (tileId == null) {
+					continue;
+				}
+				final CachedTile cachedTile = cache.get(new TileKey(
+						adapter.getCoverageName(),
+						tierId,
+						tileId));
+				if (cachedTile != null) {
+					if (cachedTile.getCoverage() != null) {
+						cachedTiles.add(cachedTile.getCoverage());
+					}
+				}
+				else {
+					final Envelope tileEnvelope = new Envelope(
+							minX,
+							minX + tileWidth,
+							minY,
+							minY + tileHeight);
+					missingTiles.put(
+							tileId,
+							tileEnvelope);
+					missingEnvelope.expandToInclude(tileEnvelope);
+				}
+			}
+		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(cachedTiles.size() + " cached and " + missingTiles.size() + " missing tiles for request, " + cache);
+		}
+		if (missingTiles.isEmpty()) {
+			return new CloseableIterator.Wrapper<GridCoverage>(
+					cachedTiles.iterator());
+		}
+		// read only the missing tiles, shrinking the envelope slightly to
+		// avoid reading the neighboring tiles that it touches
+		missingEnvelope.expandBy(
+				-tileWidth / 1000,
+				-tileHeight / 1000);
+		return new CachingTileIterator(
+				cachedTiles,
+				queryForTiles(
+						missingEnvelope,
+						targetResolution,
+						adapter),
+				cache,
+				adapter.getCoverageName(),
+				tierId,
+				tierStrategy,
+				missingTiles);
+	}
+
+	private ParallelTileIterator queryForTiles(
+			final Envelope envelope,
+			final double[] targetResolution,
+			final RasterDataAdapter adapter ) {
+		// the stripes are aligned to the tiles of the tier that is read, so
+		// that each tile is only read by one stripe
+		double gridOriginX = envelope.getMinX();
+		double tileWidth = targetResolution[0];
+		final SubStrategy tier = geowaveDataStore.getSubStrategy(
+				rasterIndex,
+				targetResolution);
+		if (tier != null) {
+			final ByteArrayId tileId = CachingTileIterator.getTileId(
+					tier.getIndexStrategy(),
+					envelope.getMinX(),
+					envelope.getMinY());
+			if (tileId != null) {
+				final Envelope tile = CachingTileIterator.getTileEnvelope(
+						tier.getIndexStrategy(),
+						tileId);
+				if (tile.getWidth() > 0) {
+					gridOriginX = tile.getMinX();
+					tileWidth = tile.getWidth();
+				}
+			}
+		}
+		return new ParallelTileIterator(
+				geowaveDataStore,
 				adapter,
 				rasterIndex,
-				new IndexOnlySpatialQuery(
-						new GeometryFactory().toGeometry(new Envelope(
-								requestEnvelope.getMinimum(0),
-								requestEnvelope.getMaximum(0),
-								requestEnvelope.getMinimum(1),
-								requestEnvelope.getMaximum(1)))),
-				new double[] {
-					levelResX * adapter.getTileSize(),
-					levelResY * adapter.getTileSize()
-				});
+				getQueryStripes(
+						envelope,
+						gridOriginX,
+						tileWidth,
+						QUERY_THREADS),
+				targetResolution,
+				getQueryExecutor(),
+				TILE_BUFFER_SIZE);
+	}
+
+	/**
+	 * Split a request into vertical stripes of whole tiles so that each stripe
+	 * can be scanned and decoded concurrently. The edges between stripes are
+	 * moved slightly inside each stripe, as a stripe that touches the edge of
+	 * a tile would read it as well.
+	 *
+	 * @param envelope
+	 *            the envelope of the request
+	 * @param gridOriginX
+	 *            the x coordinate of the edge of any tile in the tile grid
+	 * @param tileWidth
+	 *            the width of a tile at the resolution that is read
+	 * @param maxStripes
+	 *            the maximum number of stripes
+	 * @return the stripes, from west to east
+	 */
+	protected static List<Geometry> getQueryStripes(
+			final Envelope envelope,
+			final double gridOriginX,
+			final double tileWidth,
+			final int maxStripes ) {
+		final long firstTile = (long) Math.floor((envelope.getMinX() - gridOriginX) / tileWidth);
+		final long lastTile = Math.max(
+				firstTile + 1,
+				(long) Math.ceil((envelope.getMaxX() - gridOriginX) / tileWidth));
+		final long tilesPerStripe = (long) Math.ceil((double) (lastTile - firstTile) / Math.max(
+				1,
+				maxStripes));
+		final double margin = tileWidth / 1000;
+		final GeometryFactory factory = new GeometryFactory();
+		final List<Geometry> stripes = new ArrayList<Geometry>();
+		for (long tile = firstTile; tile < lastTile; tile += tilesPerStripe) {
+			final double minX = (tile == firstTile) ? envelope.getMinX() : (gridOriginX + (tile * tileWidth) + margin);
+			final double maxX = ((tile + tilesPerStripe) >= lastTile) ? envelope.getMaxX() : (gridOriginX + ((tile + tilesPerStripe) * tileWidth)) - margin;
+			stripes.add(factory.toGeometry(new Envelope(
+					minX,
+					maxX,
+					envelope.getMinY(),
+					envelope.getMaxY())));
+		}
+		return stripes;
+	}
+
+	/**
+	 * @return the cache of decoded tiles used by this reader, or null if tile
+	 *         caching is not configured
+	 */
+	public RasterTileCache getTileCache() {
+		return RasterTileCache.getCache(config);
+	}
+
+	private static synchronized ExecutorService getQueryExecutor() {
+		if (queryExecutor == null) {
+			queryExecutor = Executors.newFixedThreadPool(
+					QUERY_THREADS,
+					new ThreadFactory() {
+						private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+						@Override
+						public Thread newThread(
+								final Runnable r ) {
+							// the pool lives as long as the reader's class and
+							// must not keep the container from shutting down
+							final Thread thread = defaultFactory.newThread(r);
+							thread.setName("geowave-raster-" + thread.getName());
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+		return queryExecutor;
 	}
 
 	private GridCoverage2D transformResult(
@@ -840,16 +1075,15 @@ public class GeoWaveRasterReader extends
 			final OverviewPolicy policy,
 			final double[] requestedResolution )
 			throws IOException {
-		synchronized (this) {
-			if (!setupResolutions(coverageName)) {
-				LOGGER.warn("Cannot find the overview statistics for the requested coverage name");
-				return null;
-			}
-			return super.getReadingResolutions(
-					coverageName,
-					policy,
-					requestedResolution);
+		final double[][] resolutionLevels = getResolutionLevels(coverageName);
+		if (resolutionLevels.length == 0) {
+			LOGGER.warn("Cannot find the overview statistics for the requested coverage name");
+			return null;
 		}
+		return resolutionLevels[chooseResolutionLevel(
+				resolutionLevels,
+				policy,
+				requestedResolution)].clone();
 	}
 
 	@Override
@@ -991,4 +1225,46 @@ public class GeoWaveRasterReader extends
 		return -1;
 	}
 
+	/**
+	 * A reader of only the resolution levels of a coverage, used to choose a
+	 * level with the overview selection of the inherited reader
+	 */
+	private static class ResolutionLevelReader extends
+			AbstractGridCoverage2DReader
+	{
+		private static final String COVERAGE_NAME = "levels";
+
+		private ResolutionLevelReader(
+				final double[][] resolutionLevels )
+				throws DataSourceException {
+			super(
+					new Object(),
+					new Hints());
+			coverageName = COVERAGE_NAME;
+			highestRes = resolutionLevels[0];
+			numOverviews = resolutionLevels.length - 1;
+			overViewResolutions = Arrays.copyOfRange(
+					resolutionLevels,
+					1,
+					resolutionLevels.length);
+		}
+
+		@Override
+		protected boolean checkName(
+				final String coverageName ) {
+			return COVERAGE_NAME.equals(coverageName);
+		}
+
+		@Override
+		public Format getFormat() {
+			return null;
+		}
+
+		@Override
+		public GridCoverage2D read(
+				final GeneralParameterValue[] parameters ) {
+			throw new UnsupportedOperationException(
+					"Only the resolution levels can be read");
+		}
+	}
 }
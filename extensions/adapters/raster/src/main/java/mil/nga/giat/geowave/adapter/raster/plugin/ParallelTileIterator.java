@@ -0,0 +1,252 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.adapter.raster.RasterDataStore;
+import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter;
+import mil.nga.giat.geowave.adapter.raster.query.IndexOnlySpatialQuery;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+import org.opengis.coverage.grid.GridCoverage;
+import org.opengis.geometry.Envelope;
+
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * This iterator runs a set of tile queries concurrently, each within its own
+ * Accumulo scanner on a thread of the given executor, so that the tiles of
+ * each query are retrieved and decoded in parallel. Decoded tiles are handed to
+ * the consumer through a bounded buffer in the order they become available.
+ *
+ * Tiles that intersect more than one of the query geometries are only returned
+ * once, which relies on the tiles of a single tier never sharing an origin.
+ *
+ * If a query fails, the failure is thrown to the consumer once the tiles that
+ * were buffered before it have been consumed, so that a partial result is
+ * never mistaken for a complete one.
+ */
+public class ParallelTileIterator implements
+		CloseableIterator<GridCoverage>
+{
+	private final static Object END_OF_QUERY = new Object();
+	private final static long OFFER_TIMEOUT_MILLIS = 100;
+
+	private final BlockingQueue<Object> tiles;
+	private final Set<Point2D> tileOrigins = Collections.newSetFromMap(new ConcurrentHashMap<Point2D, Boolean>());
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	private volatile boolean closed = false;
+	private boolean failed = false;
+	private int remainingQueries;
+	private GridCoverage nextTile = null;
+
+	public ParallelTileIterator(
+			final RasterDataStore dataStore,
+			final RasterDataAdapter adapter,
+			final Index index,
+			final List<Geometry> queryGeometries,
+			final double[] targetResolutionPerDimension,
+			final ExecutorService executor,
+			final int bufferSize ) {
+		this(
+				createQueries(
+						dataStore,
+						adapter,
+						index,
+						queryGeometries,
+						targetResolutionPerDimension),
+				queryGeometries.size() > 1,
+				executor,
+				bufferSize);
+	}
+
+	/**
+	 *
+	 * @param queries
+	 *            each opens the tile iterator of one query on a thread of the
+	 *            executor
+	 * @param deduplicate
+	 *            whether the queries can return the same tile
+	 * @param executor
+	 *            the executor to run the queries on
+	 * @param bufferSize
+	 *            the number of tiles to buffer ahead of the consumer
+	 */
+	public ParallelTileIterator(
+			final List<? extends Callable<? extends CloseableIterator<GridCoverage>>> queries,
+			final boolean deduplicate,
+			final ExecutorService executor,
+			final int bufferSize ) {
+		tiles = new ArrayBlockingQueue<Object>(
+				Math.max(
+						bufferSize,
+						1));
+		remainingQueries = queries.size();
+		for (final Callable<? extends CloseableIterator<GridCoverage>> query : queries) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try (CloseableIterator<GridCoverage> it = query.call()) {
+						while (!closed && it.hasNext()) {
+							final GridCoverage tile = it.next();
+							if ((tile != null) && (!deduplicate || isFirstOccurrence(tile))) {
+								offer(tile);
+							}
+						}
+					}
+					catch (final Exception e) {
+						if (!closed) {
+							offer(new QueryFailure(
+									e));
+						}
+					}
+					finally {
+						offer(END_OF_QUERY);
+					}
+				}
+			}));
+		}
+	}
+
+	private static List<Callable<CloseableIterator<GridCoverage>>> createQueries(
+			final RasterDataStore dataStore,
+			final RasterDataAdapter adapter,
+			final Index index,
+			final List<Geometry> queryGeometries,
+			final double[] targetResolutionPerDimension ) {
+		final List<Callable<CloseableIterator<GridCoverage>>> queries = new ArrayList<Callable<CloseableIterator<GridCoverage>>>();
+		for (final Geometry geometry : queryGeometries) {
+			queries.add(new Callable<CloseableIterator<GridCoverage>>() {
+				@Override
+				public CloseableIterator<GridCoverage> call() {
+					return dataStore.query(
+							adapter,
+							index,
+							new IndexOnlySpatialQuery(
+									geometry),
+							targetResolutionPerDimension);
+				}
+			});
+		}
+		return queries;
+	}
+
+	private boolean isFirstOccurrence(
+			final GridCoverage tile ) {
+		final Envelope envelope = tile.getEnvelope();
+		return tileOrigins.add(new Point2D.Double(
+				envelope.getMinimum(0),
+				envelope.getMinimum(1)));
+	}
+
+	private void offer(
+			final Object tile ) {
+		try {
+			while (!closed && !tiles.offer(
+					tile,
+					OFFER_TIMEOUT_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				// the consumer is behind, keep waiting unless closed
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while ((nextTile == null) && (remainingQueries > 0) && !closed) {
+			final Object tile;
+			try {
+				tile = tiles.take();
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail();
+				throw new RuntimeException(
+						"Interrupted while waiting for raster tiles",
+						e);
+			}
+			if (tile == END_OF_QUERY) {
+				remainingQueries--;
+			}
+			else if (tile instanceof QueryFailure) {
+				fail();
+				throw new RuntimeException(
+						"Unable to read raster tiles",
+						((QueryFailure) tile).cause);
+			}
+			else {
+				nextTile = (GridCoverage) tile;
+			}
+		}
+		return nextTile != null;
+	}
+
+	/**
+	 * @return true if any of the queries could not be read completely
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	private void fail() {
+		failed = true;
+		closeQuietly();
+	}
+
+	@Override
+	public GridCoverage next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final GridCoverage tile = nextTile;
+		nextTile = null;
+		return tile;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Tiles cannot be removed from a raster query");
+	}
+
+	private void closeQuietly() {
+		closed = true;
+		nextTile = null;
+		for (final Future<?> future : futures) {
+			future.cancel(true);
+		}
+		tiles.clear();
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		closeQuietly();
+	}
+
+	private static class QueryFailure
+	{
+		private final Exception cause;
+
+		public QueryFailure(
+				final Exception cause ) {
+			this.cause = cause;
+		}
+	}
+}
@@ -0,0 +1,393 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+
+import org.apache.log4j.Logger;
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * This is a least recently used cache of decoded raster tiles, keyed by
+ * coverage, tier and tile ID and bounded by the number of bytes of sample data
+ * held. The absence of a tile is cached as well so that sparse coverages are
+ * not re-scanned.
+ *
+ * Tiles written through a RasterDataStore in the same process invalidate the
+ * cached tiles they intersect, in every cache of the namespace they are
+ * written to. Tiles written by another process (such as a map-reduce ingest or
+ * another server) are not observed, instead entries expire after a
+ * configurable time.
+ *
+ * A cache is shared by all of the readers of the same GeoWave namespace that
+ * are configured with the same cache size and expiry.
+ */
+public class RasterTileCache
+{
+	private final static Logger LOGGER = Logger.getLogger(RasterTileCache.class);
+	// the shared caches of each namespace, by connection and cache settings
+	private final static Map<String, Map<String, RasterTileCache>> CACHES = new HashMap<String, Map<String, RasterTileCache>>();
+	// a rough allowance for the coverage and image objects wrapping the samples
+	private final static long TILE_OVERHEAD_BYTES = 1024;
+
+	private final long maxBytes;
+	private final long expiryMillis;
+	private final LinkedHashMap<TileKey, CachedTile> tiles = new LinkedHashMap<TileKey, CachedTile>(
+			16,
+			0.75f,
+			true);
+	private long sizeInBytes = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	public RasterTileCache(
+			final long maxBytes,
+			final long expiryMillis ) {
+		this.maxBytes = maxBytes;
+		this.expiryMillis = expiryMillis;
+	}
+
+	/**
+	 * @param config
+	 *            the reader configuration
+	 * @return the cache shared by readers of the configured namespace with the
+	 *         same cache settings, or null if caching is not enabled
+	 */
+	public static RasterTileCache getCache(
+			final GeoWaveRasterConfig config ) {
+		if (!config.isTileCacheEnabled()) {
+			return null;
+		}
+		final String key = config.getZookeeperUrls() + "/" + config.getAccumuloInstanceId() + "/" + config.getTileCacheMaxBytes() + "/" + config.getTileCacheExpirySeconds();
+		synchronized (CACHES) {
+			Map<String, RasterTileCache> namespaceCaches = CACHES.get(getNamespaceKey(config.getGeowaveNamespace()));
+			if (namespaceCaches == null) {
+				namespaceCaches = new HashMap<String, RasterTileCache>();
+				CACHES.put(
+						getNamespaceKey(config.getGeowaveNamespace()),
+						namespaceCaches);
+			}
+			RasterTileCache cache = namespaceCaches.get(key);
+			if (cache == null) {
+				cache = new RasterTileCache(
+						config.getTileCacheMaxBytes(),
+						config.getTileCacheExpirySeconds() * 1000L);
+				namespaceCaches.put(
+						key,
+						cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Remove the tiles of a coverage that intersect an envelope from every
+	 * cache of a namespace
+	 *
+	 * @param namespace
+	 *            the GeoWave namespace that has been written to
+	 * @param coverageName
+	 *            the coverage
+	 * @param envelope
+	 *            the envelope that has been written to, or null for the whole
+	 *            coverage
+	 */
+	public static void invalidateAll(
+			final String namespace,
+			final String coverageName,
+			final Envelope envelope ) {
+		final List<RasterTileCache> caches;
+		synchronized (CACHES) {
+			final Map<String, RasterTileCache> namespaceCaches = CACHES.get(getNamespaceKey(namespace));
+			if (namespaceCaches == null) {
+				return;
+			}
+			caches = new ArrayList<RasterTileCache>(
+					namespaceCaches.values());
+		}
+		for (final RasterTileCache cache : caches) {
+			cache.invalidate(
+					coverageName,
+					envelope);
+		}
+	}
+
+	private static String getNamespaceKey(
+			final String namespace ) {
+		return (namespace == null) ? "" : namespace;
+	}
+
+	/**
+	 * @param key
+	 *            the tile key
+	 * @return the cached entry for the key, or null if the key is not cached
+	 *         or has expired
+	 */
+	public synchronized CachedTile get(
+			final TileKey key ) {
+		final CachedTile tile = tiles.get(key);
+		if ((tile != null) && !isExpired(tile)) {
+			hitCount++;
+			return tile;
+		}
+		if (tile != null) {
+			remove(key);
+		}
+		missCount++;
+		return null;
+	}
+
+	/**
+	 * @param key
+	 *            the tile key
+	 * @param envelope
+	 *            the envelope of the tile, used for invalidation
+	 * @param coverage
+	 *            the decoded tile or null to record that there is no tile
+	 */
+	public synchronized void put(
+			final TileKey key,
+			final Envelope envelope,
+			final GridCoverage coverage ) {
+		final long bytes = getSizeInBytes(coverage);
+		if (bytes > maxBytes) {
+			return;
+		}
+		remove(key);
+		tiles.put(
+				key,
+				new CachedTile(
+						coverage,
+						envelope,
+						bytes,
+						System.currentTimeMillis()));
+		sizeInBytes += bytes;
+		final Iterator<CachedTile> it = tiles.values().iterator();
+		while ((sizeInBytes > maxBytes) && it.hasNext()) {
+			sizeInBytes -= it.next().bytes;
+			it.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Remove every tile of a coverage that intersects an envelope, in any tier
+	 *
+	 * @param coverageName
+	 *            the coverage
+	 * @param envelope
+	 *            the envelope that has been written to, or null for the whole
+	 *            coverage
+	 */
+	public synchronized void invalidate(
+			final String coverageName,
+			final Envelope envelope ) {
+		final Iterator<Entry<TileKey, CachedTile>> it = tiles.entrySet().iterator();
+		while (it.hasNext()) {
+			final Entry<TileKey, CachedTile> entry = it.next();
+			if (entry.getKey().coverageName.equals(coverageName) && ((envelope == null) || entry.getValue().envelope.intersects(envelope))) {
+				sizeInBytes -= entry.getValue().bytes;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove every tile of a coverage
+	 *
+	 * @param coverageName
+	 *            the coverage
+	 */
+	public void invalidate(
+			final String coverageName ) {
+		invalidate(
+				coverageName,
+				null);
+	}
+
+	public synchronized void clear() {
+		tiles.clear();
+		sizeInBytes = 0;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized double getHitRate() {
+		final long requestCount = hitCount + missCount;
+		return (requestCount == 0) ? 0 : ((double) hitCount / requestCount);
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public synchronized long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	public synchronized int getTileCount() {
+		return tiles.size();
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RasterTileCache [tiles=" + tiles.size() + ", bytes=" + sizeInBytes + "/" + maxBytes + ", hits=" + hitCount + ", misses=" + missCount + ", hitRate=" + getHitRate() + ", evictions=" + evictionCount + "]";
+	}
+
+	private boolean isExpired(
+			final CachedTile tile ) {
+		return (expiryMillis > 0) && ((System.currentTimeMillis() - tile.created) > expiryMillis);
+	}
+
+	private void remove(
+			final TileKey key ) {
+		final CachedTile tile = tiles.remove(key);
+		if (tile != null) {
+			sizeInBytes -= tile.bytes;
+		}
+	}
+
+	private static long getSizeInBytes(
+			final GridCoverage coverage ) {
+		if (coverage == null) {
+			return TILE_OVERHEAD_BYTES;
+		}
+		try {
+			final RenderedImage image = coverage.getRenderedImage();
+			final SampleModel sampleModel = image.getSampleModel();
+			return TILE_OVERHEAD_BYTES + (((long) image.getWidth() * image.getHeight() * sampleModel.getNumBands() * DataBuffer.getDataTypeSize(sampleModel.getDataType())) / 8);
+		}
+		catch (final Exception e) {
+			LOGGER.warn(
+					"Unable to determine the size of a raster tile",
+					e);
+			return TILE_OVERHEAD_BYTES;
+		}
+	}
+
+	public static class CachedTile
+	{
+		private final GridCoverage coverage;
+		private final Envelope envelope;
+		private final long bytes;
+		private final long created;
+
+		private CachedTile(
+				final GridCoverage coverage,
+				final Envelope envelope,
+				final long bytes,
+				final long created ) {
+			this.coverage = coverage;
+			this.envelope = envelope;
+			this.bytes = bytes;
+			this.created = created;
+		}
+
+		/**
+		 * @return the decoded tile, or null if there is no tile for the key
+		 */
+		public GridCoverage getCoverage() {
+			return coverage;
+		}
+	}
+
+	public static class TileKey
+	{
+		private final String coverageName;
+		private final ByteArrayId tierId;
+		private final ByteArrayId tileId;
+
+		public TileKey(
+				final String coverageName,
+				final ByteArrayId tierId,
+				final ByteArrayId tileId ) {
+			this.coverageName = coverageName;
+			this.tierId = tierId;
+			this.tileId = tileId;
+		}
+
+		public String getCoverageName() {
+			return coverageName;
+		}
+
+		public ByteArrayId getTierId() {
+			return tierId;
+		}
+
+		public ByteArrayId getTileId() {
+			return tileId;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + ((coverageName == null) ? 0 : coverageName.hashCode());
+			result = (prime * result) + ((tierId == null) ? 0 : tierId.hashCode());
+			result = (prime * result) + ((tileId == null) ? 0 : tileId.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(
+				final Object obj ) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null) {
+				return false;
+			}
+			if (getClass() != obj.getClass()) {
+				return false;
+			}
+			final TileKey other = (TileKey) obj;
+			if (coverageName == null) {
+				if (other.coverageName != null) {
+					return false;
+				}
+			}
+			else if (!coverageName.equals(other.coverageName)) {
+				return false;
+			}
+			if (tierId == null) {
+				if (other.tierId != null) {
+					return false;
+				}
+			}
+			else if (!tierId.equals(other.tierId)) {
+				return false;
+			}
+			if (tileId == null) {
+				if (other.tileId != null) {
+					return false;
+				}
+			}
+			else if (!tileId.equals(other.tileId)) {
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -2,6 +2,7 @@ package mil.nga.giat.geowave.adapter.raster.resize;
 
 import mil.nga.giat.geowave.adapter.raster.adapter.RasterDataAdapter;
 import mil.nga.giat.geowave.adapter.raster.adapter.merge.nodata.NoDataMergeStrategy;
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.DataStore;
@@ -183,6 +184,12 @@ public class RasterTileResizeJobRunner extends
 		}
 		finally {
 			writer.close();
+			// the tiles were written by the reducers, so any reader of the new
+			// coverage in this process must read them again
+			RasterTileCache.invalidateAll(
+					newNamespace,
+					newCoverageName,
+					null);
 		}
 		return retVal ? 0 : 1;
 	}
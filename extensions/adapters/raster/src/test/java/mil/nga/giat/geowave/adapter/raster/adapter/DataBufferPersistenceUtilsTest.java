@@ -0,0 +1,350 @@
+package mil.nga.giat.geowave.adapter.raster.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.media.jai.remote.SerializerFactory;
+
+import org.junit.Test;
+
+public class DataBufferPersistenceUtilsTest
+{
+	private static final int[] DATA_TYPES = new int[] {
+		DataBuffer.TYPE_BYTE,
+		DataBuffer.TYPE_USHORT,
+		DataBuffer.TYPE_SHORT,
+		DataBuffer.TYPE_INT,
+		DataBuffer.TYPE_FLOAT,
+		DataBuffer.TYPE_DOUBLE
+	};
+	private static final int SIZE = 256 * 256;
+	private static final int NUM_BANKS = 3;
+	private static final int HEADER_LENGTH = 12;
+
+	@Test
+	public void testCompressibleRoundTrip()
+			throws Exception {
+		for (final int dataType : DATA_TYPES) {
+			final DataBuffer dataBuffer = createDataBuffer(
+					dataType,
+					SIZE,
+					NUM_BANKS);
+			fillGradient(dataBuffer);
+			final byte[] binary = DataBufferPersistenceUtils.toBinary(dataBuffer);
+			assertTrue(
+					"Data of type " + dataType + " should be deflated",
+					binary.length < (HEADER_LENGTH + getPayloadLength(dataBuffer)));
+			assertDataBufferEquals(
+					dataBuffer,
+					DataBufferPersistenceUtils.fromBinary(binary));
+		}
+	}
+
+	@Test
+	public void testIncompressibleRoundTrip()
+			throws Exception {
+		final Random random = new Random(
+				42);
+		for (final int dataType : DATA_TYPES) {
+			final DataBuffer dataBuffer = createDataBuffer(
+					dataType,
+					SIZE,
+					NUM_BANKS);
+			fillRandom(
+					dataBuffer,
+					random);
+			final byte[] binary = DataBufferPersistenceUtils.toBinary(dataBuffer);
+			assertEquals(
+					"Data of type " + dataType + " should not be deflated",
+					HEADER_LENGTH + getPayloadLength(dataBuffer),
+					binary.length);
+			assertDataBufferEquals(
+					dataBuffer,
+					DataBufferPersistenceUtils.fromBinary(binary));
+		}
+	}
+
+	@Test
+	public void testUncompressedRoundTrip()
+			throws Exception {
+		for (final int dataType : DATA_TYPES) {
+			final DataBuffer dataBuffer = createDataBuffer(
+					dataType,
+					SIZE,
+					1);
+			fillGradient(dataBuffer);
+			final byte[] binary = DataBufferPersistenceUtils.toBinary(
+					dataBuffer,
+					false);
+			assertEquals(
+					HEADER_LENGTH + getPayloadLength(dataBuffer),
+					binary.length);
+			assertDataBufferEquals(
+					dataBuffer,
+					DataBufferPersistenceUtils.fromBinary(binary));
+		}
+	}
+
+	@Test
+	public void testBankOffsets()
+			throws Exception {
+		final byte[][] banks = new byte[2][100];
+		for (int b = 0; b < banks.length; b++) {
+			for (int i = 0; i < banks[b].length; i++) {
+				banks[b][i] = (byte) ((b * 100) + i);
+			}
+		}
+		// only the elements from each bank's offset are part of the buffer
+		final DataBuffer dataBuffer = new DataBufferByte(
+				banks,
+				50,
+				new int[] {
+					10,
+					50
+				});
+		final DataBuffer decoded = DataBufferPersistenceUtils.fromBinary(DataBufferPersistenceUtils.toBinary(dataBuffer));
+		assertDataBufferEquals(
+				dataBuffer,
+				decoded);
+		assertEquals(
+				banks[1][60],
+				(byte) decoded.getElem(
+						1,
+						10));
+	}
+
+	@Test
+	public void testCustomDataBufferRoundTrip()
+			throws Exception {
+		// a buffer that is not one of the standard implementations is read
+		// element by element
+		final float[] data = new float[SIZE];
+		final Random random = new Random(
+				7);
+		for (int i = 0; i < SIZE; i++) {
+			data[i] = random.nextFloat();
+		}
+		final DataBuffer dataBuffer = new DataBuffer(
+				DataBuffer.TYPE_FLOAT,
+				SIZE) {
+			@Override
+			public int getElem(
+					final int bank,
+					final int i ) {
+				return (int) data[i];
+			}
+
+			@Override
+			public float getElemFloat(
+					final int bank,
+					final int i ) {
+				return data[i];
+			}
+
+			@Override
+			public double getElemDouble(
+					final int bank,
+					final int i ) {
+				return data[i];
+			}
+
+			@Override
+			public void setElem(
+					final int bank,
+					final int i,
+					final int val ) {
+				data[i] = val;
+			}
+		};
+		final DataBuffer decoded = DataBufferPersistenceUtils.fromBinary(DataBufferPersistenceUtils.toBinary(dataBuffer));
+		assertEquals(
+				DataBufferFloat.class,
+				decoded.getClass());
+		assertDataBufferEquals(
+				dataBuffer,
+				decoded);
+	}
+
+	@Test
+	public void testLegacySerializedDataBuffer()
+			throws Exception {
+		final Random random = new Random(
+				13);
+		for (final int dataType : DATA_TYPES) {
+			final DataBuffer dataBuffer = createDataBuffer(
+					dataType,
+					1024,
+					2);
+			fillRandom(
+					dataBuffer,
+					random);
+			// this is how data buffers were persisted before the binary format
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final ObjectOutputStream oos = new ObjectOutputStream(
+					baos);
+			oos.writeObject(SerializerFactory.getState(dataBuffer));
+			oos.close();
+			assertDataBufferEquals(
+					dataBuffer,
+					DataBufferPersistenceUtils.fromBinary(baos.toByteArray()));
+		}
+	}
+
+	@Test
+	public void testInvalidBinary()
+			throws Exception {
+		try {
+			DataBufferPersistenceUtils.fromBinary(new byte[] {
+				1,
+				2,
+				3
+			});
+			fail("An unrecognized encoding should not be decoded");
+		}
+		catch (final IOException e) {}
+
+		final DataBuffer dataBuffer = createDataBuffer(
+				DataBuffer.TYPE_INT,
+				SIZE,
+				1);
+		final byte[] binary = DataBufferPersistenceUtils.toBinary(dataBuffer);
+		assertTrue(binary.length < (HEADER_LENGTH + getPayloadLength(dataBuffer)));
+		try {
+			DataBufferPersistenceUtils.fromBinary(Arrays.copyOf(
+					binary,
+					binary.length / 2));
+			fail("A truncated encoding should not be decoded");
+		}
+		catch (final IOException e) {}
+	}
+
+	private static DataBuffer createDataBuffer(
+			final int dataType,
+			final int size,
+			final int numBanks ) {
+		switch (dataType) {
+			case DataBuffer.TYPE_BYTE:
+				return new DataBufferByte(
+						size,
+						numBanks);
+			case DataBuffer.TYPE_USHORT:
+				return new DataBufferUShort(
+						size,
+						numBanks);
+			case DataBuffer.TYPE_SHORT:
+				return new DataBufferShort(
+						size,
+						numBanks);
+			case DataBuffer.TYPE_INT:
+				return new DataBufferInt(
+						size,
+						numBanks);
+			case DataBuffer.TYPE_FLOAT:
+				return new DataBufferFloat(
+						size,
+						numBanks);
+			case DataBuffer.TYPE_DOUBLE:
+				return new DataBufferDouble(
+						size,
+						numBanks);
+			default:
+				throw new IllegalArgumentException(
+						"Unsupported data buffer type " + dataType);
+		}
+	}
+
+	/**
+	 * Fill each bank with a gradient of small values, which deflates well
+	 */
+	private static void fillGradient(
+			final DataBuffer dataBuffer ) {
+		for (int b = 0; b < dataBuffer.getNumBanks(); b++) {
+			for (int i = 0; i < dataBuffer.getSize(); i++) {
+				dataBuffer.setElemDouble(
+						b,
+						i,
+						(i % 64) + b);
+			}
+		}
+	}
+
+	/**
+	 * Fill every bit of each element with random values so that the data does
+	 * not deflate
+	 */
+	private static void fillRandom(
+			final DataBuffer dataBuffer,
+			final Random random ) {
+		for (int b = 0; b < dataBuffer.getNumBanks(); b++) {
+			for (int i = 0; i < dataBuffer.getSize(); i++) {
+				switch (dataBuffer.getDataType()) {
+					case DataBuffer.TYPE_FLOAT:
+						dataBuffer.setElemFloat(
+								b,
+								i,
+								Float.intBitsToFloat(random.nextInt()));
+						break;
+					case DataBuffer.TYPE_DOUBLE:
+						dataBuffer.setElemDouble(
+								b,
+								i,
+								Double.longBitsToDouble(random.nextLong()));
+						break;
+					default:
+						// the standard buffers truncate to their type
+						dataBuffer.setElem(
+								b,
+								i,
+								random.nextInt());
+						break;
+				}
+			}
+		}
+	}
+
+	private static int getPayloadLength(
+			final DataBuffer dataBuffer ) {
+		return dataBuffer.getNumBanks() * dataBuffer.getSize() * (DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8);
+	}
+
+	private static void assertDataBufferEquals(
+			final DataBuffer expected,
+			final DataBuffer actual ) {
+		assertEquals(
+				expected.getDataType(),
+				actual.getDataType());
+		assertEquals(
+				expected.getNumBanks(),
+				actual.getNumBanks());
+		assertEquals(
+				expected.getSize(),
+				actual.getSize());
+		for (int b = 0; b < expected.getNumBanks(); b++) {
+			for (int i = 0; i < expected.getSize(); i++) {
+				assertEquals(
+						"Element " + i + " of bank " + b + " of type " + expected.getDataType() + " does not match",
+						expected.getElemDouble(
+								b,
+								i),
+						actual.getElemDouble(
+								b,
+								i),
+						0);
+			}
+		}
+	}
+}
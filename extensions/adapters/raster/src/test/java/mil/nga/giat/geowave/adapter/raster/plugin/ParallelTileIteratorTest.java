@@ -0,0 +1,266 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+public class ParallelTileIteratorTest
+{
+	private static final GridCoverageFactory COVERAGE_FACTORY = new GridCoverageFactory();
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testQueryStripes() {
+		final Envelope envelope = new Envelope(
+				0,
+				10,
+				-5,
+				5);
+		final List<Geometry> stripes = GeoWaveRasterReader.getQueryStripes(
+				envelope,
+				0,
+				1,
+				4);
+		assertEquals(
+				4,
+				stripes.size());
+		for (final Geometry stripe : stripes) {
+			// the stripes span the full height of the request
+			final Envelope stripeEnvelope = stripe.getEnvelopeInternal();
+			assertEquals(
+					envelope.getMinY(),
+					stripeEnvelope.getMinY(),
+					0);
+			assertEquals(
+					envelope.getMaxY(),
+					stripeEnvelope.getMaxY(),
+					0);
+		}
+		assertEquals(
+				envelope.getMinX(),
+				stripes.get(
+						0).getEnvelopeInternal().getMinX(),
+				0);
+		assertEquals(
+				envelope.getMaxX(),
+				stripes.get(
+						stripes.size() - 1).getEnvelopeInternal().getMaxX(),
+				0);
+		assertEachTileInOneStripe(
+				stripes,
+				envelope,
+				0,
+				1);
+
+		// a request that is not aligned to the tile grid
+		final Envelope unaligned = new Envelope(
+				0.2,
+				9.7,
+				0,
+				1);
+		assertEachTileInOneStripe(
+				GeoWaveRasterReader.getQueryStripes(
+						unaligned,
+						0.5,
+						1,
+						4),
+				unaligned,
+				0.5,
+				1);
+
+		// never more stripes than tiles across
+		assertEquals(
+				2,
+				GeoWaveRasterReader.getQueryStripes(
+						new Envelope(
+								0,
+								2,
+								0,
+								1),
+						0,
+						1,
+						8).size());
+		assertEquals(
+				1,
+				GeoWaveRasterReader.getQueryStripes(
+						new Envelope(
+								0,
+								0.5,
+								0,
+								1),
+						0,
+						1,
+						8).size());
+	}
+
+	private static void assertEachTileInOneStripe(
+			final List<Geometry> stripes,
+			final Envelope envelope,
+			final double gridOriginX,
+			final double tileWidth ) {
+		for (double tileMinX = gridOriginX - tileWidth; tileMinX < envelope.getMaxX(); tileMinX += tileWidth) {
+			final Envelope tile = new Envelope(
+					tileMinX,
+					tileMinX + tileWidth,
+					envelope.getMinY(),
+					envelope.getMaxY());
+			if (!tile.intersects(envelope)) {
+				continue;
+			}
+			int intersectingStripes = 0;
+			for (final Geometry stripe : stripes) {
+				if (stripe.getEnvelopeInternal().intersects(
+						tile)) {
+					intersectingStripes++;
+				}
+			}
+			assertEquals(
+					"Tile at " + tileMinX + " should be read by exactly one stripe",
+					1,
+					intersectingStripes);
+		}
+	}
+
+	@Test
+	public void testDeduplicate()
+			throws IOException {
+		// the tile at x = 4 intersects both stripes
+		final List<Callable<CloseableIterator<GridCoverage>>> queries = new ArrayList<Callable<CloseableIterator<GridCoverage>>>();
+		queries.add(createQuery(
+				0,
+				5,
+				false));
+		queries.add(createQuery(
+				4,
+				10,
+				false));
+		final Set<Point2D> origins = new HashSet<Point2D>();
+		try (ParallelTileIterator it = new ParallelTileIterator(
+				queries,
+				true,
+				executor,
+				2)) {
+			while (it.hasNext()) {
+				final GridCoverage tile = it.next();
+				assertTrue(origins.add(new Point2D.Double(
+						tile.getEnvelope().getMinimum(0),
+						tile.getEnvelope().getMinimum(1))));
+			}
+			assertFalse(it.isFailed());
+		}
+		assertEquals(
+				10,
+				origins.size());
+	}
+
+	@Test
+	public void testFailingStripe()
+			throws IOException {
+		final List<Callable<CloseableIterator<GridCoverage>>> queries = new ArrayList<Callable<CloseableIterator<GridCoverage>>>();
+		queries.add(createQuery(
+				0,
+				5,
+				false));
+		queries.add(createQuery(
+				5,
+				10,
+				true));
+		try (ParallelTileIterator it = new ParallelTileIterator(
+				queries,
+				false,
+				executor,
+				2)) {
+			while (it.hasNext()) {
+				it.next();
+			}
+			fail("Expected the failure of a stripe to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	/**
+	 * @return a query for the tiles with an origin from minX up to maxX, which
+	 *         fails half way if requested
+	 */
+	private static Callable<CloseableIterator<GridCoverage>> createQuery(
+			final int minX,
+			final int maxX,
+			final boolean fail ) {
+		return new Callable<CloseableIterator<GridCoverage>>() {
+			@Override
+			public CloseableIterator<GridCoverage> call() {
+				return new CloseableIterator.Wrapper<GridCoverage>(
+						new Iterator<GridCoverage>() {
+							private int x = minX;
+
+							@Override
+							public boolean hasNext() {
+								if (fail && (x == ((minX + maxX) / 2))) {
+									throw new IllegalStateException(
+											"Stripe failed");
+								}
+								return x < maxX;
+							}
+
+							@Override
+							public GridCoverage next() {
+								return createTile(x++);
+							}
+
+							@Override
+							public void remove() {}
+						});
+			}
+		};
+	}
+
+	private static GridCoverage createTile(
+			final int x ) {
+		return COVERAGE_FACTORY.create(
+				"tile",
+				new float[2][2],
+				new ReferencedEnvelope(
+						x,
+						x + 1,
+						0,
+						1,
+						DefaultGeographicCRS.WGS84));
+	}
+}
@@ -0,0 +1,390 @@
+package mil.nga.giat.geowave.adapter.raster.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import mil.nga.giat.geowave.adapter.raster.plugin.RasterTileCache.TileKey;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.coverage.grid.GridCoverage;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+public class RasterTileCacheTest
+{
+	private static final GridCoverageFactory COVERAGE_FACTORY = new GridCoverageFactory();
+	private static final String COVERAGE_NAME = "test";
+	private static final ByteArrayId TIER_ID = new ByteArrayId(
+			"tier");
+	// 16 x 16 floats and the allowance for the wrapping objects
+	private static final long TILE_BYTES = 1024 + (16 * 16 * 4);
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testEviction() {
+		final RasterTileCache cache = new RasterTileCache(
+				(TILE_BYTES * 3) + 100,
+				0);
+		for (int i = 0; i < 3; i++) {
+			putTile(
+					cache,
+					i);
+		}
+		assertEquals(
+				3,
+				cache.getTileCount());
+		assertEquals(
+				TILE_BYTES * 3,
+				cache.getSizeInBytes());
+
+		// reading tile 0 makes tile 1 the least recently used
+		assertNotNull(cache.get(createKey(0)));
+		putTile(
+				cache,
+				3);
+		assertEquals(
+				1,
+				cache.getEvictionCount());
+		assertEquals(
+				3,
+				cache.getTileCount());
+		assertTrue(cache.getSizeInBytes() <= cache.getMaxBytes());
+		assertNull(cache.get(createKey(1)));
+		assertNotNull(cache.get(createKey(0)));
+		assertNotNull(cache.get(createKey(2)));
+		assertNotNull(cache.get(createKey(3)));
+
+		// a tile larger than the whole cache is never cached
+		final RasterTileCache smallCache = new RasterTileCache(
+				TILE_BYTES - 1,
+				0);
+		putTile(
+				smallCache,
+				0);
+		assertEquals(
+				0,
+				smallCache.getTileCount());
+		assertEquals(
+				0,
+				smallCache.getSizeInBytes());
+	}
+
+	@Test
+	public void testExpiry()
+			throws InterruptedException {
+		final RasterTileCache cache = new RasterTileCache(
+				TILE_BYTES * 10,
+				50);
+		putTile(
+				cache,
+				0);
+		assertNotNull(cache.get(createKey(0)));
+		Thread.sleep(200);
+		assertNull(cache.get(createKey(0)));
+		// the expired tile is removed rather than just hidden
+		assertEquals(
+				0,
+				cache.getTileCount());
+		assertEquals(
+				0,
+				cache.getSizeInBytes());
+		assertEquals(
+				1,
+				cache.getHitCount());
+		assertEquals(
+				1,
+				cache.getMissCount());
+	}
+
+	@Test
+	public void testInvalidate() {
+		final RasterTileCache cache = new RasterTileCache(
+				TILE_BYTES * 10,
+				0);
+		for (int i = 0; i < 4; i++) {
+			putTile(
+					cache,
+					i);
+		}
+		// only the tiles intersecting the written envelope are removed
+		cache.invalidate(
+				COVERAGE_NAME,
+				new Envelope(
+						1.25,
+						1.75,
+						0.25,
+						0.75));
+		assertNull(cache.get(createKey(1)));
+		assertNotNull(cache.get(createKey(0)));
+		assertNotNull(cache.get(createKey(2)));
+		cache.invalidate(
+				"other",
+				null);
+		assertEquals(
+				3,
+				cache.getTileCount());
+		cache.invalidate(COVERAGE_NAME);
+		assertEquals(
+				0,
+				cache.getTileCount());
+		assertEquals(
+				0,
+				cache.getSizeInBytes());
+	}
+
+	@Test
+	public void testMissingTilesCached()
+			throws IOException {
+		final SubStrategy tier = getTier();
+		final NumericIndexStrategy tierStrategy = tier.getIndexStrategy();
+		final ByteArrayId tierId = new ByteArrayId(
+				tier.getPrefix());
+		final ByteArrayId existingTileId = CachingTileIterator.getTileId(
+				tierStrategy,
+				10.5,
+				10.5);
+		final Envelope existingTile = CachingTileIterator.getTileEnvelope(
+				tierStrategy,
+				existingTileId);
+		final Envelope missingTile = new Envelope(
+				existingTile.getMaxX(),
+				existingTile.getMaxX() + existingTile.getWidth(),
+				existingTile.getMinY(),
+				existingTile.getMaxY());
+		final ByteArrayId missingTileId = CachingTileIterator.getTileId(
+				tierStrategy,
+				missingTile.centre().x,
+				missingTile.centre().y);
+		final Map<ByteArrayId, Envelope> missingTiles = new HashMap<ByteArrayId, Envelope>();
+		missingTiles.put(
+				existingTileId,
+				existingTile);
+		missingTiles.put(
+				missingTileId,
+				missingTile);
+
+		final RasterTileCache cache = new RasterTileCache(
+				Long.MAX_VALUE,
+				0);
+		final GridCoverage tile = createTile(existingTile);
+		final List<GridCoverage> tiles = new ArrayList<GridCoverage>();
+		try (CachingTileIterator it = new CachingTileIterator(
+				new ArrayList<GridCoverage>(),
+				createReadTiles(
+						tile,
+						false),
+				cache,
+				COVERAGE_NAME,
+				tierId,
+				tierStrategy,
+				missingTiles)) {
+			while (it.hasNext()) {
+				tiles.add(it.next());
+			}
+		}
+		assertEquals(
+				Collections.singletonList(tile),
+				tiles);
+		assertSame(
+				tile,
+				cache.get(
+						new TileKey(
+								COVERAGE_NAME,
+								tierId,
+								existingTileId)).getCoverage());
+		// the tile that was not found is cached as having no data
+		final RasterTileCache.CachedTile emptyTile = cache.get(new TileKey(
+				COVERAGE_NAME,
+				tierId,
+				missingTileId));
+		assertNotNull(emptyTile);
+		assertNull(emptyTile.getCoverage());
+	}
+
+	@Test
+	public void testFailedReadNotCached()
+			throws IOException {
+		final SubStrategy tier = getTier();
+		final NumericIndexStrategy tierStrategy = tier.getIndexStrategy();
+		final ByteArrayId tierId = new ByteArrayId(
+				tier.getPrefix());
+		final ByteArrayId tileId = CachingTileIterator.getTileId(
+				tierStrategy,
+				10.5,
+				10.5);
+		final Envelope tileEnvelope = CachingTileIterator.getTileEnvelope(
+				tierStrategy,
+				tileId);
+		final Map<ByteArrayId, Envelope> missingTiles = new HashMap<ByteArrayId, Envelope>();
+		missingTiles.put(
+				tileId,
+				tileEnvelope);
+
+		final RasterTileCache cache = new RasterTileCache(
+				Long.MAX_VALUE,
+				0);
+		try (CachingTileIterator it = new CachingTileIterator(
+				new ArrayList<GridCoverage>(),
+				createReadTiles(
+						createTile(tileEnvelope),
+						true),
+				cache,
+				COVERAGE_NAME,
+				tierId,
+				tierStrategy,
+				missingTiles)) {
+			while (it.hasNext()) {
+				it.next();
+			}
+			fail("Expected the failed read to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		// a tile that could not be read must not be remembered as empty
+		assertEquals(
+				0,
+				cache.getTileCount());
+		assertNull(cache.get(new TileKey(
+				COVERAGE_NAME,
+				tierId,
+				tileId)));
+	}
+
+	/**
+	 * @return a tier of the default raster index whose tiles are small enough
+	 *         to have a neighbor to the east of the tile at (10.5, 10.5)
+	 */
+	private static SubStrategy getTier() {
+		final NumericIndexStrategy strategy = IndexType.SPATIAL_RASTER.createDefaultIndex().getIndexStrategy();
+		assertTrue(strategy instanceof HierarchicalNumericIndexStrategy);
+		for (final SubStrategy tier : ((HierarchicalNumericIndexStrategy) strategy).getSubStrategies()) {
+			final ByteArrayId tileId = CachingTileIterator.getTileId(
+					tier.getIndexStrategy(),
+					10.5,
+					10.5);
+			if ((tileId != null) && (CachingTileIterator.getTileEnvelope(
+					tier.getIndexStrategy(),
+					tileId).getWidth() <= 10)) {
+				return tier;
+			}
+		}
+		fail("No tier of the raster index is fine enough");
+		return null;
+	}
+
+	/**
+	 * @return the read of a single tile, which fails before returning it if
+	 *         requested
+	 */
+	private ParallelTileIterator createReadTiles(
+			final GridCoverage tile,
+			final boolean fail ) {
+		final List<Callable<CloseableIterator<GridCoverage>>> queries = new ArrayList<Callable<CloseableIterator<GridCoverage>>>();
+		queries.add(new Callable<CloseableIterator<GridCoverage>>() {
+			@Override
+			public CloseableIterator<GridCoverage> call() {
+				final Iterator<GridCoverage> it = Collections.singletonList(
+						tile).iterator();
+				return new CloseableIterator.Wrapper<GridCoverage>(
+						new Iterator<GridCoverage>() {
+							@Override
+							public boolean hasNext() {
+								if (fail) {
+									throw new IllegalStateException(
+											"Read failed");
+								}
+								return it.hasNext();
+							}
+
+							@Override
+							public GridCoverage next() {
+								return it.next();
+							}
+
+							@Override
+							public void remove() {}
+						});
+			}
+		});
+		return new ParallelTileIterator(
+				queries,
+				false,
+				executor,
+				2);
+	}
+
+	private static void putTile(
+			final RasterTileCache cache,
+			final int x ) {
+		final Envelope envelope = new Envelope(
+				x,
+				x + 1,
+				0,
+				1);
+		cache.put(
+				createKey(x),
+				envelope,
+				createTile(envelope));
+		assertFalse(cache.getSizeInBytes() > cache.getMaxBytes());
+	}
+
+	private static TileKey createKey(
+			final int x ) {
+		return new TileKey(
+				COVERAGE_NAME,
+				TIER_ID,
+				new ByteArrayId(
+						Integer.toString(x)));
+	}
+
+	private static GridCoverage createTile(
+			final Envelope envelope ) {
+		return COVERAGE_FACTORY.create(
+				"tile",
+				new float[16][16],
+				new ReferencedEnvelope(
+						envelope.getMinX(),
+						envelope.getMaxX(),
+						envelope.getMinY(),
+						envelope.getMaxY(),
+						DefaultGeographicCRS.WGS84));
+	}
+}
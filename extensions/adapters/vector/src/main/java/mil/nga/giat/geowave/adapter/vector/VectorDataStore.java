@@ -3,10 +3,14 @@ package mil.nga.giat.geowave.adapter.vector;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
+import mil.nga.giat.geowave.adapter.vector.query.AccumuloCqlAggregationQuery;
 import mil.nga.giat.geowave.adapter.vector.query.AccumuloCqlConstraintsQuery;
 import mil.nga.giat.geowave.adapter.vector.query.DistributedRenderQuery;
+import mil.nga.giat.geowave.adapter.vector.query.FeatureAggregation;
 import mil.nga.giat.geowave.adapter.vector.query.SpatialDecimationQuery;
 import mil.nga.giat.geowave.adapter.vector.wms.DistributableRenderer;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -18,11 +22,13 @@ import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOptions;
 import mil.nga.giat.geowave.datastore.accumulo.util.CloseableIteratorWrapper;
 
+import org.geotools.data.DataUtilities;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.filter.Filter;
@@ -89,6 +95,28 @@ public class VectorDataStore extends
 		return this.statisticsStore;
 	}
 
+	public CloseableIterator<SimpleFeature> query(
+			final FeatureDataAdapter adapter,
+			final Index index,
+			final Query query,
+			final Filter filter,
+			final Integer limit,
+			final String... authorizations ) {
+		return query(
+				adapter,
+				index,
+				query,
+				filter,
+				limit,
+				null,
+				authorizations);
+	}
+
+	/**
+	 * Query for features, only fetching the attributes given by the query
+	 * options, the attributes used by the filter and the indexed attributes;
+	 * the remaining attributes of the returned features are null
+	 */
 	@SuppressWarnings("unchecked")
 	public CloseableIterator<SimpleFeature> query(
 			final FeatureDataAdapter adapter,
@@ -96,6 +124,7 @@ public class VectorDataStore extends
 			final Query query,
 			final Filter filter,
 			final Integer limit,
+			final QueryOptions queryOptions,
 			final String... authorizations ) {
 		store(adapter);
 		final List<ByteArrayId> adapterIds = Arrays.asList(new ByteArrayId[] {
@@ -106,33 +135,106 @@ public class VectorDataStore extends
 					adapter
 				});
 
+		final AccumuloCqlConstraintsQuery accumuloQuery;
 		if (query == null) {
-			return (CloseableIterator<SimpleFeature>) new AccumuloCqlConstraintsQuery(
+			accumuloQuery = new AccumuloCqlConstraintsQuery(
 					adapterIds,
 					index,
 					filter,
 					adapter,
-					authorizations).query(
-					accumuloOperations,
-					adapterStore,
-					limit);
+					authorizations);
 		}
 		else if (query.isSupported(index)) {
 			// construct the query
-			return (CloseableIterator<SimpleFeature>) new AccumuloCqlConstraintsQuery(
+			accumuloQuery = new AccumuloCqlConstraintsQuery(
 					adapterIds,
 					index,
 					query.getIndexConstraints(index.getIndexStrategy()),
 					query.createFilters(index.getIndexModel()),
 					filter,
 					adapter,
-					authorizations).query(
-					accumuloOperations,
-					adapterStore,
-					limit);
+					authorizations);
+		}
+		else {
+			return new CloseableIterator.Empty<SimpleFeature>();
+		}
+		if ((queryOptions != null) && !queryOptions.getFieldIds().isEmpty()) {
+			// the filter is evaluated against the returned features so the
+			// attributes it uses must be fetched as well
+			final Set<String> fieldIds = new LinkedHashSet<String>(
+					queryOptions.getFieldIds());
+			if (filter != null) {
+				fieldIds.addAll(Arrays.asList(DataUtilities.attributeNames(
+						filter,
+						adapter.getType())));
+			}
+			accumuloQuery.setFieldIds(fieldIds);
 		}
+		return (CloseableIterator<SimpleFeature>) accumuloQuery.query(
+				accumuloOperations,
+				adapterStore,
+				limit);
+	}
 
-		return new CloseableIterator.Empty<SimpleFeature>();
+	/**
+	 * Aggregate the features matching the query and filter within the tablet
+	 * servers, only fetching the attributes needed by the filter and the
+	 * aggregation
+	 *
+	 * @param aggregation
+	 *            an empty aggregation defining what to compute
+	 * @return the aggregation of the matching features in the index
+	 */
+	public FeatureAggregation aggregate(
+			final FeatureDataAdapter adapter,
+			final Index index,
+			final Query query,
+			final Filter filter,
+			final FeatureAggregation aggregation,
+			final String... authorizations ) {
+		store(adapter);
+		final List<ByteArrayId> adapterIds = Arrays.asList(new ByteArrayId[] {
+			adapter.getAdapterId()
+		});
+		final AccumuloCqlAggregationQuery accumuloQuery;
+		if (query == null) {
+			accumuloQuery = new AccumuloCqlAggregationQuery(
+					adapterIds,
+					index,
+					filter,
+					adapter,
+					aggregation,
+					authorizations);
+		}
+		else if (query.isSupported(index)) {
+			accumuloQuery = new AccumuloCqlAggregationQuery(
+					adapterIds,
+					index,
+					query.getIndexConstraints(index.getIndexStrategy()),
+					query.createFilters(index.getIndexModel()),
+					filter,
+					adapter,
+					aggregation,
+					authorizations);
+		}
+		else {
+			return aggregation.createEmpty();
+		}
+		final Set<String> fieldIds = new LinkedHashSet<String>();
+		fieldIds.add(adapter.getType().getGeometryDescriptor().getLocalName());
+		fieldIds.addAll(aggregation.getHistogramAttributes());
+		if (filter != null) {
+			fieldIds.addAll(Arrays.asList(DataUtilities.attributeNames(
+					filter,
+					adapter.getType())));
+		}
+		accumuloQuery.setFieldIds(fieldIds);
+		return accumuloQuery.queryAggregation(
+				accumuloOperations,
+				new MemoryAdapterStore(
+						new DataAdapter[] {
+							adapter
+						}));
 	}
 
 	public CloseableIterator<SimpleFeature> query(
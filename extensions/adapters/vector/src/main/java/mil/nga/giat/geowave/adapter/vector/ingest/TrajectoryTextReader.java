@@ -0,0 +1,499 @@
+package mil.nga.giat.geowave.adapter.vector.ingest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+/**
+ * A reader of comma delimited trajectory text, such as the GeoLife and T-Drive
+ * datasets, that scans the bytes of each line in place rather than allocating
+ * a string per line and per field. Numbers and timestamps are parsed directly
+ * from the buffer. The content is read from a byte array, a memory mapped file
+ * or a channel through a reusable buffer.
+ *
+ * A reader is not thread-safe.
+ */
+public class TrajectoryTextReader implements
+		Closeable
+{
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final int INITIAL_FIELD_CAPACITY = 16;
+	// the largest file that is memory mapped rather than read through a
+	// buffer
+	private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+	// powers of ten that are exactly representable as a double
+	private static final double[] POWERS_OF_TEN = new double[] {
+		1e0,
+		1e1,
+		1e2,
+		1e3,
+		1e4,
+		1e5,
+		1e6,
+		1e7,
+		1e8,
+		1e9,
+		1e10,
+		1e11,
+		1e12,
+		1e13,
+		1e14,
+		1e15,
+		1e16,
+		1e17,
+		1e18,
+		1e19,
+		1e20,
+		1e21,
+		1e22
+	};
+	// the largest mantissa that is exactly representable as a double
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private ByteBuffer buffer;
+	private final ReadableByteChannel channel;
+	private final Closeable resource;
+	private boolean endOfInput;
+
+	private int position;
+	private int lineStart;
+	private int lineEnd;
+	private int fieldCount;
+	private int[] fieldStarts = new int[INITIAL_FIELD_CAPACITY];
+	private int[] fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+
+	// the calendar applies the same default time zone and leniency as a
+	// SimpleDateFormat
+	private final Calendar calendar = Calendar.getInstance();
+	private final int[] dateTimeFields = new int[6];
+
+	/**
+	 * Read the remaining content of the buffer, from its position to its limit.
+	 *
+	 * @param buffer
+	 *            the content, which is not modified
+	 */
+	public TrajectoryTextReader(
+			final ByteBuffer buffer ) {
+		this(
+				buffer.slice(),
+				null,
+				null);
+	}
+
+	public TrajectoryTextReader(
+			final byte[] content ) {
+		this(
+				ByteBuffer.wrap(content));
+	}
+
+	/**
+	 * Read the content of a channel through a buffer that is reused for every
+	 * line.
+	 *
+	 * @param channel
+	 *            the channel, which is closed with this reader
+	 */
+	public TrajectoryTextReader(
+			final ReadableByteChannel channel ) {
+		this(
+				(ByteBuffer) ByteBuffer.allocate(
+						DEFAULT_BUFFER_SIZE).flip(),
+				channel,
+				channel);
+	}
+
+	private TrajectoryTextReader(
+			final ByteBuffer buffer,
+			final ReadableByteChannel channel,
+			final Closeable resource ) {
+		this.buffer = buffer;
+		this.channel = channel;
+		this.resource = resource;
+		endOfInput = (channel == null);
+		position = buffer.position();
+	}
+
+	/**
+	 * Open a file, memory mapping it unless it is too large to be mapped as a
+	 * single buffer.
+	 *
+	 * @param file
+	 * @return a reader of the file, which must be closed
+	 * @throws IOException
+	 */
+	public static TrajectoryTextReader open(
+			final File file )
+			throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(
+				file,
+				"r");
+		try {
+			final FileChannel fileChannel = raf.getChannel();
+			final long size = fileChannel.size();
+			if (size <= MAX_MAPPED_SIZE) {
+				final ByteBuffer mapped = fileChannel.map(
+						MapMode.READ_ONLY,
+						0,
+						size);
+				// the mapping remains valid once the file is closed
+				raf.close();
+				return new TrajectoryTextReader(
+						mapped);
+			}
+			return new TrajectoryTextReader(
+					fileChannel);
+		}
+		catch (final IOException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Advance to the next line, splitting it into fields at each comma. As with
+	 * String.split, trailing empty fields are not counted.
+	 *
+	 * @return false once there are no more lines
+	 * @throws IOException
+	 */
+	public boolean nextLine()
+			throws IOException {
+		int newline = indexOfNewline(position);
+		while ((newline < 0) && !endOfInput) {
+			fill();
+			newline = indexOfNewline(position);
+		}
+		if (newline < 0) {
+			if (position >= buffer.limit()) {
+				fieldCount = 0;
+				return false;
+			}
+			// the last line has no line terminator
+			newline = buffer.limit();
+		}
+		lineStart = position;
+		lineEnd = newline;
+		position = Math.min(
+				newline + 1,
+				buffer.limit());
+		if ((lineEnd > lineStart) && (buffer.get(lineEnd - 1) == '\r')) {
+			lineEnd--;
+		}
+		split();
+		return true;
+	}
+
+	private int indexOfNewline(
+			final int from ) {
+		final int limit = buffer.limit();
+		for (int i = from; i < limit; i++) {
+			if (buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Move the unread content to the start of the buffer and read more from
+	 * the channel, growing the buffer if a single line does not fit.
+	 */
+	private void fill()
+			throws IOException {
+		buffer.position(position);
+		if (position == 0 && buffer.limit() == buffer.capacity()) {
+			final ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+			larger.put(buffer);
+			buffer = larger;
+		}
+		else {
+			buffer.compact();
+		}
+		position = 0;
+		while (buffer.hasRemaining()) {
+			final int read = channel.read(buffer);
+			if (read < 0) {
+				endOfInput = true;
+				break;
+			}
+			if (read == 0) {
+				break;
+			}
+		}
+		buffer.flip();
+	}
+
+	private void split() {
+		fieldCount = 0;
+		int start = lineStart;
+		for (int i = lineStart; i <= lineEnd; i++) {
+			if ((i == lineEnd) || (buffer.get(i) == ',')) {
+				if (fieldCount == fieldStarts.length) {
+					fieldStarts = Arrays.copyOf(
+							fieldStarts,
+							fieldCount * 2);
+					fieldEnds = Arrays.copyOf(
+							fieldEnds,
+							fieldCount * 2);
+				}
+				fieldStarts[fieldCount] = start;
+				fieldEnds[fieldCount] = i;
+				fieldCount++;
+				start = i + 1;
+			}
+		}
+		while ((fieldCount > 1) && (fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1])) {
+			fieldCount--;
+		}
+	}
+
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	public String getString(
+			final int field ) {
+		checkField(field);
+		final byte[] bytes = new byte[fieldEnds[field] - fieldStarts[field]];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(fieldStarts[field] + i);
+		}
+		return StringUtils.stringFromBinary(bytes);
+	}
+
+	/**
+	 * @return the line, for reporting
+	 */
+	public String getLine() {
+		final byte[] bytes = new byte[lineEnd - lineStart];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(lineStart + i);
+		}
+		return StringUtils.stringFromBinary(bytes);
+	}
+
+	public int getInt(
+			final int field ) {
+		final long value = getLong(field);
+		if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE)) {
+			throw new NumberFormatException(
+					"Value out of range: " + getString(field));
+		}
+		return (int) value;
+	}
+
+	public long getLong(
+			final int field ) {
+		checkField(field);
+		int i = fieldStarts[field];
+		final int end = fieldEnds[field];
+		boolean negative = false;
+		if ((i < end) && ((buffer.get(i) == '-') || (buffer.get(i) == '+'))) {
+			negative = (buffer.get(i) == '-');
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException(
+					"Invalid integer: '" + getString(field) + "'");
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			final int digit = buffer.get(i) - '0';
+			if ((digit < 0) || (digit > 9) || (value > ((Long.MAX_VALUE - digit) / 10))) {
+				// let the JDK report the exact problem
+				return Long.parseLong(getString(field));
+			}
+			value = (value * 10) + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parse a decimal number in place. Numbers of up to 15 significant digits
+	 * and 22 fractional digits, which covers coordinates and elevations, are
+	 * computed exactly; anything else falls back to Double.parseDouble.
+	 */
+	public double getDouble(
+			final int field ) {
+		checkField(field);
+		int i = fieldStarts[field];
+		final int end = fieldEnds[field];
+		boolean negative = false;
+		if ((i < end) && ((buffer.get(i) == '-') || (buffer.get(i) == '+'))) {
+			negative = (buffer.get(i) == '-');
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+		for (; i < end; i++) {
+			final byte b = buffer.get(i);
+			if ((b >= '0') && (b <= '9')) {
+				mantissa = (mantissa * 10) + (b - '0');
+				digits++;
+				if (fraction) {
+					fractionDigits++;
+				}
+				if (mantissa >= MAX_EXACT_MANTISSA) {
+					return parseDoubleSlow(field);
+				}
+			}
+			else if ((b == '.') && !fraction) {
+				fraction = true;
+			}
+			else {
+				// exponents, special values and malformed numbers
+				return parseDoubleSlow(field);
+			}
+		}
+		if ((digits == 0) || (fractionDigits >= POWERS_OF_TEN.length)) {
+			return parseDoubleSlow(field);
+		}
+		// both operands are exact, so the quotient is correctly rounded
+		final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+		return negative ? -value : value;
+	}
+
+	private double parseDoubleSlow(
+			final int field ) {
+		return Double.parseDouble(getString(field));
+	}
+
+	/**
+	 * Parse a timestamp of the form "yyyy-MM-dd HH:mm:ss" in the default time
+	 * zone, as a SimpleDateFormat of that pattern would.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 * @throws ParseException
+	 */
+	public long getTimestamp(
+			final int field )
+			throws ParseException {
+		checkField(field);
+		final int end = parseNumbers(
+				field,
+				fieldStarts[field],
+				0,
+				3,
+				'-');
+		if ((end >= fieldEnds[field]) || (buffer.get(end) != ' ')) {
+			throw new ParseException(
+					"Unparseable date: \"" + getString(field) + "\"",
+					end - fieldStarts[field]);
+		}
+		parseNumbers(
+				field,
+				end + 1,
+				3,
+				3,
+				':');
+		return toTime();
+	}
+
+	/**
+	 * Parse a timestamp whose date, of the form "yyyy-MM-dd", and time, of the
+	 * form "HH:mm:ss", are separate fields.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 * @throws ParseException
+	 */
+	public long getTimestamp(
+			final int dateField,
+			final int timeField )
+			throws ParseException {
+		checkField(dateField);
+		checkField(timeField);
+		parseNumbers(
+				dateField,
+				fieldStarts[dateField],
+				0,
+				3,
+				'-');
+		parseNumbers(
+				timeField,
+				fieldStarts[timeField],
+				3,
+				3,
+				':');
+		return toTime();
+	}
+
+	/**
+	 * Parse separated unsigned integers into the date time fields.
+	 *
+	 * @return the offset following the last number
+	 */
+	private int parseNumbers(
+			final int field,
+			final int start,
+			final int firstIndex,
+			final int count,
+			final char separator )
+			throws ParseException {
+		final int end = fieldEnds[field];
+		int i = start;
+		for (int n = 0; n < count; n++) {
+			if (n > 0) {
+				if ((i >= end) || (buffer.get(i) != separator)) {
+					throw new ParseException(
+							"Unparseable date: \"" + getString(field) + "\"",
+							i - fieldStarts[field]);
+				}
+				i++;
+			}
+			final int numberStart = i;
+			int value = 0;
+			while ((i < end) && (buffer.get(i) >= '0') && (buffer.get(i) <= '9') && ((i - numberStart) < 9)) {
+				value = (value * 10) + (buffer.get(i) - '0');
+				i++;
+			}
+			if (i == numberStart) {
+				throw new ParseException(
+						"Unparseable date: \"" + getString(field) + "\"",
+						i - fieldStarts[field]);
+			}
+			dateTimeFields[firstIndex + n] = value;
+		}
+		return i;
+	}
+
+	private long toTime() {
+		calendar.clear();
+		calendar.set(
+				dateTimeFields[0],
+				dateTimeFields[1] - 1,
+				dateTimeFields[2],
+				dateTimeFields[3],
+				dateTimeFields[4],
+				dateTimeFields[5]);
+		return calendar.getTimeInMillis();
+	}
+
+	private void checkField(
+			final int field ) {
+		if ((field < 0) || (field >= fieldCount)) {
+			throw new IndexOutOfBoundsException(
+					"Field " + field + " of a line with " + fieldCount + " fields");
+		}
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		if (resource != null) {
+			resource.close();
+		}
+	}
+}
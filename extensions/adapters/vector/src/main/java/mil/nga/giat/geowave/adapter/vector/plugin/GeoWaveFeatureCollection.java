@@ -5,6 +5,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveEmptyTransaction;
+import mil.nga.giat.geowave.adapter.vector.query.FeatureAggregation;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureBoundingBoxStatistics;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericRangeStatistics;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureTimeRangeStatistics;
@@ -36,6 +38,7 @@ import org.opengis.geometry.BoundingBox;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.TransformException;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 
@@ -93,6 +96,16 @@ public class GeoWaveFeatureCollection extends
 			return 0;
 		}
 
+		if (canAggregate()) {
+			final FeatureAggregation aggregation = aggregate();
+			if (aggregation != null) {
+				final Integer limit = getLimit(query);
+				return (int) ((limit != null) ? Math.min(
+						aggregation.getCount(),
+						limit) : aggregation.getCount());
+			}
+		}
+
 		// fallback
 		int count = 0;
 		try {
@@ -129,6 +142,15 @@ public class GeoWaveFeatureCollection extends
 						stats.getMaxY(),
 						GeoWaveGTDataStore.DEFAULT_CRS);
 			}
+			if (canAggregate()) {
+				final FeatureAggregation aggregation = aggregate();
+				if (aggregation != null) {
+					final Envelope envelope = aggregation.getEnvelope();
+					return envelope == null ? null : new ReferencedEnvelope(
+							envelope,
+							GeoWaveGTDataStore.DEFAULT_CRS);
+				}
+			}
 			final Iterator<SimpleFeature> iterator = openIterator();
 			if (!iterator.hasNext()) {
 				return null;
@@ -171,6 +193,45 @@ public class GeoWaveFeatureCollection extends
 
 	}
 
+	/**
+	 * Aggregate the features matching the query within the tablet servers
+	 *
+	 * @param histogramAttributes
+	 *            the attributes to compute histograms for, if any
+	 * @return the aggregation, or null if the query could not be interpreted
+	 */
+	public FeatureAggregation aggregate(
+			final String... histogramAttributes ) {
+		if (query.getFilter() == Filter.EXCLUDE) {
+			return new FeatureAggregation(
+					reader.getComponents().getAdapter().getAdapterId(),
+					histogramAttributes);
+		}
+		try {
+			return reader.aggregate(
+					getBBox(
+							query,
+							getEnvelope(query)),
+					getBoundedTime(query),
+					getFilter(query),
+					histogramAttributes);
+		}
+		catch (TransformException | FactoryException e) {
+			LOGGER.warn(
+					"Unable to transform geometry",
+					e);
+		}
+		return null;
+	}
+
+	/**
+	 * The aggregation cannot account for changes pending in a transaction or
+	 * for the special purpose queries requested through hints
+	 */
+	private boolean canAggregate() {
+		return (reader.getTransaction() instanceof GeoWaveEmptyTransaction) && !isDistributedRenderQuery() && (getStatsQueryName() == null);
+	}
+
 	@Override
 	public SimpleFeatureType getSchema() {
 		if (isDistributedRenderQuery()) {
@@ -295,12 +356,14 @@ public class GeoWaveFeatureCollection extends
 								STATS_NAME));
 			}
 			else {
-				// get the data within the bounding box
+				// get the data within the bounding box, only fetching the
+				// requested attributes
 				featureCursor = reader.getData(
 						jtsBounds,
 						timeBounds,
 						getFilter(query),
-						limit);
+						limit,
+						query.getPropertyNames());
 			}
 		}
 		catch (TransformException | FactoryException e) {
@@ -18,6 +18,7 @@ import java.util.Set;
 import java.util.TimeZone;
 
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveTransaction;
+import mil.nga.giat.geowave.adapter.vector.query.FeatureAggregation;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureStatistic;
 import mil.nga.giat.geowave.adapter.vector.util.QueryIndexHelper;
 import mil.nga.giat.geowave.adapter.vector.wms.DistributableRenderer;
@@ -31,6 +32,7 @@ import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.query.BasicQuery;
 import mil.nga.giat.geowave.core.store.query.BasicQuery.Constraints;
+import mil.nga.giat.geowave.core.store.query.QueryOptions;
 import mil.nga.giat.geowave.datastore.accumulo.util.CloseableIteratorWrapper;
 
 import org.apache.log4j.Logger;
@@ -217,14 +219,26 @@ public class GeoWaveFeatureReader implements
 
 		final Filter filter;
 		final Integer limit;
+		final QueryOptions queryOptions;
 
 		public BaseIssuer(
 				final Filter filter,
 				final Integer limit ) {
+			this(
+					filter,
+					limit,
+					null);
+		}
+
+		public BaseIssuer(
+				final Filter filter,
+				final Integer limit,
+				final QueryOptions queryOptions ) {
 			super();
 
 			this.filter = filter;
 			this.limit = limit;
+			this.queryOptions = queryOptions;
 		}
 
 		@Override
@@ -237,6 +251,7 @@ public class GeoWaveFeatureReader implements
 					query,
 					filter,
 					(limit != null) && (limit >= 0) ? limit : null,
+					queryOptions,
 					transaction.composeAuthorizations());
 		}
 	}
@@ -317,6 +332,38 @@ public class GeoWaveFeatureReader implements
 
 	}
 
+	private class AggregationQueryIssuer extends
+			BaseIssuer implements
+			QueryIssuer
+	{
+		final FeatureAggregation aggregation;
+
+		public AggregationQueryIssuer(
+				final Filter filter,
+				final FeatureAggregation aggregation ) {
+			super(
+					filter,
+					null);
+			this.aggregation = aggregation;
+		}
+
+		@Override
+		public CloseableIterator<SimpleFeature> query(
+				final Index index,
+				final mil.nga.giat.geowave.core.store.query.Query query ) {
+			// the aggregation is merged as each index is queried so there are
+			// no features to return
+			aggregation.merge(components.getDataStore().aggregate(
+					components.getAdapter(),
+					index,
+					query,
+					filter,
+					aggregation.createEmpty(),
+					transaction.composeAuthorizations()));
+			return getNoData();
+		}
+	}
+
 	private class IdQueryIssuer extends
 			BaseIssuer implements
 			QueryIssuer
@@ -358,6 +405,38 @@ public class GeoWaveFeatureReader implements
 						renderer));
 	}
 
+	/**
+	 * Aggregate the features within the bounds that match the filter within
+	 * the tablet servers rather than returning them. Changes pending in the
+	 * transaction are not reflected in the aggregation.
+	 *
+	 * @param histogramAttributes
+	 *            the attributes to compute histograms for, if any
+	 */
+	public FeatureAggregation aggregate(
+			final Geometry jtsBounds,
+			final TemporalConstraintsSet timeBounds,
+			final Filter filter,
+			final String... histogramAttributes ) {
+		final FeatureAggregation aggregation = new FeatureAggregation(
+				components.getAdapter().getAdapterId(),
+				histogramAttributes);
+		try {
+			issueQuery(
+					jtsBounds,
+					timeBounds,
+					new AggregationQueryIssuer(
+							filter,
+							aggregation)).close();
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"unable to close aggregation query",
+					e);
+		}
+		return aggregation;
+	}
+
 	public CloseableIterator<SimpleFeature> getData(
 			final Geometry jtsBounds,
 			final TemporalConstraintsSet timeBounds,
@@ -397,6 +476,28 @@ public class GeoWaveFeatureReader implements
 			final TemporalConstraintsSet timeBounds,
 			final Filter filter,
 			final Integer limit ) {
+		return getData(
+				jtsBounds,
+				timeBounds,
+				filter,
+				limit,
+				null);
+	}
+
+	/**
+	 * Get the features within the bounds that match the filter, only fetching
+	 * the given attributes (along with the indexed attributes and any used by
+	 * the filter)
+	 * 
+	 * @param propertyNames
+	 *            the attributes to fetch, null or empty for all attributes
+	 */
+	public CloseableIterator<SimpleFeature> getData(
+			final Geometry jtsBounds,
+			final TemporalConstraintsSet timeBounds,
+			final Filter filter,
+			final Integer limit,
+			final String[] propertyNames ) {
 		if (filter instanceof FidFilterImpl) {
 			final List<SimpleFeature> retVal = new ArrayList<SimpleFeature>();
 			final Set<String> fids = ((FidFilterImpl) filter).getIDs();
@@ -416,7 +517,9 @@ public class GeoWaveFeatureReader implements
 				timeBounds,
 				new BaseIssuer(
 						filter,
-						limit));
+						limit,
+						propertyNames != null ? new QueryOptions(
+								Arrays.asList(propertyNames)) : null));
 	}
 
 	public CloseableIterator<SimpleFeature> getData(
@@ -6,6 +6,7 @@ import java.util.Map;
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveEmptyTransaction;
 import mil.nga.giat.geowave.adapter.vector.plugin.transaction.GeoWaveTransactionState;
+import mil.nga.giat.geowave.adapter.vector.query.FeatureAggregation;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureBoundingBoxStatistics;
 import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
@@ -21,7 +22,8 @@ import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
-import org.opengis.geometry.BoundingBox;
+
+import com.vividsolutions.jts.geom.Envelope;
 
 @SuppressWarnings("unchecked")
 public class GeoWaveFeatureSource extends
@@ -68,35 +70,16 @@ public class GeoWaveFeatureSource extends
 			maxy = ((BoundingBoxDataStatistics) bboxStats).getMaxY();
 		}
 		else {
-
-			final FeatureReader<SimpleFeatureType, SimpleFeature> reader = new GeoWaveFeatureReader(
-					query,
-					new GeoWaveEmptyTransaction(
-							components),
-					components);
-			if (reader.hasNext()) {
-				minx = 90.0;
-				maxx = -90.0;
-				miny = 180.0;
-				maxy = -180.0;
-				while (reader.hasNext()) {
-					final BoundingBox bbox = reader.next().getBounds();
-					minx = Math.min(
-							bbox.getMinX(),
-							minx);
-					maxx = Math.max(
-							bbox.getMaxX(),
-							maxx);
-					miny = Math.min(
-							bbox.getMinY(),
-							miny);
-					maxy = Math.max(
-							bbox.getMaxY(),
-							maxy);
-
-				}
+			// aggregate the bounds of the matching features within the tablet
+			// servers rather than streaming every feature back
+			final Envelope envelope = getAggregation(
+					query).getEnvelope();
+			if (envelope != null) {
+				minx = envelope.getMinX();
+				maxx = envelope.getMaxX();
+				miny = envelope.getMinY();
+				maxy = envelope.getMaxY();
 			}
-			reader.close();
 		}
 		return new ReferencedEnvelope(
 				minx,
@@ -119,22 +102,41 @@ public class GeoWaveFeatureSource extends
 			return (int) ((CountDataStatistics) countStats).getCount();
 		}
 		else {
-			final FeatureReader<SimpleFeatureType, SimpleFeature> reader = new GeoWaveFeatureReader(
-					query,
-					new GeoWaveEmptyTransaction(
-							components),
-					components);
-			int count = 0;
-			while (reader.hasNext()) {
-				reader.next();
-				count++;
+			// count the matching features within the tablet servers rather
+			// than streaming every feature back
+			final long count = getAggregation(
+					query).getCount();
+			if (!query.isMaxFeaturesUnlimited() && (query.getMaxFeatures() >= 0)) {
+				return (int) Math.min(
+						count,
+						query.getMaxFeatures());
 			}
-			reader.close();
-			return count;
+			return (int) count;
 		}
 
 	}
 
+	private FeatureAggregation getAggregation(
+			final Query query )
+			throws IOException {
+		final GeoWaveFeatureReader reader = new GeoWaveFeatureReader(
+				query,
+				new GeoWaveEmptyTransaction(
+						components),
+				components);
+		try {
+			final FeatureAggregation aggregation = reader.getFeatureCollection().aggregate();
+			if (aggregation == null) {
+				throw new IOException(
+						"Unable to aggregate features for query");
+			}
+			return aggregation;
+		}
+		finally {
+			reader.close();
+		}
+	}
+
 	public SimpleFeatureType getFeatureType() {
 		return components.getAdapter().getType();
 	}
@@ -0,0 +1,144 @@
+package mil.nga.giat.geowave.adapter.vector.query;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.ScannerBase;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.log4j.Logger;
+import org.opengis.filter.Filter;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+
+/**
+ * This class extends the capabilities of a CQL constraints query to aggregate
+ * the matching features within the tablet servers, so that only a partial
+ * aggregation per batch of features is sent to the client rather than every
+ * feature. The query filters of the constraints must all be distributable as
+ * they are only applied within the tablet servers.
+ *
+ */
+public class AccumuloCqlAggregationQuery extends
+		AccumuloCqlConstraintsQuery
+{
+	private final static Logger LOGGER = Logger.getLogger(AccumuloCqlAggregationQuery.class);
+	private final FeatureAggregation aggregation;
+
+	public AccumuloCqlAggregationQuery(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final Filter cqlFilter,
+			final FeatureDataAdapter dataAdapter,
+			final FeatureAggregation aggregation,
+			final String[] authorizations ) {
+		super(
+				adapterIds,
+				index,
+				cqlFilter == null ? Filter.INCLUDE : cqlFilter,
+				dataAdapter,
+				authorizations);
+		this.aggregation = aggregation;
+		// the iterator aggregates a single copy of each duplicated feature
+		// itself, so a dedupe filter could discard the copy that it chooses
+		distributableFilters.remove(0);
+	}
+
+	public AccumuloCqlAggregationQuery(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final MultiDimensionalNumericData constraints,
+			final List<QueryFilter> queryFilters,
+			final Filter cqlFilter,
+			final FeatureDataAdapter dataAdapter,
+			final FeatureAggregation aggregation,
+			final String[] authorizations ) {
+		super(
+				adapterIds,
+				index,
+				constraints,
+				queryFilters,
+				cqlFilter == null ? Filter.INCLUDE : cqlFilter,
+				dataAdapter,
+				authorizations);
+		this.aggregation = aggregation;
+		// the iterator aggregates a single copy of each duplicated feature
+		// itself, so a dedupe filter could discard the copy that it chooses
+		distributableFilters.remove(0);
+	}
+
+	/**
+	 * Run the query, merging the partial aggregations of the tablets
+	 *
+	 * @return the aggregation of all of the matching features
+	 */
+	public FeatureAggregation queryAggregation(
+			final AccumuloOperations accumuloOperations,
+			final AdapterStore adapterStore ) {
+		final FeatureAggregation result = aggregation.createEmpty();
+		try (final CloseableIterator<?> it = query(
+				accumuloOperations,
+				adapterStore,
+				null)) {
+			while (it.hasNext()) {
+				result.merge((FeatureAggregation) it.next());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close aggregation scanner",
+					e);
+		}
+		return result;
+	}
+
+	@Override
+	protected void addScanIteratorSettings(
+			final ScannerBase scanner ) {
+		final IteratorSetting iteratorSettings = getCqlIteratorSettings(CqlQueryAggregationIterator.class);
+		iteratorSettings.addOption(
+				CqlQueryAggregationIterator.AGGREGATION,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(aggregation)));
+		iteratorSettings.addOption(
+				CqlQueryAggregationIterator.INDEX_STRATEGY,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexStrategy())));
+		if ((constraints != null) && !constraints.isEmpty()) {
+			iteratorSettings.addOption(
+					CqlQueryAggregationIterator.CONSTRAINTS,
+					ByteArrayUtils.byteArrayToString(CqlQueryAggregationIterator.constraintsToBinary(constraints)));
+		}
+		scanner.addScanIterator(iteratorSettings);
+	}
+
+	@Override
+	protected Iterator initIterator(
+			final AdapterStore adapterStore,
+			final ScannerBase scanner ) {
+		return Iterators.transform(
+				scanner.iterator(),
+				new Function<Entry<Key, Value>, FeatureAggregation>() {
+					@Override
+					public FeatureAggregation apply(
+							final Entry<Key, Value> entry ) {
+						return PersistenceUtils.fromBinary(
+								entry.getValue().get(),
+								FeatureAggregation.class);
+					}
+				});
+	}
+}
@@ -101,29 +101,34 @@ public class AccumuloCqlConstraintsQuery extends
 	protected void addScanIteratorSettings(
 			final ScannerBase scanner ) {
 		if ((cqlFilter != null) && (dataAdapter != null)) {
-			final IteratorSetting iteratorSettings = new IteratorSetting(
-					CqlQueryFilterIterator.CQL_QUERY_ITERATOR_PRIORITY,
-					CqlQueryFilterIterator.CQL_QUERY_ITERATOR_NAME,
-					CqlQueryFilterIterator.class);
-			iteratorSettings.addOption(
-					CqlQueryFilterIterator.CQL_FILTER,
-					FilterToCQLTool.toCQL(cqlFilter));
-			iteratorSettings.addOption(
-					CqlQueryFilterIterator.DATA_ADAPTER,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(dataAdapter)));
-			iteratorSettings.addOption(
-					CqlQueryFilterIterator.MODEL,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
-
-			final DistributableQueryFilter filterList = new DistributableFilterList(
-					distributableFilters);
-			iteratorSettings.addOption(
-					CqlQueryFilterIterator.GEOWAVE_FILTER,
-					ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(filterList)));
-			scanner.addScanIterator(iteratorSettings);
+			scanner.addScanIterator(getCqlIteratorSettings(CqlQueryFilterIterator.class));
 		}
 		else {
 			super.addScanIteratorSettings(scanner);
 		}
 	}
+
+	protected IteratorSetting getCqlIteratorSettings(
+			final Class<? extends CqlQueryFilterIterator> iteratorClass ) {
+		final IteratorSetting iteratorSettings = new IteratorSetting(
+				CqlQueryFilterIterator.CQL_QUERY_ITERATOR_PRIORITY,
+				CqlQueryFilterIterator.CQL_QUERY_ITERATOR_NAME,
+				iteratorClass);
+		iteratorSettings.addOption(
+				CqlQueryFilterIterator.CQL_FILTER,
+				FilterToCQLTool.toCQL(cqlFilter));
+		iteratorSettings.addOption(
+				CqlQueryFilterIterator.DATA_ADAPTER,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(dataAdapter)));
+		iteratorSettings.addOption(
+				CqlQueryFilterIterator.MODEL,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(index.getIndexModel())));
+
+		final DistributableQueryFilter filterList = new DistributableFilterList(
+				distributableFilters);
+		iteratorSettings.addOption(
+				CqlQueryFilterIterator.GEOWAVE_FILTER,
+				ByteArrayUtils.byteArrayToString(PersistenceUtils.toBinary(filterList)));
+		return iteratorSettings;
+	}
 }
@@ -0,0 +1,280 @@
+package mil.nga.giat.geowave.adapter.vector.query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayUtils;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.hadoop.io.Text;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.Filter;
+
+import com.google.common.primitives.UnsignedBytes;
+
+/**
+ * This class can be used as an Accumulo Iterator and extends GeoWave's CQL
+ * filter Iterator to aggregate the accepted features within the tablet server
+ * rather than returning them. A serialized, empty FeatureAggregation must be
+ * supplied in the options. Features are aggregated row by row as the iterator
+ * advances and a partial aggregation is returned for at most
+ * MAX_FEATURES_PER_AGGREGATION features, keyed by the last row that was
+ * aggregated so that the scan continues correctly after it.
+ *
+ * A feature that is stored under multiple row IDs is only aggregated for one
+ * of its rows, chosen from its insertion IDs alone so that every tablet makes
+ * the same choice. This requires the index strategy and the query constraints
+ * to be supplied in the options.
+ *
+ */
+public class CqlQueryAggregationIterator extends
+		CqlQueryFilterIterator
+{
+	public static final String AGGREGATION = "aggregation";
+	public static final String INDEX_STRATEGY = "index_strategy";
+	public static final String CONSTRAINTS = "constraints";
+	public static final int MAX_FEATURES_PER_AGGREGATION = 10000;
+	private static final Comparator<byte[]> INSERTION_ID_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+	private FeatureAggregation emptyAggregation;
+	private Index index;
+	private MultiDimensionalNumericData constraints;
+	private SimpleFeature currentFeature;
+	private Key topKey;
+	private Value topValue;
+
+	public CqlQueryAggregationIterator() {
+		super();
+	}
+
+	@Override
+	protected boolean evaluateFeature(
+			final Filter filter,
+			final SimpleFeature feature,
+			final Text currentRow,
+			final List<Key> keys,
+			final List<Value> values ) {
+		if (!super.evaluateFeature(
+				filter,
+				feature,
+				currentRow,
+				keys,
+				values)) {
+			return false;
+		}
+		final AccumuloRowId rowId = new AccumuloRowId(
+				currentRow.copyBytes());
+		if ((rowId.getNumberOfDuplicates() > 0) && !isAggregatedCopy(
+				new ByteArrayId(
+						rowId.getInsertionId()),
+				getDataAdapter().encode(
+						feature,
+						getModel()).getInsertionIds(
+						index),
+				index.getIndexStrategy(),
+				constraints)) {
+			return false;
+		}
+		// the whole row iterator only moves on to the next accepted row after
+		// this feature has been aggregated
+		currentFeature = feature;
+		return true;
+	}
+
+	@Override
+	protected boolean defaultFilterResult() {
+		return false;
+	}
+
+	@Override
+	public boolean hasTop() {
+		return topKey != null;
+	}
+
+	@Override
+	public Key getTopKey() {
+		return topKey;
+	}
+
+	@Override
+	public Value getTopValue() {
+		return topValue;
+	}
+
+	@Override
+	public void next()
+			throws IOException {
+		aggregateNext();
+	}
+
+	@Override
+	public void init(
+			final SortedKeyValueIterator<Key, Value> source,
+			final Map<String, String> options,
+			final IteratorEnvironment env )
+			throws IOException {
+		super.init(
+				source,
+				options,
+				env);
+		try {
+			final String aggregationStr = options.get(AGGREGATION);
+			final byte[] aggregationBytes = ByteArrayUtils.byteArrayFromString(aggregationStr);
+			emptyAggregation = PersistenceUtils.fromBinary(
+					aggregationBytes,
+					FeatureAggregation.class);
+			final String strategyStr = options.get(INDEX_STRATEGY);
+			final byte[] strategyBytes = ByteArrayUtils.byteArrayFromString(strategyStr);
+			index = new Index(
+					PersistenceUtils.fromBinary(
+							strategyBytes,
+							NumericIndexStrategy.class),
+					getModel());
+			final String constraintsStr = options.get(CONSTRAINTS);
+			if (constraintsStr != null) {
+				constraints = constraintsFromBinary(ByteArrayUtils.byteArrayFromString(constraintsStr));
+			}
+		}
+		catch (final Exception e) {
+			throw new IllegalArgumentException(
+					e);
+		}
+	}
+
+	@Override
+	public void seek(
+			final Range range,
+			final Collection<ByteSequence> columnFamilies,
+			final boolean inclusive )
+			throws IOException {
+		super.seek(
+				range,
+				columnFamilies,
+				inclusive);
+		aggregateNext();
+	}
+
+	private void aggregateNext()
+			throws IOException {
+		topKey = null;
+		topValue = null;
+		final FeatureAggregation aggregation = emptyAggregation.createEmpty();
+		Text lastRow = null;
+		while (super.hasTop() && (aggregation.getCount() < MAX_FEATURES_PER_AGGREGATION)) {
+			aggregation.aggregate(currentFeature);
+			lastRow = super.getTopKey().getRow();
+			super.next();
+		}
+		if (lastRow != null) {
+			topKey = new Key(
+					lastRow);
+			topValue = new Value(
+					PersistenceUtils.toBinary(aggregation));
+		}
+	}
+
+	/**
+	 * Determine whether a copy of a feature stored under multiple insertion IDs
+	 * is the one to aggregate. This is the first of the insertion IDs whose
+	 * tile intersects the constraints, so it is within the ranges that are
+	 * scanned.
+	 *
+	 * @param insertionId
+	 *            the insertion ID of the copy
+	 * @param insertionIds
+	 *            all of the insertion IDs of the feature
+	 * @param indexStrategy
+	 *            the index strategy that produced the insertion IDs
+	 * @param constraints
+	 *            the query constraints, or null if the whole index is scanned
+	 * @return true if the copy should be aggregated
+	 */
+	protected static boolean isAggregatedCopy(
+			final ByteArrayId insertionId,
+			final List<ByteArrayId> insertionIds,
+			final NumericIndexStrategy indexStrategy,
+			final MultiDimensionalNumericData constraints ) {
+		List<ByteArrayId> candidates = insertionIds;
+		if ((constraints != null) && !constraints.isEmpty()) {
+			// prefer the tiles that are clearly within the query, then those
+			// that only touch its edges in case of normalization error
+			final List<ByteArrayId> intersecting = new ArrayList<ByteArrayId>();
+			final List<ByteArrayId> touching = new ArrayList<ByteArrayId>();
+			for (final ByteArrayId id : insertionIds) {
+				final NumericData[] tile = indexStrategy.getRangeForId(
+						id).getDataPerDimension();
+				final NumericData[] query = constraints.getDataPerDimension();
+				boolean intersects = true;
+				boolean touches = true;
+				for (int d = 0; (d < tile.length) && (d < query.length); d++) {
+					intersects &= (tile[d].getMin() < query[d].getMax()) && (tile[d].getMax() > query[d].getMin());
+					touches &= (tile[d].getMin() <= query[d].getMax()) && (tile[d].getMax() >= query[d].getMin());
+				}
+				if (intersects) {
+					intersecting.add(id);
+				}
+				else if (touches) {
+					touching.add(id);
+				}
+			}
+			if (!intersecting.isEmpty()) {
+				candidates = intersecting;
+			}
+			else if (!touching.isEmpty()) {
+				candidates = touching;
+			}
+		}
+		ByteArrayId first = null;
+		for (final ByteArrayId id : candidates) {
+			if ((first == null) || (INSERTION_ID_COMPARATOR.compare(
+					id.getBytes(),
+					first.getBytes()) < 0)) {
+				first = id;
+			}
+		}
+		return insertionId.equals(first);
+	}
+
+	protected static byte[] constraintsToBinary(
+			final MultiDimensionalNumericData constraints ) {
+		final NumericData[] data = constraints.getDataPerDimension();
+		final ByteBuffer buf = ByteBuffer.allocate(4 + (16 * data.length));
+		buf.putInt(data.length);
+		for (final NumericData d : data) {
+			buf.putDouble(d.getMin());
+			buf.putDouble(d.getMax());
+		}
+		return buf.array();
+	}
+
+	protected static MultiDimensionalNumericData constraintsFromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final NumericData[] data = new NumericData[buf.getInt()];
+		for (int d = 0; d < data.length; d++) {
+			data[d] = new NumericRange(
+					buf.getDouble(),
+					buf.getDouble());
+		}
+		return new BasicNumericDataset(
+				data);
+	}
+}
@@ -195,6 +195,14 @@ public class CqlQueryFilterIterator extends
 		}
 	}
 
+	protected FeatureDataAdapter getDataAdapter() {
+		return dataAdapter;
+	}
+
+	protected CommonIndexModel getModel() {
+		return model;
+	}
+
 	protected boolean defaultFilterResult() {
 		// if the query filter or index model did not get sent to this iterator,
 		// it'll just have to accept everything
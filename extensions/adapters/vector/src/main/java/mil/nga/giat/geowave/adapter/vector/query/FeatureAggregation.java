@@ -0,0 +1,241 @@
+package mil.nga.giat.geowave.adapter.vector.query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureNumericHistogramStatistics;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.Mergeable;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.geometry.BoundingBox;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * This class summarizes the features matching a query: the number of features,
+ * their envelope and, optionally, a histogram of each of a set of numeric or
+ * temporal attributes. It is computed within the tablet servers by the
+ * CqlQueryAggregationIterator and the partial results of each tablet are
+ * merged by the client. The iterator only aggregates one copy of a feature
+ * that is stored under multiple row IDs, so partial results are simply summed.
+ */
+public class FeatureAggregation implements
+		Mergeable
+{
+	private ByteArrayId adapterId;
+	private String[] histogramAttributes;
+	private long count = 0;
+	private double minX = Double.MAX_VALUE;
+	private double maxX = -Double.MAX_VALUE;
+	private double minY = Double.MAX_VALUE;
+	private double maxY = -Double.MAX_VALUE;
+	private FeatureNumericHistogramStatistics[] histograms;
+
+	protected FeatureAggregation() {}
+
+	/**
+	 * @param adapterId
+	 *            the ID of the feature data adapter
+	 * @param histogramAttributes
+	 *            the attributes to compute histograms for, if any
+	 */
+	public FeatureAggregation(
+			final ByteArrayId adapterId,
+			final String... histogramAttributes ) {
+		this.adapterId = adapterId;
+		this.histogramAttributes = histogramAttributes;
+		histograms = createHistograms(
+				adapterId,
+				histogramAttributes);
+	}
+
+	/**
+	 * @return an empty aggregation for the same attributes
+	 */
+	public FeatureAggregation createEmpty() {
+		return new FeatureAggregation(
+				adapterId,
+				histogramAttributes);
+	}
+
+	public ByteArrayId getAdapterId() {
+		return adapterId;
+	}
+
+	public List<String> getHistogramAttributes() {
+		return Arrays.asList(histogramAttributes);
+	}
+
+	/**
+	 * Add a feature to the aggregation
+	 *
+	 * @param feature
+	 *            the feature
+	 */
+	public void aggregate(
+			final SimpleFeature feature ) {
+		count++;
+		final BoundingBox bbox = feature.getBounds();
+		if ((bbox != null) && !bbox.isEmpty()) {
+			minX = Math.min(
+					bbox.getMinX(),
+					minX);
+			maxX = Math.max(
+					bbox.getMaxX(),
+					maxX);
+			minY = Math.min(
+					bbox.getMinY(),
+					minY);
+			maxY = Math.max(
+					bbox.getMaxY(),
+					maxY);
+		}
+		for (final FeatureNumericHistogramStatistics histogram : histograms) {
+			histogram.entryIngested(
+					null,
+					feature);
+		}
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * @return the number of features
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the envelope of the features, or null if no feature had a
+	 *         geometry
+	 */
+	public Envelope getEnvelope() {
+		if (minX > maxX) {
+			return null;
+		}
+		return new Envelope(
+				minX,
+				maxX,
+				minY,
+				maxY);
+	}
+
+	/**
+	 * @param attribute
+	 *            one of the histogram attributes of this aggregation
+	 * @return the histogram of the attribute over the features, or null if
+	 *         the attribute was not aggregated
+	 */
+	public FeatureNumericHistogramStatistics getHistogram(
+			final String attribute ) {
+		for (int i = 0; i < histogramAttributes.length; i++) {
+			if (histogramAttributes[i].equals(attribute)) {
+				return histograms[i];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void merge(
+			final Mergeable merge ) {
+		if ((merge == null) || !(merge instanceof FeatureAggregation)) {
+			return;
+		}
+		final FeatureAggregation other = (FeatureAggregation) merge;
+		count += other.count;
+		minX = Math.min(
+				minX,
+				other.minX);
+		maxX = Math.max(
+				maxX,
+				other.maxX);
+		minY = Math.min(
+				minY,
+				other.minY);
+		maxY = Math.max(
+				maxY,
+				other.maxY);
+		for (int i = 0; (i < histograms.length) && (i < other.histograms.length); i++) {
+			histograms[i].merge(other.histograms[i]);
+		}
+	}
+
+	@Override
+	public byte[] toBinary() {
+		final byte[] adapterIdBytes = adapterId.getBytes();
+		int byteLength = 8 + adapterIdBytes.length;
+		final List<byte[]> attributeBinaries = new ArrayList<byte[]>();
+		for (int i = 0; i < histogramAttributes.length; i++) {
+			final byte[] attributeBytes = StringUtils.stringToBinary(histogramAttributes[i]);
+			final byte[] histogramBytes = PersistenceUtils.toBinary(histograms[i]);
+			attributeBinaries.add(attributeBytes);
+			attributeBinaries.add(histogramBytes);
+			byteLength += 8 + attributeBytes.length + histogramBytes.length;
+		}
+		byteLength += 8 + (4 * 8);
+		final ByteBuffer buf = ByteBuffer.allocate(byteLength);
+		buf.putInt(adapterIdBytes.length);
+		buf.put(adapterIdBytes);
+		buf.putInt(histogramAttributes.length);
+		for (final byte[] binary : attributeBinaries) {
+			buf.putInt(binary.length);
+			buf.put(binary);
+		}
+		buf.putLong(count);
+		buf.putDouble(minX);
+		buf.putDouble(maxX);
+		buf.putDouble(minY);
+		buf.putDouble(maxY);
+		return buf.array();
+	}
+
+	@Override
+	public void fromBinary(
+			final byte[] bytes ) {
+		final ByteBuffer buf = ByteBuffer.wrap(bytes);
+		final byte[] adapterIdBytes = new byte[buf.getInt()];
+		buf.get(adapterIdBytes);
+		adapterId = new ByteArrayId(
+				adapterIdBytes);
+		final int numAttributes = buf.getInt();
+		histogramAttributes = new String[numAttributes];
+		histograms = new FeatureNumericHistogramStatistics[numAttributes];
+		for (int i = 0; i < numAttributes; i++) {
+			final byte[] attributeBytes = new byte[buf.getInt()];
+			buf.get(attributeBytes);
+			histogramAttributes[i] = StringUtils.stringFromBinary(attributeBytes);
+			final byte[] histogramBytes = new byte[buf.getInt()];
+			buf.get(histogramBytes);
+			histograms[i] = PersistenceUtils.fromBinary(
+					histogramBytes,
+					FeatureNumericHistogramStatistics.class);
+			histograms[i].setDataAdapterId(adapterId);
+		}
+		count = buf.getLong();
+		minX = buf.getDouble();
+		maxX = buf.getDouble();
+		minY = buf.getDouble();
+		maxY = buf.getDouble();
+	}
+
+	private static FeatureNumericHistogramStatistics[] createHistograms(
+			final ByteArrayId adapterId,
+			final String[] histogramAttributes ) {
+		final FeatureNumericHistogramStatistics[] histograms = new FeatureNumericHistogramStatistics[histogramAttributes.length];
+		for (int i = 0; i < histogramAttributes.length; i++) {
+			histograms[i] = new FeatureNumericHistogramStatistics(
+					adapterId,
+					histogramAttributes[i]);
+		}
+		return histograms;
+	}
+}
@@ -0,0 +1,227 @@
+package mil.nga.giat.geowave.adapter.vector.ingest;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing line splitting with in place scanning of trajectory
+ * text, parsing the coordinates and timestamp of every point. The format is
+ * either "geolife" (a PLT file) or "tdrive" (a taxi CSV file). By default
+ * generated points are parsed; pass a format and a file path as the arguments
+ * of the main method to parse a sample file instead. The main method also
+ * reports the allocation rate of each approach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrajectoryTextReaderBenchmark
+{
+	private static final String GEOLIFE_HEADER = "Geolife trajectory\r\nWGS 84\r\nAltitude is in Feet\r\nReserved 3\r\n0,2,255,My Track,0,0,2,8421376\r\n0\r\n";
+
+	@Param({
+		"geolife",
+		"tdrive"
+	})
+	public String format;
+
+	@Param({
+		"100000"
+	})
+	public int numPoints;
+
+	@Param({
+		""
+	})
+	public String sampleFile;
+
+	private byte[] content;
+	private final DateFormat dateFormat = new SimpleDateFormat(
+			"yyyy-MM-dd HH:mm:ss");
+
+	@Setup
+	public void setup()
+			throws IOException {
+		if ((sampleFile != null) && !sampleFile.isEmpty()) {
+			content = Files.readAllBytes(new File(
+					sampleFile).toPath());
+		}
+		else {
+			content = generate(
+					isGeoLife(),
+					numPoints);
+		}
+	}
+
+	private boolean isGeoLife() {
+		return "geolife".equals(format);
+	}
+
+	private static byte[] generate(
+			final boolean geolife,
+			final int numPoints ) {
+		final StringBuilder text = new StringBuilder();
+		if (geolife) {
+			text.append(GEOLIFE_HEADER);
+		}
+		for (int i = 0; i < numPoints; i++) {
+			final String lat = String.format(
+					Locale.ROOT,
+					"%.6f",
+					39.9 + (i * 0.000001));
+			final String lng = String.format(
+					Locale.ROOT,
+					"%.6f",
+					116.3 + (i * 0.000001));
+			final String date = "2008-10-" + (10 + ((i / 86400) % 20));
+			final String time = String.format(
+					Locale.ROOT,
+					"%02d:%02d:%02d",
+					(i / 3600) % 24,
+					(i / 60) % 60,
+					i % 60);
+			if (geolife) {
+				text.append(
+						lat).append(
+						',').append(
+						lng).append(
+						",0,").append(
+						i % 1000).append(
+						",39744.1201851852,").append(
+						date).append(
+						',').append(
+						time).append(
+						"\r\n");
+			}
+			else {
+				text.append(
+						i % 10000).append(
+						',').append(
+						date).append(
+						' ').append(
+						time).append(
+						',').append(
+						lng).append(
+						',').append(
+						lat).append(
+						'\n');
+			}
+		}
+		return StringUtils.stringToBinary(text.toString());
+	}
+
+	@Benchmark
+	public void splitLines(
+			final Blackhole blackhole )
+			throws IOException,
+			ParseException {
+		final BufferedReader reader = new BufferedReader(
+				new InputStreamReader(
+						new ByteArrayInputStream(
+								content),
+						StringUtils.UTF8_CHAR_SET));
+		final boolean geolife = isGeoLife();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			final String[] vals = line.split(",");
+			if (geolife) {
+				if (vals.length != 7) {
+					continue;
+				}
+				blackhole.consume(Double.parseDouble(vals[0]));
+				blackhole.consume(Double.parseDouble(vals[1]));
+				blackhole.consume(Double.parseDouble(vals[3]));
+				blackhole.consume(dateFormat.parse(
+						vals[5] + " " + vals[6]).getTime());
+			}
+			else {
+				blackhole.consume(Integer.parseInt(vals[0]));
+				blackhole.consume(dateFormat.parse(
+						vals[1]).getTime());
+				blackhole.consume(Double.parseDouble(vals[2]));
+				blackhole.consume(Double.parseDouble(vals[3]));
+			}
+		}
+		reader.close();
+	}
+
+	@Benchmark
+	public void scanLines(
+			final Blackhole blackhole )
+			throws IOException,
+			ParseException {
+		final TrajectoryTextReader reader = new TrajectoryTextReader(
+				content);
+		final boolean geolife = isGeoLife();
+		while (reader.nextLine()) {
+			if (geolife) {
+				if (reader.getFieldCount() != 7) {
+					continue;
+				}
+				blackhole.consume(reader.getDouble(0));
+				blackhole.consume(reader.getDouble(1));
+				blackhole.consume(reader.getDouble(3));
+				blackhole.consume(reader.getTimestamp(
+						5,
+						6));
+			}
+			else {
+				blackhole.consume(reader.getInt(0));
+				blackhole.consume(reader.getTimestamp(1));
+				blackhole.consume(reader.getDouble(2));
+				blackhole.consume(reader.getDouble(3));
+			}
+		}
+		reader.close();
+	}
+
+	public static void main(
+			final String[] args )
+			throws RunnerException {
+		final OptionsBuilder options = new OptionsBuilder();
+		options.include(
+				TrajectoryTextReaderBenchmark.class.getSimpleName()).addProfiler(
+				"gc");
+		if (args.length > 1) {
+			options.param(
+					"format",
+					args[0]);
+			options.param(
+					"sampleFile",
+					args[1]);
+		}
+		final Options builtOptions = options.build();
+		new Runner(
+				builtOptions).run();
+	}
+}
@@ -0,0 +1,160 @@
+package mil.nga.giat.geowave.adapter.vector.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+import mil.nga.giat.geowave.core.index.StringUtils;
+
+import org.junit.Test;
+
+public class TrajectoryTextReaderTest
+{
+	private static final String GEOLIFE = "Geolife trajectory\r\nWGS 84\r\n0,2,255,My Track,0,0,2,8421376\r\n0\r\n" + "39.984702,116.318417,0,492,39744.1201851852,2008-10-23,02:53:04\r\n" + "-39.984683,116.31845,0,-777,39744.1202546296,2008-10-23,02:53:10";
+
+	private static final String TDRIVE = "1,2008-02-02 15:36:08,116.51172,39.92123\n" + "1,2008-02-02 15:46:08,116.51135,39.93883\n";
+
+	@Test
+	public void testGeoLife()
+			throws IOException,
+			ParseException {
+		final TrajectoryTextReader reader = new TrajectoryTextReader(
+				StringUtils.stringToBinary(GEOLIFE));
+		assertTrue(reader.nextLine());
+		assertEquals(
+				1,
+				reader.getFieldCount());
+		assertEquals(
+				"Geolife trajectory",
+				reader.getString(0));
+		assertTrue(reader.nextLine());
+		assertTrue(reader.nextLine());
+		assertEquals(
+				8,
+				reader.getFieldCount());
+		assertTrue(reader.nextLine());
+		assertTrue(reader.nextLine());
+		assertEquals(
+				7,
+				reader.getFieldCount());
+		assertEquals(
+				39.984702,
+				reader.getDouble(0),
+				0);
+		assertEquals(
+				116.318417,
+				reader.getDouble(1),
+				0);
+		assertEquals(
+				492,
+				reader.getDouble(3),
+				0);
+		assertEquals(
+				new SimpleDateFormat(
+						"yyyy-MM-dd HH:mm:ss").parse(
+						"2008-10-23 02:53:04").getTime(),
+				reader.getTimestamp(
+						5,
+						6));
+		// the last line has no line terminator
+		assertTrue(reader.nextLine());
+		assertEquals(
+				-39.984683,
+				reader.getDouble(0),
+				0);
+		assertEquals(
+				-777,
+				reader.getDouble(3),
+				0);
+		assertFalse(reader.nextLine());
+		reader.close();
+	}
+
+	@Test
+	public void testTdriveFromChannel()
+			throws IOException,
+			ParseException {
+		// read through a channel so that lines span refills of the buffer
+		final StringBuilder content = new StringBuilder();
+		final int numLines = 10000;
+		for (int i = 0; i < numLines; i++) {
+			content.append(TDRIVE);
+		}
+		final TrajectoryTextReader reader = new TrajectoryTextReader(
+				Channels.newChannel(new ByteArrayInputStream(
+						StringUtils.stringToBinary(content.toString()))));
+		final long expectedTime = new SimpleDateFormat(
+				"yyyy-MM-dd HH:mm:ss").parse(
+				"2008-02-02 15:36:08").getTime();
+		int count = 0;
+		while (reader.nextLine()) {
+			assertEquals(
+					4,
+					reader.getFieldCount());
+			assertEquals(
+					1,
+					reader.getInt(0));
+			if ((count % 2) == 0) {
+				assertEquals(
+						expectedTime,
+						reader.getTimestamp(1));
+				assertEquals(
+						116.51172,
+						reader.getDouble(2),
+						0);
+				assertEquals(
+						39.92123,
+						reader.getDouble(3),
+						0);
+			}
+			count++;
+		}
+		assertEquals(
+				numLines * 2,
+				count);
+		reader.close();
+	}
+
+	@Test
+	public void testParseFallback()
+			throws IOException {
+		final TrajectoryTextReader reader = new TrajectoryTextReader(
+				StringUtils.stringToBinary("1.5e3, 12345678901234567890.5,abc,,2008-02-02T15:36:08,,"));
+		assertTrue(reader.nextLine());
+		// trailing empty fields are not counted
+		assertEquals(
+				5,
+				reader.getFieldCount());
+		assertEquals(
+				1.5e3,
+				reader.getDouble(0),
+				0);
+		assertEquals(
+				Double.parseDouble("12345678901234567890.5"),
+				reader.getDouble(1),
+				0);
+		try {
+			reader.getDouble(2);
+			fail("Expected a NumberFormatException");
+		}
+		catch (final NumberFormatException e) {}
+		try {
+			reader.getInt(3);
+			fail("Expected a NumberFormatException");
+		}
+		catch (final NumberFormatException e) {}
+		try {
+			reader.getTimestamp(4);
+			fail("Expected a ParseException");
+		}
+		catch (final ParseException e) {}
+		reader.close();
+	}
+}
@@ -0,0 +1,114 @@
+package mil.nga.giat.geowave.adapter.vector.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.sfc.data.BasicNumericDataset;
+import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericData;
+import mil.nga.giat.geowave.core.index.sfc.data.NumericRange;
+
+import org.junit.Test;
+
+public class CqlQueryAggregationIteratorTest
+{
+	private final NumericIndexStrategy strategy = IndexType.SPATIAL_VECTOR.createDefaultIndexStrategy();
+
+	@Test
+	public void testOneCopyIsAggregated() {
+		// a box across both axes is stored under several insertion IDs
+		final List<ByteArrayId> insertionIds = strategy.getInsertionIds(createBox(
+				-10,
+				10,
+				-10,
+				10));
+		assertTrue(insertionIds.size() > 1);
+
+		final MultiDimensionalNumericData constraints = createBox(
+				5,
+				20,
+				5,
+				20);
+		ByteArrayId aggregated = null;
+		for (final ByteArrayId insertionId : insertionIds) {
+			if (CqlQueryAggregationIterator.isAggregatedCopy(
+					insertionId,
+					insertionIds,
+					strategy,
+					constraints)) {
+				assertEquals(
+						null,
+						aggregated);
+				aggregated = insertionId;
+			}
+		}
+		// the copy must be within the query to be scanned at all
+		final NumericData[] tile = strategy.getRangeForId(
+				aggregated).getDataPerDimension();
+		assertTrue(tile[0].getMax() > 5);
+		assertTrue(tile[1].getMax() > 5);
+
+		int count = 0;
+		for (final ByteArrayId insertionId : insertionIds) {
+			if (CqlQueryAggregationIterator.isAggregatedCopy(
+					insertionId,
+					insertionIds,
+					strategy,
+					null)) {
+				count++;
+			}
+		}
+		assertEquals(
+				1,
+				count);
+	}
+
+	@Test
+	public void testConstraintsRoundTrip() {
+		final MultiDimensionalNumericData constraints = CqlQueryAggregationIterator.constraintsFromBinary(CqlQueryAggregationIterator.constraintsToBinary(createBox(
+				-180,
+				-90,
+				1.5,
+				2.5)));
+		assertEquals(
+				2,
+				constraints.getDimensionCount());
+		assertEquals(
+				-180,
+				constraints.getMinValuesPerDimension()[0],
+				0);
+		assertEquals(
+				-90,
+				constraints.getMaxValuesPerDimension()[0],
+				0);
+		assertEquals(
+				1.5,
+				constraints.getMinValuesPerDimension()[1],
+				0);
+		assertEquals(
+				2.5,
+				constraints.getMaxValuesPerDimension()[1],
+				0);
+	}
+
+	private static MultiDimensionalNumericData createBox(
+			final double minX,
+			final double maxX,
+			final double minY,
+			final double maxY ) {
+		return new BasicNumericDataset(
+				new NumericData[] {
+					new NumericRange(
+							minX,
+							maxX),
+					new NumericRange(
+							minY,
+							maxY)
+				});
+	}
+}
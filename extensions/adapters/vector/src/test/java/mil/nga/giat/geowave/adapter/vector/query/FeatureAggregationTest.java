@@ -0,0 +1,105 @@
+package mil.nga.giat.geowave.adapter.vector.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.PersistenceUtils;
+
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class FeatureAggregationTest
+{
+	final GeometryFactory factory = new GeometryFactory();
+
+	@Test
+	public void testMerge()
+			throws SchemaException {
+		final SimpleFeatureType type = DataUtilities.createType(
+				"FeatureAggregationTest",
+				"geometry:Geometry:srid=4326,pop:java.lang.Long");
+		final FeatureAggregation empty = new FeatureAggregation(
+				new ByteArrayId(
+						"FeatureAggregationTest"),
+				"pop");
+		assertTrue(empty.isEmpty());
+		assertNull(empty.getEnvelope());
+
+		// partial aggregations from two tablets
+		final FeatureAggregation tablet1 = empty.createEmpty();
+		tablet1.aggregate(createFeature(
+				type,
+				1,
+				2,
+				10));
+		tablet1.aggregate(createFeature(
+				type,
+				5,
+				6,
+				30));
+		final FeatureAggregation tablet2 = empty.createEmpty();
+		tablet2.aggregate(createFeature(
+				type,
+				-3,
+				4,
+				20));
+
+		final FeatureAggregation result = empty.createEmpty();
+		result.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(tablet1),
+				FeatureAggregation.class));
+		result.merge(PersistenceUtils.fromBinary(
+				PersistenceUtils.toBinary(tablet2),
+				FeatureAggregation.class));
+
+		assertEquals(
+				3,
+				result.getCount());
+		assertEquals(
+				new Envelope(
+						-3,
+						5,
+						2,
+						6),
+				result.getEnvelope());
+		assertEquals(
+				3,
+				result.getHistogram(
+						"pop").totalSampleSize());
+		assertEquals(
+				30,
+				result.getHistogram(
+						"pop").quantile(
+						1.0),
+				1.0);
+		assertNull(result.getHistogram("geometry"));
+	}
+
+	private SimpleFeature createFeature(
+			final SimpleFeatureType type,
+			final double x,
+			final double y,
+			final long pop ) {
+		final SimpleFeatureBuilder builder = new SimpleFeatureBuilder(
+				type);
+		builder.set(
+				"geometry",
+				factory.createPoint(new Coordinate(
+						x,
+						y)));
+		builder.set(
+				"pop",
+				Long.valueOf(pop));
+		return builder.buildFeature(null);
+	}
+}
@@ -5,10 +5,18 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
@@ -28,11 +36,13 @@ import mil.nga.giat.geowave.core.store.adapter.MemoryAdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.WritableDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
 import mil.nga.giat.geowave.core.store.adapter.statistics.StatsCompositionTool;
 import mil.nga.giat.geowave.core.store.data.VisibilityWriter;
 import mil.nga.giat.geowave.core.store.data.visibility.UnconstrainedVisibilityHandler;
 import mil.nga.giat.geowave.core.store.data.visibility.UniformVisibilityWriter;
 import mil.nga.giat.geowave.core.store.filter.MultiIndexDedupeFilter;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
 import mil.nga.giat.geowave.core.store.index.Index;
 import mil.nga.giat.geowave.core.store.index.IndexStore;
 import mil.nga.giat.geowave.core.store.query.Query;
@@ -40,11 +50,15 @@ import mil.nga.giat.geowave.core.store.query.QueryOptions;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloConstraintsDeleteQuery;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloConstraintsQuery;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloFilteredIndexQuery;
+import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloQueryPlanner;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowIdQuery;
 import mil.nga.giat.geowave.datastore.accumulo.query.AccumuloRowPrefixQuery;
 import mil.nga.giat.geowave.datastore.accumulo.query.QueryFilterIterator;
+import mil.nga.giat.geowave.datastore.accumulo.query.QueryPlan;
+import mil.nga.giat.geowave.datastore.accumulo.query.QueryPlan.IndexEstimate;
 import mil.nga.giat.geowave.datastore.accumulo.query.SingleEntryFilterIterator;
 import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
 import mil.nga.giat.geowave.datastore.accumulo.util.AltIndexIngestCallback;
@@ -53,6 +67,7 @@ import mil.nga.giat.geowave.datastore.accumulo.util.DataAdapterAndIndexCache;
 import mil.nga.giat.geowave.datastore.accumulo.util.IteratorWrapper;
 import mil.nga.giat.geowave.datastore.accumulo.util.IteratorWrapper.Callback;
 import mil.nga.giat.geowave.datastore.accumulo.util.IteratorWrapper.Converter;
+import mil.nga.giat.geowave.datastore.accumulo.util.ParallelCloseableIterator;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -68,6 +83,8 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.user.WholeRowIterator;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
@@ -90,6 +107,8 @@ public class AccumuloDataStore implements
 		DataStore
 {
 	private final static Logger LOGGER = Logger.getLogger(AccumuloDataStore.class);
+	private static final long DELETE_PROGRESS_INTERVAL_MILLIS = 10000;
+	private static ExecutorService queryExecutor;
 
 	protected final IndexStore indexStore;
 	protected final AdapterStore adapterStore;
@@ -114,9 +133,11 @@ public class AccumuloDataStore implements
 			final AccumuloOptions accumuloOptions ) {
 		this(
 				new AccumuloIndexStore(
-						accumuloOperations),
+						accumuloOperations,
+						accumuloOptions.getMetadataCacheOptions()),
 				new AccumuloAdapterStore(
-						accumuloOperations),
+						accumuloOperations,
+						accumuloOptions.getMetadataCacheOptions()),
 				new AccumuloDataStatisticsStore(
 						accumuloOperations),
 				accumuloOperations,
@@ -1032,54 +1053,93 @@ public class AccumuloDataStore implements
 			final ScanCallback<?> scanCallback,
 			final QueryOptions queryOptions,
 			final String... authorizations ) {
-		// query the indices that are supported for this query object, and these
-		// data adapter Ids
-		final List<CloseableIterator<?>> results = new ArrayList<CloseableIterator<?>>();
-		int indexCount = 0;
 		// all queries will use the same instance of the dedupe filter for
 		// client side filtering because the filter needs to be applied across
 		// indices
 		final MultiIndexDedupeFilter clientDedupeFilter = new MultiIndexDedupeFilter();
+		// construct a query for each index that is supported for this query
+		// object, and these data adapter Ids
+		final List<AccumuloConstraintsQuery> candidates = new ArrayList<AccumuloConstraintsQuery>();
 		while (indices.hasNext()) {
 			final Index index = indices.next();
-			final AccumuloConstraintsQuery accumuloQuery;
-			if (query == null) {
-				accumuloQuery = new AccumuloConstraintsQuery(
+			if ((query == null) || query.isSupported(index)) {
+				candidates.add(createQuery(
 						adapterIds,
+						query,
 						index,
 						clientDedupeFilter,
 						scanCallback,
-						authorizations);
+						authorizations));
 			}
-			else if (query.isSupported(index)) {
-				// construct the query
-				accumuloQuery = new AccumuloConstraintsQuery(
-						adapterIds,
-						index,
-						query.getIndexConstraints(index.getIndexStrategy()),
-						query.createFilters(index.getIndexModel()),
+		}
+		final QueryPlan plan = planQuery(
+				adapterIds,
+				adapterStore,
+				candidates,
+				authorizations);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(plan);
+		}
+		final List<AccumuloConstraintsQuery> accumuloQueries = new ArrayList<AccumuloConstraintsQuery>();
+		final List<IndexEstimate> estimates = plan.getIndexEstimates();
+		for (int i = 0; i < estimates.size(); i++) {
+			final IndexEstimate estimate = estimates.get(i);
+			if (!estimate.isSelected()) {
+				continue;
+			}
+			AccumuloConstraintsQuery accumuloQuery = candidates.get(i);
+			if (estimate.getQueriedAdapterIds() != null) {
+				// only query the adapters that this index was chosen for
+				accumuloQuery = createQuery(
+						estimate.getQueriedAdapterIds(),
+						query,
+						estimate.getIndex(),
 						clientDedupeFilter,
 						scanCallback,
 						authorizations);
-			}
-			else {
-				continue;
+				accumuloQuery.setCardinalityEstimator(mergeRowRangeHistograms(getRowRangeHistograms(
+						estimate.getQueriedAdapterIds(),
+						estimate.getIndex(),
+						authorizations)));
 			}
 			if ((queryOptions != null) && (!queryOptions.getFieldIds().isEmpty())) {
 				// results should contain subset of fieldIds
 				accumuloQuery.setFieldIds(queryOptions.getFieldIds());
 			}
+			accumuloQueries.add(accumuloQuery);
+		}
+		// if there aren't multiple indices that can return the same entry, the
+		// client-side dedupe filter can just cache rows that are duplicated
+		// within the index and not everything
+		clientDedupeFilter.setMultiIndexSupportEnabled(plan.isMultiIndexDedupeRequired());
+		if (accumuloOptions.isUseParallelQueries() && (accumuloQueries.size() > 1)) {
+			// scan the indices concurrently into a bounded buffer
+			final List<Callable<CloseableIterator<?>>> scans = new ArrayList<Callable<CloseableIterator<?>>>();
+			for (final AccumuloConstraintsQuery accumuloQuery : accumuloQueries) {
+				scans.add(new Callable<CloseableIterator<?>>() {
+					@Override
+					public CloseableIterator<?> call() {
+						return accumuloQuery.query(
+								accumuloOperations,
+								adapterStore,
+								limit,
+								true);
+					}
+				});
+			}
+			return new ParallelCloseableIterator<Object>(
+					scans,
+					getQueryExecutor(),
+					accumuloOptions.getParallelQueryBufferSize());
+		}
+		final List<CloseableIterator<?>> results = new ArrayList<CloseableIterator<?>>();
+		for (final AccumuloConstraintsQuery accumuloQuery : accumuloQueries) {
 			results.add(accumuloQuery.query(
 					accumuloOperations,
 					adapterStore,
 					limit,
 					true));
-			indexCount++;
 		}
-		// if there aren't multiple indices, the client-side dedupe filter can
-		// just cache rows that are duplicated within the index and not
-		// everything
-		clientDedupeFilter.setMultiIndexSupportEnabled(indexCount > 1);
 		// concatenate iterators
 		return new CloseableIteratorWrapper<Object>(
 				new Closeable() {
@@ -1094,6 +1154,205 @@ public class AccumuloDataStore implements
 				Iterators.concat(results.iterator()));
 	}
 
+	/**
+	 * Estimate the rows that each index supporting the query would scan and
+	 * choose the indices the query would use, without running the query
+	 *
+	 * @param adapterIds
+	 *            the adapters to query, or null for all adapters
+	 * @param query
+	 *            the query, or null to query everything
+	 * @return the plan, which lists the estimate for each index and whether it
+	 *         is selected
+	 */
+	public QueryPlan explain(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final String... authorizations ) {
+		final List<AccumuloConstraintsQuery> candidates = new ArrayList<AccumuloConstraintsQuery>();
+		try (final CloseableIterator<Index> indices = indexStore.getIndices()) {
+			while (indices.hasNext()) {
+				final Index index = indices.next();
+				if ((query == null) || query.isSupported(index)) {
+					candidates.add(createQuery(
+							adapterIds,
+							query,
+							index,
+							new MultiIndexDedupeFilter(),
+							null,
+							authorizations));
+				}
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"unable to close index iterator for query",
+					e);
+		}
+		return planQuery(
+				adapterIds,
+				adapterStore,
+				candidates,
+				authorizations);
+	}
+
+	private static synchronized ExecutorService getQueryExecutor() {
+		if (queryExecutor == null) {
+			// each scan holds a thread until it is drained or closed, so the
+			// pool grows with the scans in flight rather than queueing them
+			queryExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+				private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+				@Override
+				public Thread newThread(
+						final Runnable r ) {
+					final Thread thread = defaultFactory.newThread(r);
+					thread.setName("geowave-query-" + thread.getName());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return queryExecutor;
+	}
+
+	private static AccumuloConstraintsQuery createQuery(
+			final List<ByteArrayId> adapterIds,
+			final Query query,
+			final Index index,
+			final MultiIndexDedupeFilter clientDedupeFilter,
+			final ScanCallback<?> scanCallback,
+			final String... authorizations ) {
+		if (query == null) {
+			return new AccumuloConstraintsQuery(
+					adapterIds,
+					index,
+					clientDedupeFilter,
+					scanCallback,
+					authorizations);
+		}
+		return new AccumuloConstraintsQuery(
+				adapterIds,
+				index,
+				query.getIndexConstraints(index.getIndexStrategy()),
+				query.createFilters(index.getIndexModel()),
+				clientDedupeFilter,
+				scanCallback,
+				authorizations);
+	}
+
+	/**
+	 * Set the merged row range histogram of each candidate as its cardinality
+	 * estimator and choose the candidates to query by their estimated cost
+	 */
+	private QueryPlan planQuery(
+			final List<ByteArrayId> queriedAdapterIds,
+			final AdapterStore adapterStore,
+			final List<AccumuloConstraintsQuery> candidates,
+			final String... authorizations ) {
+		if (!accumuloOptions.isPersistDataStatistics()) {
+			return AccumuloQueryPlanner.selectAll(
+					candidates,
+					"statistics are not persisted");
+		}
+		final List<ByteArrayId> adapterIds = resolveAdapterIds(
+				queriedAdapterIds,
+				adapterStore);
+		final List<List<RowRangeHistogramStatistics<?>>> adapterHistograms = new ArrayList<List<RowRangeHistogramStatistics<?>>>();
+		for (final AccumuloConstraintsQuery candidate : candidates) {
+			final List<RowRangeHistogramStatistics<?>> histograms = getRowRangeHistograms(
+					adapterIds,
+					candidate.getIndex(),
+					authorizations);
+			candidate.setCardinalityEstimator(mergeRowRangeHistograms(histograms));
+			adapterHistograms.add(histograms);
+		}
+		return AccumuloQueryPlanner.plan(
+				adapterIds,
+				candidates,
+				adapterHistograms,
+				accumuloOptions.isUseCostBasedIndexSelection());
+	}
+
+	private static List<ByteArrayId> resolveAdapterIds(
+			final List<ByteArrayId> adapterIds,
+			final AdapterStore adapterStore ) {
+		if (adapterIds != null) {
+			return adapterIds;
+		}
+		final List<ByteArrayId> allAdapterIds = new ArrayList<ByteArrayId>();
+		try (final CloseableIterator<DataAdapter<?>> adapters = adapterStore.getAdapters()) {
+			while (adapters.hasNext()) {
+				allAdapterIds.add(adapters.next().getAdapterId());
+			}
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close adapter iterator",
+					e);
+		}
+		return allAdapterIds;
+	}
+
+	/**
+	 * Read the row range histogram of the index for each of the adapters
+	 * 
+	 * @return the histogram of each adapter, in the order of the adapter IDs
+	 *         and null for any adapter without a histogram for the index
+	 */
+	private List<RowRangeHistogramStatistics<?>> getRowRangeHistograms(
+			final List<ByteArrayId> adapterIds,
+			final Index index,
+			final String... authorizations ) {
+		final ByteArrayId statisticsId = RowRangeHistogramStatistics.composeId(index.getId());
+		final List<DataStatistics<?>> adapterStats;
+		if (statisticsStore instanceof AccumuloDataStatisticsStore) {
+			// read the statistics of every adapter with one scan
+			adapterStats = ((AccumuloDataStatisticsStore) statisticsStore).getDataStatistics(
+					adapterIds,
+					statisticsId,
+					authorizations);
+		}
+		else {
+			adapterStats = new ArrayList<DataStatistics<?>>();
+			for (final ByteArrayId adapterId : adapterIds) {
+				adapterStats.add(statisticsStore.getDataStatistics(
+						adapterId,
+						statisticsId,
+						authorizations));
+			}
+		}
+		final List<RowRangeHistogramStatistics<?>> histograms = new ArrayList<RowRangeHistogramStatistics<?>>();
+		for (final DataStatistics<?> stats : adapterStats) {
+			histograms.add(stats instanceof RowRangeHistogramStatistics ? (RowRangeHistogramStatistics<?>) stats : null);
+		}
+		return histograms;
+	}
+
+	/**
+	 * Merge the row range histograms of the index across the queried adapters
+	 * 
+	 * @return the merged histogram, or null if any of the adapters does not
+	 *         have a histogram for the index
+	 */
+	private static RowRangeHistogramStatistics<?> mergeRowRangeHistograms(
+			final List<RowRangeHistogramStatistics<?>> histograms ) {
+		RowRangeHistogramStatistics<?> mergedStats = null;
+		for (final RowRangeHistogramStatistics<?> stats : histograms) {
+			if (stats == null) {
+				// without every adapter's rows the estimates would be skewed
+				return null;
+			}
+			if (mergedStats == null) {
+				// the statistics may be shared by a metadata cache, merge
+				// into a copy
+				mergedStats = (RowRangeHistogramStatistics<?>) stats.duplicate();
+			}
+			mergedStats.merge(stats);
+		}
+		return mergedStats;
+	}
+
 	@Override
 	public CloseableIterator<?> query(
 			final Query query ) {
@@ -1277,6 +1536,220 @@ public class AccumuloDataStore implements
 				additionalAuthorizations);
 	}
 
+	/**
+	 * Delete every entry of the adapter in the index that matches the query.
+	 * The query constraints and distributable filters are applied by the
+	 * tablet servers, and the matching rows are streamed once and deleted
+	 * through a batch writer along with their alternate index entries. Any rows
+	 * of a matching duplicated entry outside of the query ranges are deleted as
+	 * well. Statistics are updated with the deleted entries once all of them
+	 * are deleted.
+	 * 
+	 * @param adapter
+	 *            the adapter of the entries to delete
+	 * @param index
+	 *            the index to delete the entries from
+	 * @param query
+	 *            the query, or null to delete every entry of the adapter
+	 * @return the number of entries deleted
+	 */
+	public <T> long deleteByQuery(
+			final DataAdapter<T> adapter,
+			final Index index,
+			final Query query,
+			final String... authorizations ) {
+		if ((query != null) && !query.isSupported(index)) {
+			throw new IllegalArgumentException(
+					"Index does not support the query");
+		}
+		final String tableName = index.getId().getString();
+		final String altIdxTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
+		final boolean useAltIndex = accumuloOptions.isUseAltIndex() && accumuloOperations.tableExists(altIdxTableName);
+		final AccumuloConstraintsDeleteQuery deleteQuery = new AccumuloConstraintsDeleteQuery(
+				adapter.getAdapterId(),
+				index,
+				query,
+				authorizations);
+		if (accumuloOptions.isPersistDataStatistics()) {
+			deleteQuery.setCardinalityEstimator(mergeRowRangeHistograms(getRowRangeHistograms(
+					Arrays.asList(adapter.getAdapterId()),
+					index,
+					authorizations)));
+		}
+		final ScannerBase scanner = deleteQuery.createScanner(accumuloOperations);
+		if (scanner == null) {
+			LOGGER.warn("Unable to delete from table [" + tableName + "]. Table does not exist.");
+			return 0;
+		}
+		final StatsCompositionTool<T> statsCompositionTool = getStatsCompositionTool(
+				index,
+				adapter);
+		final QueryFilter clientFilter = deleteQuery.getClientFilter();
+		final Text adapterId = new Text(
+				adapter.getAdapterId().getBytes());
+		// every row of a duplicated entry is deleted when the first one is
+		// found, so only those entries need to be remembered
+		final Set<ByteArrayId> deletedDuplicates = new HashSet<ByteArrayId>();
+		final long startTime = System.currentTimeMillis();
+		long lastReportTime = startTime;
+		long entries = 0;
+		long rows = 0;
+		long unresolvedDuplicates = 0;
+		boolean success = false;
+		Writer writer = null;
+		Writer altIdxWriter = null;
+		try {
+			writer = accumuloOperations.createWriter(
+					tableName,
+					false);
+			if (useAltIndex) {
+				altIdxWriter = accumuloOperations.createWriter(
+						altIdxTableName,
+						false);
+			}
+			for (final Entry<Key, Value> encodedRow : scanner) {
+				final Key key = encodedRow.getKey();
+				final AccumuloRowId rowId = new AccumuloRowId(
+						key);
+				final ByteArrayId dataId = new ByteArrayId(
+						rowId.getDataId());
+				final boolean duplicated = rowId.getNumberOfDuplicates() > 0;
+				if (duplicated && deletedDuplicates.contains(dataId)) {
+					continue;
+				}
+				List<ByteArrayId> rowIds = Collections.singletonList(new ByteArrayId(
+						key.getRow().copyBytes()));
+				if (duplicated || (clientFilter != null) || statsCompositionTool.isPersisting()) {
+					final Pair<T, DataStoreEntryInfo> decodedRow = AccumuloUtils.decodeRow(
+							key,
+							encodedRow.getValue(),
+							rowId,
+							adapter,
+							null,
+							clientFilter,
+							index,
+							null);
+					if (decodedRow == null) {
+						continue;
+					}
+					statsCompositionTool.entryDeleted(
+							decodedRow.getRight(),
+							decodedRow.getLeft());
+					if (duplicated) {
+						deletedDuplicates.add(dataId);
+						if (adapter instanceof WritableDataAdapter) {
+							rowIds = AccumuloUtils.getRowIds(
+									(WritableDataAdapter<T>) adapter,
+									index,
+									decodedRow.getLeft());
+						}
+						else {
+							unresolvedDuplicates++;
+						}
+					}
+				}
+				// every row of an entry holds the same fields
+				final SortedMap<Key, Value> cells = WholeRowIterator.decodeRow(
+						key,
+						encodedRow.getValue());
+				for (final ByteArrayId id : rowIds) {
+					final Mutation mutation = new Mutation(
+							new Text(
+									id.getBytes()));
+					for (final Key cell : cells.keySet()) {
+						mutation.putDelete(
+								cell.getColumnFamily(),
+								cell.getColumnQualifier(),
+								new ColumnVisibility(
+										cell.getColumnVisibility()));
+					}
+					writer.write(mutation);
+				}
+				if (altIdxWriter != null) {
+					final Mutation mutation = new Mutation(
+							new Text(
+									dataId.getBytes()));
+					for (final ByteArrayId id : rowIds) {
+						mutation.putDelete(
+								adapterId,
+								new Text(
+										id.getBytes()));
+					}
+					altIdxWriter.write(mutation);
+				}
+				entries++;
+				rows += rowIds.size();
+				final long now = System.currentTimeMillis();
+				if ((now - lastReportTime) >= DELETE_PROGRESS_INTERVAL_MILLIS) {
+					logDeleteProgress(
+							"Delete progress",
+							tableName,
+							entries,
+							rows,
+							now - startTime);
+					lastReportTime = now;
+				}
+			}
+			success = true;
+		}
+		catch (final TableNotFoundException | IOException e) {
+			LOGGER.warn(
+					"Unable to delete rows from table [" + tableName + "].",
+					e);
+		}
+		finally {
+			scanner.close();
+			if (writer != null) {
+				writer.close();
+			}
+			if (altIdxWriter != null) {
+				altIdxWriter.close();
+			}
+		}
+		if (unresolvedDuplicates > 0) {
+			LOGGER.warn(unresolvedDuplicates + " duplicated entries were only deleted within the query ranges because adapter '" + adapter.getAdapterId().getString() + "' cannot compute their row IDs");
+		}
+		logDeleteProgress(
+				success ? "Delete complete" : "Delete failed",
+				tableName,
+				entries,
+				rows,
+				System.currentTimeMillis() - startTime);
+		// the rows that were written before a failure are still deleted
+		synchronizeStatsWithStore(
+				statsCompositionTool,
+				entries > 0);
+		try {
+			statsCompositionTool.close();
+		}
+		catch (final Exception e) {
+			LOGGER.error(
+					"Error closing statsCompositionTool",
+					e);
+		}
+		return entries;
+	}
+
+	private static void logDeleteProgress(
+			final String message,
+			final String tableName,
+			final long entries,
+			final long rows,
+			final long elapsedMillis ) {
+		final double seconds = Math.max(
+				elapsedMillis / 1000.0,
+				0.001);
+		LOGGER.info(String.format(
+				"%s for table [%s] after %.1f s: %d entries deleted (%.1f entries/s), %d rows deleted (%.1f rows/s)",
+				message,
+				tableName,
+				seconds,
+				entries,
+				entries / seconds,
+				rows,
+				rows / seconds));
+	}
+
 	private <T> StatsCompositionTool<T> getStatsCompositionTool(
 			final Index index,
 			final DataAdapter<T> adapter ) {
@@ -1,10 +1,13 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.StringUtils;
@@ -29,6 +32,11 @@ import org.apache.log4j.Logger;
  * open writer. The first entry that is written will open a writer and it is the
  * responsibility of the caller to close this writer when complete.
  * 
+ * Many threads can write through the same index writer concurrently. The
+ * adapter and index are persisted once on first use, mutations are handed to
+ * the thread-safe underlying writer without a shared lock, and the statistics
+ * of each adapter are accumulated by a single thread-safe tool.
+ * 
  */
 public class AccumuloIndexWriter implements
 		IndexWriter
@@ -38,19 +46,21 @@ public class AccumuloIndexWriter implements
 	protected final AccumuloOperations accumuloOperations;
 	protected final AccumuloOptions accumuloOptions;
 	protected final AccumuloDataStore dataStore;
-	protected Writer writer;
-	protected Writer altIdxWriter;
+	protected volatile Writer writer;
+	protected volatile Writer altIdxWriter;
 
 	protected boolean useAltIndex;
 	protected String indexName;
 	protected String altIdxTableName;
 
 	protected boolean persistStats;
-	protected int statsFlushCount = 0;
+	protected final AtomicInteger statsFlushCount = new AtomicInteger();
 	protected boolean skipFlush = false;
 	// just need a reasonable threshold.
 	public static final int FLUSH_STATS_THRESHOLD = 16384;
-	protected final Map<ByteArrayId, StatsCompositionTool<?>> statsMap = new HashMap<ByteArrayId, StatsCompositionTool<?>>();
+	protected final ConcurrentMap<ByteArrayId, StatsCompositionTool<?>> statsMap = new ConcurrentHashMap<ByteArrayId, StatsCompositionTool<?>>();
+	protected final Set<ByteArrayId> initializedAdapterIds = Collections.newSetFromMap(new ConcurrentHashMap<ByteArrayId, Boolean>());
+	private final Object statsFlushLock = new Object();
 
 	public AccumuloIndexWriter(
 			final Index index,
@@ -110,6 +120,7 @@ public class AccumuloIndexWriter implements
 
 	private synchronized void ensureOpen() {
 		if (writer == null) {
+			dataStore.store(index);
 			try {
 				writer = accumuloOperations.createWriter(
 						StringUtils.stringFromBinary(index.getId().getBytes()),
@@ -179,64 +190,55 @@ public class AccumuloIndexWriter implements
 			final WritableDataAdapter<T> writableAdapter,
 			final T entry ) {
 		final ByteArrayId adapterIdObj = writableAdapter.getAdapterId();
-
-		final byte[] adapterId = writableAdapter.getAdapterId().getBytes();
-
-		try {
-			if (writableAdapter instanceof AttachedIteratorDataAdapter) {
-				if (!DataAdapterAndIndexCache.getInstance(
-						AttachedIteratorDataAdapter.ATTACHED_ITERATOR_CACHE_ID).add(
-						adapterIdObj,
-						indexName)) {
-					accumuloOperations.attachIterators(
-							indexName,
-							accumuloOptions.isCreateTable(),
-							((AttachedIteratorDataAdapter) writableAdapter).getAttachedIteratorConfig(index));
-				}
-			}
-			if (accumuloOptions.isUseLocalityGroups() && !accumuloOperations.localityGroupExists(
-					indexName,
-					adapterId)) {
-				accumuloOperations.addLocalityGroup(
-						indexName,
-						adapterId);
-			}
+		if (!initializedAdapterIds.contains(adapterIdObj)) {
+			initializeAdapter(writableAdapter);
 		}
-		catch (AccumuloException | TableNotFoundException | AccumuloSecurityException e) {
-			LOGGER.error(
-					"Unable to determine existence of locality group [" + writableAdapter.getAdapterId().getString() + "]",
-					e);
+		Writer currentWriter = writer;
+		Writer currentAltIdxWriter = altIdxWriter;
+		if ((currentWriter == null) || (useAltIndex && (currentAltIdxWriter == null))) {
+			ensureOpen();
+			currentWriter = writer;
+			currentAltIdxWriter = altIdxWriter;
 		}
-		DataStoreEntryInfo entryInfo;
-		synchronized (this) {
-			dataStore.store(writableAdapter);
-			dataStore.store(index);
+		// the underlying batch writer is thread-safe
+		final DataStoreEntryInfo entryInfo = AccumuloUtils.write(
+				writableAdapter,
+				index,
+				entry,
+				currentWriter);
 
-			ensureOpen();
-			entryInfo = AccumuloUtils.write(
+		if (useAltIndex) {
+			AccumuloUtils.writeAltIndex(
 					writableAdapter,
-					index,
+					entryInfo,
 					entry,
-					writer);
-
-			if (useAltIndex) {
-				AccumuloUtils.writeAltIndex(
-						writableAdapter,
-						entryInfo,
-						entry,
-						altIdxWriter);
-			}
-			if (persistStats) {
-				recordStats(
-						adapterIdObj,
-						entryInfo,
-						writableAdapter,
-						entry);
-			}
+					currentAltIdxWriter);
+		}
+		if (persistStats) {
+			recordStats(
+					adapterIdObj,
+					entryInfo,
+					writableAdapter,
+					entry);
 		}
 		return entryInfo.getRowIds();
 	}
 
+	/**
+	 * Set up the table for the adapter and persist the adapter, only once per
+	 * adapter for the life of this writer
+	 */
+	private synchronized <T> void initializeAdapter(
+			final WritableDataAdapter<T> writableAdapter ) {
+		final ByteArrayId adapterIdObj = writableAdapter.getAdapterId();
+		if (initializedAdapterIds.contains(adapterIdObj)) {
+			return;
+		}
+		setupAdapter(writableAdapter);
+		dataStore.store(writableAdapter);
+		initializedAdapterIds.add(adapterIdObj);
+	}
+
 	@Override
 	public void close() {
 		// thread safe close
@@ -292,42 +294,50 @@ public class AccumuloIndexWriter implements
 
 	}
 
-	private synchronized void flushStats() {
+	private void flushStats() {
 		// write the statistics and clear it
 		if (persistStats) {
-			final DataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
-					accumuloOperations);
-			for (StatsCompositionTool<?> tool : this.statsMap.values()) {
-				tool.setStatisticsStore(statsStore);
-				tool.flush();
+			synchronized (statsFlushLock) {
+				final DataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+						accumuloOperations);
+				for (final StatsCompositionTool<?> tool : statsMap.values()) {
+					tool.setStatisticsStore(statsStore);
+					tool.flush();
+				}
 			}
-			statsMap.clear();
 		}
 	}
 
-	private synchronized <T> void recordStats(
+	private <T> void recordStats(
 			final ByteArrayId adapterIdObj,
 			final DataStoreEntryInfo entryInfo,
 			final WritableDataAdapter<T> writableAdapter,
 			final T entry ) {
-
 		StatsCompositionTool<T> tool = (StatsCompositionTool<T>) statsMap.get(adapterIdObj);
 		if (tool == null) {
 			tool = new StatsCompositionTool<T>(
 					new DataAdapterStatsWrapper<T>(
 							index,
 							writableAdapter));
-			statsMap.put(
+			final StatsCompositionTool<T> existingTool = (StatsCompositionTool<T>) statsMap.putIfAbsent(
 					adapterIdObj,
 					tool);
+			if (existingTool != null) {
+				tool = existingTool;
+			}
 		}
 		tool.entryIngested(
 				entryInfo,
 				entry);
-		statsFlushCount++;
-		if (!skipFlush && statsFlushCount > FLUSH_STATS_THRESHOLD) {
-			statsFlushCount = 0;
-			flushStats();
+		if (!skipFlush) {
+			// only the thread that resets the count flushes, and an increment
+			// made in between fails the reset so that no entry goes uncounted
+			final int count = statsFlushCount.incrementAndGet();
+			if ((count > FLUSH_STATS_THRESHOLD) && statsFlushCount.compareAndSet(
+					count,
+					0)) {
+				flushStats();
+			}
 		}
 	}
 }
@@ -1,17 +1,34 @@
 package mil.nga.giat.geowave.datastore.accumulo;
 
+import mil.nga.giat.geowave.datastore.accumulo.metadata.MetadataCacheOptions;
+
 /**
  * This class can be used to modify the behavior of the Accumulo Data Store.
  * 
  */
 public class AccumuloOptions
 {
+	public static final int DEFAULT_PARALLEL_QUERY_BUFFER_SIZE = 1000;
+
 	protected boolean persistAdapter = true;
 	protected boolean persistIndex = true;
 	protected boolean persistDataStatistics = true;
 	protected boolean createTable = true;
 	protected boolean useLocalityGroups = true;
 	protected boolean useAltIndex = true;
+	protected boolean useCostBasedIndexSelection = false;
+	protected boolean useParallelQueries = false;
+	protected int parallelQueryBufferSize = DEFAULT_PARALLEL_QUERY_BUFFER_SIZE;
+	protected MetadataCacheOptions metadataCacheOptions = new MetadataCacheOptions();
+
+	public MetadataCacheOptions getMetadataCacheOptions() {
+		return metadataCacheOptions;
+	}
+
+	public void setMetadataCacheOptions(
+			final MetadataCacheOptions metadataCacheOptions ) {
+		this.metadataCacheOptions = metadataCacheOptions;
+	}
 
 	public boolean isPersistDataStatistics() {
 		return persistDataStatistics;
@@ -22,6 +39,55 @@ public class AccumuloOptions
 		this.persistDataStatistics = persistDataStatistics;
 	}
 
+	public boolean isUseCostBasedIndexSelection() {
+		return useCostBasedIndexSelection;
+	}
+
+	/**
+	 * @param useCostBasedIndexSelection
+	 *            true to query only the cheapest indices that cover the
+	 *            queried adapters, as estimated from the row range histogram
+	 *            statistics, rather than every index that supports the query.
+	 *            This relies on each adapter being written to an index in full,
+	 *            or not at all; an adapter with only part of its data in an
+	 *            index would have the rest of its data silently left out of
+	 *            query results, so this is off by default.
+	 */
+	public void setUseCostBasedIndexSelection(
+			final boolean useCostBasedIndexSelection ) {
+		this.useCostBasedIndexSelection = useCostBasedIndexSelection;
+	}
+
+	public boolean isUseParallelQueries() {
+		return useParallelQueries;
+	}
+
+	/**
+	 * @param useParallelQueries
+	 *            true to scan every index of a query concurrently rather than
+	 *            one after another. Results are then returned in the order
+	 *            they arrive, and any scan callback of the query is called
+	 *            from the scanning threads.
+	 */
+	public void setUseParallelQueries(
+			final boolean useParallelQueries ) {
+		this.useParallelQueries = useParallelQueries;
+	}
+
+	public int getParallelQueryBufferSize() {
+		return parallelQueryBufferSize;
+	}
+
+	/**
+	 * @param parallelQueryBufferSize
+	 *            the number of results that parallel scans may read ahead of
+	 *            the caller before they block
+	 */
+	public void setParallelQueryBufferSize(
+			final int parallelQueryBufferSize ) {
+		this.parallelQueryBufferSize = parallelQueryBufferSize;
+	}
+
 	public boolean isPersistAdapter() {
 		return persistAdapter;
 	}
@@ -7,8 +7,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.Persistable;
@@ -31,14 +34,19 @@ import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 /**
  * This abstract class does most of the work for storing persistable objects in
  * Accumulo and can be easily extended for any object that needs to be
  * persisted.
  * 
- * There is an LRU cache associated with it so staying in sync with external
- * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * There is a concurrent LRU cache associated with it. By default it assumes the
+ * objects are not updated often or at all, but cached objects can be expired
+ * after a time or revalidated against the timestamps of their rows (see
+ * MetadataCacheOptions). The objects are stored in their own table.
  * 
  * @param <T>
  *            The type of persistable object that this stores
@@ -49,34 +57,67 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 	private final static Logger LOGGER = Logger.getLogger(AbstractAccumuloPersistence.class);
 	private final AccumuloOperations accumuloOperations;
 
-	// TODO: should we concern ourselves with multiple distributed processes
-	// updating and looking up objects simultaneously that would require some
-	// locking/synchronization mechanism, and even possibly update
-	// notifications?
-	private static final int MAX_ENTRIES = 100;
-	protected final Map<ByteArrayId, T> cache = Collections.synchronizedMap(new LinkedHashMap<ByteArrayId, T>(
-			MAX_ENTRIES + 1,
-			.75F,
-			true) {
-		/**
-				 *
-				 */
-		private static final long serialVersionUID = 1L;
-
-		// This method is called just after a new entry has been added
-		@Override
-		public boolean removeEldestEntry(
-				final Map.Entry<ByteArrayId, T> eldest ) {
-			return size() > MAX_ENTRIES;
-		}
-	});
+	// the timestamp of objects added by this instance, the timestamp assigned
+	// to their rows by the tablet server is not known
+	private static final long UNKNOWN_TIMESTAMP = Long.MIN_VALUE;
+	protected final Cache<ByteArrayId, CachedObject<T>> cache;
+	private final long revalidateAfterNanos;
+	private final AtomicLong loadSuccessCount = new AtomicLong();
+	private final AtomicLong loadFailureCount = new AtomicLong();
+	private final AtomicLong totalLoadTime = new AtomicLong();
 
 	// just attach iterators once per instance
 	private boolean iteratorsAttached = false;
 
 	public AbstractAccumuloPersistence(
 			final AccumuloOperations accumuloOperations ) {
+		this(
+				accumuloOperations,
+				new MetadataCacheOptions());
+	}
+
+	public AbstractAccumuloPersistence(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
 		this.accumuloOperations = accumuloOperations;
+		final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(
+				cacheOptions.getMaxEntries()).recordStats();
+		if (cacheOptions.getExpireAfterWriteMillis() > 0) {
+			cacheBuilder.expireAfterWrite(
+					cacheOptions.getExpireAfterWriteMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+		cache = cacheBuilder.build();
+		revalidateAfterNanos = TimeUnit.MILLISECONDS.toNanos(cacheOptions.getRevalidateAfterMillis());
+	}
+
+	/**
+	 * The hit and miss counts are those of the cache. A load is a read from
+	 * Accumulo on a cache miss, which fails if the object does not exist.
+	 *
+	 * @return the statistics of the cache
+	 */
+	public CacheStats getCacheStats() {
+		final CacheStats stats = cache.stats();
+		return new CacheStats(
+				stats.hitCount(),
+				stats.missCount(),
+				loadSuccessCount.get(),
+				loadFailureCount.get(),
+				totalLoadTime.get(),
+				stats.evictionCount());
+	}
+
+	private void recordLoad(
+			final boolean success,
+			final long loadTime ) {
+		if (success) {
+			loadSuccessCount.incrementAndGet();
+		}
+		else {
+			loadFailureCount.incrementAndGet();
+		}
+		totalLoadTime.addAndGet(loadTime);
 	}
 
 	protected String getAccumuloTablename() {
@@ -222,21 +263,99 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 
 	protected void addObjectToCache(
 			final T object ) {
+		addObjectToCache(
+				object,
+				UNKNOWN_TIMESTAMP);
+	}
+
+	/**
+	 * @param object
+	 * @param timestamp
+	 *            the timestamp of the row the object was read from
+	 */
+	protected void addObjectToCache(
+			final T object,
+			final long timestamp ) {
 		final ByteArrayId combinedId = getCombinedId(
 				getPrimaryId(object),
 				getSecondaryId(object));
 		cache.put(
 				combinedId,
-				object);
+				new CachedObject<T>(
+						object,
+						timestamp,
+						System.nanoTime() + revalidateAfterNanos));
 	}
 
 	protected Object getObjectFromCache(
 			final ByteArrayId primaryId,
-			final ByteArrayId secondaryId ) {
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
 		final ByteArrayId combinedId = getCombinedId(
 				primaryId,
 				secondaryId);
-		return cache.get(combinedId);
+		final CachedObject<T> cached = cache.getIfPresent(combinedId);
+		if (cached == null) {
+			return null;
+		}
+		if ((revalidateAfterNanos > 0) && ((System.nanoTime() - cached.revalidateTime) > 0)) {
+			return revalidate(
+					combinedId,
+					cached,
+					primaryId,
+					secondaryId,
+					authorizations);
+		}
+		return cached.object;
+	}
+
+	/**
+	 * Check the timestamp of a cached object's row, reading the object again
+	 * only if the row has changed. The row is read with the same authorizations
+	 * as the object itself, otherwise a row that requires them would appear to
+	 * be deleted.
+	 */
+	private T revalidate(
+			final ByteArrayId combinedId,
+			final CachedObject<T> cached,
+			final ByteArrayId primaryId,
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
+		try {
+			final BatchScanner scanner = getScanner(
+					primaryId,
+					secondaryId,
+					authorizations);
+			try {
+				final Iterator<Entry<Key, Value>> it = scanner.iterator();
+				if (!it.hasNext()) {
+					// the object was deleted externally
+					cache.invalidate(combinedId);
+					return null;
+				}
+				final Entry<Key, Value> entry = it.next();
+				if (entry.getKey().getTimestamp() == cached.timestamp) {
+					cache.put(
+							combinedId,
+							new CachedObject<T>(
+									cached.object,
+									cached.timestamp,
+									System.nanoTime() + revalidateAfterNanos));
+					return cached.object;
+				}
+				return entryToValue(entry);
+			}
+			finally {
+				scanner.close();
+			}
+		}
+		catch (final TableNotFoundException e) {
+			LOGGER.warn(
+					"Unable to revalidate object '" + combinedId.getString() + "'",
+					e);
+			cache.invalidate(combinedId);
+		}
+		return null;
 	}
 
 	protected boolean deleteObjectFromCache(
@@ -245,7 +364,7 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		final ByteArrayId combinedId = getCombinedId(
 				primaryId,
 				secondaryId);
-		return (cache.remove(combinedId) != null);
+		return (cache.asMap().remove(combinedId) != null);
 	}
 
 	protected IteratorConfig[] getIteratorConfig() {
@@ -286,10 +405,13 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 			final String... authorizations ) {
 		final Object cacheResult = getObjectFromCache(
 				primaryId,
-				secondaryId);
+				secondaryId,
+				authorizations);
 		if (cacheResult != null) {
 			return (T) cacheResult;
 		}
+		final long startTime = System.nanoTime();
+		T result = null;
 		try {
 			final BatchScanner scanner = getScanner(
 					primaryId,
@@ -304,10 +426,14 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 					return null;
 				}
 				final Entry<Key, Value> entry = it.next();
-				return entryToValue(entry);
+				result = entryToValue(entry);
+				return result;
 			}
 			finally {
 				scanner.close();
+				recordLoad(
+						result != null,
+						System.nanoTime() - startTime);
 			}
 		}
 		catch (final TableNotFoundException e) {
@@ -320,6 +446,132 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		return null;
 	}
 
+	/**
+	 * Get several objects, reading all of those that are not cached with a
+	 * single batch scan.
+	 *
+	 * @param primaryIds
+	 *            the primary IDs of the objects
+	 * @param secondaryIds
+	 *            the secondary IDs of the objects, in the same order as the
+	 *            primary IDs, or null if the objects have no secondary ID
+	 * @param authorizations
+	 * @return the objects in the order of the IDs, with null for any that do
+	 *         not exist
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<T> getObjects(
+			final List<ByteArrayId> primaryIds,
+			final List<ByteArrayId> secondaryIds,
+			final String... authorizations ) {
+		final List<T> results = new ArrayList<T>(
+				Collections.<T> nCopies(
+						primaryIds.size(),
+						null));
+		// the positions of the objects that are not cached, by row
+		final Map<ByteArrayId, List<Integer>> misses = new LinkedHashMap<ByteArrayId, List<Integer>>();
+		boolean fetchColumnFamily = (secondaryIds == null);
+		for (int i = 0; i < primaryIds.size(); i++) {
+			final ByteArrayId secondaryId = (secondaryIds == null) ? null : secondaryIds.get(i);
+			final Object cacheResult = getObjectFromCache(
+					primaryIds.get(i),
+					secondaryId);
+			if (cacheResult != null) {
+				results.set(
+						i,
+						(T) cacheResult);
+				continue;
+			}
+			List<Integer> rowMisses = misses.get(primaryIds.get(i));
+			if (rowMisses == null) {
+				rowMisses = new ArrayList<Integer>();
+				misses.put(
+						primaryIds.get(i),
+						rowMisses);
+			}
+			rowMisses.add(i);
+			fetchColumnFamily |= (secondaryId == null);
+		}
+		if (misses.isEmpty()) {
+			return results;
+		}
+		final long startTime = System.nanoTime();
+		try {
+			final BatchScanner scanner = accumuloOperations.createBatchScanner(
+					getAccumuloTablename(),
+					authorizations);
+			try {
+				final IteratorSetting[] settings = getScanSettings();
+				if ((settings != null) && (settings.length > 0)) {
+					for (final IteratorSetting setting : settings) {
+						scanner.addScanIterator(setting);
+					}
+				}
+				final Text columnFamily = new Text(
+						getAccumuloColumnFamily());
+				if (fetchColumnFamily) {
+					scanner.fetchColumnFamily(columnFamily);
+				}
+				else {
+					for (final List<Integer> rowMisses : misses.values()) {
+						for (final Integer i : rowMisses) {
+							scanner.fetchColumn(
+									columnFamily,
+									new Text(
+											getAccumuloColumnQualifier(secondaryIds.get(i))));
+						}
+					}
+				}
+				final Collection<Range> ranges = new ArrayList<Range>();
+				for (final ByteArrayId primaryId : misses.keySet()) {
+					ranges.add(new Range(
+							new Text(
+									primaryId.getBytes())));
+				}
+				scanner.setRanges(ranges);
+				final Iterator<Entry<Key, Value>> it = scanner.iterator();
+				while (it.hasNext()) {
+					final Entry<Key, Value> entry = it.next();
+					final List<Integer> rowMisses = misses.get(getPrimaryId(entry.getKey()));
+					if (rowMisses == null) {
+						continue;
+					}
+					T value = null;
+					for (final Integer i : rowMisses) {
+						final ByteArrayId secondaryId = (secondaryIds == null) ? null : secondaryIds.get(i);
+						if ((results.get(i) == null) && ((secondaryId == null) || secondaryId.equals(getSecondaryId(entry.getKey())))) {
+							if (value == null) {
+								value = entryToValue(entry);
+							}
+							results.set(
+									i,
+									value);
+						}
+					}
+				}
+			}
+			finally {
+				scanner.close();
+			}
+		}
+		catch (final TableNotFoundException e) {
+			LOGGER.error(
+					"Unable to find objects, table '" + getAccumuloTablename() + "' does not exist",
+					e);
+		}
+		// the time of the scan is attributed to the first load
+		long loadTime = System.nanoTime() - startTime;
+		for (final List<Integer> rowMisses : misses.values()) {
+			for (final Integer i : rowMisses) {
+				recordLoad(
+						results.get(i) != null,
+						loadTime);
+				loadTime = 0;
+			}
+		}
+		return results;
+	}
+
 	protected CloseableIterator<T> getObjects(
 			final String... authorizations ) {
 		try {
@@ -346,7 +598,9 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 				entry.getValue().get(),
 				Persistable.class);
 		if (result != null) {
-			addObjectToCache(result);
+			addObjectToCache(
+					result,
+					entry.getKey().getTimestamp());
 		}
 		return result;
 	}
@@ -406,9 +660,12 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 			final ByteArrayId primaryId,
 			final ByteArrayId secondaryId,
 			final String... authorizations ) {
-		return deleteObjectFromCache(
+		// the object may have been evicted from the cache, so it is deleted
+		// from the table regardless
+		deleteObjectFromCache(
 				primaryId,
-				secondaryId) && accumuloOperations.delete(
+				secondaryId);
+		return accumuloOperations.delete(
 				getAccumuloTablename(),
 				Arrays.asList(primaryId),
 				getAccumuloColumnFamily(),
@@ -492,6 +749,22 @@ abstract public class AbstractAccumuloPersistence<T extends Persistable>
 		return false;
 	}
 
+	protected static class CachedObject<T>
+	{
+		private final T object;
+		private final long timestamp;
+		private final long revalidateTime;
+
+		private CachedObject(
+				final T object,
+				final long timestamp,
+				final long revalidateTime ) {
+			this.object = object;
+			this.timestamp = timestamp;
+			this.revalidateTime = revalidateTime;
+		}
+	}
+
 	private class DeleteIteratorWrapper implements
 			Iterator<T>
 	{
@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo.metadata;
 
+import java.util.List;
+
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
@@ -10,9 +12,9 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
  * This class will persist Data Adapters within an Accumulo table for GeoWave
  * metadata. The adapters will be persisted in an "ADAPTER" column family.
  * 
- * There is an LRU cache associated with it so staying in sync with external
- * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * There is an LRU cache associated with it, which by default assumes the
+ * objects are not updated often or at all (see MetadataCacheOptions). The
+ * objects are stored in their own table.
  */
 public class AccumuloAdapterStore extends
 		AbstractAccumuloPersistence<DataAdapter<?>> implements
@@ -26,6 +28,14 @@ public class AccumuloAdapterStore extends
 				accumuloOperations);
 	}
 
+	public AccumuloAdapterStore(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
+		super(
+				accumuloOperations,
+				cacheOptions);
+	}
+
 	@Override
 	public void addAdapter(
 			final DataAdapter<?> adapter ) {
@@ -40,6 +50,20 @@ public class AccumuloAdapterStore extends
 				null);
 	}
 
+	/**
+	 * Get several adapters, reading any that are not cached with a single scan.
+	 *
+	 * @param adapterIds
+	 * @return the adapters in the order of the IDs, with null for any that do
+	 *         not exist
+	 */
+	public List<DataAdapter<?>> getAdapters(
+			final List<ByteArrayId> adapterIds ) {
+		return getObjects(
+				adapterIds,
+				null);
+	}
+
 	@Override
 	public boolean adapterExists(
 			final ByteArrayId adapterId ) {
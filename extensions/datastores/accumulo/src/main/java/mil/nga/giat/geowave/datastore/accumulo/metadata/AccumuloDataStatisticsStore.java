@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo.metadata;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map.Entry;
@@ -62,7 +63,8 @@ public class AccumuloDataStatisticsStore extends
 
 	@Override
 	protected void addObjectToCache(
-			final DataStatistics<?> object ) {
+			final DataStatistics<?> object,
+			final long timestamp ) {
 		// don't use the cache at all for now
 
 		// TODO consider adding a setting to use the cache for statistics, but
@@ -74,7 +76,8 @@ public class AccumuloDataStatisticsStore extends
 	@Override
 	protected Object getObjectFromCache(
 			final ByteArrayId primaryId,
-			final ByteArrayId secondaryId ) {
+			final ByteArrayId secondaryId,
+			final String... authorizations ) {
 		// don't use the cache at all
 
 		// TODO consider adding a setting to use the cache for statistics, but
@@ -177,6 +180,27 @@ public class AccumuloDataStatisticsStore extends
 		return getObjects(authorizations);
 	}
 
+	/**
+	 * Get the statistics of several adapters with a single scan.
+	 *
+	 * @param adapterIds
+	 * @param statisticsId
+	 * @param authorizations
+	 * @return the statistics in the order of the adapter IDs, with null for any
+	 *         adapter without the statistics
+	 */
+	public List<DataStatistics<?>> getDataStatistics(
+			final List<ByteArrayId> adapterIds,
+			final ByteArrayId statisticsId,
+			final String... authorizations ) {
+		return getObjects(
+				Collections.nCopies(
+						adapterIds.size(),
+						statisticsId),
+				adapterIds,
+				authorizations);
+	}
+
 	@Override
 	public boolean removeStatistics(
 			final ByteArrayId adapterId,
@@ -1,5 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo.metadata;
 
+import java.util.List;
+
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.index.Index;
@@ -10,9 +12,9 @@ import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
  * This class will persist Index objects within an Accumulo table for GeoWave
  * metadata. The indices will be persisted in an "INDEX" column family.
  * 
- * There is an LRU cache associated with it so staying in sync with external
- * updates is not practical - it assumes the objects are not updated often or at
- * all. The objects are stored in their own table.
+ * There is an LRU cache associated with it, which by default assumes the
+ * objects are not updated often or at all (see MetadataCacheOptions). The
+ * objects are stored in their own table.
  * 
  **/
 public class AccumuloIndexStore extends
@@ -27,6 +29,14 @@ public class AccumuloIndexStore extends
 				accumuloOperations);
 	}
 
+	public AccumuloIndexStore(
+			final AccumuloOperations accumuloOperations,
+			final MetadataCacheOptions cacheOptions ) {
+		super(
+				accumuloOperations,
+				cacheOptions);
+	}
+
 	@Override
 	public void addIndex(
 			final Index index ) {
@@ -41,6 +51,20 @@ public class AccumuloIndexStore extends
 				null);
 	}
 
+	/**
+	 * Get several indices, reading any that are not cached with a single scan.
+	 *
+	 * @param indexIds
+	 * @return the indices in the order of the IDs, with null for any that do
+	 *         not exist
+	 */
+	public List<Index> getIndices(
+			final List<ByteArrayId> indexIds ) {
+		return getObjects(
+				indexIds,
+				null);
+	}
+
 	@Override
 	protected String getPersistenceTypeName() {
 		return INDEX_CF;
@@ -0,0 +1,61 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+/**
+ * This class can be used to modify the behavior of the cache of GeoWave
+ * metadata objects, such as data adapters and indices, that is kept by each
+ * metadata store.
+ *
+ */
+public class MetadataCacheOptions
+{
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	protected int maxEntries = DEFAULT_MAX_ENTRIES;
+	protected long expireAfterWriteMillis = 0;
+	protected long revalidateAfterMillis = 0;
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @param maxEntries
+	 *            the number of objects to cache, the least recently used
+	 *            objects are evicted beyond this size
+	 */
+	public void setMaxEntries(
+			final int maxEntries ) {
+		this.maxEntries = maxEntries;
+	}
+
+	public long getExpireAfterWriteMillis() {
+		return expireAfterWriteMillis;
+	}
+
+	/**
+	 * @param expireAfterWriteMillis
+	 *            the time after which a cached object is evicted and read from
+	 *            Accumulo again, or 0 to keep cached objects until they are
+	 *            evicted by size
+	 */
+	public void setExpireAfterWriteMillis(
+			final long expireAfterWriteMillis ) {
+		this.expireAfterWriteMillis = expireAfterWriteMillis;
+	}
+
+	public long getRevalidateAfterMillis() {
+		return revalidateAfterMillis;
+	}
+
+	/**
+	 * @param revalidateAfterMillis
+	 *            the time after which a cached object is checked against the
+	 *            timestamp of its row in Accumulo when it is next used, or 0 to
+	 *            assume cached objects are never changed externally. An object
+	 *            is only deserialized again if its row has changed.
+	 */
+	public void setRevalidateAfterMillis(
+			final long revalidateAfterMillis ) {
+		this.revalidateAfterMillis = revalidateAfterMillis;
+	}
+}
@@ -0,0 +1,81 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.util.Arrays;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.filter.FilterList;
+import mil.nga.giat.geowave.core.store.filter.QueryFilter;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.query.Query;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+
+import org.apache.accumulo.core.client.ScannerBase;
+
+/**
+ * This class selects the rows of a single adapter that match a query so that
+ * they can be deleted. The constraints and the distributable filters of the
+ * query are applied by the tablet servers, which return each matching row
+ * encoded as a whole row. Unlike a query, no de-duplication is applied because
+ * every row of a duplicated entry must be deleted.
+ */
+public class AccumuloConstraintsDeleteQuery extends
+		AccumuloConstraintsQuery
+{
+	/**
+	 *
+	 * @param adapterId
+	 *            the adapter whose rows are deleted
+	 * @param index
+	 *            the index to delete from
+	 * @param query
+	 *            the query, or null to delete every row of the adapter
+	 */
+	public AccumuloConstraintsDeleteQuery(
+			final ByteArrayId adapterId,
+			final Index index,
+			final Query query,
+			final String... authorizations ) {
+		super(
+				Arrays.asList(adapterId),
+				index,
+				query != null ? query.getIndexConstraints(index.getIndexStrategy()) : null,
+				query != null ? query.createFilters(index.getIndexModel()) : null,
+				null,
+				null,
+				authorizations);
+		// the dedupe filters are always added first
+		clientFilters.remove(0);
+		distributableFilters.remove(0);
+	}
+
+	/**
+	 * @return a scanner over the encoded rows that match the query, or null if
+	 *         the table does not exist
+	 */
+	public ScannerBase createScanner(
+			final AccumuloOperations accumuloOperations ) {
+		if (!accumuloOperations.tableExists(StringUtils.stringFromBinary(index.getId().getBytes()))) {
+			return null;
+		}
+		final ScannerBase scanner = getScanner(
+				accumuloOperations,
+				null);
+		if (scanner != null) {
+			addScanIteratorSettings(scanner);
+		}
+		return scanner;
+	}
+
+	/**
+	 * @return the filters of the query that must be applied to the decoded
+	 *         rows on the client, or null if there are none
+	 */
+	public QueryFilter getClientFilter() {
+		if (clientFilters.isEmpty()) {
+			return null;
+		}
+		return new FilterList<QueryFilter>(
+				clientFilters);
+	}
+}
@@ -7,6 +7,7 @@ import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
+import mil.nga.giat.geowave.core.index.RowRangeCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
 import mil.nga.giat.geowave.core.store.ScanCallback;
 import mil.nga.giat.geowave.core.store.filter.DedupeFilter;
@@ -32,6 +33,7 @@ public class AccumuloConstraintsQuery extends
 	protected final MultiDimensionalNumericData constraints;
 	protected final List<DistributableQueryFilter> distributableFilters;
 	protected boolean queryFiltersEnabled;
+	protected RowRangeCardinalityEstimator cardinalityEstimator;
 
 	public AccumuloConstraintsQuery(
 			final Index index,
@@ -192,7 +194,25 @@ public class AccumuloConstraintsQuery extends
 		return AccumuloUtils.constraintsToByteArrayRanges(
 				constraints,
 				index.getIndexStrategy(),
-				MAX_RANGE_DECOMPOSITION);
+				MAX_RANGE_DECOMPOSITION,
+				cardinalityEstimator);
+	}
+
+	public RowRangeCardinalityEstimator getCardinalityEstimator() {
+		return cardinalityEstimator;
+	}
+
+	/**
+	 * Set an estimate of the distribution of rows in the index, such as its
+	 * row range histogram statistics, to decompose the query globally across
+	 * tiers and bins so that the ranges scan the fewest unwanted rows
+	 * 
+	 * @param cardinalityEstimator
+	 *            the estimator, null to split the range budget evenly
+	 */
+	public void setCardinalityEstimator(
+			final RowRangeCardinalityEstimator cardinalityEstimator ) {
+		this.cardinalityEstimator = cardinalityEstimator;
 	}
 
 	public boolean isQueryFiltersEnabled() {
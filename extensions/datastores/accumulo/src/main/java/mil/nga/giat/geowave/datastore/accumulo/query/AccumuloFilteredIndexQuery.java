@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.datastore.accumulo.query;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -105,17 +106,16 @@ public abstract class AccumuloFilteredIndexQuery extends
 				accumuloOperations,
 				limit);
 
+		if (scanner == null) {
+			LOGGER.error("Could not get scanner instance, getScanner returned null");
+			return new CloseableIterator.Empty();
+		}
 		// a subset of fieldIds is being requested
-		if (fieldIds != null && !fieldIds.isEmpty()) {
+		if ((fieldIds != null) && !fieldIds.isEmpty()) {
 			// configure scanner to fetch only the fieldIds specified
 			handleSubsetOfFieldIds(
 					scanner,
-					adapterStore.getAdapters());
-		}
-
-		if (scanner == null) {
-			LOGGER.error("Could not get scanner instance, getScanner returned null");
-			return new CloseableIterator.Empty();
+					adapterStore);
 		}
 		addScanIteratorSettings(scanner);
 		Iterator it = initIterator(
@@ -146,43 +146,48 @@ public abstract class AccumuloFilteredIndexQuery extends
 
 	private void handleSubsetOfFieldIds(
 			final ScannerBase scanner,
-			final CloseableIterator<DataAdapter<?>> dataAdapters ) {
+			final AdapterStore adapterStore ) {
+		// fetching the whole column family of an adapter would return every
+		// field, so replace those with the individual columns
+		scanner.clearColumns();
 
-		Set<ByteArrayId> uniqueDimensions = new HashSet<>();
+		final Set<ByteArrayId> uniqueFieldIds = new HashSet<ByteArrayId>();
+		// dimension fields must be included
 		for (final DimensionField<? extends CommonIndexValue> dimension : index.getIndexModel().getDimensions()) {
-			uniqueDimensions.add(dimension.getFieldId());
+			uniqueFieldIds.add(dimension.getFieldId());
+		}
+		for (final String fieldId : fieldIds) {
+			uniqueFieldIds.add(new ByteArrayId(
+					StringUtils.stringToBinary(fieldId)));
 		}
 
-		while (dataAdapters.hasNext()) {
-
-			final Text colFam = new Text(
-					dataAdapters.next().getAdapterId().getBytes());
-
-			// dimension fields must be included
-			for (ByteArrayId dimension : uniqueDimensions) {
-				scanner.fetchColumn(
-						colFam,
-						new Text(
-								dimension.getBytes()));
+		final List<ByteArrayId> queriedAdapterIds = new ArrayList<ByteArrayId>();
+		if ((adapterIds != null) && !adapterIds.isEmpty()) {
+			queriedAdapterIds.addAll(adapterIds);
+		}
+		else {
+			try (final CloseableIterator<DataAdapter<?>> dataAdapters = adapterStore.getAdapters()) {
+				while (dataAdapters.hasNext()) {
+					queriedAdapterIds.add(dataAdapters.next().getAdapterId());
+				}
+			}
+			catch (final IOException e) {
+				LOGGER.error(
+						"Unable to close iterator",
+						e);
 			}
+		}
 
+		for (final ByteArrayId adapterId : queriedAdapterIds) {
+			final Text colFam = new Text(
+					adapterId.getBytes());
 			// configure scanner to fetch only the specified fieldIds
-			for (String fieldId : fieldIds) {
+			for (final ByteArrayId fieldId : uniqueFieldIds) {
 				scanner.fetchColumn(
 						colFam,
 						new Text(
-								StringUtils.stringToBinary(fieldId)));
+								fieldId.getBytes()));
 			}
 		}
-
-		try {
-			dataAdapters.close();
-		}
-		catch (IOException e) {
-			LOGGER.error(
-					"Unable to close iterator",
-					e);
-		}
-
 	}
 }
@@ -50,6 +50,10 @@ abstract public class AccumuloQuery
 
 	abstract protected List<ByteArrayRange> getRanges();
 
+	public Index getIndex() {
+		return index;
+	}
+
 	protected ScannerBase getScanner(
 			final AccumuloOperations accumuloOperations,
 			final Integer limit ) {
@@ -0,0 +1,261 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.ByteArrayRange;
+import mil.nga.giat.geowave.core.store.adapter.statistics.RowRangeHistogramStatistics;
+import mil.nga.giat.geowave.datastore.accumulo.query.QueryPlan.IndexEstimate;
+
+/**
+ * This class chooses which of the indices that support a query should be
+ * scanned. The number of rows each index would scan is estimated from the row
+ * range histogram statistics of each adapter over the ranges the query
+ * decomposes into. An adapter is considered to be covered by an index if its
+ * histogram for the index has samples, which assumes that an adapter written
+ * to an index is written there in full. As that cannot be verified from the
+ * statistics, selection is only applied when it is enabled in the
+ * AccumuloOptions.
+ *
+ * The cheapest set of indices that covers every queried adapter is chosen
+ * greedily and each adapter is then queried in only the cheapest of the
+ * chosen indices that covers it, so that the chosen indices never return the
+ * same entry. If any adapter is not covered by the statistics, every index is
+ * queried as it would be without statistics.
+ */
+public class AccumuloQueryPlanner
+{
+	/**
+	 *
+	 * @param adapterIds
+	 *            the adapters of the query, resolved to every adapter in the
+	 *            store if the query is not restricted to adapters
+	 * @param candidates
+	 *            a query for each index that supports the query
+	 * @param adapterHistograms
+	 *            for each candidate, the histogram of each adapter in the
+	 *            order of the adapter IDs, with null for any adapter that does
+	 *            not have one
+	 * @param selectIndices
+	 *            false to only estimate the candidates and query all of them
+	 * @return the plan
+	 */
+	public static QueryPlan plan(
+			final List<ByteArrayId> adapterIds,
+			final List<AccumuloConstraintsQuery> candidates,
+			final List<List<RowRangeHistogramStatistics<?>>> adapterHistograms,
+			final boolean selectIndices ) {
+		final int numCandidates = candidates.size();
+		final int numAdapters = adapterIds.size();
+		final double[][] rows = new double[numCandidates][numAdapters];
+		final boolean[][] covered = new boolean[numCandidates][numAdapters];
+		final Double[] estimatedRows = new Double[numCandidates];
+		final List<List<ByteArrayId>> coveredAdapterIds = new ArrayList<List<ByteArrayId>>();
+		for (int i = 0; i < numCandidates; i++) {
+			final List<RowRangeHistogramStatistics<?>> histograms = adapterHistograms.get(i);
+			final List<ByteArrayId> coveredIds = new ArrayList<ByteArrayId>();
+			List<ByteArrayRange> ranges = null;
+			for (int a = 0; a < numAdapters; a++) {
+				final RowRangeHistogramStatistics<?> histogram = histograms.get(a);
+				if ((histogram == null) || (histogram.totalSampleSize() <= 0)) {
+					continue;
+				}
+				if (ranges == null) {
+					ranges = candidates.get(
+							i).getRanges();
+				}
+				covered[i][a] = true;
+				rows[i][a] = estimateRows(
+						histogram,
+						ranges);
+				coveredIds.add(adapterIds.get(a));
+				estimatedRows[i] = (estimatedRows[i] == null ? 0 : estimatedRows[i]) + rows[i][a];
+			}
+			coveredAdapterIds.add(coveredIds);
+		}
+
+		final boolean[] selected = new boolean[numCandidates];
+		final List<List<ByteArrayId>> queriedAdapterIds = new ArrayList<List<ByteArrayId>>(
+				Collections.<List<ByteArrayId>> nCopies(
+						numCandidates,
+						null));
+		String reason = null;
+		if (!selectIndices) {
+			reason = "index selection is disabled";
+		}
+		else if (numCandidates <= 1) {
+			reason = "a single index supports the query";
+		}
+		else if (numAdapters == 0) {
+			reason = "there are no adapters to estimate";
+		}
+		else {
+			for (int a = 0; a < numAdapters; a++) {
+				boolean adapterCovered = false;
+				for (int i = 0; i < numCandidates; i++) {
+					adapterCovered |= covered[i][a];
+				}
+				if (!adapterCovered) {
+					reason = "no statistics cover adapter '" + adapterIds.get(
+							a).getString() + "'";
+					break;
+				}
+			}
+		}
+		if (reason != null) {
+			for (int i = 0; i < numCandidates; i++) {
+				selected[i] = true;
+			}
+		}
+		else {
+			selectCheapestCover(
+					rows,
+					covered,
+					selected);
+			// query each adapter in the cheapest of the selected indices that
+			// covers it
+			final List<List<ByteArrayId>> assigned = new ArrayList<List<ByteArrayId>>();
+			for (int i = 0; i < numCandidates; i++) {
+				assigned.add(new ArrayList<ByteArrayId>());
+			}
+			for (int a = 0; a < numAdapters; a++) {
+				int cheapest = -1;
+				for (int i = 0; i < numCandidates; i++) {
+					if (selected[i] && covered[i][a] && ((cheapest < 0) || (rows[i][a] < rows[cheapest][a]))) {
+						cheapest = i;
+					}
+				}
+				assigned.get(
+						cheapest).add(
+						adapterIds.get(a));
+			}
+			int numSelected = 0;
+			for (int i = 0; i < numCandidates; i++) {
+				if (selected[i] && assigned.get(
+						i).isEmpty()) {
+					selected[i] = false;
+				}
+				if (selected[i]) {
+					numSelected++;
+				}
+			}
+			if (numSelected > 1) {
+				for (int i = 0; i < numCandidates; i++) {
+					if (selected[i]) {
+						queriedAdapterIds.set(
+								i,
+								assigned.get(i));
+					}
+				}
+				reason = "the cheapest indices covering every adapter were selected";
+			}
+			else {
+				reason = "the cheapest index covering every adapter was selected";
+			}
+		}
+
+		final List<IndexEstimate> estimates = new ArrayList<IndexEstimate>();
+		for (int i = 0; i < numCandidates; i++) {
+			estimates.add(new IndexEstimate(
+					candidates.get(
+							i).getIndex(),
+					estimatedRows[i],
+					coveredAdapterIds.get(i),
+					selected[i],
+					queriedAdapterIds.get(i)));
+		}
+		return new QueryPlan(
+				estimates,
+				reason);
+	}
+
+	/**
+	 * Plan to query every candidate, used when there are no statistics to
+	 * estimate them with
+	 */
+	public static QueryPlan selectAll(
+			final List<AccumuloConstraintsQuery> candidates,
+			final String reason ) {
+		final List<IndexEstimate> estimates = new ArrayList<IndexEstimate>();
+		for (final AccumuloConstraintsQuery candidate : candidates) {
+			estimates.add(new IndexEstimate(
+					candidate.getIndex(),
+					null,
+					Collections.<ByteArrayId> emptyList(),
+					true,
+					null));
+		}
+		return new QueryPlan(
+				estimates,
+				reason);
+	}
+
+	private static double estimateRows(
+			final RowRangeHistogramStatistics<?> histogram,
+			final List<ByteArrayRange> ranges ) {
+		if ((ranges == null) || ranges.isEmpty()) {
+			// the whole index is scanned
+			return histogram.totalSampleSize();
+		}
+		double rows = 0;
+		for (final ByteArrayRange range : ranges) {
+			rows += Math.max(
+					0,
+					histogram.cardinality(
+							range.getStart().getBytes(),
+							range.getEnd().getBytes()));
+		}
+		return rows;
+	}
+
+	/**
+	 * Greedy weighted set cover, repeatedly selecting the index with the lowest
+	 * estimated rows per adapter it newly covers
+	 */
+	private static void selectCheapestCover(
+			final double[][] rows,
+			final boolean[][] covered,
+			final boolean[] selected ) {
+		final int numCandidates = rows.length;
+		final int numAdapters = numCandidates > 0 ? rows[0].length : 0;
+		final boolean[] adapterCovered = new boolean[numAdapters];
+		int remaining = numAdapters;
+		while (remaining > 0) {
+			int best = -1;
+			double bestCost = Double.MAX_VALUE;
+			for (int i = 0; i < numCandidates; i++) {
+				if (selected[i]) {
+					continue;
+				}
+				int newlyCovered = 0;
+				double cost = 0;
+				for (int a = 0; a < numAdapters; a++) {
+					if (!adapterCovered[a] && covered[i][a]) {
+						newlyCovered++;
+						cost += rows[i][a];
+					}
+				}
+				if (newlyCovered == 0) {
+					continue;
+				}
+				cost /= newlyCovered;
+				if ((best < 0) || (cost < bestCost)) {
+					best = i;
+					bestCost = cost;
+				}
+			}
+			if (best < 0) {
+				return;
+			}
+			selected[best] = true;
+			for (int a = 0; a < numAdapters; a++) {
+				if (!adapterCovered[a] && covered[best][a]) {
+					adapterCovered[a] = true;
+					remaining--;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,304 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
+import mil.nga.giat.geowave.core.store.data.PersistentDataset;
+import mil.nga.giat.geowave.core.store.data.PersistentValue;
+import mil.nga.giat.geowave.core.store.data.field.FieldReader;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+
+/**
+ * This is a reusable, lazily decoded view of a whole row for the query filter
+ * iterator. Rather than copying each element of the row ID and deserializing
+ * every field before the filter runs, the row ID metadata is read in place and
+ * the IDs and fields are only decoded when the filter asks for them. The same
+ * instance is reset for each row, so a filter must not retain it (or its
+ * common data) beyond a call to accept.
+ */
+public class AccumuloRowEncoding extends
+		IndexedPersistenceEncoding
+{
+	private final LazyCommonIndexDataset commonData;
+	private byte[] row;
+	private int rowLength;
+	private int insertionIdLength;
+	private int adapterIdLength;
+	private int dataIdLength;
+	private int duplicateCount;
+	private ByteArrayId adapterId;
+	private ByteArrayId dataId;
+	private ByteArrayId insertionId;
+
+	public AccumuloRowEncoding(
+			final CommonIndexModel model ) {
+		super(
+				null,
+				null,
+				null,
+				0,
+				null);
+		commonData = new LazyCommonIndexDataset(
+				model);
+	}
+
+	/**
+	 * Point this encoding at a new row
+	 *
+	 * @param row
+	 *            the backing array of the row ID
+	 * @param rowLength
+	 *            the length of the row ID within the backing array
+	 * @param keys
+	 *            the keys of the row
+	 * @param values
+	 *            the values of the row
+	 */
+	public void reset(
+			final byte[] row,
+			final int rowLength,
+			final List<Key> keys,
+			final List<Value> values ) {
+		this.row = row;
+		this.rowLength = rowLength;
+		adapterIdLength = readInt(rowLength - 12);
+		dataIdLength = readInt(rowLength - 8);
+		duplicateCount = readInt(rowLength - 4);
+		insertionIdLength = rowLength - 12 - adapterIdLength - dataIdLength;
+		// the adapter ID is usually the same as the previous row's so keep it
+		// if it matches
+		if ((adapterId != null) && !regionEquals(
+				adapterId.getBytes(),
+				insertionIdLength,
+				adapterIdLength)) {
+			adapterId = null;
+		}
+		dataId = null;
+		insertionId = null;
+		commonData.reset(
+				keys,
+				values);
+	}
+
+	@Override
+	public ByteArrayId getAdapterId() {
+		if (adapterId == null) {
+			adapterId = new ByteArrayId(
+					Arrays.copyOfRange(
+							row,
+							insertionIdLength,
+							insertionIdLength + adapterIdLength));
+		}
+		return adapterId;
+	}
+
+	@Override
+	public ByteArrayId getDataId() {
+		if (dataId == null) {
+			final int offset = insertionIdLength + adapterIdLength;
+			dataId = new ByteArrayId(
+					Arrays.copyOfRange(
+							row,
+							offset,
+							offset + dataIdLength));
+		}
+		return dataId;
+	}
+
+	@Override
+	public ByteArrayId getIndexInsertionId() {
+		if (insertionId == null) {
+			insertionId = new ByteArrayId(
+					Arrays.copyOf(
+							row,
+							insertionIdLength));
+		}
+		return insertionId;
+	}
+
+	@Override
+	public PersistentDataset<CommonIndexValue> getCommonData() {
+		return commonData;
+	}
+
+	@Override
+	public boolean isDeduplicationEnabled() {
+		return duplicateCount >= 0;
+	}
+
+	@Override
+	public int getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	@Override
+	public boolean isDuplicated() {
+		return duplicateCount > 0;
+	}
+
+	private int readInt(
+			final int offset ) {
+		return ((row[offset] & 0xff) << 24) | ((row[offset + 1] & 0xff) << 16) | ((row[offset + 2] & 0xff) << 8) | (row[offset + 3] & 0xff);
+	}
+
+	private boolean regionEquals(
+			final byte[] bytes,
+			final int offset,
+			final int length ) {
+		if ((bytes.length != length) || ((offset + length) > rowLength)) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (bytes[i] != row[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The fields of the row, each decoded from its value the first time it is
+	 * requested
+	 */
+	private static class LazyCommonIndexDataset extends
+			PersistentDataset<CommonIndexValue>
+	{
+		private final CommonIndexModel model;
+		private List<Key> keys;
+		private List<Value> values;
+		private int size;
+		private CommonIndexValue[] decodedValues = new CommonIndexValue[0];
+		private boolean[] decoded = new boolean[0];
+
+		private LazyCommonIndexDataset(
+				final CommonIndexModel model ) {
+			this.model = model;
+		}
+
+		private void reset(
+				final List<Key> keys,
+				final List<Value> values ) {
+			this.keys = keys;
+			this.values = values;
+			size = Math.min(
+					keys.size(),
+					values.size());
+			if (decoded.length < size) {
+				decodedValues = new CommonIndexValue[size];
+				decoded = new boolean[size];
+			}
+			else {
+				Arrays.fill(
+						decodedValues,
+						0,
+						size,
+						null);
+				Arrays.fill(
+						decoded,
+						0,
+						size,
+						false);
+			}
+		}
+
+		@Override
+		public CommonIndexValue getValue(
+				final ByteArrayId fieldId ) {
+			final byte[] fieldIdBytes = fieldId.getBytes();
+			for (int i = 0; i < size; i++) {
+				if (qualifierEquals(
+						keys.get(i).getColumnQualifierData(),
+						fieldIdBytes)) {
+					final CommonIndexValue value = decode(
+							i,
+							fieldId);
+					if (value != null) {
+						return value;
+					}
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public List<PersistentValue<CommonIndexValue>> getValues() {
+			final List<PersistentValue<CommonIndexValue>> result = new ArrayList<PersistentValue<CommonIndexValue>>(
+					size);
+			final List<ByteArrayId> fieldIds = new ArrayList<ByteArrayId>(
+					size);
+			for (int i = 0; i < size; i++) {
+				final ByteArrayId fieldId = new ByteArrayId(
+						keys.get(
+								i).getColumnQualifierData().toArray());
+				// as with a dataset built up value by value, the first value
+				// for a field ID wins
+				if (fieldIds.contains(fieldId)) {
+					continue;
+				}
+				final CommonIndexValue value = decode(
+						i,
+						fieldId);
+				if (value != null) {
+					fieldIds.add(fieldId);
+					result.add(new PersistentValue<CommonIndexValue>(
+							fieldId,
+							value));
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void addValue(
+				final PersistentValue<CommonIndexValue> value ) {
+			throw new UnsupportedOperationException(
+					"The fields of a row being filtered are read-only");
+		}
+
+		@Override
+		public void addOrUpdateValue(
+				final PersistentValue<CommonIndexValue> value ) {
+			throw new UnsupportedOperationException(
+					"The fields of a row being filtered are read-only");
+		}
+
+		private CommonIndexValue decode(
+				final int i,
+				final ByteArrayId fieldId ) {
+			if (!decoded[i]) {
+				decoded[i] = true;
+				final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
+				if (reader != null) {
+					final Key key = keys.get(i);
+					final CommonIndexValue fieldValue = reader.readField(values.get(
+							i).get());
+					fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
+					decodedValues[i] = fieldValue;
+				}
+			}
+			return decodedValues[i];
+		}
+
+		private static boolean qualifierEquals(
+				final ByteSequence qualifier,
+				final byte[] fieldId ) {
+			if (qualifier.length() != fieldId.length) {
+				return false;
+			}
+			for (int i = 0; i < fieldId.length; i++) {
+				if (qualifier.byteAt(i) != fieldId[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
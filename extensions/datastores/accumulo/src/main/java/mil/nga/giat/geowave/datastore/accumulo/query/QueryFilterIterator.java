@@ -4,17 +4,10 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
-import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
 import mil.nga.giat.geowave.core.index.PersistenceUtils;
-import mil.nga.giat.geowave.core.store.data.IndexedPersistenceEncoding;
-import mil.nga.giat.geowave.core.store.data.PersistentDataset;
-import mil.nga.giat.geowave.core.store.data.PersistentValue;
-import mil.nga.giat.geowave.core.store.data.field.FieldReader;
 import mil.nga.giat.geowave.core.store.filter.DistributableQueryFilter;
 import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
-import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
-import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
@@ -42,6 +35,7 @@ public class QueryFilterIterator extends
 	protected static final String MODEL = "model";
 	private DistributableQueryFilter filter;
 	private CommonIndexModel model;
+	private AccumuloRowEncoding encoding;
 
 	@Override
 	protected boolean filter(
@@ -49,33 +43,13 @@ public class QueryFilterIterator extends
 			final List<Key> keys,
 			final List<Value> values ) {
 		if ((filter != null) && (model != null)) {
-			final AccumuloRowId rowId = new AccumuloRowId(
-					currentRow.getBytes());
-			final PersistentDataset<CommonIndexValue> commonData = new PersistentDataset<CommonIndexValue>();
-			for (int i = 0; (i < keys.size()) && (i < values.size()); i++) {
-				final Key key = keys.get(i);
-				final ByteArrayId fieldId = new ByteArrayId(
-						key.getColumnQualifierData().getBackingArray());
-				final FieldReader<? extends CommonIndexValue> reader = model.getReader(fieldId);
-				if (reader == null) {
-					continue;
-				}
-				final CommonIndexValue fieldValue = reader.readField(values.get(
-						i).get());
-				fieldValue.setVisibility(key.getColumnVisibilityData().getBackingArray());
-				commonData.addValue(new PersistentValue<CommonIndexValue>(
-						fieldId,
-						fieldValue));
-			}
-			final IndexedPersistenceEncoding encoding = new IndexedPersistenceEncoding(
-					new ByteArrayId(
-							rowId.getAdapterId()),
-					new ByteArrayId(
-							rowId.getDataId()),
-					new ByteArrayId(
-							rowId.getInsertionId()),
-					rowId.getNumberOfDuplicates(),
-					commonData);
+			// the encoding is reused for every row and only decodes what the
+			// filter asks for
+			encoding.reset(
+					currentRow.getBytes(),
+					currentRow.getLength(),
+					keys,
+					values);
 			return filter.accept(encoding);
 		}
 		// if the query filter or index model did not get sent to this iterator,
@@ -111,6 +85,8 @@ public class QueryFilterIterator extends
 			model = PersistenceUtils.fromBinary(
 					modelBytes,
 					CommonIndexModel.class);
+			encoding = new AccumuloRowEncoding(
+					model);
 		}
 		catch (final Exception e) {
 			throw new IllegalArgumentException(
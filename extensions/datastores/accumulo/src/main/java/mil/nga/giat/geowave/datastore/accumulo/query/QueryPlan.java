@@ -0,0 +1,155 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.index.Index;
+
+/**
+ * The indices chosen to answer a query along with the estimated number of rows
+ * each index that supports the query would scan, as decided by the
+ * AccumuloQueryPlanner.
+ */
+public class QueryPlan
+{
+	private final List<IndexEstimate> indexEstimates;
+	private final String reason;
+
+	public QueryPlan(
+			final List<IndexEstimate> indexEstimates,
+			final String reason ) {
+		this.indexEstimates = indexEstimates;
+		this.reason = reason;
+	}
+
+	/**
+	 * @return the estimates of every index that supports the query, in the
+	 *         order the indices were given to the planner
+	 */
+	public List<IndexEstimate> getIndexEstimates() {
+		return Collections.unmodifiableList(indexEstimates);
+	}
+
+	public List<IndexEstimate> getSelectedIndexEstimates() {
+		final List<IndexEstimate> selected = new ArrayList<IndexEstimate>();
+		for (final IndexEstimate estimate : indexEstimates) {
+			if (estimate.isSelected()) {
+				selected.add(estimate);
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * @return true if more than one selected index may return the same entry,
+	 *         so that results must be de-duplicated across indices
+	 */
+	public boolean isMultiIndexDedupeRequired() {
+		int indicesWithAllAdapters = 0;
+		int selectedIndices = 0;
+		for (final IndexEstimate estimate : indexEstimates) {
+			if (estimate.isSelected()) {
+				selectedIndices++;
+				if (estimate.getQueriedAdapterIds() == null) {
+					indicesWithAllAdapters++;
+				}
+			}
+		}
+		// indices that are restricted to their own adapters are disjoint
+		return (selectedIndices > 1) && (indicesWithAllAdapters > 0);
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder str = new StringBuilder();
+		str.append(
+				"QueryPlan [").append(
+				reason).append(
+				"]");
+		for (final IndexEstimate estimate : indexEstimates) {
+			str.append(
+					"\n  ").append(
+					estimate);
+		}
+		return str.toString();
+	}
+
+	public static class IndexEstimate
+	{
+		private final Index index;
+		private final Double estimatedRows;
+		private final List<ByteArrayId> coveredAdapterIds;
+		private final boolean selected;
+		private final List<ByteArrayId> queriedAdapterIds;
+
+		public IndexEstimate(
+				final Index index,
+				final Double estimatedRows,
+				final List<ByteArrayId> coveredAdapterIds,
+				final boolean selected,
+				final List<ByteArrayId> queriedAdapterIds ) {
+			this.index = index;
+			this.estimatedRows = estimatedRows;
+			this.coveredAdapterIds = coveredAdapterIds;
+			this.selected = selected;
+			this.queriedAdapterIds = queriedAdapterIds;
+		}
+
+		public Index getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return the estimated number of rows of the covered adapters that
+		 *         the query would scan in this index, or null if there are no
+		 *         statistics to estimate it
+		 */
+		public Double getEstimatedRows() {
+			return estimatedRows;
+		}
+
+		/**
+		 * @return the adapters with statistics showing they have rows in this
+		 *         index
+		 */
+		public List<ByteArrayId> getCoveredAdapterIds() {
+			return coveredAdapterIds;
+		}
+
+		public boolean isSelected() {
+			return selected;
+		}
+
+		/**
+		 * @return the adapters to query in this index if it is selected, or
+		 *         null to query the adapters of the original query
+		 */
+		public List<ByteArrayId> getQueriedAdapterIds() {
+			return queriedAdapterIds;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder str = new StringBuilder();
+			str.append(
+					selected ? "* " : "  ").append(
+					index.getId().getString()).append(
+					": estimatedRows=").append(
+					estimatedRows).append(
+					", coveredAdapters=").append(
+					coveredAdapterIds.size());
+			if (selected && (queriedAdapterIds != null)) {
+				str.append(
+						", queriedAdapters=").append(
+						queriedAdapterIds.size());
+			}
+			return str.toString();
+		}
+	}
+}
@@ -46,16 +46,33 @@ public class AccumuloKeyValuePairGenerator<T>
 	public List<AccumuloKeyValuePair> constructKeyValuePairs(
 			byte[] adapterId,
 			T entry ) {
+		return constructKeyValuePairs(
+				adapterId,
+				getIngestInfo(entry));
+	}
 
-		List<AccumuloKeyValuePair> keyValuePairs = new ArrayList<>();
-		Key key;
-		Value value;
-		AccumuloKeyValuePair keyValuePair;
-		DataStoreEntryInfo ingestInfo = AccumuloUtils.getIngestInfo(
+	/**
+	 * @return the row IDs and field values of the entry in the index, from
+	 *         which the key/value pairs are constructed and the statistics of
+	 *         the entry can be computed
+	 */
+	public DataStoreEntryInfo getIngestInfo(
+			T entry ) {
+		return AccumuloUtils.getIngestInfo(
 				adapter,
 				index,
 				entry,
 				visibilityWriter);
+	}
+
+	public List<AccumuloKeyValuePair> constructKeyValuePairs(
+			byte[] adapterId,
+			DataStoreEntryInfo ingestInfo ) {
+
+		List<AccumuloKeyValuePair> keyValuePairs = new ArrayList<>();
+		Key key;
+		Value value;
+		AccumuloKeyValuePair keyValuePair;
 		List<ByteArrayId> rowIds = ingestInfo.getRowIds();
 		@SuppressWarnings("rawtypes")
 		List<FieldInfo> fieldInfoList = ingestInfo.getFieldInfo();
@@ -17,8 +17,10 @@ import java.util.TreeSet;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayRange;
 import mil.nga.giat.geowave.core.index.NumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.RowRangeCardinalityEstimator;
 import mil.nga.giat.geowave.core.index.StringUtils;
 import mil.nga.giat.geowave.core.index.sfc.data.MultiDimensionalNumericData;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexStrategy;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.DataStoreEntryInfo;
 import mil.nga.giat.geowave.core.store.ScanCallback;
@@ -159,6 +161,30 @@ public class AccumuloUtils
 		}
 	}
 
+	public static List<ByteArrayRange> constraintsToByteArrayRanges(
+			final MultiDimensionalNumericData constraints,
+			final NumericIndexStrategy indexStrategy,
+			final int maxRanges,
+			final RowRangeCardinalityEstimator cardinalityEstimator ) {
+		if ((constraints == null) || constraints.isEmpty()) {
+			return new ArrayList<ByteArrayRange>(); // implies in negative and
+			// positive infinity
+		}
+		else if ((cardinalityEstimator != null) && (indexStrategy instanceof TieredSFCIndexStrategy)) {
+			// spend the range budget across all tiers and bins where the
+			// estimator expects it to avoid scanning the most rows
+			return ((TieredSFCIndexStrategy) indexStrategy).getQueryRanges(
+					constraints,
+					maxRanges,
+					cardinalityEstimator);
+		}
+		else {
+			return indexStrategy.getQueryRanges(
+					constraints,
+					maxRanges);
+		}
+	}
+
 	public static String getQualifiedTableName(
 			final String tableNamespace,
 			final String unqualifiedTableName ) {
@@ -0,0 +1,183 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This iterator opens and drains a set of scans concurrently, each on a thread
+ * of the given executor, and hands their results to the consumer through a
+ * bounded buffer in the order they become available. The scans block while the
+ * buffer is full, and closing this iterator cancels every scan that is still
+ * running and closes its underlying iterator. An iterator that is not consumed
+ * to the end must be closed, otherwise its scans hold their threads.
+ *
+ * If a scan fails, the failure is thrown to the consumer once the results that
+ * were buffered before it have been consumed.
+ *
+ * @param <E>
+ *            The type to iterate on
+ */
+public class ParallelCloseableIterator<E> implements
+		CloseableIterator<E>
+{
+	private final static Logger LOGGER = Logger.getLogger(ParallelCloseableIterator.class);
+	private final static Object END_OF_SCAN = new Object();
+	private final static long OFFER_TIMEOUT_MILLIS = 100;
+
+	private final BlockingQueue<Object> results;
+	private final List<Future<?>> futures = new ArrayList<Future<?>>();
+	private volatile boolean closed = false;
+	private int remainingScans;
+	private Object nextResult = null;
+
+	/**
+	 *
+	 * @param scans
+	 *            each opens the iterator of one scan, such as the query of an
+	 *            index, on a thread of the executor
+	 * @param executor
+	 *            the executor to run the scans on, which must be able to run
+	 *            all of them at once to avoid stalling on a full buffer
+	 * @param bufferSize
+	 *            the number of results to buffer ahead of the consumer
+	 */
+	public ParallelCloseableIterator(
+			final List<? extends Callable<? extends CloseableIterator<? extends E>>> scans,
+			final ExecutorService executor,
+			final int bufferSize ) {
+		results = new ArrayBlockingQueue<Object>(
+				Math.max(
+						bufferSize,
+						1));
+		remainingScans = scans.size();
+		for (final Callable<? extends CloseableIterator<? extends E>> scan : scans) {
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (closed) {
+							return;
+						}
+						try (CloseableIterator<? extends E> it = scan.call()) {
+							while (!closed && it.hasNext()) {
+								final E result = it.next();
+								if (result != null) {
+									offer(result);
+								}
+							}
+						}
+					}
+					catch (final Exception e) {
+						if (!closed) {
+							offer(new ScanFailure(
+									e));
+						}
+					}
+					finally {
+						offer(END_OF_SCAN);
+					}
+				}
+			}));
+		}
+	}
+
+	private void offer(
+			final Object result ) {
+		try {
+			while (!closed && !results.offer(
+					result,
+					OFFER_TIMEOUT_MILLIS,
+					TimeUnit.MILLISECONDS)) {
+				// the consumer is behind, keep waiting unless closed
+			}
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while ((nextResult == null) && (remainingScans > 0) && !closed) {
+			final Object result;
+			try {
+				result = results.take();
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				LOGGER.warn(
+						"Interrupted while waiting for scan results",
+						e);
+				closeQuietly();
+				return false;
+			}
+			if (result == END_OF_SCAN) {
+				remainingScans--;
+			}
+			else if (result instanceof ScanFailure) {
+				closeQuietly();
+				throw new RuntimeException(
+						"Unable to read scan results",
+						((ScanFailure) result).cause);
+			}
+			else {
+				nextResult = result;
+			}
+		}
+		return nextResult != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public E next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final Object result = nextResult;
+		nextResult = null;
+		return (E) result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Results cannot be removed from a parallel scan");
+	}
+
+	private void closeQuietly() {
+		closed = true;
+		nextResult = null;
+		for (final Future<?> future : futures) {
+			future.cancel(true);
+		}
+		results.clear();
+	}
+
+	@Override
+	public void close()
+			throws IOException {
+		closeQuietly();
+	}
+
+	private static class ScanFailure
+	{
+		private final Exception cause;
+
+		public ScanFailure(
+				final Exception cause ) {
+			this.cause = cause;
+		}
+	}
+}
@@ -2,20 +2,30 @@ package mil.nga.giat.geowave.datastore.accumulo;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LatitudeDefinition;
+import mil.nga.giat.geowave.core.geotime.index.dimension.LongitudeDefinition;
 import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
 import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
 import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.index.dimension.NumericDimensionDefinition;
+import mil.nga.giat.geowave.core.index.sfc.SFCFactory.SFCType;
+import mil.nga.giat.geowave.core.index.sfc.tiered.TieredSFCIndexFactory;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.IndexWriter;
 import mil.nga.giat.geowave.core.store.adapter.AbstractDataAdapter;
 import mil.nga.giat.geowave.core.store.adapter.NativeFieldHandler;
 import mil.nga.giat.geowave.core.store.adapter.PersistentIndexFieldHandler;
@@ -34,7 +44,9 @@ import mil.nga.giat.geowave.core.store.data.field.FieldUtils;
 import mil.nga.giat.geowave.core.store.data.field.FieldVisibilityHandler;
 import mil.nga.giat.geowave.core.store.data.field.FieldWriter;
 import mil.nga.giat.geowave.core.store.index.CommonIndexValue;
+import mil.nga.giat.geowave.core.store.index.CustomIdIndex;
 import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.core.store.query.Query;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
 import mil.nga.giat.geowave.datastore.accumulo.AccumuloOptions;
@@ -43,6 +55,8 @@ import mil.nga.giat.geowave.datastore.accumulo.mapreduce.input.GeoWaveInputForma
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
 import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.query.QueryPlan;
+import mil.nga.giat.geowave.datastore.accumulo.query.QueryPlan.IndexEstimate;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -166,6 +180,271 @@ public class AccumuloDataStoreStatsTest
 		runtest();
 	}
 
+	@Test
+	public void testConcurrentIndexWriter()
+			throws Exception {
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(true);
+		accumuloOptions.setPersistDataStatistics(true);
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+		final int threads = 4;
+		final int entriesPerThread = 50;
+		final IndexWriter indexWriter = mockDataStore.createIndexWriter(index);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int t = 0; t < threads; t++) {
+			final int thread = t;
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < entriesPerThread; i++) {
+						indexWriter.write(
+								adapter,
+								new TestGeometry(
+										factory.createPoint(new Coordinate(
+												thread,
+												i)),
+										"test_pt_" + thread + "_" + i));
+					}
+				}
+			}));
+		}
+		for (final Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		indexWriter.close();
+
+		final CountDataStatistics<?> countStats = (CountDataStatistics<?>) statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_ID);
+		assertEquals(
+				threads * entriesPerThread,
+				countStats.getCount());
+		assertTrue(adapterStore.adapterExists(adapter.getAdapterId()));
+		assertTrue(indexStore.indexExists(index.getId()));
+	}
+
+	@Test
+	public void testQueryPlan()
+			throws IOException {
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(false);
+		accumuloOptions.setPersistDataStatistics(true);
+		accumuloOptions.setUseCostBasedIndexSelection(true);
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final Index emptyIndex = IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+		for (int i = 0; i < 10; i++) {
+			mockDataStore.ingest(
+					adapter,
+					index,
+					new TestGeometry(
+							factory.createPoint(new Coordinate(
+									i,
+									i)),
+							"test_pt_" + i));
+		}
+		// the adapter has no data in this index
+		indexStore.addIndex(emptyIndex);
+
+		QueryPlan plan = mockDataStore.explain(
+				null,
+				null);
+		assertEquals(
+				2,
+				plan.getIndexEstimates().size());
+		assertEquals(
+				1,
+				plan.getSelectedIndexEstimates().size());
+		final IndexEstimate selected = plan.getSelectedIndexEstimates().get(
+				0);
+		assertEquals(
+				index.getId(),
+				selected.getIndex().getId());
+		assertEquals(
+				10,
+				selected.getEstimatedRows(),
+				0);
+		assertFalse(plan.isMultiIndexDedupeRequired());
+
+		int count = 0;
+		try (CloseableIterator<?> it = mockDataStore.query(
+				(List<ByteArrayId>) null,
+				(Query) null)) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		assertEquals(
+				10,
+				count);
+
+		accumuloOptions.setUseCostBasedIndexSelection(false);
+		plan = mockDataStore.explain(
+				null,
+				null);
+		assertEquals(
+				2,
+				plan.getSelectedIndexEstimates().size());
+		assertTrue(plan.isMultiIndexDedupeRequired());
+	}
+
+	@Test
+	public void testQueryPlanSelectivity()
+			throws IOException {
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(false);
+		accumuloOptions.setPersistDataStatistics(true);
+		accumuloOptions.setUseCostBasedIndexSelection(true);
+		final Index fineIndex = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		// every point falls in the same cell of this index, so any query
+		// scans all of them
+		final Index coarseIndex = new CustomIdIndex(
+				TieredSFCIndexFactory.createSingleTierStrategy(
+						new NumericDimensionDefinition[] {
+							new LongitudeDefinition(),
+							new LatitudeDefinition(
+									true)
+						},
+						new int[] {
+							2,
+							2
+						},
+						SFCType.HILBERT),
+				IndexType.SPATIAL_VECTOR.getDefaultIndexModel(),
+				new ByteArrayId(
+						"COARSE_SPATIAL_IDX"));
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+		for (final Index index : new Index[] {
+			fineIndex,
+			coarseIndex
+		}) {
+			for (int i = 0; i < 10; i++) {
+				mockDataStore.ingest(
+						adapter,
+						index,
+						new TestGeometry(
+								factory.createPoint(new Coordinate(
+										i,
+										i)),
+								"test_pt_" + i));
+			}
+		}
+		final SpatialQuery query = new SpatialQuery(
+				factory.toGeometry(new Envelope(
+						-0.5,
+						4.5,
+						-0.5,
+						4.5)));
+
+		final QueryPlan plan = mockDataStore.explain(
+				null,
+				query);
+		assertEquals(
+				2,
+				plan.getIndexEstimates().size());
+		IndexEstimate fineEstimate = null;
+		IndexEstimate coarseEstimate = null;
+		for (final IndexEstimate estimate : plan.getIndexEstimates()) {
+			if (estimate.getIndex().getId().equals(
+					fineIndex.getId())) {
+				fineEstimate = estimate;
+			}
+			else if (estimate.getIndex().getId().equals(
+					coarseIndex.getId())) {
+				coarseEstimate = estimate;
+			}
+		}
+		assertNotNull(fineEstimate);
+		assertNotNull(coarseEstimate);
+		// both indices hold every entry, so only selectivity decides
+		assertEquals(
+				10,
+				coarseEstimate.getEstimatedRows(),
+				0);
+		assertTrue(fineEstimate.getEstimatedRows() < coarseEstimate.getEstimatedRows());
+		assertTrue(fineEstimate.isSelected());
+		assertFalse(coarseEstimate.isSelected());
+		assertFalse(plan.isMultiIndexDedupeRequired());
+
+		int count = 0;
+		try (CloseableIterator<?> it = mockDataStore.query(
+				(List<ByteArrayId>) null,
+				query)) {
+			while (it.hasNext()) {
+				it.next();
+				count++;
+			}
+		}
+		assertEquals(
+				5,
+				count);
+	}
+
+	@Test
+	public void testDeleteByQuery() {
+		accumuloOptions.setCreateTable(true);
+		accumuloOptions.setUseAltIndex(true);
+		accumuloOptions.setPersistDataStatistics(true);
+		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+		final WritableDataAdapter<TestGeometry> adapter = new TestGeometryAdapter();
+		for (int i = 0; i < 10; i++) {
+			mockDataStore.ingest(
+					adapter,
+					index,
+					new TestGeometry(
+							factory.createPoint(new Coordinate(
+									i,
+									i)),
+							"test_pt_" + i));
+		}
+		final SpatialQuery query = new SpatialQuery(
+				factory.toGeometry(new Envelope(
+						-0.5,
+						4.5,
+						-0.5,
+						4.5)));
+		assertEquals(
+				5,
+				mockDataStore.deleteByQuery(
+						adapter,
+						index,
+						query));
+
+		final CountDataStatistics<?> countStats = (CountDataStatistics<?>) statsStore.getDataStatistics(
+				adapter.getAdapterId(),
+				CountDataStatistics.STATS_ID);
+		assertEquals(
+				5,
+				countStats.getCount());
+		assertNull(mockDataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"test_pt_0"),
+				adapter.getAdapterId()));
+		assertNotNull(mockDataStore.getEntry(
+				index,
+				new ByteArrayId(
+						"test_pt_5"),
+				adapter.getAdapterId()));
+		// everything that remains is outside of the query
+		assertEquals(
+				0,
+				mockDataStore.deleteByQuery(
+						adapter,
+						index,
+						query));
+		assertEquals(
+				5,
+				mockDataStore.deleteByQuery(
+						adapter,
+						index,
+						null));
+	}
+
 	private void runtest() {
 
 		final Index index = IndexType.SPATIAL_VECTOR.createDefaultIndex();
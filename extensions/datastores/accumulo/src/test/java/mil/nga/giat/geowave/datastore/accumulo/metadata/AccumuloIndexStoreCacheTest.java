@@ -0,0 +1,133 @@
+package mil.nga.giat.geowave.datastore.accumulo.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.cache.CacheStats;
+
+public class AccumuloIndexStoreCacheTest
+{
+	private AccumuloOperations accumuloOperations;
+	private final Index spatialIndex = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+	private final Index spatialTemporalIndex = IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex();
+
+	@Before
+	public void setUp()
+			throws AccumuloException,
+			AccumuloSecurityException {
+		final MockInstance mockInstance = new MockInstance();
+		accumuloOperations = new BasicAccumuloOperations(
+				mockInstance.getConnector(
+						"root",
+						new PasswordToken(
+								new byte[0])));
+		final AccumuloIndexStore writer = new AccumuloIndexStore(
+				accumuloOperations);
+		writer.addIndex(spatialIndex);
+		writer.addIndex(spatialTemporalIndex);
+	}
+
+	@Test
+	public void testMultiGet() {
+		final AccumuloIndexStore indexStore = new AccumuloIndexStore(
+				accumuloOperations);
+		final List<ByteArrayId> ids = Arrays.asList(
+				spatialIndex.getId(),
+				new ByteArrayId(
+						"missing"),
+				spatialTemporalIndex.getId());
+		List<Index> indices = indexStore.getIndices(ids);
+		assertEquals(
+				3,
+				indices.size());
+		assertEquals(
+				spatialIndex.getId(),
+				indices.get(
+						0).getId());
+		assertNull(indices.get(1));
+		assertEquals(
+				spatialTemporalIndex.getId(),
+				indices.get(
+						2).getId());
+
+		CacheStats stats = indexStore.getCacheStats();
+		assertEquals(
+				0,
+				stats.hitCount());
+		assertEquals(
+				3,
+				stats.missCount());
+		assertEquals(
+				2,
+				stats.loadSuccessCount());
+		assertEquals(
+				1,
+				stats.loadExceptionCount());
+
+		// the objects that were found are now cached
+		indices = indexStore.getIndices(ids);
+		assertNotNull(indices.get(0));
+		assertNotNull(indices.get(2));
+		stats = indexStore.getCacheStats();
+		assertEquals(
+				2,
+				stats.hitCount());
+		assertEquals(
+				2,
+				stats.loadSuccessCount());
+		assertEquals(
+				2,
+				stats.loadExceptionCount());
+	}
+
+	@Test
+	public void testRevalidation()
+			throws InterruptedException {
+		final MetadataCacheOptions cacheOptions = new MetadataCacheOptions();
+		cacheOptions.setRevalidateAfterMillis(1);
+		final AccumuloIndexStore indexStore = new AccumuloIndexStore(
+				accumuloOperations,
+				cacheOptions);
+		final Index index = indexStore.getIndex(spatialIndex.getId());
+		assertNotNull(index);
+
+		// the row is unchanged so the cached object is still used
+		Thread.sleep(10);
+		assertSame(
+				index,
+				indexStore.getIndex(spatialIndex.getId()));
+
+		// another instance updates the row
+		Thread.sleep(10);
+		new AccumuloIndexStore(
+				accumuloOperations).addIndex(spatialIndex);
+		Thread.sleep(10);
+		final Index updatedIndex = indexStore.getIndex(spatialIndex.getId());
+		assertNotNull(updatedIndex);
+		assertNotSame(
+				index,
+				updatedIndex);
+		assertEquals(
+				1,
+				indexStore.getCacheStats().loadSuccessCount());
+	}
+}
@@ -0,0 +1,135 @@
+package mil.nga.giat.geowave.datastore.accumulo.query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.geowave.core.geotime.GeometryUtils;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryAdapter;
+import mil.nga.giat.geowave.core.geotime.store.dimension.GeometryWrapper;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.index.CommonIndexModel;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloRowId;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+
+public class AccumuloRowEncodingTest
+{
+
+	@Test
+	public void testReuseAcrossRows() {
+		final CommonIndexModel model = IndexType.SPATIAL_VECTOR.getDefaultIndexModel();
+		final AccumuloRowEncoding encoding = new AccumuloRowEncoding(
+				model);
+
+		final Geometry point1 = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				12,
+				34));
+		final Text row1 = createRow(
+				"adapter",
+				"data1",
+				2);
+		encoding.reset(
+				row1.getBytes(),
+				row1.getLength(),
+				createKeys(row1),
+				createValues(
+						model,
+						point1));
+		Assert.assertEquals(
+				new ByteArrayId(
+						"adapter"),
+				encoding.getAdapterId());
+		Assert.assertEquals(
+				new ByteArrayId(
+						"data1"),
+				encoding.getDataId());
+		Assert.assertEquals(
+				new ByteArrayId(
+						"insertion"),
+				encoding.getIndexInsertionId());
+		Assert.assertTrue(encoding.isDuplicated());
+		Assert.assertEquals(
+				point1,
+				((GeometryWrapper) encoding.getCommonData().getValue(
+						GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID)).getGeometry());
+		final ByteArrayId adapterId = encoding.getAdapterId();
+
+		// a longer backing array than the row must not affect decoding
+		final Geometry point2 = GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
+				-56,
+				-78));
+		final Text row2 = createRow(
+				"adapter",
+				"data2",
+				0);
+		final byte[] paddedRow2 = Arrays.copyOf(
+				row2.getBytes(),
+				row2.getLength() + 10);
+		encoding.reset(
+				paddedRow2,
+				row2.getLength(),
+				createKeys(row2),
+				createValues(
+						model,
+						point2));
+		Assert.assertSame(
+				adapterId,
+				encoding.getAdapterId());
+		Assert.assertEquals(
+				new ByteArrayId(
+						"data2"),
+				encoding.getDataId());
+		Assert.assertFalse(encoding.isDuplicated());
+		Assert.assertEquals(
+				point2,
+				((GeometryWrapper) encoding.getCommonData().getValue(
+						GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID)).getGeometry());
+		Assert.assertEquals(
+				1,
+				encoding.getCommonData().getValues().size());
+		Assert.assertNull(encoding.getCommonData().getValue(
+				new ByteArrayId(
+						"unknown")));
+	}
+
+	private static Text createRow(
+			final String adapterId,
+			final String dataId,
+			final int duplicates ) {
+		return new Text(
+				new AccumuloRowId(
+						StringUtils.stringToBinary("insertion"),
+						StringUtils.stringToBinary(dataId),
+						StringUtils.stringToBinary(adapterId),
+						duplicates).getRowId());
+	}
+
+	private static List<Key> createKeys(
+			final Text row ) {
+		return Arrays.asList(new Key(
+				row,
+				new Text(
+						"adapter"),
+				new Text(
+						GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID.getBytes())));
+	}
+
+	private static List<Value> createValues(
+			final CommonIndexModel model,
+			final Geometry geometry ) {
+		return Arrays.asList(new Value(
+				model.getWriter(
+						GeometryAdapter.DEFAULT_GEOMETRY_FIELD_ID).writeField(
+						new GeometryWrapper(
+								geometry))));
+	}
+}
@@ -0,0 +1,180 @@
+package mil.nga.giat.geowave.datastore.accumulo.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelCloseableIteratorTest
+{
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testAllResults()
+			throws IOException {
+		final int numScans = 4;
+		final int resultsPerScan = 10000;
+		final AtomicInteger closed = new AtomicInteger();
+		final List<Callable<CloseableIterator<?>>> scans = new ArrayList<Callable<CloseableIterator<?>>>();
+		for (int s = 0; s < numScans; s++) {
+			scans.add(createScan(
+					s * resultsPerScan,
+					resultsPerScan,
+					false,
+					closed));
+		}
+		final Set<Object> results = new HashSet<Object>();
+		try (final ParallelCloseableIterator<Object> it = new ParallelCloseableIterator<Object>(
+				scans,
+				executor,
+				10)) {
+			while (it.hasNext()) {
+				assertTrue(results.add(it.next()));
+			}
+		}
+		assertEquals(
+				numScans * resultsPerScan,
+				results.size());
+		assertEquals(
+				numScans,
+				closed.get());
+	}
+
+	@Test
+	public void testClose()
+			throws IOException,
+			InterruptedException {
+		final int numScans = 4;
+		final AtomicInteger opened = new AtomicInteger();
+		final AtomicInteger closed = new AtomicInteger();
+		final List<Callable<CloseableIterator<?>>> scans = new ArrayList<Callable<CloseableIterator<?>>>();
+		for (int s = 0; s < numScans; s++) {
+			final Callable<CloseableIterator<?>> scan = createScan(
+					0,
+					Integer.MAX_VALUE,
+					false,
+					closed);
+			scans.add(new Callable<CloseableIterator<?>>() {
+				@Override
+				public CloseableIterator<?> call()
+						throws Exception {
+					opened.incrementAndGet();
+					return scan.call();
+				}
+			});
+		}
+		final ParallelCloseableIterator<Object> it = new ParallelCloseableIterator<Object>(
+				scans,
+				executor,
+				10);
+		for (int i = 0; i < 100; i++) {
+			it.next();
+		}
+		it.close();
+		assertFalse(it.hasNext());
+		// the scans are blocked on the full buffer and must stop promptly
+		final long deadline = System.currentTimeMillis() + 5000;
+		while ((closed.get() < opened.get()) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(10);
+		}
+		assertTrue(opened.get() > 0);
+		assertEquals(
+				opened.get(),
+				closed.get());
+	}
+
+	@Test
+	public void testFailure()
+			throws IOException {
+		final AtomicInteger closed = new AtomicInteger();
+		final List<Callable<CloseableIterator<?>>> scans = new ArrayList<Callable<CloseableIterator<?>>>();
+		scans.add(createScan(
+				0,
+				100,
+				false,
+				closed));
+		scans.add(createScan(
+				100,
+				100,
+				true,
+				closed));
+		try (final ParallelCloseableIterator<Object> it = new ParallelCloseableIterator<Object>(
+				scans,
+				executor,
+				10)) {
+			while (it.hasNext()) {
+				it.next();
+			}
+			fail("Expected the failure of a scan to be thrown");
+		}
+		catch (final RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	private static Callable<CloseableIterator<?>> createScan(
+			final int start,
+			final int count,
+			final boolean fail,
+			final AtomicInteger closed ) {
+		return new Callable<CloseableIterator<?>>() {
+			@Override
+			public CloseableIterator<?> call() {
+				final Iterator<Integer> it = new Iterator<Integer>() {
+					private int i = 0;
+
+					@Override
+					public boolean hasNext() {
+						if (fail && (i == (count / 2))) {
+							throw new IllegalStateException(
+									"Scan failed");
+						}
+						return i < count;
+					}
+
+					@Override
+					public Integer next() {
+						return start + i++;
+					}
+
+					@Override
+					public void remove() {}
+				};
+				return new CloseableIterator.Wrapper<Integer>(
+						it) {
+					@Override
+					public void close() {
+						closed.incrementAndGet();
+					}
+				};
+			}
+		};
+	}
+}
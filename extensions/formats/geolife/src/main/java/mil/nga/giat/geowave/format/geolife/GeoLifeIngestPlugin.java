@@ -1,11 +1,7 @@
 package mil.nga.giat.geowave.format.geolife;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.text.ParseException;
@@ -15,6 +11,7 @@ import java.util.List;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.adapter.vector.ingest.AbstractSimpleFeatureIngestPlugin;
+import mil.nga.giat.geowave.adapter.vector.ingest.TrajectoryTextReader;
 import mil.nga.giat.geowave.adapter.vector.utils.GeometryUtils;
 import mil.nga.giat.geowave.adapter.vector.utils.SimpleFeatureUserDataConfigurationSet;
 import mil.nga.giat.geowave.core.geotime.IndexType;
@@ -53,10 +50,8 @@ public class GeoLifeIngestPlugin extends
 
 	private final static Logger LOGGER = Logger.getLogger(GeoLifeIngestPlugin.class);
 
-	private final SimpleFeatureBuilder geolifePointBuilder;
 	private final SimpleFeatureType geolifePointType;
 
-	private final SimpleFeatureBuilder geolifeTrackBuilder;
 	private final SimpleFeatureType geolifeTrackType;
 
 	private final ByteArrayId pointKey;
@@ -66,18 +61,30 @@ public class GeoLifeIngestPlugin extends
 
 	private CoordinateReferenceSystem crs;
 
+	private final ThreadLocal<SimpleFeatureBuilder> pointBuilder = new ThreadLocal<SimpleFeatureBuilder>() {
+		@Override
+		protected SimpleFeatureBuilder initialValue() {
+			return new SimpleFeatureBuilder(
+					geolifePointType);
+		}
+	};
+
+	private final ThreadLocal<SimpleFeatureBuilder> trackBuilder = new ThreadLocal<SimpleFeatureBuilder>() {
+		@Override
+		protected SimpleFeatureBuilder initialValue() {
+			return new SimpleFeatureBuilder(
+					geolifeTrackType);
+		}
+	};
+
 	public GeoLifeIngestPlugin() {
 		geolifePointType = GeoLifeUtils.createGeoLifePointDataType();
 		pointKey = new ByteArrayId(
 				StringUtils.stringToBinary(GeoLifeUtils.GEOLIFE_POINT_FEATURE));
-		geolifePointBuilder = new SimpleFeatureBuilder(
-				geolifePointType);
 
 		geolifeTrackType = GeoLifeUtils.createGeoLifeTrackDataType();
 		trackKey = new ByteArrayId(
 				StringUtils.stringToBinary(GeoLifeUtils.GEOLIFE_TRACK_FEATURE));
-		geolifeTrackBuilder = new SimpleFeatureBuilder(
-				geolifeTrackType);
 
 		supportedIndices = new Index[] {
 			IndexType.SPATIAL_VECTOR.createDefaultIndex(),
@@ -183,38 +190,37 @@ public class GeoLifeIngestPlugin extends
 			final String globalVisibility ) {
 
 		final List<GeoWaveData<SimpleFeature>> featureData = new ArrayList<GeoWaveData<SimpleFeature>>();
-
-		final InputStream in = new ByteArrayInputStream(
-				hfile.getOriginalFile().array());
-		final InputStreamReader isr = new InputStreamReader(
-				in,
-				StringUtils.UTF8_CHAR_SET);
-		final BufferedReader br = new BufferedReader(
-				isr);
+		// the builders are not thread-safe and files may be ingested
+		// concurrently, so each thread reuses its own
+		final SimpleFeatureBuilder geolifePointBuilder = pointBuilder.get();
+		final SimpleFeatureBuilder geolifeTrackBuilder = trackBuilder.get();
+		// discard anything left by a file that failed part way through
+		geolifePointBuilder.reset();
+		geolifeTrackBuilder.reset();
+
+		final TrajectoryTextReader reader = new TrajectoryTextReader(
+				hfile.getOriginalFile());
 		int pointInstance = 0;
 		final List<Coordinate> pts = new ArrayList<Coordinate>();
 		final String trackId = FilenameUtils.getName(hfile.getOriginalFilePath().toString());
-		String line;
 		Date startTimeStamp = null;
 		Date endTimeStamp = null;
-		String timestring = "";
 		final GeometryFactory geometryFactory = new GeometryFactory();
 		double currLat;
 		double currLng;
 		try {
-			while ((line = br.readLine()) != null) {
+			while (reader.nextLine()) {
 
-				final String[] vals = line.split(",");
-				if (vals.length != 7) {
+				if (reader.getFieldCount() != 7) {
 					continue;
 				}
 
 				currLat = GeometryUtils.adjustCoordinateDimensionToRange(
-						Double.parseDouble(vals[0]),
+						reader.getDouble(0),
 						crs,
 						1);
 				currLng = GeometryUtils.adjustCoordinateDimensionToRange(
-						Double.parseDouble(vals[1]),
+						reader.getDouble(1),
 						crs,
 						0);
 				final Coordinate cord = new Coordinate(
@@ -232,8 +238,10 @@ public class GeoLifeIngestPlugin extends
 						pointInstance);
 				pointInstance++;
 
-				timestring = vals[5] + " " + vals[6];
-				final Date ts = GeoLifeUtils.parseDate(timestring);
+				final Date ts = new Date(
+						reader.getTimestamp(
+								5,
+								6));
 				geolifePointBuilder.set(
 						"Timestamp",
 						ts);
@@ -249,7 +257,7 @@ public class GeoLifeIngestPlugin extends
 						"Longitude",
 						currLng);
 
-				Double elevation = Double.parseDouble(vals[3]);
+				Double elevation = reader.getDouble(3);
 				if (elevation == -777) {
 					elevation = null;
 				}
@@ -296,13 +304,11 @@ public class GeoLifeIngestPlugin extends
 		}
 		catch (final ParseException e) {
 			LOGGER.error(
-					"Error parsing time string: " + timestring,
+					"Error parsing time string: " + reader.getLine(),
 					e);
 		}
 		finally {
-			IOUtils.closeQuietly(br);
-			IOUtils.closeQuietly(isr);
-			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(reader);
 		}
 
 		return new CloseableIterator.Wrapper<GeoWaveData<SimpleFeature>>(
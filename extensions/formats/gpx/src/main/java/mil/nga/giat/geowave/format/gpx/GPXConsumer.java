@@ -87,8 +87,14 @@ public class GPXConsumer implements
 	final GPXDataElement top = new GPXDataElement(
 			"gpx");
 
-	static final NumberFormat LatLongFormat = new DecimalFormat(
-			"0000000000");
+	// the consumers of several files may be formatting IDs at once
+	static final ThreadLocal<NumberFormat> LatLongFormat = new ThreadLocal<NumberFormat>() {
+		@Override
+		protected NumberFormat initialValue() {
+			return new DecimalFormat(
+					"0000000000");
+		}
+	};
 
 	XMLEventReader eventReader;
 	GeoWaveData<SimpleFeature> nextFeature = null;
@@ -919,6 +925,6 @@ public class GPXConsumer implements
 
 	private static String toID(
 			final Double val ) {
-		return LatLongFormat.format(val.doubleValue() * 10000000);
+		return LatLongFormat.get().format(val.doubleValue() * 10000000);
 	}
 }
@@ -12,10 +12,10 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.stream.XMLEventReader;
@@ -99,7 +99,8 @@ public class GpxUtils
 			final File metadataFile )
 			throws FileNotFoundException,
 			XMLStreamException {
-		final Map<Long, GpxTrack> metadata = new HashMap<Long, GpxTrack>();
+		// the tracks are removed by the threads ingesting the track files
+		final Map<Long, GpxTrack> metadata = new ConcurrentHashMap<Long, GpxTrack>();
 		final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
 		XMLEventReader eventReader = null;
 		InputStream in = null;
@@ -198,9 +199,11 @@ public class GpxUtils
 							}
 							event = eventReader.nextEvent();
 						}
-						metadata.put(
-								gt.getTrackid(),
-								gt);
+						if (gt.getTrackid() != null) {
+							metadata.put(
+									gt.getTrackid(),
+									gt);
+						}
 						break;
 					}
 
@@ -10,11 +10,13 @@ import mil.nga.giat.geowave.core.ingest.local.LocalFileIngestPlugin;
 public class Stanag4676IngestFormat implements
 		IngestFormatPluginProviderSpi<WholeFile, Object>
 {
-	private static Stanag4676IngestPlugin singletonInstance;
+	private final Stanag4676OptionProvider optionProvider = new Stanag4676OptionProvider();
+	private Stanag4676IngestPlugin singletonInstance;
 
-	private static synchronized Stanag4676IngestPlugin getSingletonInstance() {
+	private synchronized Stanag4676IngestPlugin getSingletonInstance() {
 		if (singletonInstance == null) {
-			singletonInstance = new Stanag4676IngestPlugin();
+			singletonInstance = new Stanag4676IngestPlugin(
+					optionProvider);
 		}
 		return singletonInstance;
 	}
@@ -49,8 +51,7 @@ public class Stanag4676IngestFormat implements
 
 	@Override
 	public IngestFormatOptionProvider getIngestFormatOptionProvider() {
-		// for now don't support filtering
-		return null;
+		return optionProvider;
 	}
 
 }
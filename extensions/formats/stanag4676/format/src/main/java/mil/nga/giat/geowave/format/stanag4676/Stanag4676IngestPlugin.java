@@ -33,6 +33,7 @@ import mil.nga.giat.geowave.core.store.index.NullIndex;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChip;
 import mil.nga.giat.geowave.format.stanag4676.image.ImageChipDataAdapter;
 import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676Decoder;
+import mil.nga.giat.geowave.format.stanag4676.parser.NATO4676StreamDecoder;
 import mil.nga.giat.geowave.format.stanag4676.parser.TrackFileReader;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.EarthVector;
 import mil.nga.giat.geowave.format.stanag4676.parser.util.Length;
@@ -56,6 +57,7 @@ public class Stanag4676IngestPlugin extends
 {
 	private static Logger LOGGER = LoggerFactory.getLogger(Stanag4676IngestPlugin.class);
 	private final Index[] supportedIndices;
+	private final Stanag4676OptionProvider optionProvider;
 	public final static Index IMAGE_CHIP_INDEX = new NullIndex(
 			"IMAGERY_CHIPS");
 
@@ -68,7 +70,14 @@ public class Stanag4676IngestPlugin extends
 	}
 
 	public Stanag4676IngestPlugin() {
+		this(
+				new Stanag4676OptionProvider());
+	}
+
+	public Stanag4676IngestPlugin(
+			final Stanag4676OptionProvider optionProvider ) {
 		super();
+		this.optionProvider = optionProvider;
 		supportedIndices = new Index[] {
 			IndexType.SPATIAL_VECTOR.createDefaultIndex(),
 			IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex(),
@@ -94,7 +103,8 @@ public class Stanag4676IngestPlugin extends
 
 	@Override
 	public IngestWithMapper<WholeFile, Object> ingestWithMapper() {
-		return new IngestWithReducerImpl();
+		return new IngestWithReducerImpl(
+				optionProvider.isStreamingDecoder());
 	}
 
 	@Override
@@ -104,7 +114,8 @@ public class Stanag4676IngestPlugin extends
 
 	@Override
 	public IngestWithReducer<WholeFile, ?, ?, Object> ingestWithReducer() {
-		return new IngestWithReducerImpl();
+		return new IngestWithReducerImpl(
+				optionProvider.isStreamingDecoder());
 	}
 
 	@Override
@@ -140,7 +151,16 @@ public class Stanag4676IngestPlugin extends
 
 		private final SimpleFeatureType trackType;
 
+		private boolean streamingDecoder;
+
 		public IngestWithReducerImpl() {
+			this(
+					true);
+		}
+
+		public IngestWithReducerImpl(
+				final boolean streamingDecoder ) {
+			this.streamingDecoder = streamingDecoder;
 			pointType = Stanag4676Utils.createPointDataType();
 
 			motionPointType = Stanag4676Utils.createMotionDataType();
@@ -179,18 +199,26 @@ public class Stanag4676IngestPlugin extends
 
 		@Override
 		public byte[] toBinary() {
-			return new byte[] {};
+			return new byte[] {
+				(byte) (streamingDecoder ? 1 : 0)
+			};
 		}
 
 		@Override
 		public void fromBinary(
-				final byte[] bytes ) {}
+				final byte[] bytes ) {
+			if (bytes.length > 0) {
+				streamingDecoder = bytes[0] != 0;
+			}
+		}
 
 		@Override
 		public CloseableIterator<KeyValueData<Text, TrackEventWritable>> toIntermediateMapReduceData(
 				final WholeFile input ) {
 			final TrackFileReader fileReader = new TrackFileReader();
-			fileReader.setDecoder(new NATO4676Decoder());
+			// the streaming decoder only holds one track event in memory at a
+			// time rather than the document of the whole message
+			fileReader.setDecoder(streamingDecoder ? new NATO4676StreamDecoder() : new NATO4676Decoder());
 			fileReader.setStreaming(true);
 			final IngestMessageHandler handler = new IngestMessageHandler();
 			fileReader.setHandler(handler);
@@ -0,0 +1,51 @@
+package mil.nga.giat.geowave.format.stanag4676;
+
+import mil.nga.giat.geowave.core.ingest.IngestFormatOptionProvider;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+
+public class Stanag4676OptionProvider implements
+		IngestFormatOptionProvider
+{
+	private final static String TRACK_DECODER = "trackDecoder";
+	public final static String STREAMING_DECODER = "stax";
+	public final static String DOCUMENT_DECODER = "jdom";
+
+	private boolean streamingDecoder = true;
+
+	public Stanag4676OptionProvider() {}
+
+	@Override
+	public void applyOptions(
+			final Options allOptions ) {
+		allOptions.addOption(new Option(
+				TRACK_DECODER,
+				true,
+				"Optional parameter to set the STANAG 4676 decoder, '" + STREAMING_DECODER + "' to stream track events from each message or '" + DOCUMENT_DECODER + "' to read each message as a whole document (default is '" + STREAMING_DECODER + "')"));
+	}
+
+	@Override
+	public void parseOptions(
+			final CommandLine commandLine ) {
+		if (commandLine.hasOption(TRACK_DECODER)) {
+			final String decoder = commandLine.getOptionValue(
+					TRACK_DECODER).trim();
+			if (STREAMING_DECODER.equalsIgnoreCase(decoder)) {
+				streamingDecoder = true;
+			}
+			else if (DOCUMENT_DECODER.equalsIgnoreCase(decoder)) {
+				streamingDecoder = false;
+			}
+			else {
+				throw new IllegalArgumentException(
+						"Unknown STANAG 4676 decoder '" + decoder + "', expected '" + STREAMING_DECODER + "' or '" + DOCUMENT_DECODER + "'");
+			}
+		}
+	}
+
+	public boolean isStreamingDecoder() {
+		return streamingDecoder;
+	}
+}
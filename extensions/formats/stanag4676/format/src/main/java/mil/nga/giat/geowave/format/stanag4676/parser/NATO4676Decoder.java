@@ -67,6 +67,14 @@ public class NATO4676Decoder implements
 		trackStatsNumDots = 0;
 	}
 
+	int getTrackStatsNumTracks() {
+		return trackStatsNumTracks;
+	}
+
+	int getTrackStatsNumDots() {
+		return trackStatsNumDots;
+	}
+
 	public void setPrintNotParse(
 			final boolean shouldPrint ) {
 		printNotParse = shouldPrint;
@@ -107,7 +115,7 @@ public class NATO4676Decoder implements
 		return msg;
 	}
 
-	private TrackMessage readTrackMessage(
+	TrackMessage readTrackMessage(
 			final Element element,
 			final Namespace xmlns ) {
 		final TrackMessage msg = new TrackMessage();
@@ -198,7 +206,7 @@ public class NATO4676Decoder implements
 		return id;
 	}
 
-	private TrackEvent readTrackEvent(
+	TrackEvent readTrackEvent(
 			final Element element,
 			final Namespace xmlns ) {
 		final TrackEvent trackEvent = new TrackEvent();
@@ -0,0 +1,231 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A STANAG 4676 decoder that pulls a track message from the stream one track
+ * event at a time rather than building a document of the whole message. Each
+ * call to readNext with the same input stream returns a message holding the
+ * next track event along with the header of the enclosing track message, and
+ * null once the stream is exhausted. Only the element of a single track event
+ * is held in memory, which is decoded by the same rules as NATO4676Decoder.
+ */
+public class NATO4676StreamDecoder implements
+		TrackDecoder
+{
+	private static Logger LOGGER = LoggerFactory.getLogger(NATO4676StreamDecoder.class);
+	private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+	static {
+		XML_INPUT_FACTORY.setProperty(
+				XMLInputFactory.IS_COALESCING,
+				Boolean.TRUE);
+		XML_INPUT_FACTORY.setProperty(
+				XMLInputFactory.SUPPORT_DTD,
+				Boolean.FALSE);
+		XML_INPUT_FACTORY.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+	}
+	private static final String TRACKS_ELEMENT = "tracks";
+
+	private final NATO4676Decoder elementDecoder = new NATO4676Decoder();
+
+	private InputStream currentStream;
+	private XMLStreamReader reader;
+	private Namespace xmlns;
+	private Element header;
+	private TrackMessage headerMessage;
+	private UUID messageUuid;
+
+	@Override
+	public void initialize() {
+		close();
+		elementDecoder.initialize();
+	}
+
+	@Override
+	public TrackMessage readNext(
+			final InputStream is ) {
+		try {
+			if (is != currentStream) {
+				open(is);
+			}
+			final Element tracks = nextTrackEvent();
+			if (tracks == null) {
+				LOGGER.info("TrackMessage read " + elementDecoder.getTrackStatsNumTracks() + " Tracks and " + elementDecoder.getTrackStatsNumDots() + " TrackPoints.");
+				close();
+				// stay at the end of this stream until another is given
+				currentStream = is;
+				return null;
+			}
+			final TrackMessage msg = getHeaderMessage();
+			msg.addTrackEvent(elementDecoder.readTrackEvent(
+					tracks,
+					xmlns));
+			return msg;
+		}
+		catch (final XMLStreamException e) {
+			LOGGER.error(
+					"Unable to read track message",
+					e);
+			close();
+			currentStream = is;
+			return null;
+		}
+	}
+
+	private void open(
+			final InputStream is )
+			throws XMLStreamException {
+		close();
+		currentStream = is;
+		reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+		// advance to the root TrackMessage element
+		while (reader.hasNext() && (reader.next() != XMLStreamConstants.START_ELEMENT)) {}
+		if (!reader.isStartElement()) {
+			close();
+			currentStream = is;
+			return;
+		}
+		xmlns = getNamespace(
+				reader.getPrefix(),
+				reader.getNamespaceURI());
+		header = new Element(
+				reader.getLocalName(),
+				xmlns);
+		headerMessage = null;
+		messageUuid = UUID.randomUUID();
+	}
+
+	/**
+	 * Advance to the next track event, gathering any other children of the
+	 * track message as its header.
+	 *
+	 * @return the track event element or null at the end of the track message
+	 */
+	private Element nextTrackEvent()
+			throws XMLStreamException {
+		if (reader == null) {
+			return null;
+		}
+		while (reader.hasNext()) {
+			final int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (TRACKS_ELEMENT.equals(reader.getLocalName())) {
+					return readElement();
+				}
+				header.addContent(readElement());
+				headerMessage = null;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				// the end of the root element
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private TrackMessage getHeaderMessage() {
+		if (headerMessage == null) {
+			headerMessage = elementDecoder.readTrackMessage(
+					header,
+					xmlns);
+		}
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(messageUuid);
+		msg.setFormatVersion(headerMessage.getFormatVersion());
+		msg.setSecurity(headerMessage.getSecurity());
+		msg.setMessageTime(headerMessage.getMessageTime());
+		msg.setSenderID(headerMessage.getSenderID());
+		return msg;
+	}
+
+	/**
+	 * Read the element at the current start element event and its content,
+	 * leaving the reader at its end element event.
+	 */
+	private Element readElement()
+			throws XMLStreamException {
+		final Element element = new Element(
+				reader.getLocalName(),
+				getNamespace(
+						reader.getPrefix(),
+						reader.getNamespaceURI()));
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			try {
+				element.setAttribute(new Attribute(
+						reader.getAttributeLocalName(i),
+						reader.getAttributeValue(i),
+						getNamespace(
+								reader.getAttributePrefix(i),
+								reader.getAttributeNamespace(i))));
+			}
+			catch (final IllegalArgumentException e) {
+				LOGGER.warn(
+						"Ignoring attribute '" + reader.getAttributeLocalName(i) + "' of element '" + reader.getLocalName() + "'",
+						e);
+			}
+		}
+		while (reader.hasNext()) {
+			final int event = reader.next();
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					element.addContent(readElement());
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					element.addContent(reader.getText());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					return element;
+				default:
+					break;
+			}
+		}
+		return element;
+	}
+
+	private static Namespace getNamespace(
+			final String prefix,
+			final String uri ) {
+		if ((uri == null) || uri.isEmpty()) {
+			return Namespace.NO_NAMESPACE;
+		}
+		return Namespace.getNamespace(
+				(prefix == null) ? "" : prefix,
+				uri);
+	}
+
+	private void close() {
+		if (reader != null) {
+			try {
+				// the input stream is owned by the caller
+				reader.close();
+			}
+			catch (final XMLStreamException e) {
+				LOGGER.warn(
+						"Unable to close XML stream reader",
+						e);
+			}
+		}
+		reader = null;
+		currentStream = null;
+		header = null;
+		headerMessage = null;
+	}
+}
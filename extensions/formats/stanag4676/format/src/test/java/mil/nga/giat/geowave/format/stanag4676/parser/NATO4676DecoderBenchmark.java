@@ -0,0 +1,150 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.GeodeticPosition;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.IDdata;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPoint;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the JDOM document decoder with the StAX streaming
+ * decoder reading all of the track events of a STANAG 4676 track message. By
+ * default a message of generated tracks is decoded; pass a file path as the
+ * first argument of the main method to decode a sample file instead. The main
+ * method also reports the allocation rate of each decoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class NATO4676DecoderBenchmark
+{
+	private static final int NUM_POINTS_PER_TRACK = 100;
+
+	@Param({
+		"1000"
+	})
+	public int numTracks;
+
+	@Param({
+		""
+	})
+	public String sampleFile;
+
+	private byte[] message;
+
+	@Setup
+	public void setup()
+			throws IOException {
+		if ((sampleFile != null) && !sampleFile.isEmpty()) {
+			message = Files.readAllBytes(new File(
+					sampleFile).toPath());
+		}
+		else {
+			message = generateMessage(numTracks);
+		}
+	}
+
+	private static byte[] generateMessage(
+			final int numTracks ) {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(UUID.randomUUID());
+		msg.setMessageTime(System.currentTimeMillis());
+		final IDdata sender = new IDdata();
+		sender.setStationId("GeoWave");
+		sender.setNationality("US");
+		msg.setSenderID(sender);
+		final long startTime = msg.getMessageTime();
+		for (int t = 0; t < numTracks; t++) {
+			final TrackEvent event = new TrackEvent();
+			event.setUuid(UUID.randomUUID().toString());
+			event.setTrackNumber(Integer.toString(t));
+			event.setMissionId("Mission: benchmark");
+			for (int p = 0; p < NUM_POINTS_PER_TRACK; p++) {
+				final TrackPoint point = new TrackPoint();
+				point.uuid = UUID.randomUUID().toString();
+				point.eventTime = startTime + (p * 1000L);
+				final GeodeticPosition position = new GeodeticPosition();
+				position.latitude = ((t % 170) - 85) + (p * 0.001);
+				position.longitude = ((t % 350) - 175) + (p * 0.001);
+				position.elevation = 0.0;
+				point.location = position;
+				event.addPoint(point);
+			}
+			msg.addTrackEvent(event);
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final NATO4676Encoder encoder = new NATO4676Encoder();
+		encoder.setOutputStream(out);
+		encoder.Encode(msg);
+		return out.toByteArray();
+	}
+
+	@Benchmark
+	public void decodeDocument(
+			final Blackhole blackhole ) {
+		final NATO4676Decoder decoder = new NATO4676Decoder();
+		decoder.initialize();
+		// the document decoder reads the whole message in one call
+		blackhole.consume(decoder.readNext(new ByteArrayInputStream(
+				message)));
+	}
+
+	@Benchmark
+	public void decodeStream(
+			final Blackhole blackhole ) {
+		final NATO4676StreamDecoder decoder = new NATO4676StreamDecoder();
+		decoder.initialize();
+		final InputStream is = new ByteArrayInputStream(
+				message);
+		TrackMessage msg;
+		while ((msg = decoder.readNext(is)) != null) {
+			blackhole.consume(msg);
+		}
+	}
+
+	public static void main(
+			final String[] args )
+			throws RunnerException {
+		final OptionsBuilder options = new OptionsBuilder();
+		options.include(
+				NATO4676DecoderBenchmark.class.getSimpleName()).addProfiler(
+				"gc");
+		if (args.length > 0) {
+			options.param(
+					"sampleFile",
+					args[0]);
+		}
+		final Options builtOptions = options.build();
+		new Runner(
+				builtOptions).run();
+	}
+}
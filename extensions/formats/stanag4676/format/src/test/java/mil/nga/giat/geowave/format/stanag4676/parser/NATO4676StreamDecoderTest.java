@@ -0,0 +1,481 @@
+package mil.nga.giat.geowave.format.stanag4676.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import mil.nga.giat.geowave.format.stanag4676.parser.model.CovarianceMatrix;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.GeodeticPosition;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.IDdata;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.MotionEventPoint;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.MotionImagery;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.Security;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackEvent;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackMessage;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPoint;
+import mil.nga.giat.geowave.format.stanag4676.parser.model.TrackPointDetail;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Decodes the same STANAG 4676 documents with the JDOM document decoder and
+ * the StAX streaming decoder and checks that both produce the same track
+ * messages.
+ */
+public class NATO4676StreamDecoderTest
+{
+	private static final String SAMPLE_FILE = "sample_4676.xml";
+
+	@Test
+	public void testSampleDocument()
+			throws IOException {
+		final byte[] message = readSample();
+		final TrackMessage expected = decodeDocument(message);
+		assertEquals(
+				3,
+				expected.getTracks().size());
+		assertEquals(
+				3,
+				expected.getTracks().get(
+						0).getPoints().size());
+		assertEquals(
+				1,
+				expected.getTracks().get(
+						1).getMotionPoints().size());
+		assertEquals(
+				1,
+				expected.getTracks().get(
+						1).getMotionImages().size());
+
+		assertSameMessage(
+				expected,
+				decodeStream(message));
+	}
+
+	@Test
+	public void testGeneratedDocument() {
+		final byte[] message = generateMessage(
+				20,
+				10);
+		final TrackMessage expected = decodeDocument(message);
+		assertEquals(
+				20,
+				expected.getTracks().size());
+
+		assertSameMessage(
+				expected,
+				decodeStream(message));
+	}
+
+	@Test
+	public void testConsecutiveDocuments()
+			throws IOException {
+		final byte[] sample = readSample();
+		final byte[] generated = generateMessage(
+				3,
+				5);
+		final NATO4676StreamDecoder decoder = new NATO4676StreamDecoder();
+		decoder.initialize();
+		// a decoder given a new stream starts a new track message
+		assertSameMessage(
+				decodeDocument(sample),
+				decodeStream(
+						decoder,
+						new ByteArrayInputStream(
+								sample)));
+		assertSameMessage(
+				decodeDocument(generated),
+				decodeStream(
+						decoder,
+						new ByteArrayInputStream(
+								generated)));
+	}
+
+	private byte[] readSample()
+			throws IOException {
+		try (InputStream is = getClass().getClassLoader().getResourceAsStream(
+				SAMPLE_FILE)) {
+			assertNotNull(
+					"Unable to find " + SAMPLE_FILE,
+					is);
+			return IOUtils.toByteArray(is);
+		}
+	}
+
+	private static byte[] generateMessage(
+			final int numTracks,
+			final int numPointsPerTrack ) {
+		final TrackMessage msg = new TrackMessage();
+		msg.setUuid(UUID.randomUUID());
+		msg.setMessageTime(1369152131000L);
+		final IDdata sender = new IDdata();
+		sender.setStationId("GeoWave");
+		sender.setNationality("US");
+		msg.setSenderID(sender);
+		for (int t = 0; t < numTracks; t++) {
+			final TrackEvent event = new TrackEvent();
+			event.setUuid(UUID.randomUUID().toString());
+			event.setTrackNumber(Integer.toString(t));
+			event.setMissionId("Mission: test");
+			for (int p = 0; p < numPointsPerTrack; p++) {
+				final TrackPoint point = new TrackPoint();
+				point.uuid = UUID.randomUUID().toString();
+				point.eventTime = msg.getMessageTime() + (p * 1000L);
+				point.location = new GeodeticPosition(
+						t + (p * 0.001),
+						-t - (p * 0.001),
+						p);
+				point.speed = (double) p;
+				event.addPoint(point);
+			}
+			msg.addTrackEvent(event);
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final NATO4676Encoder encoder = new NATO4676Encoder();
+		encoder.setOutputStream(out);
+		encoder.Encode(msg);
+		return out.toByteArray();
+	}
+
+	private static TrackMessage decodeDocument(
+			final byte[] message ) {
+		final NATO4676Decoder decoder = new NATO4676Decoder();
+		decoder.initialize();
+		final TrackMessage msg = decoder.readNext(new ByteArrayInputStream(
+				message));
+		assertNotNull(msg);
+		return msg;
+	}
+
+	private static List<TrackMessage> decodeStream(
+			final byte[] message ) {
+		final NATO4676StreamDecoder decoder = new NATO4676StreamDecoder();
+		decoder.initialize();
+		return decodeStream(
+				decoder,
+				new ByteArrayInputStream(
+						message));
+	}
+
+	private static List<TrackMessage> decodeStream(
+			final NATO4676StreamDecoder decoder,
+			final InputStream is ) {
+		final List<TrackMessage> messages = new ArrayList<TrackMessage>();
+		TrackMessage msg;
+		while ((msg = decoder.readNext(is)) != null) {
+			messages.add(msg);
+		}
+		// the end of the stream is reported until another stream is given
+		assertNull(decoder.readNext(is));
+		return messages;
+	}
+
+	/**
+	 * The streaming decoder returns a message for each track event, each with
+	 * the header of the whole track message.
+	 */
+	private static void assertSameMessage(
+			final TrackMessage expected,
+			final List<TrackMessage> actual ) {
+		assertEquals(
+				expected.getTracks().size(),
+				actual.size());
+		final UUID uuid = actual.isEmpty() ? null : actual.get(
+				0).getUuid();
+		for (int i = 0; i < actual.size(); i++) {
+			final TrackMessage msg = actual.get(i);
+			assertEquals(
+					"Every track event of a message should have the same message UUID",
+					uuid,
+					msg.getUuid());
+			assertEquals(
+					expected.getFormatVersion(),
+					msg.getFormatVersion());
+			assertEquals(
+					expected.getMessageTime(),
+					msg.getMessageTime());
+			assertSameSecurity(
+					expected.getSecurity(),
+					msg.getSecurity());
+			assertSameIDdata(
+					expected.getSenderID(),
+					msg.getSenderID());
+			assertEquals(
+					1,
+					msg.getTracks().size());
+			assertSameTrackEvent(
+					expected.getTracks().get(
+							i),
+					msg.getTracks().get(
+							0));
+		}
+	}
+
+	private static void assertSameTrackEvent(
+			final TrackEvent expected,
+			final TrackEvent actual ) {
+		assertEquals(
+				expected.getUuid(),
+				actual.getUuid());
+		assertEquals(
+				expected.getTrackNumber(),
+				actual.getTrackNumber());
+		assertEquals(
+				expected.getStatus(),
+				actual.getStatus());
+		assertSameSecurity(
+				expected.getSecurity(),
+				actual.getSecurity());
+		assertEquals(
+				expected.getComment(),
+				actual.getComment());
+		assertEquals(
+				expected.getMissionId(),
+				actual.getMissionId());
+		assertEquals(
+				expected.getExerciseIndicator(),
+				actual.getExerciseIndicator());
+		assertEquals(
+				expected.getSimulationIndicator(),
+				actual.getSimulationIndicator());
+
+		assertEquals(
+				expected.getPoints().keySet(),
+				actual.getPoints().keySet());
+		for (final Entry<Long, TrackPoint> entry : expected.getPoints().entrySet()) {
+			assertSameTrackPoint(
+					entry.getValue(),
+					actual.getPoints().get(
+							entry.getKey()));
+		}
+		assertEquals(
+				expected.getMotionPoints().keySet(),
+				actual.getMotionPoints().keySet());
+		for (final Entry<Long, MotionEventPoint> entry : expected.getMotionPoints().entrySet()) {
+			final MotionEventPoint actualPoint = actual.getMotionPoints().get(
+					entry.getKey());
+			assertSameTrackPoint(
+					entry.getValue(),
+					actualPoint);
+			assertEquals(
+					entry.getValue().motionEvent,
+					actualPoint.motionEvent);
+			assertEquals(
+					entry.getValue().getEndTime(),
+					actualPoint.getEndTime());
+		}
+
+		assertEquals(
+				expected.getIdentities().size(),
+				actual.getIdentities().size());
+		for (int i = 0; i < expected.getIdentities().size(); i++) {
+			assertEquals(
+					expected.getIdentities().get(
+							i).getIdentity(),
+					actual.getIdentities().get(
+							i).getIdentity());
+		}
+		assertEquals(
+				expected.getClassifications().size(),
+				actual.getClassifications().size());
+		for (int i = 0; i < expected.getClassifications().size(); i++) {
+			assertEquals(
+					expected.getClassifications().get(
+							i).getClassification(),
+					actual.getClassifications().get(
+							i).getClassification());
+		}
+		assertEquals(
+				expected.getManagements().size(),
+				actual.getManagements().size());
+		assertEquals(
+				expected.getTrackRelations().size(),
+				actual.getTrackRelations().size());
+
+		assertEquals(
+				expected.getMotionImages().size(),
+				actual.getMotionImages().size());
+		final Iterator<MotionImagery> actualImages = actual.getMotionImages().iterator();
+		for (final MotionImagery expectedImage : expected.getMotionImages()) {
+			final MotionImagery actualImage = actualImages.next();
+			assertEquals(
+					expectedImage.getBand(),
+					actualImage.getBand());
+			assertEquals(
+					expectedImage.getImageReference(),
+					actualImage.getImageReference());
+			assertEquals(
+					expectedImage.getImageChip(),
+					actualImage.getImageChip());
+			assertEquals(
+					expectedImage.getFrameNumber(),
+					actualImage.getFrameNumber());
+			assertEquals(
+					expectedImage.getPixelRow(),
+					actualImage.getPixelRow());
+			assertEquals(
+					expectedImage.getPixelColumn(),
+					actualImage.getPixelColumn());
+		}
+	}
+
+	private static void assertSameTrackPoint(
+			final TrackPoint expected,
+			final TrackPoint actual ) {
+		assertNotNull(actual);
+		assertEquals(
+				expected.getUuid(),
+				actual.getUuid());
+		assertSameSecurity(
+				expected.getSecurity(),
+				actual.getSecurity());
+		assertEquals(
+				expected.getEventTime(),
+				actual.getEventTime());
+		assertEquals(
+				expected.getTrackItemSource(),
+				actual.getTrackItemSource());
+		assertEquals(
+				expected.getTrackItemComment(),
+				actual.getTrackItemComment());
+		assertSamePosition(
+				expected.getLocation(),
+				actual.getLocation());
+		assertEquals(
+				expected.getSpeed(),
+				actual.getSpeed());
+		assertEquals(
+				expected.getCourse(),
+				actual.getCourse());
+		assertEquals(
+				expected.getTrackPointType(),
+				actual.getTrackPointType());
+		assertEquals(
+				expected.getTrackPointSource(),
+				actual.getTrackPointSource());
+
+		final TrackPointDetail expectedDetail = expected.getDetail();
+		final TrackPointDetail actualDetail = actual.getDetail();
+		if (expectedDetail == null) {
+			assertNull(actualDetail);
+			return;
+		}
+		assertNotNull(actualDetail);
+		assertSamePosition(
+				expectedDetail.getLocation(),
+				actualDetail.getLocation());
+		assertEquals(
+				expectedDetail.getVelocityX(),
+				actualDetail.getVelocityX());
+		assertEquals(
+				expectedDetail.getVelocityY(),
+				actualDetail.getVelocityY());
+		assertEquals(
+				expectedDetail.getVelocityZ(),
+				actualDetail.getVelocityZ());
+		assertEquals(
+				expectedDetail.getAccelerationX(),
+				actualDetail.getAccelerationX());
+		assertEquals(
+				expectedDetail.getAccelerationY(),
+				actualDetail.getAccelerationY());
+		assertEquals(
+				expectedDetail.getAccelerationZ(),
+				actualDetail.getAccelerationZ());
+		final CovarianceMatrix expectedCov = expectedDetail.getCovarianceMatrix();
+		final CovarianceMatrix actualCov = actualDetail.getCovarianceMatrix();
+		assertTrue((expectedCov == null) == (actualCov == null));
+		if (expectedCov != null) {
+			assertEquals(
+					expectedCov.getCovPosXPosX(),
+					actualCov.getCovPosXPosX());
+			assertEquals(
+					expectedCov.getCovPosYPosY(),
+					actualCov.getCovPosYPosY());
+			assertEquals(
+					expectedCov.getCovPosZPosZ(),
+					actualCov.getCovPosZPosZ());
+			assertEquals(
+					expectedCov.getCovPosXPosY(),
+					actualCov.getCovPosXPosY());
+			assertEquals(
+					expectedCov.getCovVelXVelX(),
+					actualCov.getCovVelXVelX());
+			assertEquals(
+					expectedCov.getCovVelYVelY(),
+					actualCov.getCovVelYVelY());
+		}
+	}
+
+	private static void assertSamePosition(
+			final GeodeticPosition expected,
+			final GeodeticPosition actual ) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(
+				expected.latitude,
+				actual.latitude);
+		assertEquals(
+				expected.longitude,
+				actual.longitude);
+		assertEquals(
+				expected.elevation,
+				actual.elevation);
+	}
+
+	private static void assertSameSecurity(
+			final Security expected,
+			final Security actual ) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(
+				expected.getClassification(),
+				actual.getClassification());
+		assertEquals(
+				expected.getPolicyName(),
+				actual.getPolicyName());
+		assertEquals(
+				expected.getControlSystem(),
+				actual.getControlSystem());
+		assertEquals(
+				expected.getDissemination(),
+				actual.getDissemination());
+		assertEquals(
+				expected.getReleasability(),
+				actual.getReleasability());
+	}
+
+	private static void assertSameIDdata(
+			final IDdata expected,
+			final IDdata actual ) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(
+				expected.getStationId(),
+				actual.getStationId());
+		assertEquals(
+				expected.getNationality(),
+				actual.getNationality());
+	}
+}
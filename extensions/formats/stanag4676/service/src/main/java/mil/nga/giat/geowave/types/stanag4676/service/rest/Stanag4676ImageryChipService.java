@@ -2,14 +2,20 @@ package mil.nga.giat.geowave.types.stanag4676.service.rest;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.Calendar;
-import java.util.Map.Entry;
+import java.util.Deque;
 import java.util.TimeZone;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.imageio.ImageIO;
 import javax.servlet.ServletContext;
@@ -19,8 +25,10 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import mil.nga.giat.geowave.core.index.ByteArrayId;
 import mil.nga.giat.geowave.core.index.ByteArrayUtils;
@@ -38,15 +46,24 @@ import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.log4j.Logger;
 
-import com.google.common.io.Files;
 import com.xuggle.mediatool.IMediaWriter;
 import com.xuggle.mediatool.ToolFactory;
 import com.xuggle.xuggler.ICodec;
+import com.xuggle.xuggler.IContainer;
+import com.xuggle.xuggler.IContainerFormat;
 
 @Path("stanag4676")
 public class Stanag4676ImageryChipService
 {
 	private static Logger LOGGER = Logger.getLogger(Stanag4676ImageryChipService.class);
+	private static final int DECODE_THREADS = Math.max(
+			1,
+			Math.min(
+					4,
+					Runtime.getRuntime().availableProcessors()));
+	// the number of image chips being decoded or waiting to be encoded
+	private static final int MAX_IN_FLIGHT_FRAMES = DECODE_THREADS * 2;
+	private static ExecutorService decodeExecutor;
 	@Context
 	ServletContext context;
 	private static DataStore dataStore;
@@ -155,104 +172,260 @@ public class Stanag4676ImageryChipService
 								ImageChipUtils.getTrackDataIdPrefix(
 										mission,
 										track).getBytes())));
-		final TreeMap<Long, BufferedImage> imageChips = new TreeMap<Long, BufferedImage>();
-		int width = -1;
-		int height = -1;
+		final ImageChip firstImageChip = nextImageChip(imageChipIt);
+		if (firstImageChip == null) {
+			closeQuietly(imageChipIt);
+			return Response.noContent().entity(
+					"Cannot find image chips with mission = '" + mission + "', track = '" + track + "'").build();
+		}
+		// the video is encoded as it is written to the response so that
+		// neither the decoded track nor the encoded video is held in full
+		return Response.ok().entity(
+				new VideoStreamingOutput(
+						mission,
+						track,
+						firstImageChip,
+						imageChipIt,
+						targetPixelSize,
+						speed)).type(
+				"video/webm").build();
+	}
+
+	private static ImageChip nextImageChip(
+			final CloseableIterator<Object> imageChipIt ) {
 		while (imageChipIt.hasNext()) {
 			final Object imageChipObj = imageChipIt.next();
 			if ((imageChipObj != null) && (imageChipObj instanceof ImageChip)) {
-				final ImageChip imageChip = (ImageChip) imageChipObj;
-				final BufferedImage image = imageChip.getImage(targetPixelSize);
-				if ((width < 0) || (image.getWidth() > width)) {
-					width = image.getWidth();
-				}
-				if ((height < 0) || (image.getHeight() > height)) {
-					height = image.getHeight();
-				}
-				imageChips.put(
-						imageChip.getTimeMillis(),
-						image);
+				return (ImageChip) imageChipObj;
 			}
 		}
-		if (!imageChips.isEmpty()) {
-			try {
-				final File responseBody = buildVideo(
-						mission,
-						track,
-						imageChips,
-						width,
-						height,
-						speed);
-				try (FileInputStream fis = new FileInputStream(
-						responseBody) {
-					@Override
-					public void close()
-							throws IOException {
-						super.close();
-						// try to delete the file immediately after it
-						// is returned
-						if (!responseBody.delete()) {
-							LOGGER.warn("Cannot delete response body");
-						}
+		return null;
+	}
 
-						if (!responseBody.getParentFile().delete()) {
-							LOGGER.warn("Cannot delete response body's parent file");
+	private static void closeQuietly(
+			final CloseableIterator<Object> imageChipIt ) {
+		try {
+			imageChipIt.close();
+		}
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Unable to close image chip iterator",
+					e);
+		}
+	}
+
+	private static synchronized ExecutorService getDecodeExecutor() {
+		if (decodeExecutor == null) {
+			decodeExecutor = Executors.newFixedThreadPool(
+					DECODE_THREADS,
+					new ThreadFactory() {
+						private final AtomicInteger threadCount = new AtomicInteger();
+
+						@Override
+						public Thread newThread(
+								final Runnable r ) {
+							final Thread thread = new Thread(
+									r,
+									"geowave-4676-video-" + threadCount.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
 						}
+					});
+		}
+		return decodeExecutor;
+	}
+
+	/**
+	 * Decodes and scales the image chips of a track on the shared worker pool
+	 * and encodes them in time order directly to the response. The prefix scan
+	 * returns the chips of a track ordered by time, so only a bounded number of
+	 * frames are ever in flight.
+	 */
+	private static class VideoStreamingOutput implements
+			StreamingOutput
+	{
+		private final String mission;
+		private final String track;
+		private final ImageChip firstImageChip;
+		private final CloseableIterator<Object> imageChipIt;
+		private final int targetPixelSize;
+		private final double timeNormalizationFactor;
+
+		private IMediaWriter writer;
+		private int width;
+		private int height;
+		private long startTime;
+		private long lastTime;
+
+		public VideoStreamingOutput(
+				final String mission,
+				final String track,
+				final ImageChip firstImageChip,
+				final CloseableIterator<Object> imageChipIt,
+				final int targetPixelSize,
+				final double timeScaleFactor ) {
+			this.mission = mission;
+			this.track = track;
+			this.firstImageChip = firstImageChip;
+			this.imageChipIt = imageChipIt;
+			this.targetPixelSize = targetPixelSize;
+			timeNormalizationFactor = 1.0 / timeScaleFactor;
+		}
+
+		@Override
+		public void write(
+				final OutputStream output )
+				throws IOException,
+				WebApplicationException {
+			final ExecutorService executor = getDecodeExecutor();
+			final Deque<Future<Frame>> frames = new ArrayDeque<Future<Frame>>();
+			try {
+				ImageChip imageChip = firstImageChip;
+				while (imageChip != null) {
+					frames.add(executor.submit(new DecodeTask(
+							imageChip,
+							targetPixelSize)));
+					if (frames.size() >= MAX_IN_FLIGHT_FRAMES) {
+						encode(
+								output,
+								frames.poll().get());
 					}
-				}) {
-					return Response.ok().entity(
-							fis).type(
-							"video/webm").build();
+					imageChip = nextImageChip(imageChipIt);
+				}
+				while (!frames.isEmpty()) {
+					encode(
+							output,
+							frames.poll().get());
 				}
 			}
-			catch (final IOException e) {
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(
+						"Video generation interrupted for mission = '" + mission + "', track = '" + track + "'",
+						e);
+			}
+			catch (final ExecutionException | RuntimeException e) {
+				// the encoder reports a failure to write to the response as a
+				// runtime exception
 				LOGGER.error(
-						"Unable to write video file",
+						"Unable to write video",
+						e);
+				throw new IOException(
+						"Video generation failed for mission = '" + mission + "', track = '" + track + "'",
 						e);
-				Response.serverError().entity(
-						"Video generation failed for mission = '" + mission + "', track = '" + track + "'").build();
+			}
+			finally {
+				for (final Future<Frame> frame : frames) {
+					frame.cancel(true);
+				}
+				closeQuietly(imageChipIt);
+				if (writer != null) {
+					try {
+						writer.close();
+					}
+					catch (final RuntimeException e) {
+						LOGGER.warn(
+								"Unable to close video writer",
+								e);
+					}
+				}
 			}
 		}
-		return Response.noContent().entity(
-				"Cannot find image chips with mission = '" + mission + "', track = '" + track + "'").build();
+
+		private void encode(
+				final OutputStream output,
+				final Frame frame ) {
+			if (frame.image == null) {
+				return;
+			}
+			if (writer == null) {
+				// the first frame sets the dimensions of the video
+				width = frame.image.getWidth();
+				height = frame.image.getHeight();
+				startTime = frame.timeMillis;
+				lastTime = frame.timeMillis;
+				writer = createWriter(
+						output,
+						width,
+						height);
+			}
+			else if (frame.timeMillis < lastTime) {
+				LOGGER.warn("Skipping out of order image chip at " + frame.timeMillis + " for mission = '" + mission + "', track = '" + track + "'");
+				return;
+			}
+			lastTime = frame.timeMillis;
+			writer.encodeVideo(
+					0,
+					ImageChipUtils.getScaledImageOfType(
+							frame.image,
+							width,
+							height,
+							BufferedImage.TYPE_3BYTE_BGR),
+					(long) ((frame.timeMillis - startTime) * timeNormalizationFactor),
+					TimeUnit.MILLISECONDS);
+		}
 	}
 
-	private static File buildVideo(
-			final String mission,
-			final String track,
-			final TreeMap<Long, BufferedImage> data,
+	private static IMediaWriter createWriter(
+			final OutputStream output,
 			final int width,
-			final int height,
-			final double timeScaleFactor )
-			throws IOException {
-		final File videoFileDir = Files.createTempDir();
-		videoFileDir.deleteOnExit();
-		final File videoFile = new File(
-				videoFileDir,
-				mission + "_" + track + ".webm");
-		videoFile.deleteOnExit();
-		final IMediaWriter writer = ToolFactory.makeWriter(videoFile.getAbsolutePath());
+			final int height ) {
+		final IContainerFormat format = IContainerFormat.make();
+		format.setOutputFormat(
+				"webm",
+				null,
+				"video/webm");
+		final IContainer container = IContainer.make();
+		if (container.open(
+				output,
+				format) < 0) {
+			throw new IllegalStateException(
+					"Unable to open video stream");
+		}
+		final IMediaWriter writer = ToolFactory.makeWriter(
+				"stanag4676.webm",
+				container);
 		writer.addVideoStream(
 				0,
 				0,
 				ICodec.ID.CODEC_ID_VP8,
 				width,
 				height);
-		final Long startTime = data.firstKey();
+		return writer;
+	}
 
-		final double timeNormalizationFactor = 1.0 / timeScaleFactor;
+	private static class Frame
+	{
+		private final long timeMillis;
+		private final BufferedImage image;
 
-		for (final Entry<Long, BufferedImage> e : data.entrySet()) {
-			if ((e.getValue().getWidth() == width) && (e.getValue().getHeight() == height)) {
-				writer.encodeVideo(
-						0,
-						e.getValue(),
-						(long) ((e.getKey() - startTime) * timeNormalizationFactor),
-						TimeUnit.MILLISECONDS);
-			}
+		public Frame(
+				final long timeMillis,
+				final BufferedImage image ) {
+			this.timeMillis = timeMillis;
+			this.image = image;
+		}
+	}
+
+	private static class DecodeTask implements
+			Callable<Frame>
+	{
+		private final ImageChip imageChip;
+		private final int targetPixelSize;
+
+		public DecodeTask(
+				final ImageChip imageChip,
+				final int targetPixelSize ) {
+			this.imageChip = imageChip;
+			this.targetPixelSize = targetPixelSize;
+		}
+
+		@Override
+		public Frame call() {
+			return new Frame(
+					imageChip.getTimeMillis(),
+					imageChip.getImage(targetPixelSize));
 		}
-		writer.close();
-		return videoFile;
 	}
 
 	private static synchronized DataStore getSingletonInstance() {
@@ -1,11 +1,7 @@
 package mil.nga.giat.geowave.format.tdrive;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -13,6 +9,7 @@ import java.util.List;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.adapter.vector.ingest.AbstractSimpleFeatureIngestPlugin;
+import mil.nga.giat.geowave.adapter.vector.ingest.TrajectoryTextReader;
 import mil.nga.giat.geowave.adapter.vector.utils.SimpleFeatureUserDataConfigurationSet;
 import mil.nga.giat.geowave.core.geotime.GeometryUtils;
 import mil.nga.giat.geowave.core.geotime.IndexType;
@@ -32,7 +29,6 @@ import org.apache.avro.Schema;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
-import org.mortbay.log.Log;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
@@ -46,21 +42,26 @@ public class TdriveIngestPlugin extends
 
 	private final static Logger LOGGER = Logger.getLogger(TdriveIngestPlugin.class);
 
-	private final SimpleFeatureBuilder tdrivepointBuilder;
 	private final SimpleFeatureType tdrivepointType;
 
 	private final ByteArrayId pointKey;
 
 	private final Index[] supportedIndices;
 
+	private final ThreadLocal<SimpleFeatureBuilder> pointBuilder = new ThreadLocal<SimpleFeatureBuilder>() {
+		@Override
+		protected SimpleFeatureBuilder initialValue() {
+			return new SimpleFeatureBuilder(
+					tdrivepointType);
+		}
+	};
+
 	public TdriveIngestPlugin() {
 
 		tdrivepointType = TdriveUtils.createTdrivePointDataType();
 
 		pointKey = new ByteArrayId(
 				StringUtils.stringToBinary(TdriveUtils.TDRIVE_POINT_FEATURE));
-		tdrivepointBuilder = new SimpleFeatureBuilder(
-				tdrivepointType);
 		supportedIndices = new Index[] {
 			IndexType.SPATIAL_VECTOR.createDefaultIndex(),
 			IndexType.SPATIAL_TEMPORAL_VECTOR.createDefaultIndex()
@@ -112,56 +113,37 @@ public class TdriveIngestPlugin extends
 	@Override
 	public TdrivePoint[] toAvroObjects(
 			final File input ) {
-		BufferedReader fr = null;
-		BufferedReader br = null;
 		long pointInstance = 0l;
 		final List<TdrivePoint> pts = new ArrayList<TdrivePoint>();
+		TrajectoryTextReader reader = null;
 		try {
-			fr = new BufferedReader(
-					new InputStreamReader(
-							new FileInputStream(
-									input),
-							StringUtils.UTF8_CHAR_SET));
-			br = new BufferedReader(
-					fr);
-			String line;
-			try {
-				while ((line = br.readLine()) != null) {
-
-					final String[] vals = line.split(",");
-					final TdrivePoint td = new TdrivePoint();
-					td.setTaxiid(Integer.parseInt(vals[0]));
-					try {
-						td.setTimestamp(TdriveUtils.parseDate(
-								vals[1]).getTime());
-					}
-					catch (final ParseException e) {
-						td.setTimestamp(0l);
-						LOGGER.warn(
-								"Couldn't parse time format: " + vals[1],
-								e);
-					}
-					td.setLongitude(Double.parseDouble(vals[2]));
-					td.setLatitude(Double.parseDouble(vals[3]));
-					td.setPointinstance(pointInstance);
-					pts.add(td);
-					pointInstance++;
+			reader = TrajectoryTextReader.open(input);
+			while (reader.nextLine()) {
+				final TdrivePoint td = new TdrivePoint();
+				td.setTaxiid(reader.getInt(0));
+				try {
+					td.setTimestamp(reader.getTimestamp(1));
 				}
-			}
-			catch (final IOException e) {
-				Log.warn(
-						"Error reading line from file: " + input.getName(),
-						e);
+				catch (final ParseException e) {
+					td.setTimestamp(0l);
+					LOGGER.warn(
+							"Couldn't parse time format: " + reader.getString(1),
+							e);
+				}
+				td.setLongitude(reader.getDouble(2));
+				td.setLatitude(reader.getDouble(3));
+				td.setPointinstance(pointInstance);
+				pts.add(td);
+				pointInstance++;
 			}
 		}
-		catch (final FileNotFoundException e) {
-			Log.warn(
-					"Error parsing tdrive file: " + input.getName(),
+		catch (final IOException e) {
+			LOGGER.warn(
+					"Error reading line from file: " + input.getName(),
 					e);
 		}
 		finally {
-			IOUtils.closeQuietly(br);
-			IOUtils.closeQuietly(fr);
+			IOUtils.closeQuietly(reader);
 		}
 		return pts.toArray(new TdrivePoint[pts.size()]);
 	}
@@ -192,7 +174,10 @@ public class TdriveIngestPlugin extends
 
 		final List<GeoWaveData<SimpleFeature>> featureData = new ArrayList<GeoWaveData<SimpleFeature>>();
 
-		// tdrivepointBuilder = new SimpleFeatureBuilder(tdrivepointType);
+		// the builder is not thread-safe and points may be ingested
+		// concurrently, so each thread reuses its own
+		final SimpleFeatureBuilder tdrivepointBuilder = pointBuilder.get();
+		tdrivepointBuilder.reset();
 		tdrivepointBuilder.set(
 				"geometry",
 				GeometryUtils.GEOMETRY_FACTORY.createPoint(new Coordinate(
@@ -21,6 +21,9 @@ abstract public class KafkaTestEnvironment<I> extends
 {
 	private final static Logger LOGGER = Logger.getLogger(KafkaTestEnvironment.class);
 	private final static String MAX_MESSAGE_BYTES = "5000000";
+	// the consumer client ID defaults to the group ID
+	protected final static String KAFKA_GROUP_ID = "testGroup";
+	protected final static int KAFKA_PARTITIONS = 4;
 
 	protected static KafkaServerStartable kafkaServer;
 	protected static final File DEFAULT_LOG_DIR = new File(
@@ -52,7 +55,7 @@ abstract public class KafkaTestEnvironment<I> extends
 			final String ingestFilePath ) {
 		LOGGER.warn("Ingesting '" + ingestFilePath + "' - this may take several minutes...");
 		final String[] args = StringUtils.split(
-				"-kafkaingest -f gpx -consumerTimeoutMs 5000 -reconnectOnTimeout -groupId testGroup -autoOffsetReset smallest -fetchMessageMaxBytes " + MAX_MESSAGE_BYTES + " -zookeeperConnect " + zookeeper + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal"),
+				"-kafkaingest -f gpx -consumerTimeoutMs 5000 -reconnectOnTimeout -groupId " + KAFKA_GROUP_ID + " -autoOffsetReset smallest -fetchMessageMaxBytes " + MAX_MESSAGE_BYTES + " -zookeeperConnect " + zookeeper + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal"),
 				' ');
 		GeoWaveMain.main(args);
 	}
@@ -95,7 +98,7 @@ abstract public class KafkaTestEnvironment<I> extends
 				MAX_MESSAGE_BYTES);
 		props.put(
 				"num.partitions",
-				"1");
+				Integer.toString(KAFKA_PARTITIONS));
 		return new KafkaConfig(
 				props);
 	}
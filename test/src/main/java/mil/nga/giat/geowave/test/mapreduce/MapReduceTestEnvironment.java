@@ -33,13 +33,28 @@ abstract public class MapReduceTestEnvironment extends
 	protected void testMapReduceIngest(
 			final IndexType indexType,
 			final String ingestFilePath ) {
+		testMapReduceIngest(
+				indexType,
+				ingestFilePath,
+				null);
+	}
+
+	/**
+	 * @param bulkIngestDirectory
+	 *            the work directory to bulk load through, or null to write
+	 *            through the tablet servers
+	 */
+	protected void testMapReduceIngest(
+			final IndexType indexType,
+			final String ingestFilePath,
+			final String bulkIngestDirectory ) {
 		// ingest gpx data directly into GeoWave using the
 		// ingest framework's main method and pre-defined commandline arguments
 		LOGGER.warn("Ingesting '" + ingestFilePath + "' - this may take several minutes...");
 		String[] args = null;
 		synchronized (MUTEX) {
 			args = StringUtils.split(
-					"-hdfsingest -f gpx -hdfs " + hdfs + " -hdfsbase " + hdfsBaseDirectory + " -jobtracker " + jobtracker + " -b " + ingestFilePath + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal"),
+					"-hdfsingest -f gpx -hdfs " + hdfs + " -hdfsbase " + hdfsBaseDirectory + " -jobtracker " + jobtracker + " -b " + ingestFilePath + " -z " + zookeeper + " -i " + accumuloInstance + " -u " + accumuloUser + " -p " + accumuloPassword + " -n " + TEST_NAMESPACE + " -dim " + (indexType.equals(IndexType.SPATIAL_VECTOR) ? "spatial" : "spatial-temporal") + (bulkIngestDirectory == null ? "" : " -bulkdir " + bulkIngestDirectory),
 					' ');
 		}
 		GeoWaveMain.main(args);
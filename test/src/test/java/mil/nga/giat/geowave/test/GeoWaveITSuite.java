@@ -1,6 +1,7 @@
 package mil.nga.giat.geowave.test;
 
 import mil.nga.giat.geowave.test.mapreduce.BasicMapReduceIT;
+import mil.nga.giat.geowave.test.mapreduce.BulkIngestIT;
 import mil.nga.giat.geowave.test.mapreduce.DBScanIT;
 import mil.nga.giat.geowave.test.mapreduce.GeoWaveKMeansIT;
 import mil.nga.giat.geowave.test.mapreduce.KDERasterResizeIT;
@@ -22,6 +23,7 @@ import org.junit.runners.Suite.SuiteClasses;
 	GeoWaveFeatureCollectionIT.class,
 	GeoWaveRasterIT.class,
 	BasicMapReduceIT.class,
+	BulkIngestIT.class,
 	KDERasterResizeIT.class,
 	GeoWaveKMeansIT.class,
 	GeoServerIT.class,
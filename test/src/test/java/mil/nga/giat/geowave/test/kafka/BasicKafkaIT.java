@@ -5,6 +5,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
 import mil.nga.giat.geowave.adapter.vector.stats.FeatureBoundingBoxStatistics;
@@ -12,6 +13,7 @@ import mil.nga.giat.geowave.core.geotime.IndexType;
 import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
 import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
 import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.ingest.kafka.KafkaIngestRunData;
 import mil.nga.giat.geowave.core.store.CloseableIterator;
 import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
 import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
@@ -58,6 +60,21 @@ public class BasicKafkaIT extends
 				OSM_GPX_INPUT_DIR);
 		// wait a sufficient time for consumers to ingest all of the data
 		Thread.sleep(60000);
+		// the consumer is still connected, so its fetchers report the lag of
+		// every partition, which is none once all of the data is consumed
+		final Map<Integer, Long> lag = KafkaIngestRunData.getConsumerLag(
+				KAFKA_GROUP_ID,
+				"gpx");
+		assertEquals(
+				"The consumer should report the lag of every partition",
+				KAFKA_PARTITIONS,
+				lag.size());
+		for (final Entry<Integer, Long> partitionLag : lag.entrySet()) {
+			assertEquals(
+					"Partition " + partitionLag.getKey() + " should have been consumed",
+					0,
+					partitionLag.getValue().longValue());
+		}
 		final DataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
 				accumuloOperations);
 		final AdapterStore adapterStore = new AccumuloAdapterStore(
@@ -0,0 +1,232 @@
+package mil.nga.giat.geowave.test.mapreduce;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.stats.FeatureBoundingBoxStatistics;
+import mil.nga.giat.geowave.core.geotime.IndexType;
+import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
+import mil.nga.giat.geowave.core.geotime.store.statistics.BoundingBoxDataStatistics;
+import mil.nga.giat.geowave.core.index.ByteArrayId;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy;
+import mil.nga.giat.geowave.core.index.HierarchicalNumericIndexStrategy.SubStrategy;
+import mil.nga.giat.geowave.core.index.StringUtils;
+import mil.nga.giat.geowave.core.store.CloseableIterator;
+import mil.nga.giat.geowave.core.store.adapter.AdapterStore;
+import mil.nga.giat.geowave.core.store.adapter.DataAdapter;
+import mil.nga.giat.geowave.core.store.adapter.statistics.CountDataStatistics;
+import mil.nga.giat.geowave.core.store.adapter.statistics.DataStatisticsStore;
+import mil.nga.giat.geowave.core.store.index.Index;
+import mil.nga.giat.geowave.datastore.accumulo.AccumuloDataStore;
+import mil.nga.giat.geowave.datastore.accumulo.BasicAccumuloOperations;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloAdapterStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloDataStatisticsStore;
+import mil.nga.giat.geowave.datastore.accumulo.metadata.AccumuloIndexStore;
+import mil.nga.giat.geowave.datastore.accumulo.util.AccumuloUtils;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+public class BulkIngestIT extends
+		MapReduceTestBase
+{
+	private final static Logger LOGGER = Logger.getLogger(BulkIngestIT.class);
+	private static final Index INDEX = IndexType.SPATIAL_VECTOR.createDefaultIndex();
+	private static final Map<ByteArrayId, Integer> EXPECTED_COUNT_PER_ADAPTER_ID = new HashMap<ByteArrayId, Integer>();
+	static {
+		EXPECTED_COUNT_PER_ADAPTER_ID.put(
+				new ByteArrayId(
+						"gpxpoint"),
+				137291);
+		EXPECTED_COUNT_PER_ADAPTER_ID.put(
+				new ByteArrayId(
+						"gpxtrack"),
+				257);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testBulkIngestOsmGpx()
+			throws Exception {
+		try {
+			accumuloOperations.deleteAll();
+		}
+		catch (final Exception ex) {
+			LOGGER.error(
+					"Unable to clear accumulo namespace",
+					ex);
+			Assert.fail("Index not deleted successfully");
+		}
+		final String tableName = StringUtils.stringFromBinary(INDEX.getId().getBytes());
+		final String altIndexTableName = tableName + AccumuloUtils.ALT_INDEX_TABLE;
+		final String qualifiedTableName = AccumuloUtils.getQualifiedTableName(
+				TEST_NAMESPACE,
+				tableName);
+		// pre-split the table so that the RFiles are partitioned over several
+		// tablets, and create the alternate index so that it is bulk loaded
+		accumuloOperations.createTable(tableName);
+		accumuloOperations.createTable(altIndexTableName);
+		final SortedSet<Text> splits = getSplits();
+		final BasicAccumuloOperations operations = (BasicAccumuloOperations) accumuloOperations;
+		operations.getConnector().tableOperations().addSplits(
+				qualifiedTableName,
+				splits);
+
+		final String bulkIngestDirectory = hdfsBaseDirectory + "/bulk";
+		testMapReduceIngest(
+				IndexType.SPATIAL_VECTOR,
+				OSM_GPX_INPUT_DIR,
+				bulkIngestDirectory);
+
+		assertEquals(
+				"The bulk load should not change the splits of the table",
+				splits.size(),
+				operations.getConnector().tableOperations().listSplits(
+						qualifiedTableName).size());
+		final FileSystem fs = FileSystem.get(getConfiguration());
+		assertFalse(
+				"The work directory should be removed once the RFiles are imported",
+				fs.exists(new Path(
+						new Path(
+								bulkIngestDirectory,
+								"gpx"),
+						tableName)));
+
+		final DataStatisticsStore statsStore = new AccumuloDataStatisticsStore(
+				accumuloOperations);
+		final AdapterStore adapterStore = new AccumuloAdapterStore(
+				accumuloOperations);
+		final mil.nga.giat.geowave.core.store.DataStore geowaveStore = new AccumuloDataStore(
+				new AccumuloIndexStore(
+						accumuloOperations),
+				adapterStore,
+				statsStore,
+				accumuloOperations);
+		int adapterCount = 0;
+		try (CloseableIterator<DataAdapter<?>> adapterIterator = adapterStore.getAdapters()) {
+			while (adapterIterator.hasNext()) {
+				final FeatureDataAdapter adapter = (FeatureDataAdapter) adapterIterator.next();
+				// the statistics computed by the mappers are merged once the
+				// RFiles are imported
+				final CountDataStatistics<?> countStat = (CountDataStatistics<SimpleFeature>) statsStore.getDataStatistics(
+						adapter.getAdapterId(),
+						CountDataStatistics.STATS_ID);
+				final BoundingBoxDataStatistics<?> bboxStat = (BoundingBoxDataStatistics<SimpleFeature>) statsStore.getDataStatistics(
+						adapter.getAdapterId(),
+						FeatureBoundingBoxStatistics.composeId(adapter.getType().getGeometryDescriptor().getLocalName()));
+				assertEquals(
+						"'" + adapter.getAdapterId().getString() + "' adapter count statistic does not match the expected count",
+						EXPECTED_COUNT_PER_ADAPTER_ID.get(adapter.getAdapterId()).longValue(),
+						countStat.getCount());
+
+				// every entry is found by a query of the full bounding box
+				int resultCount = 0;
+				try (CloseableIterator<?> results = geowaveStore.query(
+						adapter,
+						INDEX,
+						new SpatialQuery(
+								new GeometryFactory().toGeometry(new Envelope(
+										bboxStat.getMinX(),
+										bboxStat.getMaxX(),
+										bboxStat.getMinY(),
+										bboxStat.getMaxY()))))) {
+					while (results.hasNext()) {
+						results.next();
+						resultCount++;
+					}
+				}
+				assertEquals(
+						"'" + adapter.getAdapterId().getString() + "' adapter should have the same results from a spatial query of its bounding box as its total count statistic",
+						countStat.getCount(),
+						resultCount);
+				adapterCount++;
+			}
+		}
+		assertEquals(
+				"There should be exactly two adapters",
+				2,
+				adapterCount);
+
+		// the alternate index has an entry for each row of the index table
+		final Set<Text> rows = new HashSet<Text>();
+		final Scanner scanner = accumuloOperations.createScanner(tableName);
+		for (final Entry<Key, Value> entry : scanner) {
+			rows.add(entry.getKey().getRow());
+		}
+		long altIndexEntries = 0;
+		final Scanner altIndexScanner = accumuloOperations.createScanner(altIndexTableName);
+		for (final Entry<Key, Value> entry : altIndexScanner) {
+			assertTrue(
+					"The alternate index should only refer to rows of the index table",
+					rows.contains(new Text(
+							entry.getKey().getColumnQualifier())));
+			altIndexEntries++;
+		}
+		assertEquals(
+				rows.size(),
+				altIndexEntries);
+	}
+
+	/**
+	 * @return a split at the start of each tier of the index and splits within
+	 *         the finest tier, which holds all of the points
+	 */
+	private static SortedSet<Text> getSplits() {
+		final SortedSet<Text> splits = new TreeSet<Text>();
+		SubStrategy finestTier = null;
+		double finestRange = Double.MAX_VALUE;
+		for (final SubStrategy tier : ((HierarchicalNumericIndexStrategy) INDEX.getIndexStrategy()).getSubStrategies()) {
+			if (tier.getPrefix().length > 0) {
+				splits.add(new Text(
+						tier.getPrefix()));
+			}
+			double range = 0;
+			for (final double dimensionRange : tier.getIndexStrategy().getHighestPrecisionIdRangePerDimension()) {
+				range += dimensionRange;
+			}
+			if (range < finestRange) {
+				finestRange = range;
+				finestTier = tier;
+			}
+		}
+		for (final int split : new int[] {
+			0x40,
+			0x80,
+			0xC0
+		}) {
+			final byte[] prefix = finestTier.getPrefix();
+			final byte[] row = new byte[prefix.length + 1];
+			System.arraycopy(
+					prefix,
+					0,
+					row,
+					0,
+					prefix.length);
+			row[prefix.length] = (byte) split;
+			splits.add(new Text(
+					row));
+		}
+		return splits;
+	}
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.UUID;
 
 import mil.nga.giat.geowave.adapter.vector.FeatureDataAdapter;
+import mil.nga.giat.geowave.adapter.vector.VectorDataStore;
 import mil.nga.giat.geowave.core.geotime.GeometryUtils;
 import mil.nga.giat.geowave.core.geotime.IndexType;
 import mil.nga.giat.geowave.core.geotime.store.query.SpatialQuery;
@@ -22,6 +23,8 @@ import org.apache.log4j.Logger;
 import org.geotools.data.DataUtilities;
 import org.geotools.feature.SchemaException;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.cql2.CQLException;
+import org.geotools.filter.text.ecql.ECQL;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -150,6 +153,37 @@ public class AttributesSubsetQueryIT extends
 				attributesSubset);
 	}
 
+	@Test
+	public void testResultsContainCityAndFilterAttributes()
+			throws IOException,
+			CQLException {
+
+		final List<String> attributesSubset = Arrays.asList(CITY_ATTRIBUTE);
+
+		final CloseableIterator<SimpleFeature> results = new VectorDataStore(
+				accumuloOperations).query(
+				dataAdapter,
+				INDEX,
+				new SpatialQuery(
+						GeometryUtils.GEOMETRY_FACTORY.toGeometry(new Envelope(
+								GUADALAJARA,
+								ATLANTA))),
+				ECQL.toFilter(POPULATION_ATTRIBUTE + " > 2000000"),
+				null,
+				new QueryOptions(
+						attributesSubset));
+
+		// query expects to match Houston, which should contain non-null values
+		// for the requested attribute (city) and the attribute used by the
+		// filter (population) and nulls for the rest
+		verifyResults(
+				results,
+				1,
+				Arrays.asList(
+						CITY_ATTRIBUTE,
+						POPULATION_ATTRIBUTE));
+	}
+
 	private void verifyResults(
 			final CloseableIterator<SimpleFeature> results,
 			final int numExpectedResults,